@@ -0,0 +1,308 @@
+package Data;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable set of positions between 0 and a fixed size, used by the type indexes.
+ * Each bitmap picks the smaller of two forms when it is built: a sorted array of positions when few
+ * positions are set, or one bit per position otherwise. Combining bitmaps and visiting their positions
+ * cost time in proportion to the smaller form, so a selective query touches little more than its matches.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cBitmap
+{
+    /**
+     * Number of positions per word of the bit form.
+     */
+    private static final int WORD_SIZE = 64;
+
+    /**
+     * Number of positions covered by the bitmap.
+     */
+    private final int mSize;
+
+    /**
+     * One bit per position, or null if the bitmap is in the sorted array form.
+     */
+    private final long[] mWords;
+
+    /**
+     * Set positions in increasing order, or null if the bitmap is in the bit form.
+     */
+    private final int[] mPositions;
+
+    /**
+     * Number of set positions.
+     */
+    private final int mCardinality;
+
+    /**
+     * Constructs a bitmap from one of its forms.
+     *
+     * @param size the number of positions covered
+     * @param words the bit form, or null
+     * @param positions the sorted array form, or null
+     * @param cardinality the number of set positions
+     */
+    private cBitmap(int size, long[] words, int[] positions, int cardinality)
+    {
+        mSize = size;
+        mWords = words;
+        mPositions = positions;
+        mCardinality = cardinality;
+    }
+
+    /**
+     * Creates a bitmap of the first count positions of an array.
+     *
+     * @param positions the set positions in increasing order; the array is copied or not kept
+     * @param count the number of positions to use
+     * @param size the number of positions covered
+     * @return the bitmap
+     */
+    static cBitmap Of(int[] positions, int count, int size)
+    {
+        if(!IsDense(count, size))
+        {
+            return new cBitmap(size, null, Arrays.copyOf(positions, count), count);
+        }
+        long[] words = new long[Words(size)];
+        for(int i = 0; i < count; i++)
+        {
+            words[positions[i] / WORD_SIZE] |= 1L << positions[i];
+        }
+        return new cBitmap(size, words, null, count);
+    }
+
+    /**
+     * Creates a bitmap from the bit form, switching to the sorted array form if it is smaller.
+     *
+     * @param words one bit per position; the array is kept or not
+     * @param size the number of positions covered
+     * @return the bitmap
+     */
+    private static cBitmap FromWords(long[] words, int size)
+    {
+        int cardinality = 0;
+        for(long word : words)
+        {
+            cardinality += Long.bitCount(word);
+        }
+        if(IsDense(cardinality, size))
+        {
+            return new cBitmap(size, words, null, cardinality);
+        }
+        int[] positions = new int[cardinality];
+        int count = 0;
+        for(int i = 0; i < words.length; i++)
+        {
+            for(long word = words[i]; word != 0; word &= word - 1)
+            {
+                positions[count++] = i * WORD_SIZE + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return new cBitmap(size, null, positions, cardinality);
+    }
+
+    /**
+     * Gets the number of set positions.
+     *
+     * @return the number of set positions
+     */
+    int Cardinality()
+    {
+        return mCardinality;
+    }
+
+    /**
+     * Checks whether a position is set.
+     *
+     * @param position the position
+     * @return true if the position is set
+     */
+    boolean Contains(int position)
+    {
+        if(mWords != null)
+        {
+            return (mWords[position / WORD_SIZE] & (1L << position)) != 0;
+        }
+        return Arrays.binarySearch(mPositions, position) >= 0;
+    }
+
+    /**
+     * Gets the positions set in both bitmaps.
+     *
+     * @param other a bitmap of the same size
+     * @return the intersection
+     */
+    cBitmap And(cBitmap other)
+    {
+        if(mPositions != null || other.mPositions != null)
+        {
+            cBitmap sparse = mPositions != null ? this : other;
+            cBitmap rest = sparse == this ? other : this;
+            return sparse.Filter(rest, true);
+        }
+        long[] words = new long[mWords.length];
+        for(int i = 0; i < words.length; i++)
+        {
+            words[i] = mWords[i] & other.mWords[i];
+        }
+        return FromWords(words, mSize);
+    }
+
+    /**
+     * Gets the positions set in this bitmap but not in the other.
+     *
+     * @param other a bitmap of the same size
+     * @return the difference
+     */
+    cBitmap AndNot(cBitmap other)
+    {
+        if(mPositions != null)
+        {
+            return Filter(other, false);
+        }
+        long[] words = mWords.clone();
+        if(other.mWords != null)
+        {
+            for(int i = 0; i < words.length; i++)
+            {
+                words[i] &= ~other.mWords[i];
+            }
+        }
+        else
+        {
+            for(int position : other.mPositions)
+            {
+                words[position / WORD_SIZE] &= ~(1L << position);
+            }
+        }
+        return FromWords(words, mSize);
+    }
+
+    /**
+     * Gets the positions set in either bitmap.
+     *
+     * @param other a bitmap of the same size
+     * @return the union
+     */
+    cBitmap Or(cBitmap other)
+    {
+        if(mPositions != null && other.mPositions != null)
+        {
+            int[] merged = new int[mCardinality + other.mCardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while(i < mCardinality || j < other.mCardinality)
+            {
+                int next;
+                if(j >= other.mCardinality || (i < mCardinality && mPositions[i] < other.mPositions[j]))
+                {
+                    next = mPositions[i++];
+                }
+                else if(i >= mCardinality || other.mPositions[j] < mPositions[i])
+                {
+                    next = other.mPositions[j++];
+                }
+                else
+                {
+                    next = mPositions[i++];
+                    j++;
+                }
+                merged[count++] = next;
+            }
+            return Of(merged, count, mSize);
+        }
+        cBitmap dense = mWords != null ? this : other;
+        cBitmap rest = dense == this ? other : this;
+        long[] words = dense.mWords.clone();
+        if(rest.mWords != null)
+        {
+            for(int i = 0; i < words.length; i++)
+            {
+                words[i] |= rest.mWords[i];
+            }
+        }
+        else
+        {
+            for(int position : rest.mPositions)
+            {
+                words[position / WORD_SIZE] |= 1L << position;
+            }
+        }
+        return FromWords(words, mSize);
+    }
+
+    /**
+     * Calls an action with each set position, in increasing order.
+     *
+     * @param action the action to call
+     */
+    void ForEach(IntConsumer action)
+    {
+        if(mPositions != null)
+        {
+            for(int position : mPositions)
+            {
+                action.accept(position);
+            }
+            return;
+        }
+        for(int i = 0; i < mWords.length; i++)
+        {
+            for(long word = mWords[i]; word != 0; word &= word - 1)
+            {
+                action.accept(i * WORD_SIZE + Long.numberOfTrailingZeros(word));
+            }
+        }
+    }
+
+    /**
+     * Keeps the positions of this sorted array form bitmap that are, or are not, in another bitmap.
+     *
+     * @param other the bitmap to test against
+     * @param keep true to keep the positions in other, false to keep those not in it
+     * @return the filtered bitmap
+     */
+    private cBitmap Filter(cBitmap other, boolean keep)
+    {
+        int[] positions = new int[mCardinality];
+        int count = 0;
+        for(int position : mPositions)
+        {
+            if(other.Contains(position) == keep)
+            {
+                positions[count++] = position;
+            }
+        }
+        return new cBitmap(mSize, null, count == mCardinality ? positions : Arrays.copyOf(positions, count), count);
+    }
+
+    /**
+     * Checks whether the bit form is smaller than the sorted array form.
+     *
+     * @param cardinality the number of set positions
+     * @param size the number of positions covered
+     * @return true if the bit form is smaller
+     */
+    private static boolean IsDense(int cardinality, int size)
+    {
+        return (long)cardinality * 32 > size;
+    }
+
+    /**
+     * Gets the number of words of the bit form.
+     *
+     * @param size the number of positions covered
+     * @return the number of words
+     */
+    private static int Words(int size)
+    {
+        return (size + WORD_SIZE - 1) / WORD_SIZE;
+    }
+}
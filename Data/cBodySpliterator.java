@@ -0,0 +1,359 @@
+package Data;
+
+import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the stars of a universe, or over the planets or moons of those stars.
+ * The stars are numbered across the whole universe, galaxy after galaxy, and a spliterator covers
+ * a range of those numbers. Splitting halves the range, moving the split to the nearest galaxy
+ * boundary when that keeps both halves at least a quarter of the range, so parallel streams get
+ * even shares of the stars and each share touches as few galaxies as possible.
+ * Star streams know their exact size. Planet and moon streams estimate it from the bodies per star
+ * of a sample of stars taken when the stream is created.
+ * Bodies are read through the unchecked accessors, so streaming does not check indexes or log.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ * @param <T> the type of the streamed bodies, cStar or cPlanet
+ */
+final class cBodySpliterator<T extends cObjectBase> implements Spliterator<T>
+{
+    /**
+     * Bodies produced by a spliterator.
+     */
+    enum eBodies
+    {
+        kStars,
+        kPlanets,
+        kMoons
+    }
+
+    /**
+     * Number of stars sampled to estimate the planets or moons per star.
+     */
+    private static final int SAMPLE_SIZE = 16;
+
+    /**
+     * Smallest range of stars that is split further.
+     */
+    private static final int MIN_SPLIT = 64;
+
+    /**
+     * The universe whose bodies are streamed.
+     */
+    private final cUniverse mUniverse;
+
+    /**
+     * Number of the first star of each galaxy, followed by the total number of stars.
+     */
+    private final int[] mFirstStars;
+
+    /**
+     * Bodies produced by this spliterator.
+     */
+    private final eBodies mBodies;
+
+    /**
+     * Estimated number of bodies produced per star.
+     */
+    private final double mBodiesPerStar;
+
+    /**
+     * Number of the next star to process.
+     */
+    private int mFrom;
+
+    /**
+     * Number of the star after the last one to process.
+     */
+    private final int mTo;
+
+    /**
+     * Index of the galaxy containing star mFrom.
+     */
+    private int mGalaxy;
+
+    /**
+     * Planets or moons of the current star that tryAdvance has not returned yet, or null before the first star.
+     */
+    private ArrayList<T> mPending;
+
+    /**
+     * Index of the next body of mPending to return.
+     */
+    private int mNextPending;
+
+    /**
+     * Constructs a spliterator over all stars of a universe, or over their planets or moons.
+     *
+     * @param universe the universe whose bodies are streamed
+     * @param bodies the bodies to produce
+     */
+    cBodySpliterator(cUniverse universe, eBodies bodies)
+    {
+        int galaxies = universe.GalaxyCount();
+        mUniverse = universe;
+        mBodies = bodies;
+        mFirstStars = new int[galaxies + 1];
+        for(int i = 0; i < galaxies; i++)
+        {
+            mFirstStars[i + 1] = mFirstStars[i] + universe.GalaxyAt(i).StarCount();
+        }
+        mFrom = 0;
+        mTo = mFirstStars[galaxies];
+        mGalaxy = 0;
+        mBodiesPerStar = bodies == eBodies.kStars ? 1 : Sample();
+    }
+
+    /**
+     * Constructs a spliterator over a range of the stars of a parent spliterator.
+     *
+     * @param parent the spliterator being split
+     * @param from the number of the first star of the range
+     * @param to the number of the star after the range
+     * @param galaxy the index of the galaxy containing star from
+     */
+    private cBodySpliterator(cBodySpliterator<T> parent, int from, int to, int galaxy)
+    {
+        mUniverse = parent.mUniverse;
+        mFirstStars = parent.mFirstStars;
+        mBodies = parent.mBodies;
+        mBodiesPerStar = parent.mBodiesPerStar;
+        mFrom = from;
+        mTo = to;
+        mGalaxy = galaxy;
+    }
+
+    /**
+     * Returns the next body, if any, to the action.
+     *
+     * @param action the action to perform on the body
+     * @return true if a body was returned, false if none remain
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action)
+    {
+        if(mBodies == eBodies.kStars)
+        {
+            if(mFrom >= mTo)
+            {
+                return false;
+            }
+            action.accept(Cast(NextStar()));
+            return true;
+        }
+        if(mPending == null)
+        {
+            mPending = new ArrayList<T>();
+        }
+        while(mNextPending >= mPending.size())
+        {
+            if(mFrom >= mTo)
+            {
+                return false;
+            }
+            mPending.clear();
+            mNextPending = 0;
+            Emit(NextStar(), mPending::add);
+        }
+        action.accept(mPending.get(mNextPending++));
+        return true;
+    }
+
+    /**
+     * Returns every remaining body to the action.
+     *
+     * @param action the action to perform on each body
+     */
+    @Override
+    public void forEachRemaining(Consumer<? super T> action)
+    {
+        if(mPending != null)
+        {
+            while(mNextPending < mPending.size())
+            {
+                action.accept(mPending.get(mNextPending++));
+            }
+        }
+        while(mFrom < mTo)
+        {
+            Emit(NextStar(), action);
+        }
+    }
+
+    /**
+     * Splits off the first half of the remaining stars, aligned to a galaxy boundary when that
+     * keeps the halves balanced.
+     *
+     * @return a spliterator over the first half, or null if the range is too small or a star is partly processed
+     */
+    @Override
+    public Spliterator<T> trySplit()
+    {
+        int size = mTo - mFrom;
+        if(size < MIN_SPLIT || (mPending != null && mNextPending < mPending.size()))
+        {
+            return null;
+        }
+        int split = mFrom + size / 2;
+        int galaxy = GalaxyOf(split);
+        int lower = mFirstStars[galaxy];
+        int upper = mFirstStars[galaxy + 1];
+        int boundary = split - lower <= upper - split ? lower : upper;
+        if(boundary - mFrom >= size / 4 && mTo - boundary >= size / 4)
+        {
+            split = boundary;
+        }
+        cBodySpliterator<T> prefix = new cBodySpliterator<T>(this, mFrom, split, mGalaxy);
+        mFrom = split;
+        mGalaxy = GalaxyOf(split);
+        return prefix;
+    }
+
+    /**
+     * Gets the number of remaining bodies, exact for stars and estimated for planets and moons.
+     *
+     * @return the number of remaining bodies
+     */
+    @Override
+    public long estimateSize()
+    {
+        long pending = mPending != null ? mPending.size() - mNextPending : 0;
+        return pending + (long)Math.ceil((mTo - mFrom) * mBodiesPerStar);
+    }
+
+    /**
+     * Gets the characteristics of the spliterator. Stars are sized; planets and moons are not.
+     *
+     * @return the characteristics
+     */
+    @Override
+    public int characteristics()
+    {
+        int characteristics = ORDERED | NONNULL;
+        return mBodies == eBodies.kStars ? characteristics | SIZED | SUBSIZED : characteristics;
+    }
+
+    /**
+     * Gets the star numbered mFrom and moves past it.
+     *
+     * @return the star
+     */
+    private cStar NextStar()
+    {
+        while(mFirstStars[mGalaxy + 1] <= mFrom)
+        {
+            mGalaxy++;
+        }
+        cStar star = mUniverse.GalaxyAt(mGalaxy).StarAt(mFrom - mFirstStars[mGalaxy]);
+        mFrom++;
+        return star;
+    }
+
+    /**
+     * Gets the index of the galaxy containing a star.
+     *
+     * @param star the number of the star, at most the total number of stars
+     * @return the index of the last galaxy whose first star is at or before the star
+     */
+    private int GalaxyOf(int star)
+    {
+        int low = 0;
+        int high = mFirstStars.length - 2;
+        while(low < high)
+        {
+            int middle = (low + high + 1) >>> 1;
+            if(mFirstStars[middle] <= star)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+        return Math.max(low, 0);
+    }
+
+    /**
+     * Gives the bodies of a star to an action.
+     *
+     * @param star the star
+     * @param action the action to perform on each body
+     */
+    private void Emit(cStar star, Consumer<? super T> action)
+    {
+        if(mBodies == eBodies.kStars)
+        {
+            action.accept(Cast(star));
+            return;
+        }
+        int planets = star.PlanetCount();
+        for(int i = 0; i < planets; i++)
+        {
+            cPlanet planet = star.PlanetAt(i);
+            if(mBodies == eBodies.kPlanets)
+            {
+                action.accept(Cast(planet));
+            }
+            else
+            {
+                EmitMoons(planet, action);
+            }
+        }
+    }
+
+    /**
+     * Gives the moons of a planet or moon at any depth to an action.
+     *
+     * @param parent the planet or moon
+     * @param action the action to perform on each moon
+     */
+    private void EmitMoons(cPlanet parent, Consumer<? super T> action)
+    {
+        int moons = parent.MoonCount();
+        for(int i = 0; i < moons; i++)
+        {
+            cPlanet moon = parent.MoonAt(i);
+            action.accept(Cast(moon));
+            EmitMoons(moon, action);
+        }
+    }
+
+    /**
+     * Estimates the planets or moons per star from stars spread evenly over the universe.
+     *
+     * @return the average number of bodies of the sampled stars, or 0 if there are no stars
+     */
+    private double Sample()
+    {
+        int stars = mTo - mFrom;
+        if(stars == 0)
+        {
+            return 0;
+        }
+        int samples = Math.min(stars, SAMPLE_SIZE);
+        long[] count = new long[1];
+        for(int i = 0; i < samples; i++)
+        {
+            int star = (int)((long)stars * i / samples);
+            int galaxy = GalaxyOf(star);
+            Emit(mUniverse.GalaxyAt(galaxy).StarAt(star - mFirstStars[galaxy]), body -> count[0]++);
+        }
+        return (double)count[0] / samples;
+    }
+
+    /**
+     * Converts a body to the type of the streamed bodies, which mBodies guarantees.
+     *
+     * @param body the body
+     * @return the body as a streamed body
+     */
+    @SuppressWarnings("unchecked")
+    private T Cast(cObjectBase body)
+    {
+        return (T)body;
+    }
+}
@@ -0,0 +1,47 @@
+package Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache with a fixed maximum number of entries.
+ * Used by the lazy universe to keep recently visited objects without letting memory
+ * grow with the size of the universe.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ * @param <K> the type of the cache keys
+ * @param <V> the type of the cached values
+ */
+final class cBoundedCache<K, V> extends LinkedHashMap<K, V>
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximum number of entries kept in the cache.
+     */
+    private final int mCapacity;
+
+    /**
+     * Constructs an empty cache holding at most the specified number of entries.
+     * 
+     * @param capacity the maximum number of entries
+     */
+    cBoundedCache(int capacity)
+    {
+        super(16, 0.75f, true);
+        mCapacity = capacity;
+    }
+
+    /**
+     * Evicts the least recently used entry once the cache grows past its capacity.
+     * 
+     * @param eldest the least recently used entry
+     * @return true if the eldest entry should be removed
+     */
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+    {
+        return size() > mCapacity;
+    }
+}
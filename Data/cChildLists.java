@@ -0,0 +1,42 @@
+package Data;
+
+import java.util.Collection;
+
+/**
+ * Helpers shared by the child lists of the universe, galaxies, stars and planets.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cChildLists
+{
+    /**
+     * Size up to which children are found by scanning the list instead of hashing.
+     */
+    static final int SMALL_LIST_SIZE = 16;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private cChildLists()
+    {
+    }
+
+    /**
+     * Checks whether a collection of children contains a null element.
+     * 
+     * @param items the children to check
+     * @return true if any element is null
+     */
+    static boolean ContainsNull(Collection<?> items)
+    {
+        for(Object item : items)
+        {
+            if(item == null)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
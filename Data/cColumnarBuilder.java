@@ -0,0 +1,344 @@
+package Data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import Logging.cLoggingBase;
+
+/**
+ * Universe sink that collects bodies into the columns of a cColumnarUniverse.
+ * Bodies must arrive depth first, as StreamRandomUniverse produces them, so that the children of
+ * each body are contiguous. Names are deduplicated as they arrive, so a generated universe only keeps
+ * one copy of names such as "Star_1" however many stars share them.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public final class cColumnarBuilder implements iUniverseSink
+{
+    /**
+     * Initial capacity of each column.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Logger given to the built universe.
+     */
+    private final cLoggingBase mLogger;
+
+    /**
+     * Id of each distinct name seen so far.
+     */
+    private HashMap<String, Integer> mNameIds;
+
+    /**
+     * Distinct names in order of their ids.
+     */
+    private String[] mNames;
+
+    /**
+     * Number of distinct names.
+     */
+    private int mNameCount;
+
+    /**
+     * Type ordinal of each galaxy.
+     */
+    private byte[] mGalaxyTypes;
+
+    /**
+     * Name id of each galaxy.
+     */
+    private int[] mGalaxyNames;
+
+    /**
+     * Index of the first star of each galaxy.
+     */
+    private int[] mFirstStar;
+
+    /**
+     * Number of galaxies received.
+     */
+    private int mGalaxyCount;
+
+    /**
+     * Type ordinal of each star.
+     */
+    private byte[] mStarTypes;
+
+    /**
+     * Name id of each star.
+     */
+    private int[] mStarNames;
+
+    /**
+     * Index of the galaxy of each star.
+     */
+    private int[] mStarParents;
+
+    /**
+     * Index of the first planet of each star.
+     */
+    private int[] mFirstPlanet;
+
+    /**
+     * Number of stars received.
+     */
+    private int mStarCount;
+
+    /**
+     * Type ordinal of each planet.
+     */
+    private byte[] mPlanetTypes;
+
+    /**
+     * Name id of each planet.
+     */
+    private int[] mPlanetNames;
+
+    /**
+     * Index of the star of each planet.
+     */
+    private int[] mPlanetParents;
+
+    /**
+     * Index of the first moon of each planet.
+     */
+    private int[] mFirstMoon;
+
+    /**
+     * Number of planets received.
+     */
+    private int mPlanetCount;
+
+    /**
+     * Type ordinal of each moon.
+     */
+    private byte[] mMoonTypes;
+
+    /**
+     * Name id of each moon.
+     */
+    private int[] mMoonNames;
+
+    /**
+     * Index of the planet of each moon.
+     */
+    private int[] mMoonParents;
+
+    /**
+     * Number of moons received.
+     */
+    private int mMoonCount;
+
+    /**
+     * Constructs an empty builder.
+     *
+     * @param logger the logger to use for the built universe
+     */
+    public cColumnarBuilder(cLoggingBase logger)
+    {
+        mLogger = logger;
+        Reset();
+    }
+
+    /**
+     * Adds a galaxy after the galaxies received so far.
+     *
+     * @param name the name of the galaxy
+     * @param type the classification type of the galaxy
+     */
+    @Override
+    public void BeginGalaxy(String name, cGalaxy.eGalaxyType type)
+    {
+        if(mGalaxyCount == mGalaxyTypes.length)
+        {
+            int capacity = mGalaxyCount * 2;
+            mGalaxyTypes = Arrays.copyOf(mGalaxyTypes, capacity);
+            mGalaxyNames = Arrays.copyOf(mGalaxyNames, capacity);
+            mFirstStar = Arrays.copyOf(mFirstStar, capacity);
+        }
+        mGalaxyTypes[mGalaxyCount] = (byte)type.ordinal();
+        mGalaxyNames[mGalaxyCount] = NameId(name);
+        mFirstStar[mGalaxyCount] = mStarCount;
+        mGalaxyCount++;
+    }
+
+    /**
+     * Adds a star to the last galaxy received.
+     *
+     * @param name the name of the star
+     * @param type the stellar classification of the star
+     * @throws IllegalStateException if no galaxy has been received
+     */
+    @Override
+    public void BeginStar(String name, cStar.eStarType type) throws IllegalStateException
+    {
+        CheckParent(mGalaxyCount, "star", "galaxy");
+        if(mStarCount == mStarTypes.length)
+        {
+            int capacity = mStarCount * 2;
+            mStarTypes = Arrays.copyOf(mStarTypes, capacity);
+            mStarNames = Arrays.copyOf(mStarNames, capacity);
+            mStarParents = Arrays.copyOf(mStarParents, capacity);
+            mFirstPlanet = Arrays.copyOf(mFirstPlanet, capacity);
+        }
+        mStarTypes[mStarCount] = (byte)type.ordinal();
+        mStarNames[mStarCount] = NameId(name);
+        mStarParents[mStarCount] = mGalaxyCount - 1;
+        mFirstPlanet[mStarCount] = mPlanetCount;
+        mStarCount++;
+    }
+
+    /**
+     * Adds a planet to the last star received.
+     *
+     * @param name the name of the planet
+     * @param type the classification type of the planet
+     * @throws IllegalStateException if no star has been received
+     */
+    @Override
+    public void BeginPlanet(String name, cPlanet.ePlanetType type) throws IllegalStateException
+    {
+        CheckParent(mStarCount, "planet", "star");
+        if(mPlanetCount == mPlanetTypes.length)
+        {
+            int capacity = mPlanetCount * 2;
+            mPlanetTypes = Arrays.copyOf(mPlanetTypes, capacity);
+            mPlanetNames = Arrays.copyOf(mPlanetNames, capacity);
+            mPlanetParents = Arrays.copyOf(mPlanetParents, capacity);
+            mFirstMoon = Arrays.copyOf(mFirstMoon, capacity);
+        }
+        mPlanetTypes[mPlanetCount] = (byte)type.ordinal();
+        mPlanetNames[mPlanetCount] = NameId(name);
+        mPlanetParents[mPlanetCount] = mStarCount - 1;
+        mFirstMoon[mPlanetCount] = mMoonCount;
+        mPlanetCount++;
+    }
+
+    /**
+     * Adds a moon to the last planet received.
+     *
+     * @param name the name of the moon
+     * @param type the classification type of the moon
+     * @throws IllegalStateException if no planet has been received
+     */
+    @Override
+    public void OnMoon(String name, cPlanet.ePlanetType type) throws IllegalStateException
+    {
+        CheckParent(mPlanetCount, "moon", "planet");
+        if(mMoonCount == mMoonTypes.length)
+        {
+            int capacity = mMoonCount * 2;
+            mMoonTypes = Arrays.copyOf(mMoonTypes, capacity);
+            mMoonNames = Arrays.copyOf(mMoonNames, capacity);
+            mMoonParents = Arrays.copyOf(mMoonParents, capacity);
+        }
+        mMoonTypes[mMoonCount] = (byte)type.ordinal();
+        mMoonNames[mMoonCount] = NameId(name);
+        mMoonParents[mMoonCount] = mPlanetCount - 1;
+        mMoonCount++;
+    }
+
+    /**
+     * Creates a columnar universe from the bodies received so far and empties the builder.
+     *
+     * @return the built universe
+     */
+    public cColumnarUniverse Build()
+    {
+        mLogger.LogTrace("Building columnar universe with " + mGalaxyCount + " galaxies, " + mStarCount + " stars, " + mPlanetCount + " planets and " + mMoonCount + " moons");
+        cColumnarUniverse universe = new cColumnarUniverse(
+            Arrays.copyOf(mNames, mNameCount),
+            Arrays.copyOf(mGalaxyTypes, mGalaxyCount), Arrays.copyOf(mGalaxyNames, mGalaxyCount), Offsets(mFirstStar, mGalaxyCount, mStarCount),
+            Arrays.copyOf(mStarTypes, mStarCount), Arrays.copyOf(mStarNames, mStarCount), Arrays.copyOf(mStarParents, mStarCount), Offsets(mFirstPlanet, mStarCount, mPlanetCount),
+            Arrays.copyOf(mPlanetTypes, mPlanetCount), Arrays.copyOf(mPlanetNames, mPlanetCount), Arrays.copyOf(mPlanetParents, mPlanetCount), Offsets(mFirstMoon, mPlanetCount, mMoonCount),
+            Arrays.copyOf(mMoonTypes, mMoonCount), Arrays.copyOf(mMoonNames, mMoonCount), Arrays.copyOf(mMoonParents, mMoonCount),
+            mLogger);
+        Reset();
+        return universe;
+    }
+
+    /**
+     * Discards all bodies received so far.
+     */
+    public void Reset()
+    {
+        mNameIds = new HashMap<String, Integer>();
+        mNames = new String[INITIAL_CAPACITY];
+        mNameCount = 0;
+        mGalaxyTypes = new byte[INITIAL_CAPACITY];
+        mGalaxyNames = new int[INITIAL_CAPACITY];
+        mFirstStar = new int[INITIAL_CAPACITY];
+        mGalaxyCount = 0;
+        mStarTypes = new byte[INITIAL_CAPACITY];
+        mStarNames = new int[INITIAL_CAPACITY];
+        mStarParents = new int[INITIAL_CAPACITY];
+        mFirstPlanet = new int[INITIAL_CAPACITY];
+        mStarCount = 0;
+        mPlanetTypes = new byte[INITIAL_CAPACITY];
+        mPlanetNames = new int[INITIAL_CAPACITY];
+        mPlanetParents = new int[INITIAL_CAPACITY];
+        mFirstMoon = new int[INITIAL_CAPACITY];
+        mPlanetCount = 0;
+        mMoonTypes = new byte[INITIAL_CAPACITY];
+        mMoonNames = new int[INITIAL_CAPACITY];
+        mMoonParents = new int[INITIAL_CAPACITY];
+        mMoonCount = 0;
+    }
+
+    /**
+     * Gets the id of a name, adding it to the name table if it is new.
+     *
+     * @param name the name
+     * @return the id of the name
+     */
+    private int NameId(String name)
+    {
+        Integer id = mNameIds.get(name);
+        if(id == null)
+        {
+            if(mNameCount == mNames.length)
+            {
+                mNames = Arrays.copyOf(mNames, mNameCount * 2);
+            }
+            id = mNameCount;
+            mNames[mNameCount++] = name;
+            mNameIds.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Ensures that a body has a parent to be added to.
+     *
+     * @param parentCount the number of parents received so far
+     * @param body the kind of body being added
+     * @param parent the kind of its parent
+     * @throws IllegalStateException if no parent has been received
+     */
+    private void CheckParent(int parentCount, String body, String parent) throws IllegalStateException
+    {
+        if(parentCount == 0)
+        {
+            String message = "Cannot add " + body + " to columnar universe: no " + parent + " has been added";
+            mLogger.LogError(message);
+            throw new IllegalStateException(message);
+        }
+    }
+
+    /**
+     * Trims a first child column and appends the total child count.
+     *
+     * @param first the first child column
+     * @param count the number of parents
+     * @param total the number of children
+     * @return the completed offsets, with count + 1 entries
+     */
+    private static int[] Offsets(int[] first, int count, int total)
+    {
+        int[] offsets = Arrays.copyOf(first, count + 1);
+        offsets[count] = total;
+        return offsets;
+    }
+}
@@ -0,0 +1,149 @@
+package Data;
+
+/**
+ * Lightweight view of a galaxy stored in a cColumnarUniverse or a cMappedUniverse.
+ * The view only holds the galaxy's index; its stars are read from the universe's columns
+ * and returned as new views on each access.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cColumnarGalaxy extends cGalaxyView
+{
+    /**
+     * The columns of the universe that stores this galaxy.
+     */
+    private final iBodyColumns mColumns;
+
+    /**
+     * Index of this galaxy within its universe.
+     */
+    private final int mIndex;
+
+    /**
+     * Constructs a view of a galaxy of a columnar universe.
+     *
+     * @param columns the columns of the universe that stores the galaxy
+     * @param index the index of the galaxy within the universe
+     */
+    cColumnarGalaxy(iBodyColumns columns, int index)
+    {
+        super(columns.GalaxyName(index), columns.GalaxyType(index), columns.Logger());
+        mColumns = columns;
+        mIndex = index;
+    }
+
+    /**
+     * Gets the index of this galaxy within its universe.
+     *
+     * @return the index of this galaxy
+     */
+    public int GetIndex()
+    {
+        return mIndex;
+    }
+
+    /**
+     * Gets a view of the star at the specified index.
+     *
+     * @param index the index of the star to retrieve
+     * @return the star at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cStar GetStar(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < GetStarCount())
+        {
+            return new cColumnarStar(mColumns, mColumns.FirstStar(mIndex) + index);
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of stars in the galaxy.
+     *
+     * @return the count of stars in this galaxy
+     */
+    @Override
+    public int GetStarCount()
+    {
+        return mColumns.FirstStar(mIndex + 1) - mColumns.FirstStar(mIndex);
+    }
+
+    /**
+     * Gets the number of planets in all star systems of the galaxy, not counting moons.
+     *
+     * @return the total count of planets in this galaxy
+     */
+    public int GetTotalPlanetCount()
+    {
+        return FirstPlanet(mIndex + 1) - FirstPlanet(mIndex);
+    }
+
+    /**
+     * Gets the number of moons of all planets of the galaxy.
+     *
+     * @return the total count of moons in this galaxy
+     */
+    public int GetTotalMoonCount()
+    {
+        return mColumns.FirstMoon(FirstPlanet(mIndex + 1)) - mColumns.FirstMoon(FirstPlanet(mIndex));
+    }
+
+    /**
+     * Counts the stars of each type in the galaxy.
+     *
+     * @return the number of stars of each type, indexed by eStarType ordinal
+     */
+    public int[] GetStarTypeHistogram()
+    {
+        return mColumns.StarTypeHistogram(mColumns.FirstStar(mIndex), mColumns.FirstStar(mIndex + 1));
+    }
+
+    /**
+     * Counts the planets of each type in the galaxy, not counting moons.
+     *
+     * @return the number of planets of each type, indexed by ePlanetType ordinal
+     */
+    public int[] GetPlanetTypeHistogram()
+    {
+        return mColumns.PlanetTypeHistogram(FirstPlanet(mIndex), FirstPlanet(mIndex + 1));
+    }
+
+    /**
+     * Counts the moons of each type in the galaxy.
+     *
+     * @return the number of moons of each type, indexed by ePlanetType ordinal
+     */
+    public int[] GetMoonTypeHistogram()
+    {
+        return mColumns.MoonTypeHistogram(mColumns.FirstMoon(FirstPlanet(mIndex)), mColumns.FirstMoon(FirstPlanet(mIndex + 1)));
+    }
+
+    /**
+     * Gets the index of the first planet of the galaxy at the specified index.
+     * Passing the galaxy count gives the total planet count.
+     *
+     * @param galaxy the index of the galaxy
+     * @return the index of the galaxy's first planet
+     */
+    private int FirstPlanet(int galaxy)
+    {
+        return mColumns.FirstPlanet(mColumns.FirstStar(galaxy));
+    }
+
+    /**
+     * Gets the number of stars, planets and moons in the galaxy, in total and by type, from the type columns.
+     *
+     * @return the statistics of the bodies of this galaxy
+     */
+    @Override
+    public cSubtreeStats GetStats()
+    {
+        return cSubtreeStats.FromHistograms(null, GetStarTypeHistogram(), GetPlanetTypeHistogram(), GetMoonTypeHistogram());
+    }
+}
@@ -0,0 +1,125 @@
+package Data;
+
+/**
+ * Lightweight view of a planet or moon stored in a cColumnarUniverse or a cMappedUniverse.
+ * The view only holds the body's index and whether it is a moon; the moons of a planet are
+ * read from the universe's columns and returned as new views on each access.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cColumnarPlanet extends cPlanetView
+{
+    /**
+     * The columns of the universe that stores this planet.
+     */
+    private final iBodyColumns mColumns;
+
+    /**
+     * Index of this body among all planets, or among all moons, of its universe.
+     */
+    private final int mIndex;
+
+    /**
+     * Whether this body is a moon.
+     */
+    private final boolean mMoon;
+
+    /**
+     * Constructs a view of a planet or moon of a columnar universe.
+     *
+     * @param columns the columns of the universe that stores the body
+     * @param index the index of the body among all planets or all moons of the universe
+     * @param moon true if the body is a moon
+     */
+    cColumnarPlanet(iBodyColumns columns, int index, boolean moon)
+    {
+        super(moon ? columns.MoonName(index) : columns.PlanetName(index), moon ? columns.MoonType(index) : columns.PlanetType(index), columns.Logger());
+        mColumns = columns;
+        mIndex = index;
+        mMoon = moon;
+    }
+
+    /**
+     * Gets the index of this body among all planets, or among all moons, of its universe.
+     *
+     * @return the index of this body
+     */
+    public int GetIndex()
+    {
+        return mIndex;
+    }
+
+    /**
+     * Checks whether this body is a moon.
+     *
+     * @return true if this body is a moon, false if it is a planet
+     */
+    public boolean IsMoon()
+    {
+        return mMoon;
+    }
+
+    /**
+     * Gets a view of the body this one orbits: the star of a planet or the planet of a moon.
+     *
+     * @return the parent of this body
+     */
+    public cObjectBase GetParent()
+    {
+        if(mMoon)
+        {
+            return new cColumnarPlanet(mColumns, mColumns.MoonParent(mIndex), false);
+        }
+        return new cColumnarStar(mColumns, mColumns.PlanetParent(mIndex));
+    }
+
+    /**
+     * Gets a view of the moon at the specified index.
+     *
+     * @param index the index of the moon to retrieve
+     * @return the moon at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cPlanet GetMoon(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < GetMoonCount())
+        {
+            return new cColumnarPlanet(mColumns, mColumns.FirstMoon(mIndex) + index, true);
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of moons orbiting this planet, always 0 for a moon.
+     *
+     * @return the count of moons orbiting this planet
+     */
+    @Override
+    public int GetMoonCount()
+    {
+        if(mMoon)
+        {
+            return 0;
+        }
+        return mColumns.FirstMoon(mIndex + 1) - mColumns.FirstMoon(mIndex);
+    }
+
+    /**
+     * Counts the moons of each type orbiting this planet.
+     *
+     * @return the number of moons of each type, indexed by ePlanetType ordinal
+     */
+    public int[] GetMoonTypeHistogram()
+    {
+        if(mMoon)
+        {
+            return new int[cColumnarUniverse.PLANET_TYPES.length];
+        }
+        return mColumns.MoonTypeHistogram(mColumns.FirstMoon(mIndex), mColumns.FirstMoon(mIndex + 1));
+    }
+}
@@ -0,0 +1,127 @@
+package Data;
+
+/**
+ * Lightweight view of a star system stored in a cColumnarUniverse or a cMappedUniverse.
+ * The view only holds the star's index; its planets are read from the universe's columns
+ * and returned as new views on each access.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cColumnarStar extends cStarView
+{
+    /**
+     * The columns of the universe that stores this star.
+     */
+    private final iBodyColumns mColumns;
+
+    /**
+     * Index of this star among all stars of its universe.
+     */
+    private final int mIndex;
+
+    /**
+     * Constructs a view of a star of a columnar universe.
+     *
+     * @param columns the columns of the universe that stores the star
+     * @param index the index of the star among all stars of the universe
+     */
+    cColumnarStar(iBodyColumns columns, int index)
+    {
+        super(columns.StarName(index), columns.StarType(index), columns.Logger());
+        mColumns = columns;
+        mIndex = index;
+    }
+
+    /**
+     * Gets the index of this star among all stars of its universe.
+     *
+     * @return the index of this star
+     */
+    public int GetIndex()
+    {
+        return mIndex;
+    }
+
+    /**
+     * Gets a view of the galaxy that contains this star.
+     *
+     * @return the galaxy of this star
+     */
+    public cGalaxy GetGalaxy()
+    {
+        return new cColumnarGalaxy(mColumns, mColumns.StarParent(mIndex));
+    }
+
+    /**
+     * Gets a view of the planet at the specified index.
+     *
+     * @param index the index of the planet to retrieve
+     * @return the planet at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cPlanet GetPlanet(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < GetPlanetCount())
+        {
+            return new cColumnarPlanet(mColumns, mColumns.FirstPlanet(mIndex) + index, false);
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of planets in the star system.
+     *
+     * @return the count of planets in this star system
+     */
+    @Override
+    public int GetPlanetCount()
+    {
+        return mColumns.FirstPlanet(mIndex + 1) - mColumns.FirstPlanet(mIndex);
+    }
+
+    /**
+     * Gets the number of moons of all planets of the star system.
+     *
+     * @return the total count of moons in this star system
+     */
+    public int GetTotalMoonCount()
+    {
+        return mColumns.FirstMoon(mColumns.FirstPlanet(mIndex + 1)) - mColumns.FirstMoon(mColumns.FirstPlanet(mIndex));
+    }
+
+    /**
+     * Counts the planets of each type in the star system, not counting moons.
+     *
+     * @return the number of planets of each type, indexed by ePlanetType ordinal
+     */
+    public int[] GetPlanetTypeHistogram()
+    {
+        return mColumns.PlanetTypeHistogram(mColumns.FirstPlanet(mIndex), mColumns.FirstPlanet(mIndex + 1));
+    }
+
+    /**
+     * Counts the moons of each type in the star system.
+     *
+     * @return the number of moons of each type, indexed by ePlanetType ordinal
+     */
+    public int[] GetMoonTypeHistogram()
+    {
+        return mColumns.MoonTypeHistogram(mColumns.FirstMoon(mColumns.FirstPlanet(mIndex)), mColumns.FirstMoon(mColumns.FirstPlanet(mIndex + 1)));
+    }
+
+    /**
+     * Gets the number of planets and moons in the star system, in total and by type, from the type columns.
+     *
+     * @return the statistics of the planets and moons of this star
+     */
+    @Override
+    public cSubtreeStats GetStats()
+    {
+        return cSubtreeStats.FromHistograms(null, null, GetPlanetTypeHistogram(), GetMoonTypeHistogram());
+    }
+}
@@ -0,0 +1,427 @@
+package Data;
+
+import Logging.cLoggingBase;
+
+/**
+ * Represents a read only universe stored as primitive columns instead of one object per body.
+ * Galaxies, stars, planets and moons each have a column of type ordinals, a column of ids into
+ * a shared table of distinct names and a column with the index of their parent. Bodies are stored
+ * depth first, so the children of any body are contiguous and are located through a column of first
+ * child offsets: the children of body i are the range [first[i], first[i + 1]) of the next level.
+ * A body costs about 13 bytes instead of the several objects of the tree model, and statistics over
+ * any subtree are linear scans of contiguous array ranges.
+ * The usual read API is available through lightweight views created on access, so a columnar
+ * universe can be used wherever a cUniverse is read.
+ * Columnar universes are built with a cColumnarBuilder, either from StreamRandomUniverse or from an
+ * existing universe with FromUniverse.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cColumnarUniverse extends cUniverseView
+{
+    /**
+     * Galaxy types indexed by ordinal.
+     */
+    static final cGalaxy.eGalaxyType[] GALAXY_TYPES = cGalaxy.eGalaxyType.values();
+
+    /**
+     * Star types indexed by ordinal.
+     */
+    static final cStar.eStarType[] STAR_TYPES = cStar.eStarType.values();
+
+    /**
+     * Planet and moon types indexed by ordinal.
+     */
+    static final cPlanet.ePlanetType[] PLANET_TYPES = cPlanet.ePlanetType.values();
+
+    /**
+     * Table of distinct names, referenced by the name columns.
+     */
+    final String[] mNames;
+
+    /**
+     * Type ordinal of each galaxy.
+     */
+    final byte[] mGalaxyTypes;
+
+    /**
+     * Name id of each galaxy.
+     */
+    final int[] mGalaxyNames;
+
+    /**
+     * Index of the first star of each galaxy, with one extra entry holding the star count.
+     */
+    final int[] mFirstStar;
+
+    /**
+     * Type ordinal of each star.
+     */
+    final byte[] mStarTypes;
+
+    /**
+     * Name id of each star.
+     */
+    final int[] mStarNames;
+
+    /**
+     * Index of the galaxy of each star.
+     */
+    final int[] mStarParents;
+
+    /**
+     * Index of the first planet of each star, with one extra entry holding the planet count.
+     */
+    final int[] mFirstPlanet;
+
+    /**
+     * Type ordinal of each planet.
+     */
+    final byte[] mPlanetTypes;
+
+    /**
+     * Name id of each planet.
+     */
+    final int[] mPlanetNames;
+
+    /**
+     * Index of the star of each planet.
+     */
+    final int[] mPlanetParents;
+
+    /**
+     * Index of the first moon of each planet, with one extra entry holding the moon count.
+     */
+    final int[] mFirstMoon;
+
+    /**
+     * Type ordinal of each moon.
+     */
+    final byte[] mMoonTypes;
+
+    /**
+     * Name id of each moon.
+     */
+    final int[] mMoonNames;
+
+    /**
+     * Index of the planet of each moon.
+     */
+    final int[] mMoonParents;
+
+    /**
+     * Read access to the columns, shared by the views of this universe.
+     */
+    private final iBodyColumns mColumns = new cColumns();
+
+    /**
+     * Constructs a columnar universe from completed columns, used by cColumnarBuilder.
+     * The arrays are taken as they are and must not be modified afterwards.
+     *
+     * @param names the table of distinct names
+     * @param galaxyTypes the type ordinal of each galaxy
+     * @param galaxyNames the name id of each galaxy
+     * @param firstStar the first star offset of each galaxy, plus the star count
+     * @param starTypes the type ordinal of each star
+     * @param starNames the name id of each star
+     * @param starParents the galaxy index of each star
+     * @param firstPlanet the first planet offset of each star, plus the planet count
+     * @param planetTypes the type ordinal of each planet
+     * @param planetNames the name id of each planet
+     * @param planetParents the star index of each planet
+     * @param firstMoon the first moon offset of each planet, plus the moon count
+     * @param moonTypes the type ordinal of each moon
+     * @param moonNames the name id of each moon
+     * @param moonParents the planet index of each moon
+     * @param logger the logger to use for this universe
+     */
+    cColumnarUniverse(String[] names, byte[] galaxyTypes, int[] galaxyNames, int[] firstStar, byte[] starTypes, int[] starNames, int[] starParents, int[] firstPlanet, byte[] planetTypes, int[] planetNames, int[] planetParents, int[] firstMoon, byte[] moonTypes, int[] moonNames, int[] moonParents, cLoggingBase logger)
+    {
+        super(logger);
+        mNames = names;
+        mGalaxyTypes = galaxyTypes;
+        mGalaxyNames = galaxyNames;
+        mFirstStar = firstStar;
+        mStarTypes = starTypes;
+        mStarNames = starNames;
+        mStarParents = starParents;
+        mFirstPlanet = firstPlanet;
+        mPlanetTypes = planetTypes;
+        mPlanetNames = planetNames;
+        mPlanetParents = planetParents;
+        mFirstMoon = firstMoon;
+        mMoonTypes = moonTypes;
+        mMoonNames = moonNames;
+        mMoonParents = moonParents;
+    }
+
+    /**
+     * Creates a columnar copy of an existing universe.
+     *
+     * @param universe the universe to copy
+     * @param logger the logger to use for the columnar universe
+     * @return a columnar universe with the same content as the given universe
+     * @throws IllegalArgumentException if the universe is null
+     * @throws IllegalStateException if a moon of the universe has moons, which columns cannot hold
+     */
+    public static cColumnarUniverse FromUniverse(cUniverse universe, cLoggingBase logger) throws IllegalArgumentException, IllegalStateException
+    {
+        if(universe == null)
+        {
+            String message = "Cannot create columnar universe: universe is null";
+            logger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        cColumnarBuilder builder = new cColumnarBuilder(logger);
+        universe.StreamTo(builder);
+        return builder.Build();
+    }
+
+    /**
+     * Gets a view of the galaxy at the specified index.
+     * A new view is created on each call.
+     *
+     * @param index the index of the galaxy to retrieve
+     * @return the galaxy at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cGalaxy GetGalaxy(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < mGalaxyTypes.length)
+        {
+            return new cColumnarGalaxy(mColumns, index);
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of galaxies in the universe.
+     *
+     * @return the count of galaxies in this universe
+     */
+    @Override
+    public int GetGalaxyCount()
+    {
+        return mGalaxyTypes.length;
+    }
+
+    /**
+     * Gets the number of stars in all galaxies of the universe.
+     *
+     * @return the total count of stars
+     */
+    public int GetTotalStarCount()
+    {
+        return mStarTypes.length;
+    }
+
+    /**
+     * Gets the number of planets in all star systems of the universe, not counting moons.
+     *
+     * @return the total count of planets
+     */
+    public int GetTotalPlanetCount()
+    {
+        return mPlanetTypes.length;
+    }
+
+    /**
+     * Gets the number of moons of all planets of the universe.
+     *
+     * @return the total count of moons
+     */
+    public int GetTotalMoonCount()
+    {
+        return mMoonTypes.length;
+    }
+
+    /**
+     * Counts the galaxies of each type.
+     *
+     * @return the number of galaxies of each type, indexed by eGalaxyType ordinal
+     */
+    public int[] GetGalaxyTypeHistogram()
+    {
+        return Histogram(mGalaxyTypes, 0, mGalaxyTypes.length, GALAXY_TYPES.length);
+    }
+
+    /**
+     * Counts the stars of each type in the universe.
+     *
+     * @return the number of stars of each type, indexed by eStarType ordinal
+     */
+    public int[] GetStarTypeHistogram()
+    {
+        return Histogram(mStarTypes, 0, mStarTypes.length, STAR_TYPES.length);
+    }
+
+    /**
+     * Counts the planets of each type in the universe, not counting moons.
+     *
+     * @return the number of planets of each type, indexed by ePlanetType ordinal
+     */
+    public int[] GetPlanetTypeHistogram()
+    {
+        return Histogram(mPlanetTypes, 0, mPlanetTypes.length, PLANET_TYPES.length);
+    }
+
+    /**
+     * Counts the moons of each type in the universe.
+     *
+     * @return the number of moons of each type, indexed by ePlanetType ordinal
+     */
+    public int[] GetMoonTypeHistogram()
+    {
+        return Histogram(mMoonTypes, 0, mMoonTypes.length, PLANET_TYPES.length);
+    }
+
+    /**
+     * Gets the number of galaxies, stars, planets and moons in the universe, in total and by type, from the type columns.
+     *
+     * @return the statistics of the bodies of this universe
+     */
+    @Override
+    public cSubtreeStats GetStats()
+    {
+        return cSubtreeStats.FromHistograms(GetGalaxyTypeHistogram(), GetStarTypeHistogram(), GetPlanetTypeHistogram(), GetMoonTypeHistogram());
+    }
+
+    /**
+     * Counts the type ordinals in a range of a type column.
+     *
+     * @param types the type column
+     * @param from the first index of the range, inclusive
+     * @param to the last index of the range, exclusive
+     * @param size the number of values of the type
+     * @return the number of entries of each ordinal in the range
+     */
+    static int[] Histogram(byte[] types, int from, int to, int size)
+    {
+        int[] counts = new int[size];
+        for(int i = from; i < to; i++)
+        {
+            counts[types[i]]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Reads the bodies of the universe from its arrays for the views.
+     */
+    private class cColumns implements iBodyColumns
+    {
+        @Override
+        public cLoggingBase Logger()
+        {
+            return mLogger;
+        }
+
+        @Override
+        public String GalaxyName(int galaxy)
+        {
+            return mNames[mGalaxyNames[galaxy]];
+        }
+
+        @Override
+        public cGalaxy.eGalaxyType GalaxyType(int galaxy)
+        {
+            return GALAXY_TYPES[mGalaxyTypes[galaxy]];
+        }
+
+        @Override
+        public int FirstStar(int galaxy)
+        {
+            return mFirstStar[galaxy];
+        }
+
+        @Override
+        public String StarName(int star)
+        {
+            return mNames[mStarNames[star]];
+        }
+
+        @Override
+        public cStar.eStarType StarType(int star)
+        {
+            return STAR_TYPES[mStarTypes[star]];
+        }
+
+        @Override
+        public int StarParent(int star)
+        {
+            return mStarParents[star];
+        }
+
+        @Override
+        public int FirstPlanet(int star)
+        {
+            return mFirstPlanet[star];
+        }
+
+        @Override
+        public String PlanetName(int planet)
+        {
+            return mNames[mPlanetNames[planet]];
+        }
+
+        @Override
+        public cPlanet.ePlanetType PlanetType(int planet)
+        {
+            return PLANET_TYPES[mPlanetTypes[planet]];
+        }
+
+        @Override
+        public int PlanetParent(int planet)
+        {
+            return mPlanetParents[planet];
+        }
+
+        @Override
+        public int FirstMoon(int planet)
+        {
+            return mFirstMoon[planet];
+        }
+
+        @Override
+        public String MoonName(int moon)
+        {
+            return mNames[mMoonNames[moon]];
+        }
+
+        @Override
+        public cPlanet.ePlanetType MoonType(int moon)
+        {
+            return PLANET_TYPES[mMoonTypes[moon]];
+        }
+
+        @Override
+        public int MoonParent(int moon)
+        {
+            return mMoonParents[moon];
+        }
+
+        @Override
+        public int[] StarTypeHistogram(int from, int to)
+        {
+            return Histogram(mStarTypes, from, to, STAR_TYPES.length);
+        }
+
+        @Override
+        public int[] PlanetTypeHistogram(int from, int to)
+        {
+            return Histogram(mPlanetTypes, from, to, PLANET_TYPES.length);
+        }
+
+        @Override
+        public int[] MoonTypeHistogram(int from, int to)
+        {
+            return Histogram(mMoonTypes, from, to, PLANET_TYPES.length);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package Data;
+
+import java.math.BigInteger;
+
+/**
+ * Converts decimal numbers given as a significand and a power of ten to the nearest double, without
+ * building a string for Double.parseDouble. Numbers of up to 15 digits with a small exponent are exact
+ * as a double times or over an exact power of ten. Longer numbers, such as the 16 and 17 digits that
+ * Double.toString writes for most doubles, use the Eisel-Lemire algorithm: the significand is multiplied
+ * by a 128-bit approximation of the power of ten, which decides the rounding in all but very rare cases.
+ * Those cases, and numbers that are subnormal or out of range, are reported so that the caller can fall
+ * back to Double.parseDouble, which always rounds correctly.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cDecimalParser
+{
+    /**
+     * Smallest power of ten of the table; smaller ones round to zero.
+     */
+    private static final int MIN_POWER = -342;
+
+    /**
+     * Largest power of ten of the table; larger ones round to infinity.
+     */
+    private static final int MAX_POWER = 308;
+
+    /**
+     * Powers of ten that are exact doubles.
+     */
+    private static final double[] EXACT_POWERS = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                                                  1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * Normalized 128-bit significand of each power of five from MIN_POWER to MAX_POWER, which is also that
+     * of the power of ten, as the high and then the low 64 bits. Positive powers are truncated and negative
+     * ones rounded up, as the algorithm requires.
+     */
+    private static final long[] POWERS = Powers();
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private cDecimalParser()
+    {
+    }
+
+    /**
+     * Converts significand * 10^exponent to the nearest double.
+     *
+     * @param significand the decimal digits, less than 10^19
+     * @param exponent the power of ten
+     * @param negative whether the number is negative
+     * @return the nearest double, or NaN if it cannot be decided here and Double.parseDouble must be used
+     */
+    static double ToDouble(long significand, int exponent, boolean negative)
+    {
+        double value;
+        if(significand == 0)
+        {
+            value = 0;
+        }
+        else if(significand < 1L << 53 && exponent >= -22 && exponent <= 22)
+        {
+            value = exponent < 0 ? significand / EXACT_POWERS[-exponent] : significand * EXACT_POWERS[exponent];
+        }
+        else
+        {
+            return EiselLemire(significand, exponent, negative);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Converts significand * 10^exponent to the nearest normal double with the Eisel-Lemire algorithm.
+     *
+     * @param significand the decimal digits, not zero
+     * @param exponent the power of ten
+     * @param negative whether the number is negative
+     * @return the nearest double, or NaN if the rounding is ambiguous or the result is not a normal double
+     */
+    private static double EiselLemire(long significand, int exponent, boolean negative)
+    {
+        if(exponent < MIN_POWER || exponent > MAX_POWER)
+        {
+            return Double.NaN;
+        }
+        int zeros = Long.numberOfLeadingZeros(significand);
+        long mantissa = significand << zeros;
+        int binaryExponent = ((217706 * exponent) >> 16) + 64 + 1023 - zeros;
+
+        //Multiply by the high half of the power, and by the low half too if the low bits might carry.
+        int row = 2 * (exponent - MIN_POWER);
+        long high = Math.unsignedMultiplyHigh(mantissa, POWERS[row]);
+        long low = mantissa * POWERS[row];
+        if((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + mantissa, mantissa) < 0)
+        {
+            long extraHigh = Math.unsignedMultiplyHigh(mantissa, POWERS[row + 1]);
+            long extraLow = mantissa * POWERS[row + 1];
+            long mergedLow = low + extraHigh;
+            if(Long.compareUnsigned(mergedLow, low) < 0)
+            {
+                high++;
+            }
+            if((high & 0x1FF) == 0x1FF && mergedLow == -1 && Long.compareUnsigned(extraLow + mantissa, mantissa) < 0)
+            {
+                return Double.NaN;
+            }
+            low = mergedLow;
+        }
+
+        //Keep 54 bits, give up on exact halfway cases, and round to 53 bits.
+        int top = (int)(high >>> 63);
+        long bits = high >>> (top + 9);
+        binaryExponent -= 1 ^ top;
+        if(low == 0 && (high & 0x1FF) == 0 && (bits & 3) == 1)
+        {
+            return Double.NaN;
+        }
+        bits += bits & 1;
+        bits >>>= 1;
+        if(bits >>> 53 != 0)
+        {
+            bits >>>= 1;
+            binaryExponent++;
+        }
+        if(binaryExponent <= 0 || binaryExponent >= 0x7FF)
+        {
+            return Double.NaN;
+        }
+        bits = ((long)binaryExponent << 52) | (bits & ((1L << 52) - 1)) | (negative ? Long.MIN_VALUE : 0);
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Computes the table of powers of five.
+     *
+     * @return the high and low 64 bits of each power from MIN_POWER to MAX_POWER
+     */
+    private static long[] Powers()
+    {
+        long[] powers = new long[2 * (MAX_POWER - MIN_POWER + 1)];
+        BigInteger five = BigInteger.valueOf(5);
+        for(int power = MIN_POWER; power <= MAX_POWER; power++)
+        {
+            BigInteger value;
+            if(power < 0)
+            {
+                //Divide a large power of two by 5^-power, rounding up, and keep the top 128 bits.
+                BigInteger divisor = five.pow(-power);
+                int bits = divisor.subtract(BigInteger.ONE).bitLength();
+                int shift = power >= -27 ? bits + 127 : 2 * bits + 128;
+                value = BigInteger.ONE.shiftLeft(shift).divide(divisor).add(BigInteger.ONE);
+                value = value.shiftRight(Math.max(0, value.bitLength() - 128));
+            }
+            else
+            {
+                value = five.pow(power);
+                int bits = value.bitLength();
+                value = bits < 128 ? value.shiftLeft(128 - bits) : value.shiftRight(bits - 128);
+            }
+            int row = 2 * (power - MIN_POWER);
+            powers[row] = value.shiftRight(64).longValue();
+            powers[row + 1] = value.longValue();
+        }
+        return powers;
+    }
+}
@@ -0,0 +1,167 @@
+package Data;
+
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a galaxy of a universe file, decoded from its block when first requested.
+ * The galaxy record only gives the star count; the offsets of the stars are found by skipping from
+ * star to star through the block when the first star is requested, and each star is decoded by the
+ * owning cFileUniverse and kept in its bounded star cache.
+ * Stars cannot be added to or removed from a file galaxy.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cFileGalaxy extends cGalaxyView
+{
+    /**
+     * The universe that decodes the stars of this galaxy.
+     */
+    private final cFileUniverse mUniverse;
+
+    /**
+     * Index of this galaxy within its universe.
+     */
+    private final int mIndex;
+
+    /**
+     * The block of this galaxy, positioned at its first star record.
+     */
+    private final ByteBuffer mBlock;
+
+    /**
+     * Number of stars in this galaxy.
+     */
+    private final int mStarCount;
+
+    /**
+     * Offset of each star record within the block, followed by the end of the block, or null until a star is requested.
+     */
+    private volatile int[] mStarOffsets;
+
+    /**
+     * Constructs a galaxy by decoding the galaxy record at the start of its block.
+     * 
+     * @param universe the universe that owns the galaxy
+     * @param index the index of the galaxy within the universe
+     * @param block the block of the galaxy
+     * @throws UncheckedIOException if the galaxy record is damaged
+     */
+    cFileGalaxy(cFileUniverse universe, int index, ByteBuffer block) throws UncheckedIOException
+    {
+        this(universe, index, block, block.get() & 0xFF);
+    }
+
+    /**
+     * Constructs a galaxy from the rest of its record once the type byte is read.
+     * 
+     * @param universe the universe that owns the galaxy
+     * @param index the index of the galaxy within the universe
+     * @param block the block of the galaxy, positioned at the name id
+     * @param type the type byte of the record
+     * @throws UncheckedIOException if the galaxy record is damaged
+     */
+    private cFileGalaxy(cFileUniverse universe, int index, ByteBuffer block, int type) throws UncheckedIOException
+    {
+        super(universe.Name(block), cFileUniverse.GalaxyType(type), universe.mLogger);
+        mUniverse = universe;
+        mIndex = index;
+        try
+        {
+            cFileUniverse.DecodePosition(block, this, type);
+        }
+        catch(BufferUnderflowException e)
+        {
+            throw cFileUniverse.Damaged("galaxy record");
+        }
+        mStarCount = cFileUniverse.Count(block);
+        mBlock = block.slice(block.position(), block.remaining()).order(block.order());
+    }
+
+    /**
+     * Gets the index of this galaxy within its universe.
+     * 
+     * @return the index of this galaxy
+     */
+    int GetIndex()
+    {
+        return mIndex;
+    }
+
+    /**
+     * Gets a star at the specified index, decoding it if it is not cached.
+     * 
+     * @param index the index of the star to retrieve
+     * @return the star at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     * @throws UncheckedIOException if the block of the galaxy is damaged
+     */
+    @Override
+    public cStar GetStar(int index) throws IndexOutOfBoundsException, UncheckedIOException
+    {
+        if(index >= 0 && index < mStarCount)
+        {
+            int[] offsets = StarOffsets();
+            return mUniverse.GetStar(this, index, mBlock, offsets[index], offsets[index + 1]);
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of stars in the galaxy without decoding any of them.
+     * 
+     * @return the count of stars in this galaxy
+     */
+    @Override
+    public int GetStarCount()
+    {
+        return mStarCount;
+    }
+
+    /**
+     * Gets the offsets of the star records, finding them on first use by skipping over the planets of each star.
+     * 
+     * @return the offset of each star record within the block, followed by the end of the last one
+     * @throws UncheckedIOException if the block of the galaxy is damaged
+     */
+    private int[] StarOffsets() throws UncheckedIOException
+    {
+        int[] offsets = mStarOffsets;
+        if(offsets == null)
+        {
+            mLogger.LogTrace("Finding stars of galaxy " + this.mName);
+            offsets = new int[mStarCount + 1];
+            ByteBuffer block = mBlock.duplicate().order(mBlock.order());
+            try
+            {
+                for(int s = 0; s < mStarCount; s++)
+                {
+                    offsets[s] = block.position();
+                    int type = block.get() & 0xFF;
+                    if(cUniverseFileReader.GetVarint(block) < 0)
+                    {
+                        throw cFileUniverse.Damaged("name id");
+                    }
+                    if((type & cUniverseFileReader.HAS_POSITION) != 0)
+                    {
+                        block.position(block.position() + 3 * 8);
+                    }
+                    int length = block.getInt();
+                    block.position(block.position() + length);
+                }
+            }
+            catch(BufferUnderflowException | IllegalArgumentException e)
+            {
+                throw cFileUniverse.Damaged("star records of galaxy " + this.mName);
+            }
+            offsets[mStarCount] = block.position();
+            mStarOffsets = offsets;
+        }
+        return offsets;
+    }
+}
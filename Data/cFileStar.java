@@ -0,0 +1,113 @@
+package Data;
+
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Represents a star of a universe file, decoded from its record when first requested.
+ * The star record gives the planet count, and the planets and their moons are all decoded into
+ * ordinary planets the first time one of them is requested.
+ * Planets cannot be added to or removed from a file star.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cFileStar extends cStarView
+{
+    /**
+     * The universe that decodes the planets of this star.
+     */
+    private final cFileUniverse mUniverse;
+
+    /**
+     * The planet records of this star, positioned at the planet count.
+     */
+    private final ByteBuffer mRecords;
+
+    /**
+     * Number of planets of this star.
+     */
+    private final int mPlanetCount;
+
+    /**
+     * Planets of this star, or null until a planet is requested.
+     */
+    private volatile cPlanet[] mFilePlanets;
+
+    /**
+     * Constructs a star by decoding its record.
+     * 
+     * @param universe the universe that owns the star
+     * @param record the star record, from its type byte to the end of its planets
+     * @throws UncheckedIOException if the star record is damaged
+     */
+    cFileStar(cFileUniverse universe, ByteBuffer record) throws UncheckedIOException
+    {
+        this(universe, record, record.get() & 0xFF);
+    }
+
+    /**
+     * Constructs a star from the rest of its record once the type byte is read.
+     * 
+     * @param universe the universe that owns the star
+     * @param record the star record, positioned at the name id
+     * @param type the type byte of the record
+     * @throws UncheckedIOException if the star record is damaged
+     */
+    private cFileStar(cFileUniverse universe, ByteBuffer record, int type) throws UncheckedIOException
+    {
+        super(universe.Name(record), cFileUniverse.StarType(type), universe.mLogger);
+        mUniverse = universe;
+        try
+        {
+            cFileUniverse.DecodePosition(record, this, type);
+            record.getInt();
+        }
+        catch(BufferUnderflowException e)
+        {
+            throw cFileUniverse.Damaged("star record");
+        }
+        mRecords = record.slice(record.position(), record.remaining()).order(record.order());
+        mPlanetCount = cFileUniverse.Count(mRecords.duplicate().order(mRecords.order()));
+    }
+
+    /**
+     * Gets a planet at the specified index, decoding all planets of the star on first use.
+     * 
+     * @param index the index of the planet to retrieve
+     * @return the planet at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     * @throws UncheckedIOException if the planet records are damaged
+     */
+    @Override
+    public cPlanet GetPlanet(int index) throws IndexOutOfBoundsException, UncheckedIOException
+    {
+        if(index >= 0 && index < mPlanetCount)
+        {
+            cPlanet[] planets = mFilePlanets;
+            if(planets == null)
+            {
+                mLogger.LogTrace("Decoding planets of system " + this.mName);
+                planets = mUniverse.DecodePlanets(mRecords.duplicate().order(mRecords.order()));
+                mFilePlanets = planets;
+            }
+            return planets[index];
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of planets of the star without decoding them.
+     * 
+     * @return the count of planets of this star
+     */
+    @Override
+    public int GetPlanetCount()
+    {
+        return mPlanetCount;
+    }
+}
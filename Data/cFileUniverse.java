@@ -0,0 +1,551 @@
+package Data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import Logging.cLoggingBase;
+
+/**
+ * Read only universe over a memory mapped universe file, as written by cUniverse.Save.
+ * Opening maps the file and reads only the header, the name table and the galaxy index, so it takes
+ * the same time whatever the size of the universe. A galaxy is decoded from its block when it is first
+ * requested, the offsets of its stars when one of them is first requested, and the planets and moons of
+ * a star when the first of them is requested. Decoded galaxies and stars are kept in bounded caches as in
+ * cLazyUniverse, and the operating system only pages in the parts of the file that are read, so resident
+ * memory follows what is browsed rather than the size of the file.
+ * In compressed files only the block of a requested galaxy is decompressed, onto the heap, and Prefetch
+ * decompresses a range of galaxies in parallel.
+ * The file layout is described in cUniverseFileReader. Blocks found to be damaged while decoding are
+ * reported with an UncheckedIOException, since the read API cannot throw checked exceptions.
+ * The mapping stays valid until Close is called; reading the universe afterwards throws an
+ * IllegalStateException.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cFileUniverse extends cUniverseView
+{
+    /**
+     * Default number of galaxies, and of stars, kept decoded.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    /**
+     * Layout of the int values of the file.
+     */
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Layout of the long values of the file.
+     */
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Galaxy types in ordinal order.
+     */
+    private static final cGalaxy.eGalaxyType[] GALAXY_TYPES = cGalaxy.eGalaxyType.values();
+
+    /**
+     * Star types in ordinal order.
+     */
+    private static final cStar.eStarType[] STAR_TYPES = cStar.eStarType.values();
+
+    /**
+     * Planet types in ordinal order.
+     */
+    private static final cPlanet.ePlanetType[] PLANET_TYPES = cPlanet.ePlanetType.values();
+
+    /**
+     * Arena owning the mapping of the file.
+     */
+    private final Arena mArena;
+
+    /**
+     * The mapped file.
+     */
+    private final MemorySegment mSegment;
+
+    /**
+     * Table of distinct names, referenced by the name ids of the records.
+     */
+    private final String[] mNames;
+
+    /**
+     * Offset of each galaxy block, followed by the offset of the index, where the last block ends.
+     */
+    private final long[] mOffsets;
+
+    /**
+     * Whether the galaxy blocks are compressed.
+     */
+    private final boolean mCompressed;
+
+    /**
+     * Recently decoded galaxies by index.
+     */
+    private final cBoundedCache<Integer, cFileGalaxy> mGalaxyCache;
+
+    /**
+     * Recently decoded stars by galaxy index in the high half and star index in the low half.
+     */
+    private final cBoundedCache<Long, cFileStar> mStarCache;
+
+    /**
+     * Constructs a universe over a mapped file whose header, index and name table have been read.
+     *
+     * @param arena the arena owning the mapping
+     * @param segment the mapped file
+     * @param names the name table of the file
+     * @param offsets the galaxy offsets followed by the index offset
+     * @param compressed whether the galaxy blocks are compressed
+     * @param cacheSize the number of galaxies, and of stars, kept decoded
+     * @param logger the logger to use for this universe
+     */
+    private cFileUniverse(Arena arena, MemorySegment segment, String[] names, long[] offsets, boolean compressed, int cacheSize, cLoggingBase logger)
+    {
+        super(logger);
+        mArena = arena;
+        mSegment = segment;
+        mNames = names;
+        mOffsets = offsets;
+        mCompressed = compressed;
+        mGalaxyCache = new cBoundedCache<Integer, cFileGalaxy>(cacheSize);
+        mStarCache = new cBoundedCache<Long, cFileStar>(cacheSize);
+    }
+
+    /**
+     * Opens a universe file with the default cache size.
+     *
+     * @param file the file to open
+     * @param logger the logger to use for the universe
+     * @return the universe over the file
+     * @throws IOException if the file cannot be read or is not a valid universe file
+     */
+    public static cFileUniverse Open(Path file, cLoggingBase logger) throws IOException
+    {
+        return Open(file, DEFAULT_CACHE_SIZE, logger);
+    }
+
+    /**
+     * Opens a universe file. Only the header, the galaxy index and the name table are read;
+     * bodies are decoded from the mapping on access.
+     *
+     * @param file the file to open
+     * @param cacheSize the number of galaxies, and of stars, kept decoded (must be >= 1)
+     * @param logger the logger to use for the universe
+     * @return the universe over the file
+     * @throws IOException if the file cannot be read or is not a valid universe file
+     * @throws IllegalArgumentException if the cache size is below 1
+     */
+    public static cFileUniverse Open(Path file, int cacheSize, cLoggingBase logger) throws IOException, IllegalArgumentException
+    {
+        if(cacheSize < 1)
+        {
+            String message = "Cannot open universe file " + file + ": cache size must be at least 1";
+            logger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        logger.LogTrace("Opening universe file " + file);
+        Arena arena = Arena.ofShared();
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            long size = segment.byteSize();
+            if(size < cUniverseFileReader.HEADER_SIZE + cUniverseFileReader.TRAILER_SIZE || segment.get(INT, 0) != cUniverseFileReader.MAGIC)
+            {
+                throw Invalid(file, "not a universe file", logger);
+            }
+            int version = segment.get(INT, 4);
+            if(version != cUniverseFileReader.VERSION && version != cUniverseFileReader.COMPRESSED_VERSION)
+            {
+                throw Invalid(file, "unsupported version " + version, logger);
+            }
+            int galaxyCount = segment.get(INT, 8);
+            int nameCount = segment.get(INT, 12);
+            long indexOffset = segment.get(LONG, size - cUniverseFileReader.TRAILER_SIZE);
+            //The index must lie between the header and the trailer, which bounds the galaxy count by the file size.
+            if(segment.get(INT, size - 4) != cUniverseFileReader.MAGIC || galaxyCount < 0 || nameCount < 0
+                || indexOffset < cUniverseFileReader.HEADER_SIZE || indexOffset != size - cUniverseFileReader.TRAILER_SIZE - 8L * galaxyCount)
+            {
+                throw Invalid(file, "damaged trailer", logger);
+            }
+
+            long[] offsets = new long[galaxyCount + 1];
+            offsets[galaxyCount] = indexOffset;
+            for(int g = galaxyCount - 1; g >= 0; g--)
+            {
+                offsets[g] = segment.get(LONG, indexOffset + 8L * g);
+                if(offsets[g] < cUniverseFileReader.HEADER_SIZE || offsets[g] >= offsets[g + 1] || offsets[g + 1] - offsets[g] > Integer.MAX_VALUE)
+                {
+                    throw Invalid(file, "damaged galaxy index", logger);
+                }
+            }
+
+            long namesEnd = galaxyCount > 0 ? offsets[0] : indexOffset;
+            if(namesEnd - cUniverseFileReader.HEADER_SIZE > Integer.MAX_VALUE)
+            {
+                throw Invalid(file, "name table too large", logger);
+            }
+            ByteBuffer table = Block(segment, cUniverseFileReader.HEADER_SIZE, namesEnd);
+            //Every name takes at least the byte of its length, so the count is checked before allocating.
+            if(nameCount > table.remaining())
+            {
+                throw Invalid(file, "damaged name table", logger);
+            }
+            String[] names = new String[nameCount];
+            for(int n = 0; n < nameCount; n++)
+            {
+                int length = cUniverseFileReader.GetVarint(table);
+                if(length < 0 || length > table.remaining())
+                {
+                    throw Invalid(file, "damaged name table", logger);
+                }
+                byte[] bytes = new byte[length];
+                table.get(bytes);
+                names[n] = cNames.Intern(new String(bytes, StandardCharsets.UTF_8));
+            }
+
+            logger.LogInfo("Opened universe file " + file + " with " + galaxyCount + " galaxies and " + nameCount + " names");
+            return new cFileUniverse(arena, segment, names, offsets, version == cUniverseFileReader.COMPRESSED_VERSION, cacheSize, logger);
+        }
+        catch(BufferUnderflowException e)
+        {
+            arena.close();
+            throw Invalid(file, "damaged name table", logger);
+        }
+        catch(IOException | RuntimeException e)
+        {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Unmaps the file and drops the decoded galaxies and stars. Galaxies and stars of this universe must
+     * not be used afterwards; planets that were already decoded stay readable.
+     */
+    public void Close()
+    {
+        mLogger.LogTrace("Closing universe file");
+        synchronized(mGalaxyCache)
+        {
+            mGalaxyCache.clear();
+        }
+        synchronized(mStarCache)
+        {
+            mStarCache.clear();
+        }
+        mArena.close();
+    }
+
+    /**
+     * Gets the galaxy at the specified index, decoding it if it is not cached.
+     *
+     * @param index the index of the galaxy to retrieve
+     * @return the galaxy at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cGalaxy GetGalaxy(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < mOffsets.length - 1)
+        {
+            cFileGalaxy galaxy;
+            synchronized(mGalaxyCache)
+            {
+                galaxy = mGalaxyCache.get(index);
+            }
+            if(galaxy == null)
+            {
+                mLogger.LogTrace("Decoding galaxy at index " + index + " of universe file");
+                ByteBuffer block = mCompressed ? Inflate(mSegment, mOffsets[index], mOffsets[index + 1]) : Block(mSegment, mOffsets[index], mOffsets[index + 1]);
+                galaxy = new cFileGalaxy(this, index, block);
+                synchronized(mGalaxyCache)
+                {
+                    cFileGalaxy cached = mGalaxyCache.putIfAbsent(index, galaxy);
+                    if(cached != null)
+                    {
+                        galaxy = cached;
+                    }
+                }
+            }
+            return galaxy;
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Decodes a range of galaxies in parallel on the common fork join pool, so that later requests find
+     * them cached. In compressed files this decompresses their blocks in parallel. Galaxies beyond the
+     * cache size push out the ones decoded before them.
+     *
+     * @param from the index of the first galaxy to decode
+     * @param to the index after the last galaxy to decode
+     * @throws IndexOutOfBoundsException if the range is not within the galaxies of the universe
+     * @throws UncheckedIOException if a block is damaged
+     */
+    public void Prefetch(int from, int to) throws IndexOutOfBoundsException, UncheckedIOException
+    {
+        if(from < 0 || from > to || to > GetGalaxyCount())
+        {
+            throw OutOfBounds(from < 0 || from > to ? from : to);
+        }
+        mLogger.LogTrace("Prefetching galaxies " + from + " to " + to + " of universe file");
+        IntStream.range(from, to).parallel().forEach(this::GetGalaxy);
+    }
+
+    /**
+     * Gets the number of galaxies in the universe.
+     *
+     * @return the count of galaxies in this universe
+     */
+    @Override
+    public int GetGalaxyCount()
+    {
+        return mOffsets.length - 1;
+    }
+
+    /**
+     * Gets a star of a galaxy of this universe, decoding it if it is not cached.
+     *
+     * @param galaxy the galaxy of the star
+     * @param index the index of the star, which must be valid
+     * @param block the star records of the galaxy
+     * @param offset the offset of the star record within the block
+     * @param end the offset where the star record ends
+     * @return the star
+     */
+    cStar GetStar(cFileGalaxy galaxy, int index, ByteBuffer block, int offset, int end)
+    {
+        long key = ((long)galaxy.GetIndex() << 32) | index;
+        cFileStar star;
+        synchronized(mStarCache)
+        {
+            star = mStarCache.get(key);
+        }
+        if(star == null)
+        {
+            mLogger.LogTrace("Decoding star at index " + index + " of galaxy " + galaxy.GetName());
+            star = new cFileStar(this, block.slice(offset, end - offset).order(ByteOrder.LITTLE_ENDIAN));
+            synchronized(mStarCache)
+            {
+                cFileStar cached = mStarCache.putIfAbsent(key, star);
+                if(cached != null)
+                {
+                    star = cached;
+                }
+            }
+        }
+        return star;
+    }
+
+    /**
+     * Decodes a count of planets or moons and their records, with the moons of each attached.
+     *
+     * @param buffer the buffer positioned at the count
+     * @return the planets or moons
+     * @throws UncheckedIOException if the records are damaged
+     */
+    cPlanet[] DecodePlanets(ByteBuffer buffer) throws UncheckedIOException
+    {
+        try
+        {
+            cPlanet[] planets = new cPlanet[Count(buffer)];
+            for(int p = 0; p < planets.length; p++)
+            {
+                int type = buffer.get() & 0xFF;
+                cPlanet planet = new cPlanet(Name(buffer), Type(PLANET_TYPES, type), mLogger, false);
+                DecodePosition(buffer, planet, type);
+                if((type & cUniverseFileReader.HAS_ORBIT) != 0)
+                {
+                    planet.mOrbit = new cOrbit(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                                               buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), mLogger);
+                }
+                cPlanet[] moons = DecodePlanets(buffer);
+                if(moons.length > 0)
+                {
+                    planet.AddMoons(Arrays.asList(moons));
+                }
+                planets[p] = planet;
+            }
+            return planets;
+        }
+        catch(BufferUnderflowException | IllegalArgumentException e)
+        {
+            throw Damaged("planet records");
+        }
+    }
+
+    /**
+     * Decodes the type of a galaxy record.
+     *
+     * @param type the type byte of the record
+     * @return the galaxy type
+     */
+    static cGalaxy.eGalaxyType GalaxyType(int type)
+    {
+        return Type(GALAXY_TYPES, type);
+    }
+
+    /**
+     * Decodes the type of a star record.
+     *
+     * @param type the type byte of the record
+     * @return the star type
+     */
+    static cStar.eStarType StarType(int type)
+    {
+        return Type(STAR_TYPES, type);
+    }
+
+    /**
+     * Looks up the type of a record from its type byte.
+     *
+     * @param <T> the type enumeration of the body
+     * @param types the values of the enumeration in ordinal order
+     * @param type the type byte of the record
+     * @return the type
+     * @throws UncheckedIOException if the ordinal is not a type
+     */
+    private static <T> T Type(T[] types, int type) throws UncheckedIOException
+    {
+        int ordinal = type & cUniverseFileReader.TYPE_MASK;
+        if(ordinal >= types.length)
+        {
+            throw Damaged("type ordinal " + ordinal);
+        }
+        return types[ordinal];
+    }
+
+    /**
+     * Decodes a name id and looks the name up.
+     *
+     * @param buffer the buffer positioned at the name id
+     * @return the name, or null for id 0
+     * @throws UncheckedIOException if the id is not in the name table
+     */
+    String Name(ByteBuffer buffer) throws UncheckedIOException
+    {
+        int id = cUniverseFileReader.GetVarint(buffer);
+        if(id < 0 || id > mNames.length)
+        {
+            throw Damaged("name id " + id);
+        }
+        return id != 0 ? mNames[id - 1] : null;
+    }
+
+    /**
+     * Decodes a count of child records.
+     *
+     * @param buffer the buffer positioned at the count
+     * @return the count
+     * @throws UncheckedIOException if the count is damaged
+     */
+    static int Count(ByteBuffer buffer) throws UncheckedIOException
+    {
+        int count = cUniverseFileReader.GetVarint(buffer);
+        if(count < 0 || count > buffer.remaining())
+        {
+            throw Damaged("count");
+        }
+        return count;
+    }
+
+    /**
+     * Decodes the position of a record if its type byte says it has one.
+     *
+     * @param buffer the buffer positioned after the name id
+     * @param body the body to place
+     * @param type the type byte of the record
+     */
+    static void DecodePosition(ByteBuffer buffer, cObjectBase body, int type)
+    {
+        if((type & cUniverseFileReader.HAS_POSITION) != 0)
+        {
+            body.Place(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+        }
+    }
+
+    /**
+     * Decompresses a compressed galaxy block of a mapped file.
+     * The compressed bytes are copied to the heap first, as Inflater cannot read shared mappings.
+     *
+     * @param segment the mapped file
+     * @param from the offset of the compressed block with its lengths
+     * @param to the offset after the compressed block
+     * @return a little endian buffer holding the galaxy block
+     * @throws UncheckedIOException if the block is damaged
+     */
+    private static ByteBuffer Inflate(MemorySegment segment, long from, long to) throws UncheckedIOException
+    {
+        if(to - from >= 8)
+        {
+            int compressedLength = segment.get(INT, from);
+            int length = segment.get(INT, from + 4);
+            if(compressedLength == to - from - 8 && cUniverseFileReader.IsBlockLength(compressedLength, length))
+            {
+                ByteBuffer compressed = ByteBuffer.wrap(segment.asSlice(from + 8, compressedLength).toArray(ValueLayout.JAVA_BYTE));
+                ByteBuffer inflated = cUniverseFileReader.Inflate(compressed, length);
+                if(inflated != null)
+                {
+                    return inflated;
+                }
+            }
+        }
+        throw Damaged("galaxy block");
+    }
+
+    /**
+     * Gets a buffer over part of a mapped file.
+     *
+     * @param segment the mapped file
+     * @param from the offset of the first byte
+     * @param to the offset after the last byte, at most Integer.MAX_VALUE bytes after the first
+     * @return a little endian buffer over the bytes
+     */
+    private static ByteBuffer Block(MemorySegment segment, long from, long to)
+    {
+        return segment.asSlice(from, to - from).asByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates the exception thrown for a block found to be damaged while decoding.
+     *
+     * @param what the part of the block that is damaged
+     * @return the exception to throw
+     */
+    static UncheckedIOException Damaged(String what)
+    {
+        return new UncheckedIOException(new IOException("Damaged universe file: invalid " + what));
+    }
+
+    /**
+     * Logs and creates the exception thrown for a file that cannot be opened.
+     *
+     * @param file the file being opened
+     * @param reason the reason the file is rejected
+     * @param logger the logger to report the error to
+     * @return the exception to throw
+     */
+    private static IOException Invalid(Path file, String reason, cLoggingBase logger)
+    {
+        String message = "Cannot open universe file " + file + ": " + reason;
+        logger.LogError(message);
+        return new IOException(message);
+    }
+}
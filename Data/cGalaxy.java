@@ -1,7 +1,12 @@
 package Data;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
 
 import Logging.cLoggingBase;
 
@@ -59,17 +64,47 @@ public class cGalaxy extends cObjectBase
     /**
      * List of stars contained in this galaxy.
      */
-    private ArrayList<cStar> mStars;
+    private cIndexedList<cStar> mStars;
+    
+    /**
+     * Counts of the stars, planets and moons of this galaxy, kept up to date as they change.
+     */
+    cSubtreeStats mStats;
+    
+    /**
+     * The universe this galaxy was last added to, which is told about changes to the counts, or null.
+     */
+    cUniverse mUniverse;
+    
+    /**
+     * Snapshot of this galaxy, shared until something in the galaxy changes, or null.
+     */
+    private cGalaxySnapshot mSnapshot;
+
+    /**
+     * Type index of the stars and planets of this galaxy, discarded when any of them changes, or null.
+     */
+    private cGalaxyIndex mTypeIndex;
+
+    /**
+     * Spatial index of the stars of this galaxy, kept up to date as stars are added, removed or moved, or null.
+     */
+    private cStarTree mSpatialIndex;
+    
+    /**
+     * Lock guarding this galaxy and everything in it while its universe is in concurrent mode.
+     */
+    private ReentrantLock mLock;
     
     /**
      * The classification type of this galaxy.
      */
-    private eGalaxyType mType;
+    protected eGalaxyType mType;
     
     /**
      * Logger instance for this galaxy.
      */
-    private cLoggingBase mLogger;
+    protected cLoggingBase mLogger;
 
     /**
      * Constructs a galaxy with the specified name and type.
@@ -77,13 +112,22 @@ public class cGalaxy extends cObjectBase
      * 
      * @param name the name of the galaxy
      * @param type the classification type of the galaxy
+     * @throws IllegalArgumentException if the type is null
      */
-    public cGalaxy(String name, eGalaxyType type)
+    public cGalaxy(String name, eGalaxyType type) throws IllegalArgumentException
     {
         super(name);
-        mStars = new ArrayList<cStar>();
+        mStars = new cIndexedList<cStar>();
+        mStats = new cSubtreeStats(cSubtreeStats.GALAXY_SIZE);
+        mLock = new ReentrantLock();
         mType = type;
         mLogger = cLoggingBase.GetStandbyLogger();
+        if(type == null)
+        {
+            String message = "Cannot create galaxy " + name + " with a null type";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
     }
     
     /**
@@ -116,11 +160,47 @@ public class cGalaxy extends cObjectBase
      * @param name the name of the galaxy
      * @param type the classification type of the galaxy
      * @param logger the logger to use for this galaxy
+     * @throws IllegalArgumentException if the type is null
      */
-    public cGalaxy(String name, eGalaxyType type, cLoggingBase logger)
+    public cGalaxy(String name, eGalaxyType type, cLoggingBase logger) throws IllegalArgumentException
     {
         super(name);
-        mStars = new ArrayList<cStar>();
+        mStars = new cIndexedList<cStar>();
+        mStats = new cSubtreeStats(cSubtreeStats.GALAXY_SIZE);
+        mLock = new ReentrantLock();
+        mType = type;
+        mLogger = logger;
+        if(type == null)
+        {
+            String message = "Cannot create galaxy " + name + " with a null type";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Constructs a galaxy whose name is already shared, so that it is not interned again.
+     * A view keeps no star list, counts or lock of its own, since cGalaxyView provides its stars and
+     * cannot change, so views over large stored universes stay cheap to create.
+     * 
+     * @param name the shared name of the galaxy
+     * @param type the classification type of the galaxy
+     * @param logger the logger to use for this galaxy
+     * @param view true for a read only view, false for a galaxy that stores its stars
+     */
+    cGalaxy(String name, eGalaxyType type, cLoggingBase logger, boolean view)
+    {
+        super(name, false);
+        if(view)
+        {
+            mStats = cSubtreeStats.EMPTY;
+        }
+        else
+        {
+            mStars = new cIndexedList<cStar>();
+            mStats = new cSubtreeStats(cSubtreeStats.GALAXY_SIZE);
+            mLock = new ReentrantLock();
+        }
         mType = type;
         mLogger = logger;
     }
@@ -132,12 +212,72 @@ public class cGalaxy extends cObjectBase
      */
     public void ClearStars()
     {
-        mLogger.LogTrace("Clearing stars from galaxy " + this.ToString());
-        for(cStar s : mStars)
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            s.ClearPlanets();
+            mLogger.LogTrace("Clearing stars from galaxy " + this.ToString());
+            Invalidate();
+            if(mUniverse != null)
+            {
+                mUniverse.Count(mStats, -1);
+            }
+            mStats.Reset();
+            mTypeIndex = null;
+            mSpatialIndex = null;
+            for(cStar s : mStars)
+            {
+                if(s.mGalaxy == this)
+                {
+                    s.mGalaxy = null;
+                }
+                s.mArena = null;
+                s.ClearPlanets();
+            }
+            mStars.Clear();
+        }
+        finally
+        {
+            Unlock(lock);
         }
-        mStars.clear();
+    }
+
+    /**
+     * Takes this galaxy and its stars, planets and moons out of the arena that generated them, so that they are never reused.
+     * Everything below an object that is not in an arena is not in one either, so the walk stops there.
+     */
+    void LeaveArena()
+    {
+        if(mArena != null)
+        {
+            mArena = null;
+            for(cStar star : mStars)
+            {
+                star.LeaveArena();
+            }
+        }
+    }
+
+    /**
+     * Reinitializes this galaxy for reuse by an object arena.
+     * The star list is emptied but keeps its capacity, the galaxy is moved back to the origin as a new one
+     * would be, and no logging is done.
+     * 
+     * @param name the new name of the galaxy
+     * @param type the new type of the galaxy
+     * @param logger the logger to use for this galaxy
+     */
+    void Recycle(String name, eGalaxyType type, cLoggingBase logger)
+    {
+        mName = name;
+        mType = type;
+        mLogger = logger;
+        mStars.Clear();
+        mStats.Reset();
+        mUniverse = null;
+        mSnapshot = null;
+        mTypeIndex = null;
+        mSpatialIndex = null;
+        Place(0, 0, 0);
     }
 
     /**
@@ -145,28 +285,75 @@ public class cGalaxy extends cObjectBase
      * If the star is already in the galaxy, a warning is logged but no exception is thrown.
      * 
      * @param star the star to add to the galaxy
+     * @return true if the star was added, false if it was already in the galaxy
      * @throws IllegalArgumentException if the star is null
      */
-    public void AddStar(cStar star) throws IllegalArgumentException
+    public boolean AddStar(cStar star) throws IllegalArgumentException
     {
-        if(star != null)
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            if(!mStars.contains(star))
+            if(star != null)
             {
-                mLogger.LogTrace("Adding star " + star.ToString() + " to galaxy " + this.ToString());
-                mStars.add(star);
-            }            
+                if(!mStars.Contains(star))
+                {
+                    mLogger.LogTrace("Adding star " + star.ToString() + " to galaxy " + this.ToString());
+                    mStars.Add(star);
+                    Attach(star);
+                    return true;
+                }            
+                else
+                {
+                    String message = "Cannot add " + star.ToString() + " to galaxy " + this.ToString() + ": star already in galaxy";
+                    mLogger.LogWarning(message);
+                    return false;
+                }
+            }
             else
             {
-                String message = "Cannot add " + star.ToString() + " to galaxy " + this.ToString() + ": star already in galaxy";
-                mLogger.LogWarning(message);
+                String message = "Cannot add null star to galaxy " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot add null star to galaxy " + this.ToString();
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Appends a collection of stars to the end of the galaxy's star list, keeping their order.
+     * Duplicates are checked once for the whole collection and a single summary is logged,
+     * which makes this much cheaper than calling AddStar for each star of a large collection.
+     * Stars already in the galaxy, or repeated in the collection, are skipped with a warning.
+     * If the collection contains a null star nothing is added.
+     * 
+     * @param stars the stars to add
+     * @throws IllegalArgumentException if the collection is null or contains a null star
+     */
+    public void AddStars(Collection<? extends cStar> stars) throws IllegalArgumentException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            if(stars == null || cChildLists.ContainsNull(stars))
+            {
+                String message = "Cannot add null star to galaxy " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            int skipped = mStars.AddAllUnique(stars, this::Attach);
+            mLogger.LogTrace("Added " + (stars.size() - skipped) + " stars to galaxy " + this.ToString());
+            if(skipped > 0)
+            {
+                mLogger.LogWarning("Skipped " + skipped + " stars already in galaxy " + this.ToString());
+            }
+        }
+        finally
+        {
+            Unlock(lock);
         }
     }
 
@@ -176,38 +363,50 @@ public class cGalaxy extends cObjectBase
      * 
      * @param star the star to add to the galaxy
      * @param index the index at which to insert the star
+     * @return true if the star was added, false if it was already in the galaxy
      * @throws IndexOutOfBoundsException if the index is out of bounds
      * @throws IllegalArgumentException if the star is null
      */
-    public void AddStar(cStar star, int index) throws IndexOutOfBoundsException, IllegalArgumentException
+    public boolean AddStar(cStar star, int index) throws IndexOutOfBoundsException, IllegalArgumentException
     {
-        if(star != null)
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            if(index >= 0 && index <= mStars.size())
+            if(star != null)
             {
-                mLogger.LogTrace("Adding star " + star.ToString() + " to galaxy " + this.ToString());
-                if(!mStars.contains(star))
+                if(index >= 0 && index <= mStars.Size())
                 {
-                    mStars.add(index, star);
-                }            
+                    mLogger.LogTrace("Adding star " + star.ToString() + " to galaxy " + this.ToString());
+                    if(!mStars.Contains(star))
+                    {
+                        mStars.Add(index, star);
+                        Attach(star);
+                        return true;
+                    }            
+                    else
+                    {
+                        String message = "Cannot add " + star.ToString() + " to galaxy " + this.ToString() + ": star already in galaxy";
+                        mLogger.LogWarning(message);
+                        return false;
+                    }
+                }
                 else
                 {
-                    String message = "Cannot add " + star.ToString() + " to galaxy " + this.ToString() + ": star already in galaxy";
-                    mLogger.LogWarning(message);
+                    String message = "Index of " + index + " is out of bounds for galaxy " + this.ToString();
+                    mLogger.LogError(message);
+                    throw new IndexOutOfBoundsException(message);
                 }
             }
             else
             {
-                String message = "Index of " + index + " is out of bounds for galaxy " + this.ToString();
+                String message = "Cannot add null star to galaxy " + this.ToString();
                 mLogger.LogError(message);
-                throw new IndexOutOfBoundsException(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot add null star to galaxy " + this.ToString();
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
+            Unlock(lock);
         }
     }
 
@@ -216,28 +415,40 @@ public class cGalaxy extends cObjectBase
      * If the star is not in the galaxy, a warning is logged but no exception is thrown.
      * 
      * @param star the star to remove from the galaxy
+     * @return true if the star was removed, false if it was not in the galaxy
      * @throws IllegalArgumentException if the star is null
      */
-    public void RemoveStar(cStar star) throws IllegalArgumentException
+    public boolean RemoveStar(cStar star) throws IllegalArgumentException
     {
-        if(star != null)
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            if(mStars.contains(star))
+            if(star != null)
             {
-                mLogger.LogTrace("Removing star " + star.ToString() + " from galaxy " + this.ToString());
-                mStars.remove(star);
-            }            
+                if(mStars.Contains(star))
+                {
+                    mLogger.LogTrace("Removing star " + star.ToString() + " from galaxy " + this.ToString());
+                    mStars.Remove(star);
+                    Detach(star);
+                    return true;
+                }            
+                else
+                {
+                    String message = "Cannot remove " + star.ToString() + " from galaxy " + this.ToString() + ": star not in galaxy";
+                    mLogger.LogWarning(message);
+                    return false;
+                }
+            }
             else
             {
-                String message = "Cannot remove " + star.ToString() + " from galaxy " + this.ToString() + ": star not in galaxy";
-                mLogger.LogWarning(message);
+                String message = "Cannot remove null star from galaxy " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot remove null star from galaxy " + this.ToString();
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
+            Unlock(lock);
         }
     }
 
@@ -249,16 +460,24 @@ public class cGalaxy extends cObjectBase
      */
     public void RemoveStar(int index) throws IndexOutOfBoundsException
     {
-        if(index >= 0 && index < mStars.size())
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            mLogger.LogTrace("Removing star at index " + index + " from galaxy " + this.ToString());
-            mStars.remove(index);
+            if(index >= 0 && index < mStars.Size())
+            {
+                mLogger.LogTrace("Removing star at index " + index + " from galaxy " + this.ToString());
+                Detach(mStars.Remove(index));
+            }
+            else
+            {
+                String message = "Index " + index + " is out of bounds for galaxy " + this.ToString();
+                mLogger.LogError(message);
+                throw new IndexOutOfBoundsException(message);
+            }
         }
-        else
+        finally
         {
-            String message = "Index " + index + " is out of bounds for galaxy " + this.ToString();
-            mLogger.LogError(message);
-            throw new IndexOutOfBoundsException(message);
+            Unlock(lock);
         }
     }
 
@@ -271,16 +490,24 @@ public class cGalaxy extends cObjectBase
      */
     public cStar GetStar(int index) throws IndexOutOfBoundsException
     {
-        if(index >= 0 && index < mStars.size())
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            mLogger.LogTrace("Getting star at index " + index + " from galaxy " + this.ToString());
-            return mStars.get(index);
+            if(index >= 0 && index < mStars.Size())
+            {
+                mLogger.LogTrace("Getting star at index " + index + " from galaxy " + this.ToString());
+                return mStars.Get(index);
+            }
+            else
+            {
+                String message = "Index " + index + " is out of bounds for galaxy " + this.ToString();
+                mLogger.LogError(message);
+                throw new IndexOutOfBoundsException(message);
+            }
         }
-        else
+        finally
         {
-            String message = "Index " + index + " is out of bounds for galaxy " + this.ToString();
-            mLogger.LogError(message);
-            throw new IndexOutOfBoundsException(message);
+            Unlock(lock);
         }
     }
 
@@ -291,8 +518,110 @@ public class cGalaxy extends cObjectBase
      */
     public int GetStarCount()
     {
-        mLogger.LogTrace("Getting star count from galaxy " + this.ToString());
-        return mStars.size();
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mLogger.LogTrace("Getting star count from galaxy " + this.ToString());
+            return mStars.Size();
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Gets the number of stars without locking, checking or logging, for walks of the hierarchy.
+     * 
+     * @return the count of stars of this galaxy
+     */
+    int StarCount()
+    {
+        return mStars.Size();
+    }
+
+    /**
+     * Gets the star at an index without locking, checking or logging, for walks of the hierarchy.
+     * 
+     * @param index the index of the star, which must be valid
+     * @return the star at the index
+     */
+    cStar StarAt(int index)
+    {
+        return mStars.Get(index);
+    }
+
+    /**
+     * Walks this galaxy and everything in it depth first, calling the visitor for each body.
+     * In concurrent mode the galaxy is locked during the walk.
+     * 
+     * @param visitor the visitor to call
+     * @throws IllegalArgumentException if the visitor is null
+     */
+    public void Accept(iUniverseVisitor visitor) throws IllegalArgumentException
+    {
+        if(visitor == null)
+        {
+            String message = "Cannot walk galaxy " + this.mName + " with null visitor.";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        cTraversal.Galaxy(this, visitor);
+    }
+
+    /**
+     * Finds the first star with the specified name.
+     * Large galaxies keep a name index, so the lookup does not scan the stars.
+     * 
+     * @param name the name of the star to find
+     * @return the first star with the name, or null if there is none
+     * @throws IllegalArgumentException if the name is null
+     */
+    public cStar FindStar(String name) throws IllegalArgumentException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            if(name == null)
+            {
+                String message = "Cannot find star with null name in galaxy " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+            return mStars.Find(name);
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds the stars whose names start with the specified prefix, in order.
+     * 
+     * @param prefix the prefix of the names to find
+     * @return the matching stars
+     * @throws IllegalArgumentException if the prefix is null
+     */
+    public List<cStar> FindStars(String prefix) throws IllegalArgumentException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            if(prefix == null)
+            {
+                String message = "Cannot find stars with null prefix in galaxy " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+            ArrayList<cStar> found = new ArrayList<cStar>();
+            mStars.FindByPrefix(prefix, found);
+            return found;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
     }
 
     /**
@@ -302,19 +631,478 @@ public class cGalaxy extends cObjectBase
      */
     public eGalaxyType GetType()
     {
-        mLogger.LogTrace("Getting type from galaxy " + this.ToString());
-        return mType;
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mLogger.LogTrace("Getting type from galaxy " + this.ToString());
+            return mType;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
     }
     
     /**
      * Sets the classification type of the galaxy.
      * 
      * @param type the new galaxy type to set
+     * @throws IllegalArgumentException if the type is null
      */
-    public void SetType(eGalaxyType type)
+    public void SetType(eGalaxyType type) throws IllegalArgumentException
     {
-        mLogger.LogTrace("Setting type of galaxy " + this.ToString() + " to " + type);
-        mType = type;
+        if(type == null)
+        {
+            String message = "Cannot set type of galaxy " + mName + " to null";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mLogger.LogTrace("Setting type of galaxy " + this.ToString() + " to " + type);
+            Invalidate();
+            if(mUniverse != null && type != mType)
+            {
+                mUniverse.Count(cSubtreeStats.GalaxySlot(mType), -1);
+                mUniverse.Count(cSubtreeStats.GalaxySlot(type), 1);
+            }
+            mType = type;
+            if(mUniverse != null)
+            {
+                mUniverse.DiscardTypeIndex();
+            }
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Gets the number of stars, planets and moons in the galaxy, in total and by type.
+     * The counts are kept up to date as bodies are added, removed or change type, so this does not
+     * walk the galaxy. The returned statistics are a copy and do not change with the galaxy.
+     * 
+     * @return the statistics of the bodies of this galaxy
+     */
+    public cSubtreeStats GetStats()
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            return mStats.Copy();
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Adds to or subtracts from one count of this galaxy and of the universe it is in.
+     * 
+     * @param slot the index of the count
+     * @param sign 1 to add one body, -1 to remove one
+     */
+    void Count(int slot, int sign)
+    {
+        mStats.Add(slot, sign);
+        mTypeIndex = null;
+        if(mUniverse != null)
+        {
+            mUniverse.Count(slot, sign);
+        }
+    }
+
+    /**
+     * Adds or subtracts the counts of a star system to this galaxy and to the universe it is in.
+     * 
+     * @param stats the counts of the star system
+     * @param sign 1 to add, -1 to subtract
+     */
+    void Count(cSubtreeStats stats, int sign)
+    {
+        mStats.Add(stats, sign);
+        mTypeIndex = null;
+        if(mUniverse != null)
+        {
+            mUniverse.Count(stats, sign);
+        }
+    }
+
+    /**
+     * Links a star that was just added to this galaxy and counts it with its planets and moons.
+     * 
+     * @param star the added star
+     */
+    private void Attach(cStar star)
+    {
+        star.mGalaxy = this;
+        if(star.mArena != mArena)
+        {
+            star.LeaveArena();
+        }
+        Invalidate();
+        Count(cSubtreeStats.StarSlot(star.mType), 1);
+        Count(star.mStats, 1);
+        if(mSpatialIndex != null)
+        {
+            mSpatialIndex.Add(star);
+            KeepSpatialIndex();
+        }
+    }
+
+    /**
+     * Unlinks a star that was just removed from this galaxy and stops counting it with its planets and moons.
+     * 
+     * @param star the removed star
+     */
+    private void Detach(cStar star)
+    {
+        if(star.mGalaxy == this)
+        {
+            star.mGalaxy = null;
+        }
+        star.LeaveArena();
+        Invalidate();
+        Count(cSubtreeStats.StarSlot(star.mType), -1);
+        Count(star.mStats, -1);
+        if(mSpatialIndex != null)
+        {
+            mSpatialIndex.Remove(star);
+            KeepSpatialIndex();
+        }
+    }
+
+    /**
+     * Updates the spatial index after a star of this galaxy moved.
+     * 
+     * @param star the moved star
+     */
+    void StarMoved(cStar star)
+    {
+        if(mSpatialIndex != null)
+        {
+            mSpatialIndex.Move(star);
+            KeepSpatialIndex();
+        }
+    }
+
+    /**
+     * Discards the spatial index if so many stars changed that building it again is cheaper than searching the changes.
+     */
+    private void KeepSpatialIndex()
+    {
+        if(mSpatialIndex.NeedsRebuild())
+        {
+            mSpatialIndex = null;
+        }
+    }
+
+    /**
+     * Gets the snapshot of this galaxy, reusing the last one if nothing in the galaxy changed since it was taken.
+     * Only the stars that changed are copied again.
+     * 
+     * @return the snapshot of this galaxy
+     */
+    cGalaxySnapshot Snapshot()
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            if(mSnapshot == null)
+            {
+                cStarSnapshot[] stars = new cStarSnapshot[mStars.Size()];
+                for(int i = 0; i < stars.length; i++)
+                {
+                    stars[i] = mStars.Get(i).Snapshot();
+                }
+                cGalaxySnapshot snapshot = new cGalaxySnapshot(mName, mType, stars, mStats, mLogger);
+                snapshot.Place(mX, mY, mZ);
+                mSnapshot = snapshot;
+            }
+            return mSnapshot;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Gets the type index of the stars and planets of this galaxy, building it if anything changed since
+     * it was last built.
+     * 
+     * @return the type index of this galaxy
+     */
+    cGalaxyIndex TypeIndex()
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            if(mTypeIndex == null)
+            {
+                mTypeIndex = new cGalaxyIndex(this);
+            }
+            return mTypeIndex;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds the stars of this galaxy within a distance of a point.
+     * Positions are relative to the centre of the galaxy, in light years. The stars are found with
+     * the spatial index of the galaxy, which is built on the first spatial query.
+     * 
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param z the z coordinate of the point
+     * @param radius the largest distance of the stars to find
+     * @return the stars within the distance, in no particular order
+     * @throws IllegalArgumentException if the radius is negative or not a number
+     */
+    public List<cStar> FindStarsWithin(double x, double y, double z, double radius) throws IllegalArgumentException
+    {
+        if(!(radius >= 0))
+        {
+            String message = "Cannot find stars of galaxy " + this.mName + " within radius " + radius + ".";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            ArrayList<cStar> found = new ArrayList<cStar>();
+            SpatialIndex().FindWithin(x, y, z, radius, found);
+            return found;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds the stars of this galaxy nearest to a point.
+     * Positions are relative to the centre of the galaxy, in light years.
+     * 
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param z the z coordinate of the point
+     * @param count the largest number of stars to find
+     * @return the nearest stars, nearest first, fewer than count if the galaxy has fewer stars
+     * @throws IllegalArgumentException if the count is negative
+     */
+    public List<cStar> FindNearestStars(double x, double y, double z, int count) throws IllegalArgumentException
+    {
+        if(count < 0)
+        {
+            String message = "Cannot find " + count + " nearest stars of galaxy " + this.mName + ".";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            ArrayList<cStar> found = new ArrayList<cStar>(Math.min(count, StarCount()));
+            SpatialIndex().FindNearest(x, y, z, count, found);
+            return found;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds the stars of this galaxy in an axis aligned box, including its faces.
+     * Positions are relative to the centre of the galaxy, in light years.
+     * 
+     * @param minX the smallest x coordinate of the box
+     * @param minY the smallest y coordinate of the box
+     * @param minZ the smallest z coordinate of the box
+     * @param maxX the largest x coordinate of the box
+     * @param maxY the largest y coordinate of the box
+     * @param maxZ the largest z coordinate of the box
+     * @return the stars in the box, in no particular order
+     * @throws IllegalArgumentException if a minimum is greater than its maximum or not a number
+     */
+    public List<cStar> FindStarsInBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) throws IllegalArgumentException
+    {
+        if(!(minX <= maxX && minY <= maxY && minZ <= maxZ))
+        {
+            String message = "Cannot find stars of galaxy " + this.mName + " in a box whose minimum is not below its maximum.";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            ArrayList<cStar> found = new ArrayList<cStar>();
+            SpatialIndex().FindInBox(new double[] { minX, minY, minZ }, new double[] { maxX, maxY, maxZ }, found);
+            return found;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds the stars of this galaxy inside a view frustum, or any other convex region bounded by planes.
+     * Each plane is given by four values a, b, c and d, and a star is inside the plane when
+     * a*x + b*y + c*z + d &gt;= 0, so the normals (a, b, c) of the planes point into the region.
+     * Positions are relative to the centre of the galaxy, in light years.
+     * 
+     * @param planes the a, b, c and d of each plane, usually the six planes of a frustum; the array is not kept
+     * @return the stars inside every plane, in no particular order
+     * @throws IllegalArgumentException if the planes are null or their length is not a multiple of four
+     */
+    public List<cStar> FindStarsInFrustum(double[] planes) throws IllegalArgumentException
+    {
+        if(planes == null || planes.length % 4 != 0)
+        {
+            String message = "Cannot find stars of galaxy " + this.mName + ": planes must be given as groups of four values.";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        double[] copy = planes.clone();
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            ArrayList<cStar> found = new ArrayList<cStar>();
+            SpatialIndex().FindInside(copy, found);
+            return found;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Gets the spatial index of the stars of this galaxy, building it from all stars if there is none.
+     * Must be called with the galaxy locked.
+     * 
+     * @return the spatial index of this galaxy
+     */
+    private cStarTree SpatialIndex()
+    {
+        if(mSpatialIndex == null)
+        {
+            mSpatialIndex = new cStarTree(this);
+        }
+        return mSpatialIndex;
+    }
+
+    /**
+     * Discards the snapshot of this galaxy and of its universe.
+     */
+    @Override
+    void Invalidate()
+    {
+        if(mSnapshot != null)
+        {
+            mSnapshot = null;
+            if(mUniverse != null)
+            {
+                mUniverse.Invalidate();
+            }
+        }
+    }
+
+    /**
+     * Tells the universe this galaxy was last added to that its name changed.
+     */
+    @Override
+    void Renamed()
+    {
+        if(mUniverse != null)
+        {
+            mUniverse.GalaxyRenamed();
+        }
+    }
+
+    /**
+     * Discards the name index of the stars of this galaxy after one of them was renamed.
+     */
+    @Override
+    void ChildRenamed()
+    {
+        mStars.DiscardNames();
+    }
+
+    /**
+     * Gets the logger of this galaxy.
+     * 
+     * @return the logger of this galaxy
+     */
+    @Override
+    cLoggingBase Logger()
+    {
+        return mLogger;
+    }
+
+    /**
+     * Gets the galaxy this object is in, which is the galaxy itself.
+     * 
+     * @return this galaxy
+     */
+    @Override
+    cGalaxy Galaxy()
+    {
+        return this;
+    }
+
+    /**
+     * Locks this galaxy if it is in a universe in concurrent mode.
+     * 
+     * @return the lock to release once done, or null if no lock was taken
+     */
+    ReentrantLock Lock()
+    {
+        cUniverse universe = mUniverse;
+        if(universe == null || !universe.IsConcurrent() || mLock == null)
+        {
+            return null;
+        }
+        mLock.lock();
+        return mLock;
+    }
+
+    /**
+     * Writes the galaxy to an output, followed by its stars, planets and moons down to a depth, one body per line.
+     * The text is the same as that of ToString, but streamed, so whole universes can be written to a
+     * console or file in linear time without building them in memory.
+     * 
+     * @param out the output to write to
+     * @param depth the number of levels of bodies to include, 0 for the galaxy alone and Integer.MAX_VALUE for all
+     * @throws IOException if the output cannot be written
+     */
+    public void Render(Appendable out, int depth) throws IOException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            out.append("Galaxy: ").append(mName).append(" : ").append(String.valueOf(mType)).append(" (").append(Integer.toString(mStars.Size())).append(")");
+            if(depth > 0)
+            {
+                for(cStar s : mStars)
+                {
+                    out.append("\n\t");
+                    s.Render(out, depth - 1);
+                }
+            }
+            out.append("\n");
+        }
+        finally
+        {
+            Unlock(lock);
+        }
     }
 
     /**
@@ -325,16 +1113,17 @@ public class cGalaxy extends cObjectBase
      */
     public String ToString(boolean recursive)
     {
-        String strOut = "Galaxy: " + this.mName + " : " + this.mType + " (" +  this.mStars.size() + ")";
-        if ((recursive)) {
-            for(cStar s : mStars)
-            {
-                strOut += "\n\t" + s.ToString(recursive);
-            } 
+        StringBuilder strOut = new StringBuilder();
+        try
+        {
+            Render(strOut, recursive ? Integer.MAX_VALUE : 0);
         }
-
-        strOut += "\n";
-        return strOut;
+        catch(IOException e)
+        {
+            //Appending to a StringBuilder cannot fail.
+            throw new UncheckedIOException(e);
+        }
+        return strOut.toString();
     }
     
     /**
@@ -363,6 +1152,19 @@ public class cGalaxy extends cObjectBase
         return typeOut;
     }
 
+    /**
+     * Gets the galaxy type determined by a seed, as used by seeded generation.
+     * The same seed always produces the same type.
+     * 
+     * @param seed the seed of the galaxy
+     * @return the galaxy type selected by the seed
+     * @see cSeed#Range(long, int, int, int)
+     */
+    public static eGalaxyType GetSeededGalaxyType(long seed)
+    {
+        return eGalaxyType.values()[cSeed.Range(seed, cSeed.TYPE_SLOT, 0, eGalaxyType.values().length)];
+    }
+
     /**
      * Gets a random galaxy type using a new random number generator.
      * This is a static utility method that can be used without creating a galaxy instance.
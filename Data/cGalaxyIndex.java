@@ -0,0 +1,296 @@
+package Data;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Type index of the stars and planets of one galaxy, used to answer type queries.
+ * Stars are numbered by their position in the galaxy and planets by their position across all stars
+ * of the galaxy, and a bitmap over those numbers is kept for each star type, each planet type and for
+ * planets with moons. A galaxy builds its index on the first query and discards it when anything in
+ * it is added, removed or changes type, so only galaxies changed since the last query are indexed again.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cGalaxyIndex
+{
+    /**
+     * Stars of the galaxy, by number.
+     */
+    private final cStar[] mStars;
+
+    /**
+     * Planets of the galaxy, by number.
+     */
+    private final cPlanet[] mPlanets;
+
+    /**
+     * Number of the star of each planet.
+     */
+    private final int[] mPlanetStars;
+
+    /**
+     * Stars of each star type.
+     */
+    private final cBitmap[] mStarTypes;
+
+    /**
+     * Planets of each planet type.
+     */
+    private final cBitmap[] mPlanetTypes;
+
+    /**
+     * Planets with at least one moon.
+     */
+    private final cBitmap mWithMoons;
+
+    /**
+     * Builds the index of a galaxy by reading all its stars and planets.
+     *
+     * @param galaxy the galaxy to index
+     */
+    cGalaxyIndex(cGalaxy galaxy)
+    {
+        int starCount = galaxy.StarCount();
+        mStars = new cStar[starCount];
+        int planetCount = 0;
+        for(int i = 0; i < starCount; i++)
+        {
+            mStars[i] = galaxy.StarAt(i);
+            planetCount += mStars[i].PlanetCount();
+        }
+        mPlanets = new cPlanet[planetCount];
+        mPlanetStars = new int[planetCount];
+        int[][] starTypes = new int[cStar.eStarType.values().length][starCount];
+        int[] starTypeCounts = new int[starTypes.length];
+        int[][] planetTypes = new int[cPlanet.ePlanetType.values().length][planetCount];
+        int[] planetTypeCounts = new int[planetTypes.length];
+        int[] withMoons = new int[planetCount];
+        int withMoonsCount = 0;
+        int planet = 0;
+        for(int i = 0; i < starCount; i++)
+        {
+            cStar star = mStars[i];
+            int type = star.mType.ordinal();
+            starTypes[type][starTypeCounts[type]++] = i;
+            int planets = star.PlanetCount();
+            for(int j = 0; j < planets; j++, planet++)
+            {
+                cPlanet body = star.PlanetAt(j);
+                mPlanets[planet] = body;
+                mPlanetStars[planet] = i;
+                type = body.mType.ordinal();
+                planetTypes[type][planetTypeCounts[type]++] = planet;
+                if(body.MoonCount() > 0)
+                {
+                    withMoons[withMoonsCount++] = planet;
+                }
+            }
+        }
+        mStarTypes = new cBitmap[starTypes.length];
+        for(int i = 0; i < starTypes.length; i++)
+        {
+            mStarTypes[i] = cBitmap.Of(starTypes[i], starTypeCounts[i], starCount);
+        }
+        mPlanetTypes = new cBitmap[planetTypes.length];
+        for(int i = 0; i < planetTypes.length; i++)
+        {
+            mPlanetTypes[i] = cBitmap.Of(planetTypes[i], planetTypeCounts[i], planetCount);
+        }
+        mWithMoons = cBitmap.Of(withMoons, withMoonsCount, planetCount);
+    }
+
+    /**
+     * Finds the stars of the galaxy that match a query, ignoring its galaxy condition.
+     *
+     * @param query the query
+     * @param found the list to add the matching stars to, or null to only count them
+     * @return the number of matching stars
+     */
+    int FindStars(cTypeQuery query, List<? super cStar> found)
+    {
+        cBitmap stars = StarTypes(query.GetStarTypes());
+        if(query.HasPlanetConditions())
+        {
+            cBitmap hosts = Hosts(Planets(query));
+            stars = stars != null ? stars.And(hosts) : hosts;
+        }
+        if(stars == null)
+        {
+            if(found != null)
+            {
+                found.addAll(Arrays.asList(mStars));
+            }
+            return mStars.length;
+        }
+        if(found != null)
+        {
+            stars.ForEach(star -> found.add(mStars[star]));
+        }
+        return stars.Cardinality();
+    }
+
+    /**
+     * Finds the planets of the galaxy that match a query, ignoring its galaxy condition.
+     *
+     * @param query the query
+     * @param found the list to add the matching planets to, or null to only count them
+     * @return the number of matching planets
+     */
+    int FindPlanets(cTypeQuery query, List<? super cPlanet> found)
+    {
+        cBitmap planets = Planets(query);
+        cBitmap stars = StarTypes(query.GetStarTypes());
+        if(planets == null && stars == null)
+        {
+            if(found != null)
+            {
+                found.addAll(Arrays.asList(mPlanets));
+            }
+            return mPlanets.length;
+        }
+        if(planets == null)
+        {
+            int[] count = new int[1];
+            stars.ForEach(star -> count[0] += AddPlanets(star, found));
+            return count[0];
+        }
+        if(stars == null)
+        {
+            if(found != null)
+            {
+                planets.ForEach(planet -> found.add(mPlanets[planet]));
+            }
+            return planets.Cardinality();
+        }
+        int[] count = new int[1];
+        planets.ForEach(planet ->
+        {
+            if(stars.Contains(mPlanetStars[planet]))
+            {
+                count[0]++;
+                if(found != null)
+                {
+                    found.add(mPlanets[planet]);
+                }
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Adds the planets of a star to a list.
+     *
+     * @param star the number of the star
+     * @param found the list to add the planets to, or null to only count them
+     * @return the number of planets of the star
+     */
+    private int AddPlanets(int star, List<? super cPlanet> found)
+    {
+        cStar body = mStars[star];
+        int planets = body.PlanetCount();
+        if(found != null)
+        {
+            for(int i = 0; i < planets; i++)
+            {
+                found.add(body.PlanetAt(i));
+            }
+        }
+        return planets;
+    }
+
+    /**
+     * Gets the stars of any of the accepted types.
+     *
+     * @param types the accepted star types, or null for any
+     * @return the stars of the types, or null if any type is accepted
+     */
+    private cBitmap StarTypes(EnumSet<cStar.eStarType> types)
+    {
+        if(types == null)
+        {
+            return null;
+        }
+        cBitmap stars = cBitmap.Of(new int[0], 0, mStars.length);
+        for(cStar.eStarType type : types)
+        {
+            stars = stars.Or(mStarTypes[type.ordinal()]);
+        }
+        return stars;
+    }
+
+    /**
+     * Gets the planets that meet the planet conditions of a query.
+     *
+     * @param query the query
+     * @return the matching planets, or null if the query has no planet conditions
+     */
+    private cBitmap Planets(cTypeQuery query)
+    {
+        cBitmap planets = null;
+        if(query.GetPlanetTypes() != null)
+        {
+            planets = cBitmap.Of(new int[0], 0, mPlanets.length);
+            for(cPlanet.ePlanetType type : query.GetPlanetTypes())
+            {
+                planets = planets.Or(mPlanetTypes[type.ordinal()]);
+            }
+        }
+        Boolean withMoons = query.GetWithMoons();
+        if(withMoons != null)
+        {
+            if(planets == null)
+            {
+                planets = withMoons ? mWithMoons : AllPlanets().AndNot(mWithMoons);
+            }
+            else
+            {
+                planets = withMoons ? planets.And(mWithMoons) : planets.AndNot(mWithMoons);
+            }
+        }
+        return planets;
+    }
+
+    /**
+     * Gets the stars that host at least one of some planets.
+     *
+     * @param planets the planets, or null for all planets
+     * @return the stars of the planets
+     */
+    private cBitmap Hosts(cBitmap planets)
+    {
+        if(planets == null)
+        {
+            planets = AllPlanets();
+        }
+        int[] stars = new int[planets.Cardinality()];
+        int[] count = new int[1];
+        planets.ForEach(planet ->
+        {
+            int star = mPlanetStars[planet];
+            //Planets are numbered star by star, so the stars arrive in order and repeats are adjacent.
+            if(count[0] == 0 || stars[count[0] - 1] != star)
+            {
+                stars[count[0]++] = star;
+            }
+        });
+        return cBitmap.Of(stars, count[0], mStars.length);
+    }
+
+    /**
+     * Gets a bitmap of all planets of the galaxy.
+     *
+     * @return the bitmap of all planets
+     */
+    private cBitmap AllPlanets()
+    {
+        cBitmap planets = cBitmap.Of(new int[0], 0, mPlanets.length);
+        for(cBitmap type : mPlanetTypes)
+        {
+            planets = planets.Or(type);
+        }
+        return planets;
+    }
+}
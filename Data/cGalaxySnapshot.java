@@ -0,0 +1,90 @@
+package Data;
+
+import Logging.cLoggingBase;
+
+/**
+ * Immutable copy of a galaxy, taken as part of a universe snapshot.
+ * A snapshot of a galaxy is shared by every universe snapshot taken while nothing in the galaxy
+ * changed, and the snapshots of its unchanged stars are shared even when it did.
+ * Stars cannot be added to or removed from a snapshot.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ * @see cUniverse#Snapshot()
+ */
+public class cGalaxySnapshot extends cGalaxyView
+{
+    /**
+     * Snapshots of the stars of the galaxy, in order.
+     */
+    private final cStarSnapshot[] mStarSnapshots;
+
+    /**
+     * Constructs a snapshot of a galaxy.
+     * 
+     * @param name the name of the galaxy
+     * @param type the classification type of the galaxy
+     * @param stars the snapshots of its stars, owned by the snapshot
+     * @param stats the counts of the bodies of the galaxy when the snapshot was taken
+     * @param logger the logger to use for this galaxy
+     */
+    cGalaxySnapshot(String name, eGalaxyType type, cStarSnapshot[] stars, cSubtreeStats stats, cLoggingBase logger)
+    {
+        super(name, type, logger);
+        mStarSnapshots = stars;
+        mStats = stats.Copy();
+    }
+
+    /**
+     * Gets the snapshot of a star at the specified index.
+     * 
+     * @param index the index of the star to retrieve
+     * @return the star at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cStarSnapshot GetStar(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < mStarSnapshots.length)
+        {
+            return mStarSnapshots[index];
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of stars in this galaxy.
+     * 
+     * @return the count of stars in this galaxy
+     */
+    @Override
+    public int GetStarCount()
+    {
+        return mStarSnapshots.length;
+    }
+
+    /**
+     * Gets the number of stars, planets and moons in the galaxy when the snapshot was taken.
+     * 
+     * @return the statistics of the bodies of this galaxy
+     */
+    @Override
+    public cSubtreeStats GetStats()
+    {
+        return mStats.Copy();
+    }
+
+    /**
+     * Snapshots never change, so a snapshot is its own snapshot.
+     * 
+     * @return this snapshot
+     */
+    @Override
+    cGalaxySnapshot Snapshot()
+    {
+        return this;
+    }
+}
@@ -0,0 +1,332 @@
+package Data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import Logging.cLoggingBase;
+
+/**
+ * Read only galaxy whose stars are provided by a subclass instead of being stored in a list.
+ * Base class for galaxy views over other storage, such as lazily computed or columnar universes.
+ * Subclasses implement GetStar and GetStarCount; every method that would modify the galaxy
+ * throws an UnsupportedOperationException.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public abstract class cGalaxyView extends cGalaxy
+{
+    /**
+     * Constructs a galaxy view with the specified name, type and logger.
+     * 
+     * @param name the name of the galaxy
+     * @param type the classification type of the galaxy
+     * @param logger the logger to use for this galaxy
+     */
+    protected cGalaxyView(String name, eGalaxyType type, cLoggingBase logger)
+    {
+        super(name, type, logger, true);
+    }
+
+    /**
+     * Gets a reference to a star at the specified index.
+     * 
+     * @param index the index of the star to retrieve
+     * @return the star at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public abstract cStar GetStar(int index) throws IndexOutOfBoundsException;
+
+    /**
+     * Gets the number of stars in this galaxy.
+     * 
+     * @return the count of stars in this galaxy
+     */
+    @Override
+    public abstract int GetStarCount();
+
+    /**
+     * Gets the number of stars of the view for walks of the hierarchy.
+     * 
+     * @return the count of stars
+     */
+    @Override
+    int StarCount()
+    {
+        return GetStarCount();
+    }
+
+    /**
+     * Gets the star of the view at an index for walks of the hierarchy.
+     * 
+     * @param index the index of the star, which must be valid
+     * @return the star at the index
+     */
+    @Override
+    cStar StarAt(int index)
+    {
+        return GetStar(index);
+    }
+
+    /**
+     * Finds the first star with the specified name by scanning the stars of the view.
+     * 
+     * @param name the name of the star to find
+     * @return the first star with the name, or null if there is none
+     * @throws IllegalArgumentException if the name is null
+     */
+    @Override
+    public cStar FindStar(String name) throws IllegalArgumentException
+    {
+        if(name == null)
+        {
+            String message = "Cannot find star with null name in galaxy " + this.mName;
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        int count = GetStarCount();
+        for(int i = 0; i < count; i++)
+        {
+            cStar star = GetStar(i);
+            if(name.equals(star.GetName()))
+            {
+                return star;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the stars of the view whose names start with the specified prefix, in order.
+     * 
+     * @param prefix the prefix of the names to find
+     * @return the matching stars
+     * @throws IllegalArgumentException if the prefix is null
+     */
+    @Override
+    public List<cStar> FindStars(String prefix) throws IllegalArgumentException
+    {
+        if(prefix == null)
+        {
+            String message = "Cannot find stars with null prefix in galaxy " + this.mName;
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ArrayList<cStar> found = new ArrayList<cStar>();
+        int count = GetStarCount();
+        for(int i = 0; i < count; i++)
+        {
+            cStar star = GetStar(i);
+            if(star.GetName().startsWith(prefix))
+            {
+                found.add(star);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Views cannot be renamed.
+     * 
+     * @param name ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void SetName(String name)
+    {
+        throw ReadOnly("rename");
+    }
+
+    /**
+     * Views cannot be moved.
+     * 
+     * @param x ignored
+     * @param y ignored
+     * @param z ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void SetPosition(double x, double y, double z)
+    {
+        throw ReadOnly("move");
+    }
+
+    /**
+     * The type of a view cannot be changed.
+     * 
+     * @param type ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void SetType(eGalaxyType type)
+    {
+        throw ReadOnly("set type of");
+    }
+
+    /**
+     * Stars cannot be removed from a view.
+     * 
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void ClearStars()
+    {
+        throw ReadOnly("clear stars of");
+    }
+
+    /**
+     * Stars cannot be added to a view.
+     * 
+     * @param star ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean AddStar(cStar star)
+    {
+        throw ReadOnly("add star to");
+    }
+
+    /**
+     * Stars cannot be added to a view.
+     * 
+     * @param star ignored
+     * @param index ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean AddStar(cStar star, int index)
+    {
+        throw ReadOnly("add star to");
+    }
+
+    /**
+     * Stars cannot be added to a view.
+     * 
+     * @param stars ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void AddStars(Collection<? extends cStar> stars)
+    {
+        throw ReadOnly("add stars to");
+    }
+
+    /**
+     * Stars cannot be removed from a view.
+     * 
+     * @param star ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean RemoveStar(cStar star)
+    {
+        throw ReadOnly("remove star from");
+    }
+
+    /**
+     * Stars cannot be removed from a view.
+     * 
+     * @param index ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void RemoveStar(int index)
+    {
+        throw ReadOnly("remove star from");
+    }
+
+    /**
+     * Writes the galaxy to an output, followed by its stars, planets and moons down to a depth, reading them through the view.
+     * 
+     * @param out the output to write to
+     * @param depth the number of levels of bodies to include, 0 for the galaxy alone and Integer.MAX_VALUE for all
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void Render(Appendable out, int depth) throws IOException
+    {
+        int count = GetStarCount();
+        out.append("Galaxy: ").append(mName).append(" : ").append(String.valueOf(mType)).append(" (").append(Integer.toString(count)).append(")");
+        if(depth > 0)
+        {
+            for(int i = 0; i < count; i++)
+            {
+                out.append("\n\t");
+                GetStar(i).Render(out, depth - 1);
+            }
+        }
+        out.append("\n");
+    }
+
+    /**
+     * Counts the stars, planets and moons of the view by walking them, as views do not keep counts.
+     * 
+     * @return the statistics of the bodies of this galaxy
+     */
+    @Override
+    public cSubtreeStats GetStats()
+    {
+        cSubtreeStats stats = new cSubtreeStats(cSubtreeStats.GALAXY_SIZE);
+        int count = GetStarCount();
+        for(int i = 0; i < count; i++)
+        {
+            cStar star = GetStar(i);
+            stats.Add(cSubtreeStats.StarSlot(star.GetStarType()), 1);
+            stats.Add(star.GetStats(), 1);
+        }
+        return stats;
+    }
+
+    /**
+     * Takes a snapshot of the view. Views do not track changes, so every call copies the whole view.
+     * 
+     * @return the snapshot of the galaxy
+     */
+    @Override
+    cGalaxySnapshot Snapshot()
+    {
+        cSubtreeStats stats = new cSubtreeStats(cSubtreeStats.GALAXY_SIZE);
+        cStarSnapshot[] stars = new cStarSnapshot[GetStarCount()];
+        for(int i = 0; i < stars.length; i++)
+        {
+            stars[i] = GetStar(i).Snapshot();
+            stats.Add(cSubtreeStats.StarSlot(stars[i].mType), 1);
+            stats.Add(stars[i].mStats, 1);
+        }
+        cGalaxySnapshot snapshot = new cGalaxySnapshot(mName, mType, stars, stats, mLogger);
+        snapshot.Place(mX, mY, mZ);
+        return snapshot;
+    }
+
+    /**
+     * Logs and creates the exception thrown for an index outside the stars of this galaxy.
+     * 
+     * @param index the invalid index
+     * @return the exception to throw
+     */
+    protected IndexOutOfBoundsException OutOfBounds(int index)
+    {
+        String message = "Index " + index + " is out of bounds for galaxy " + this.mName;
+        mLogger.LogError(message);
+        return new IndexOutOfBoundsException(message);
+    }
+
+    /**
+     * Logs and creates the exception thrown when trying to modify the view.
+     * 
+     * @param action description of the attempted action
+     * @return the exception to throw
+     */
+    protected UnsupportedOperationException ReadOnly(String action)
+    {
+        String message = "Cannot " + action + " galaxy " + this.mName + ": galaxy is read only";
+        mLogger.LogError(message);
+        return new UnsupportedOperationException(message);
+    }
+}
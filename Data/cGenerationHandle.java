@@ -0,0 +1,245 @@
+package Data;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handle to an asynchronous universe generation started with cUniverse.RandomUniverseAsync.
+ * Reports how many galaxies and stars have been generated out of the planned totals, allows the
+ * generation to be cancelled and exposes a future that completes with the generated universe.
+ * All methods may be called from any thread.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cGenerationHandle
+{
+    /**
+     * The universe the galaxies are generated into.
+     */
+    private final cUniverse mUniverse;
+    
+    /**
+     * Rules used to generate each galaxy and star from its seed.
+     */
+    private final cSeededGenerator mGenerator;
+    
+    /**
+     * Seed of the generated universe.
+     */
+    private final long mSeed;
+    
+    /**
+     * Future completed with the universe once generation finishes.
+     * Cancelling it and publishing the galaxies both hold its monitor, so a cancellation either
+     * happens before the galaxies are added or fails because the future is already complete.
+     */
+    private final cGenerationFuture mFuture;
+
+    private final AtomicInteger mGalaxiesDone;
+    private final AtomicLong mStarsDone;
+    private volatile int mGalaxiesPlanned;
+    private volatile long mStarsPlanned;
+
+    /**
+     * Constructs a handle for generating a universe from a seed.
+     * 
+     * @param universe the universe to generate into
+     * @param generator the seeded generation rules
+     * @param seed the seed of the universe
+     */
+    cGenerationHandle(cUniverse universe, cSeededGenerator generator, long seed)
+    {
+        mUniverse = universe;
+        mGenerator = generator;
+        mSeed = seed;
+        mFuture = new cGenerationFuture();
+        mGalaxiesDone = new AtomicInteger();
+        mStarsDone = new AtomicLong();
+    }
+
+    /**
+     * Gets the future that completes with the generated universe.
+     * The future completes exceptionally with a CancellationException if the generation is cancelled,
+     * and cancelling the future cancels the generation.
+     * 
+     * @return the completion future
+     */
+    public CompletableFuture<cUniverse> GetFuture()
+    {
+        return mFuture;
+    }
+
+    /**
+     * Requests cancellation of the generation.
+     * The generation stops at the next star and the universe is left empty.
+     * Has no effect if the generation has already completed.
+     */
+    public void Cancel()
+    {
+        mFuture.cancel(false);
+    }
+
+    /**
+     * Checks whether the generation was cancelled.
+     * 
+     * @return true if the generation was cancelled
+     */
+    public boolean IsCancelled()
+    {
+        return mFuture.isCancelled();
+    }
+
+    /**
+     * Checks whether the generation has finished, normally, with an error or by cancellation.
+     * 
+     * @return true if the generation has finished
+     */
+    public boolean IsDone()
+    {
+        return mFuture.isDone();
+    }
+
+    /**
+     * Gets the number of galaxies fully generated so far.
+     * 
+     * @return the number of generated galaxies
+     */
+    public int GetGalaxiesDone()
+    {
+        return mGalaxiesDone.get();
+    }
+
+    /**
+     * Gets the number of galaxies the universe will contain, or 0 if not yet known.
+     * 
+     * @return the planned number of galaxies
+     */
+    public int GetGalaxiesPlanned()
+    {
+        return mGalaxiesPlanned;
+    }
+
+    /**
+     * Gets the number of stars generated so far, including their planets and moons.
+     * 
+     * @return the number of generated stars
+     */
+    public long GetStarsDone()
+    {
+        return mStarsDone.get();
+    }
+
+    /**
+     * Gets the number of stars the universe will contain, or 0 if not yet known.
+     * 
+     * @return the planned number of stars
+     */
+    public long GetStarsPlanned()
+    {
+        return mStarsPlanned;
+    }
+
+    /**
+     * Gets the fraction of the planned stars generated so far.
+     * 
+     * @return the progress, between 0 and 1
+     */
+    public double GetProgress()
+    {
+        long planned = mStarsPlanned;
+        if(planned == 0)
+        {
+            return mFuture.isDone() ? 1.0 : 0.0;
+        }
+        return (double)mStarsDone.get() / planned;
+    }
+
+    /**
+     * Runs the generation on the calling thread, completing the future when done.
+     * The universe is cleared, planned totals are computed, then each galaxy is generated star by
+     * star, checking for cancellation between stars. Galaxies are added once every galaxy is complete.
+     * Any failure completes the future exceptionally, so that waiting callers are always released;
+     * errors such as OutOfMemoryError are then rethrown to the executor.
+     */
+    void Run()
+    {
+        try
+        {
+            mUniverse.ClearGalaxies();
+
+            int galaxyCount = mGenerator.GetGalaxyCount(mSeed);
+            long starCount = 0;
+            for(int g = 0; g < galaxyCount; g++)
+            {
+                starCount += mGenerator.GetStarCount(cSeed.Derive(mSeed, g));
+            }
+            mStarsPlanned = starCount;
+            mGalaxiesPlanned = galaxyCount;
+
+            ArrayList<cGalaxy> galaxies = new ArrayList<cGalaxy>(galaxyCount);
+            for(int g = 0; g < galaxyCount; g++)
+            {
+                long galaxySeed = cSeed.Derive(mSeed, g);
+                cGalaxy galaxy = mGenerator.GenerateGalaxy(galaxySeed, g);
+
+                int galaxyStars = mGenerator.GetStarCount(galaxySeed);
+                ArrayList<cStar> stars = new ArrayList<cStar>(galaxyStars);
+                for(int s = 0; s < galaxyStars; s++)
+                {
+                    if(mFuture.isDone())
+                    {
+                        return;
+                    }
+                    stars.add(mGenerator.GenerateStar(cSeed.Derive(galaxySeed, s), s));
+                    mStarsDone.incrementAndGet();
+                }
+                galaxy.AddStars(stars);
+                galaxies.add(galaxy);
+                mGalaxiesDone.incrementAndGet();
+            }
+
+            //Check for cancellation and publish under the monitor cancellation takes, so that a
+            //cancellation cannot land between the check and the add.
+            synchronized(mFuture)
+            {
+                if(!mFuture.isDone())
+                {
+                    mUniverse.AddGalaxies(galaxies);
+                    mFuture.complete(mUniverse);
+                }
+            }
+        }
+        catch(Throwable e)
+        {
+            mFuture.completeExceptionally(e);
+            if(e instanceof Error)
+            {
+                throw (Error)e;
+            }
+        }
+    }
+
+    /**
+     * Future of a generation whose cancellation is serialized with the publication of the galaxies.
+     */
+    private static final class cGenerationFuture extends CompletableFuture<cUniverse>
+    {
+        /**
+         * Cancels the generation unless its galaxies are being or have been published.
+         *
+         * @param mayInterruptIfRunning ignored, as the generation checks for cancellation between stars
+         * @return true if the future is now cancelled
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning)
+        {
+            synchronized(this)
+            {
+                return super.cancel(mayInterruptIfRunning);
+            }
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package Data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Ordered list of children with constant time membership checks.
+ * Children are kept in an ArrayList for index based access, and once the list grows past
+ * cChildLists.SMALL_LIST_SIZE an identity hash index maps each child to its position, so that
+ * Contains and Remove by reference no longer scan the list. Small lists, which are the vast
+ * majority of moon and planet lists, are scanned instead and carry no index.
+ * Positions at or after mValidFrom may be stale after an insertion or removal in the middle of
+ * the list; they are renumbered in one pass the next time a position in that range is needed,
+ * so a run of insertions or removals costs a single renumbering.
+ * Children are compared by identity, as cObjectBase does not override equals.
+ * Large lists also build a name index the first time a child is looked up by name. It is kept
+ * up to date by Add and Remove, and rebuilt after the parent holding the list is told that one of
+ * its children was renamed. When several children share a name, the first one is found.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ * @param <T> the type of the children
+ */
+final class cIndexedList<T extends cObjectBase> implements Iterable<T>
+{
+    /**
+     * The children in order.
+     */
+    private final ArrayList<T> mItems;
+
+    /**
+     * Position of each child, null while the list is small.
+     */
+    private IdentityHashMap<T, Integer> mPositions;
+
+    /**
+     * Positions below this index are known to be up to date.
+     */
+    private int mValidFrom;
+
+    /**
+     * First child with each name, null until a large list is searched by name.
+     */
+    private HashMap<String, T> mNames;
+
+    /**
+     * Whether a child was renamed since mNames was built.
+     * Set without holding the lock that guards the list, so that renaming a galaxy does not need the universe lock.
+     */
+    private volatile boolean mNamesStale;
+
+    /**
+     * Whether some children share a name, in which case removals invalidate mNames.
+     */
+    private boolean mDuplicateNames;
+
+    /**
+     * Constructs an empty list.
+     */
+    cIndexedList()
+    {
+        mItems = new ArrayList<T>();
+        mValidFrom = 0;
+    }
+
+    /**
+     * Gets the number of children.
+     *
+     * @return the number of children
+     */
+    int Size()
+    {
+        return mItems.size();
+    }
+
+    /**
+     * Gets the child at the specified index, which must be in bounds.
+     *
+     * @param index the index of the child
+     * @return the child at the index
+     */
+    T Get(int index)
+    {
+        return mItems.get(index);
+    }
+
+    /**
+     * Checks whether a child is in the list.
+     *
+     * @param item the child to look for
+     * @return true if the child is in the list
+     */
+    boolean Contains(T item)
+    {
+        if(mPositions == null)
+        {
+            return IndexOf(item) >= 0;
+        }
+        return mPositions.containsKey(item);
+    }
+
+    /**
+     * Appends a child, which must not already be in the list.
+     *
+     * @param item the child to append
+     */
+    void Add(T item)
+    {
+        if(mPositions != null)
+        {
+            if(mValidFrom == mItems.size())
+            {
+                mValidFrom++;
+            }
+            mPositions.put(item, mItems.size());
+        }
+        if(mNames != null && mNames.putIfAbsent(item.mName, item) != null)
+        {
+            mDuplicateNames = true;
+        }
+        mItems.add(item);
+        BuildIndexIfLarge();
+    }
+
+    /**
+     * Inserts a child at the specified index, which must be in bounds.
+     * The child must not already be in the list.
+     *
+     * @param index the index to insert at
+     * @param item the child to insert
+     */
+    void Add(int index, T item)
+    {
+        mItems.add(index, item);
+        if(mPositions != null)
+        {
+            mPositions.put(item, index);
+            mValidFrom = Math.min(mValidFrom, index);
+        }
+        if(mNames != null && mNames.containsKey(item.mName))
+        {
+            //The new child may now be the first with its name.
+            mNames = null;
+        }
+        else if(mNames != null)
+        {
+            mNames.put(item.mName, item);
+        }
+        BuildIndexIfLarge();
+    }
+
+    /**
+     * Appends the children that are not already in the list, keeping their order.
+     * Duplicates are detected with the identity index instead of a linear scan per element,
+     * unless the list stays small enough that scanning is cheaper.
+     * The list is grown once for the whole collection.
+     * Children repeated within the collection are only added the first time.
+     *
+     * @param items the children to append, none of which may be null
+     * @param added called with each child that is appended, after it is added
+     * @return the number of children skipped because they were already in the list
+     */
+    int AddAllUnique(Collection<? extends T> items, Consumer<? super T> added)
+    {
+        mItems.ensureCapacity(mItems.size() + items.size());
+
+        int skipped = 0;
+        for(T item : items)
+        {
+            if(!Contains(item))
+            {
+                Add(item);
+                added.accept(item);
+            }
+            else
+            {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    /**
+     * Removes a child by reference.
+     *
+     * @param item the child to remove
+     * @return true if the child was in the list
+     */
+    boolean Remove(T item)
+    {
+        int index = IndexOf(item);
+        if(index < 0)
+        {
+            return false;
+        }
+        Remove(index);
+        return true;
+    }
+
+    /**
+     * Removes the child at the specified index, which must be in bounds.
+     *
+     * @param index the index of the child to remove
+     * @return the removed child
+     */
+    T Remove(int index)
+    {
+        T item = mItems.remove(index);
+        if(mPositions != null)
+        {
+            mPositions.remove(item);
+            mValidFrom = Math.min(mValidFrom, index);
+        }
+        if(mNames != null)
+        {
+            if(mDuplicateNames)
+            {
+                //Another child with the same name may now be the first.
+                mNames = null;
+            }
+            else
+            {
+                mNames.remove(item.mName, item);
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Removes all children, keeping the capacity of the list and of the index.
+     */
+    void Clear()
+    {
+        mItems.clear();
+        if(mPositions != null)
+        {
+            mPositions.clear();
+        }
+        mValidFrom = 0;
+        mNames = null;
+    }
+
+    /**
+     * Finds the first child with the specified name.
+     *
+     * @param name the name to look for
+     * @return the first child with the name, or null if there is none
+     */
+    T Find(String name)
+    {
+        if(mItems.size() <= cChildLists.SMALL_LIST_SIZE)
+        {
+            for(T item : mItems)
+            {
+                if(name.equals(item.mName))
+                {
+                    return item;
+                }
+            }
+            return null;
+        }
+
+        if(mNames == null || mNamesStale)
+        {
+            BuildNames();
+        }
+        return mNames.get(name);
+    }
+
+    /**
+     * Marks the name index as stale after a child was renamed, so that the next lookup by name rebuilds it.
+     */
+    void DiscardNames()
+    {
+        mNamesStale = true;
+    }
+
+    /**
+     * Finds the children whose names start with the specified prefix, in order.
+     *
+     * @param prefix the prefix to look for
+     * @param found the list the matching children are appended to
+     */
+    void FindByPrefix(String prefix, List<? super T> found)
+    {
+        for(T item : mItems)
+        {
+            if(item.mName != null && item.mName.startsWith(prefix))
+            {
+                found.add(item);
+            }
+        }
+    }
+
+    /**
+     * Gets an iterator over the children in order.
+     * The list must not be modified while iterating.
+     *
+     * @return an iterator over the children
+     */
+    @Override
+    public Iterator<T> iterator()
+    {
+        return mItems.iterator();
+    }
+
+    /**
+     * Finds the position of a child.
+     *
+     * @param item the child to look for
+     * @return the index of the child, or -1 if it is not in the list
+     */
+    private int IndexOf(T item)
+    {
+        if(mPositions == null)
+        {
+            for(int i = 0; i < mItems.size(); i++)
+            {
+                if(mItems.get(i) == item)
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Integer position = mPositions.get(item);
+        if(position == null)
+        {
+            return -1;
+        }
+        if(position < mValidFrom)
+        {
+            return position;
+        }
+        //Renumber the stale tail once, then the position is exact.
+        for(int i = mValidFrom; i < mItems.size(); i++)
+        {
+            mPositions.put(mItems.get(i), i);
+        }
+        mValidFrom = mItems.size();
+        return mPositions.get(item);
+    }
+
+    /**
+     * Builds the name index from the current children.
+     */
+    private void BuildNames()
+    {
+        mNamesStale = false;
+        mNames = new HashMap<String, T>(mItems.size() * 2);
+        mDuplicateNames = false;
+        for(T item : mItems)
+        {
+            if(mNames.putIfAbsent(item.mName, item) != null)
+            {
+                mDuplicateNames = true;
+            }
+        }
+    }
+
+    /**
+     * Builds the identity index once the list grows past the small list size.
+     */
+    private void BuildIndexIfLarge()
+    {
+        if(mPositions == null && mItems.size() > cChildLists.SMALL_LIST_SIZE)
+        {
+            mPositions = new IdentityHashMap<T, Integer>(mItems.size() * 2);
+            for(int i = 0; i < mItems.size(); i++)
+            {
+                mPositions.put(mItems.get(i), i);
+            }
+            mValidFrom = mItems.size();
+        }
+    }
+}
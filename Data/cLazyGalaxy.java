@@ -0,0 +1,102 @@
+package Data;
+
+/**
+ * Represents a galaxy of a lazy universe whose stars are materialized on access.
+ * The galaxy only knows its seed and star count; each star is computed by the owning
+ * cLazyUniverse when first requested and kept in the universe's bounded star cache.
+ * Stars cannot be added to or removed from a lazy galaxy.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cLazyGalaxy extends cGalaxyView
+{
+    /**
+     * The universe that materializes the stars of this galaxy.
+     */
+    private final cLazyUniverse mUniverse;
+    
+    /**
+     * Index of this galaxy within its universe.
+     */
+    private final int mIndex;
+    
+    /**
+     * Seed of this galaxy, the seeds of its stars are derived from it.
+     */
+    private final long mSeed;
+    
+    /**
+     * Number of stars in this galaxy.
+     */
+    private final int mStarCount;
+
+    /**
+     * Constructs a lazy galaxy of the given universe.
+     * 
+     * @param universe the universe that owns the galaxy
+     * @param index the index of the galaxy within the universe
+     * @param seed the seed of the galaxy
+     * @param starCount the number of stars in the galaxy
+     */
+    cLazyGalaxy(cLazyUniverse universe, int index, long seed, int starCount)
+    {
+        super(cNames.Galaxy(index + 1), cGalaxy.GetSeededGalaxyType(seed), universe.mLogger);
+        mUniverse = universe;
+        mIndex = index;
+        mSeed = seed;
+        mStarCount = starCount;
+        cSeededGenerator.PlaceGalaxy(this, seed);
+    }
+
+    /**
+     * Gets the index of this galaxy within its universe.
+     * 
+     * @return the index of this galaxy
+     */
+    int GetIndex()
+    {
+        return mIndex;
+    }
+
+    /**
+     * Gets the seed of this galaxy.
+     * 
+     * @return the seed of this galaxy
+     */
+    long GetSeed()
+    {
+        return mSeed;
+    }
+
+    /**
+     * Gets a star at the specified index, materializing it if it is not cached.
+     * 
+     * @param index the index of the star to retrieve
+     * @return the star at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cStar GetStar(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < mStarCount)
+        {
+            return mUniverse.GetStar(this, index);
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of stars in the galaxy without materializing any of them.
+     * 
+     * @return the count of stars in this galaxy
+     */
+    @Override
+    public int GetStarCount()
+    {
+        return mStarCount;
+    }
+}
@@ -0,0 +1,80 @@
+package Data;
+
+/**
+ * Represents a star system of a lazy universe whose planets are materialized on access.
+ * Each planet, together with its moons, is computed from the star's seed when first
+ * requested and kept for as long as the star stays in its universe's star cache.
+ * Planets cannot be added to or removed from a lazy star.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cLazyStar extends cStarView
+{
+    /**
+     * Rules used to compute the planets of this star.
+     */
+    private final cSeededGenerator mGenerator;
+    
+    /**
+     * Seed of this star, the seeds of its planets are derived from it.
+     */
+    private final long mSeed;
+    
+    /**
+     * Planets materialized so far, null for planets not yet requested.
+     */
+    private final cPlanet[] mLazyPlanets;
+
+    /**
+     * Constructs a lazy star from its seed.
+     * 
+     * @param generator the rules used to compute the star and its planets
+     * @param index the index of the star within its galaxy
+     * @param seed the seed of the star
+     */
+    cLazyStar(cSeededGenerator generator, int index, long seed)
+    {
+        super(cNames.Star(index + 1), cStar.GetSeededStarType(seed), generator.GetLogger());
+        mGenerator = generator;
+        mSeed = seed;
+        mLazyPlanets = new cPlanet[generator.GetPlanetCount(seed)];
+        cSeededGenerator.PlaceStar(this, seed);
+    }
+
+    /**
+     * Gets a planet at the specified index, materializing it and its moons on first access.
+     * 
+     * @param index the index of the planet to retrieve
+     * @return the planet at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cPlanet GetPlanet(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < mLazyPlanets.length)
+        {
+            if(mLazyPlanets[index] == null)
+            {
+                mLogger.LogTrace("Materializing planet at index " + index + " of system " + this.mName);
+                mLazyPlanets[index] = mGenerator.GeneratePlanet(cSeed.Derive(mSeed, index), index);
+            }
+            return mLazyPlanets[index];
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of planets in the star system without materializing any of them.
+     * 
+     * @return the count of planets in this star system
+     */
+    @Override
+    public int GetPlanetCount()
+    {
+        return mLazyPlanets.length;
+    }
+}
@@ -0,0 +1,200 @@
+package Data;
+
+import java.util.Random;
+
+import Logging.cLoggingBase;
+
+/**
+ * Represents a seed addressable universe whose galaxies and stars are materialized on access.
+ * Nothing is generated when the universe is constructed: the type, name and child count of
+ * each galaxy, star and planet are computed from the universe seed and the object's path when
+ * it is first requested, and recently visited galaxies and stars are kept in bounded caches.
+ * Memory therefore grows with what is visited rather than with the size of the universe.
+ * A lazy universe holds the same content as RandomUniverseParallel for the same seed and ranges.
+ * The hierarchy of a lazy universe is read only; galaxies, stars and planets cannot be added or removed.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public final class cLazyUniverse extends cUniverseView
+{
+    /**
+     * Default number of galaxies and of stars kept in the caches.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    /**
+     * Seed of this universe, all other seeds are derived from it.
+     */
+    private final long mSeed;
+    
+    /**
+     * Number of galaxies in this universe.
+     */
+    private final int mGalaxyCount;
+    
+    /**
+     * Rules used to compute each object from its seed.
+     */
+    private final cSeededGenerator mGenerator;
+    
+    /**
+     * Recently visited galaxies, keyed by galaxy index.
+     * Only accessed while synchronized on it, so the universe can be read from several threads.
+     */
+    private final cBoundedCache<Integer, cLazyGalaxy> mGalaxyCache;
+    
+    /**
+     * Recently visited stars, keyed by galaxy index in the high and star index in the low 32 bits.
+     * Only accessed while synchronized on it, so the universe can be read from several threads.
+     */
+    private final cBoundedCache<Long, cLazyStar> mStarCache;
+
+    /**
+     * Constructs a lazy universe with the specified parameters, seed, cache size and logger.
+     * 
+     * @param seed the seed of the universe (0 for random seed)
+     * @param minGalaxies minimum number of galaxies to generate (must be >= 1)
+     * @param maxGalaxies maximum number of galaxies to generate (must be > minGalaxies)
+     * @param minStars minimum number of stars per galaxy (must be >= 1)
+     * @param maxStars maximum number of stars per galaxy (must be > minStars)
+     * @param minPlanets minimum number of planets per star (must be >= 1)
+     * @param maxPlanets maximum number of planets per star (must be > minPlanets)
+     * @param minMoons minimum number of moons per planet (must be >= 0)
+     * @param maxMoons maximum number of moons per planet (must be > minMoons)
+     * @param cacheSize maximum number of galaxies and of stars kept in memory (must be >= 1)
+     * @param logger the logger to use for this universe and its objects
+     * @throws IllegalArgumentException if any parameters are invalid
+     */
+    public cLazyUniverse(long seed, int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons, int cacheSize, cLoggingBase logger) throws IllegalArgumentException
+    {
+        super(logger);
+        ValidateRandomParameters(seed, minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons);
+        if(cacheSize < 1)
+        {
+            String message = "Cannot create lazy universe: cache size must be at least 1";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        mSeed = (seed == 0) ? new Random().nextLong() : seed;
+        mGenerator = new cSeededGenerator(minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons, logger);
+        mGalaxyCount = mGenerator.GetGalaxyCount(mSeed);
+        mGalaxyCache = new cBoundedCache<Integer, cLazyGalaxy>(cacheSize);
+        mStarCache = new cBoundedCache<Long, cLazyStar>(cacheSize);
+    }
+
+    /**
+     * Constructs a lazy universe with the specified parameters, seed and logger, using the default cache size.
+     * 
+     * @param seed the seed of the universe (0 for random seed)
+     * @param minGalaxies minimum number of galaxies to generate (must be >= 1)
+     * @param maxGalaxies maximum number of galaxies to generate (must be > minGalaxies)
+     * @param minStars minimum number of stars per galaxy (must be >= 1)
+     * @param maxStars maximum number of stars per galaxy (must be > minStars)
+     * @param minPlanets minimum number of planets per star (must be >= 1)
+     * @param maxPlanets maximum number of planets per star (must be > minPlanets)
+     * @param minMoons minimum number of moons per planet (must be >= 0)
+     * @param maxMoons maximum number of moons per planet (must be > minMoons)
+     * @param logger the logger to use for this universe and its objects
+     * @throws IllegalArgumentException if any parameters are invalid
+     */
+    public cLazyUniverse(long seed, int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons, cLoggingBase logger) throws IllegalArgumentException
+    {
+        this(seed, minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons, DEFAULT_CACHE_SIZE, logger);
+    }
+
+    /**
+     * Gets the seed of this universe.
+     * If the universe was constructed with seed 0 this is the randomly chosen seed.
+     * 
+     * @return the seed of this universe
+     */
+    public long GetSeed()
+    {
+        return mSeed;
+    }
+
+    /**
+     * Gets a galaxy at the specified index, materializing it if it is not cached.
+     * Only the galaxy's name, type and star count are computed; its stars are materialized on access.
+     * 
+     * @param index the index of the galaxy to retrieve
+     * @return the galaxy at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cGalaxy GetGalaxy(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < mGalaxyCount)
+        {
+            cLazyGalaxy galaxy;
+            synchronized(mGalaxyCache)
+            {
+                galaxy = mGalaxyCache.get(index);
+            }
+            if(galaxy == null)
+            {
+                mLogger.LogTrace("Materializing galaxy at index " + index + " of lazy universe");
+                long galaxySeed = cSeed.Derive(mSeed, index);
+                galaxy = new cLazyGalaxy(this, index, galaxySeed, mGenerator.GetStarCount(galaxySeed));
+                synchronized(mGalaxyCache)
+                {
+                    cLazyGalaxy cached = mGalaxyCache.putIfAbsent(index, galaxy);
+                    if(cached != null)
+                    {
+                        galaxy = cached;
+                    }
+                }
+            }
+            return galaxy;
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of galaxies in the universe without materializing any of them.
+     * 
+     * @return the count of galaxies in this universe
+     */
+    @Override
+    public int GetGalaxyCount()
+    {
+        return mGalaxyCount;
+    }
+
+    /**
+     * Gets a star of a lazy galaxy, materializing it if it is not cached.
+     * 
+     * @param galaxy the galaxy that owns the star
+     * @param index the index of the star within the galaxy, already checked by the galaxy
+     * @return the star at the specified index
+     */
+    cStar GetStar(cLazyGalaxy galaxy, int index)
+    {
+        long key = ((long)galaxy.GetIndex() << 32) | index;
+        cLazyStar star;
+        synchronized(mStarCache)
+        {
+            star = mStarCache.get(key);
+        }
+        if(star == null)
+        {
+            mLogger.LogTrace("Materializing star at index " + index + " of galaxy " + galaxy.GetName());
+            long starSeed = cSeed.Derive(galaxy.GetSeed(), index);
+            star = new cLazyStar(mGenerator, index, starSeed);
+            synchronized(mStarCache)
+            {
+                cLazyStar cached = mStarCache.putIfAbsent(key, star);
+                if(cached != null)
+                {
+                    star = cached;
+                }
+            }
+        }
+        return star;
+    }
+}
@@ -0,0 +1,650 @@
+package Data;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import Logging.cLoggingBase;
+
+/**
+ * Represents a read only universe stored off heap in a memory mapped file.
+ * The file is written by cMappedUniverseWriter and mapped as a whole when opened. Opening checks
+ * every record in one sequential pass, the operating system pages bodies in as they are read, and
+ * the universe does not add to the heap or to garbage collection work. Universes larger than
+ * physical memory can be opened.
+ * The usual read API is available through the flyweight views of cColumnarUniverse, created on access.
+ *
+ * The file uses the same depth first layout as cColumnarUniverse, with fixed size records for each
+ * level. All values are little endian:
+ * <pre>
+ * header   int magic "SVMU", int version,
+ *          long galaxy count, long star count, long planet count, long moon count, long name count,
+ *          long galaxy offset, long star offset, long planet offset, long moon offset, long name offset
+ * galaxy   byte type ordinal, int name id, int first star
+ * star     byte type ordinal, int name id, int galaxy, int first planet
+ * planet   byte type ordinal, int name id, int star, int first moon
+ * moon     byte type ordinal, int name id, int planet
+ * name     int byte length, UTF-8 bytes
+ * </pre>
+ * The children of body i of a level are the range [first child of i, first child of i + 1) of the
+ * next level, where the first child after the last body is the child count. Names are stored once
+ * and loaded into memory when the file is opened.
+ * The mapping stays valid until Close is called; reading the universe afterwards throws an
+ * IllegalStateException.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cMappedUniverse extends cUniverseView
+{
+    /**
+     * Value of the first four bytes of a mapped universe file, "SVMU" in little endian.
+     */
+    static final int MAGIC = 0x554D5653;
+
+    /**
+     * Version of the file layout.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Size of the file header in bytes.
+     */
+    static final int HEADER_SIZE = 88;
+
+    /**
+     * Size of a galaxy record in bytes.
+     */
+    static final int GALAXY_RECORD = 9;
+
+    /**
+     * Size of a star record in bytes.
+     */
+    static final int STAR_RECORD = 13;
+
+    /**
+     * Size of a planet record in bytes.
+     */
+    static final int PLANET_RECORD = 13;
+
+    /**
+     * Size of a moon record in bytes.
+     */
+    static final int MOON_RECORD = 9;
+
+    /**
+     * Layout of the int values of the file.
+     */
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Layout of the long values of the file.
+     */
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Arena owning the mapping of the file.
+     */
+    private final Arena mArena;
+
+    /**
+     * The mapped file.
+     */
+    private final MemorySegment mSegment;
+
+    /**
+     * Table of distinct names, referenced by the name ids of the records.
+     */
+    private final String[] mNames;
+
+    /**
+     * Number of galaxies in the file.
+     */
+    private final int mGalaxyCount;
+
+    /**
+     * Number of stars in the file.
+     */
+    private final int mStarCount;
+
+    /**
+     * Number of planets in the file.
+     */
+    private final int mPlanetCount;
+
+    /**
+     * Number of moons in the file.
+     */
+    private final int mMoonCount;
+
+    /**
+     * Offset of the first galaxy record.
+     */
+    private final long mGalaxyOffset;
+
+    /**
+     * Offset of the first star record.
+     */
+    private final long mStarOffset;
+
+    /**
+     * Offset of the first planet record.
+     */
+    private final long mPlanetOffset;
+
+    /**
+     * Offset of the first moon record.
+     */
+    private final long mMoonOffset;
+
+    /**
+     * Read access to the records, shared by the views of this universe.
+     */
+    private final iBodyColumns mColumns = new cColumns();
+
+    /**
+     * Constructs a universe over a mapped file whose header has been checked.
+     *
+     * @param arena the arena owning the mapping
+     * @param segment the mapped file
+     * @param names the name table of the file
+     * @param logger the logger to use for this universe
+     */
+    private cMappedUniverse(Arena arena, MemorySegment segment, String[] names, cLoggingBase logger)
+    {
+        super(logger);
+        mArena = arena;
+        mSegment = segment;
+        mNames = names;
+        mGalaxyCount = (int)segment.get(LONG, 8);
+        mStarCount = (int)segment.get(LONG, 16);
+        mPlanetCount = (int)segment.get(LONG, 24);
+        mMoonCount = (int)segment.get(LONG, 32);
+        mGalaxyOffset = segment.get(LONG, 48);
+        mStarOffset = segment.get(LONG, 56);
+        mPlanetOffset = segment.get(LONG, 64);
+        mMoonOffset = segment.get(LONG, 72);
+    }
+
+    /**
+     * Opens a universe file written by cMappedUniverseWriter.
+     * The name table is read, and every record is checked once so that reading the universe cannot
+     * fail on a corrupt file; bodies are then read from the mapping on access.
+     *
+     * @param file the file to open
+     * @param logger the logger to use for the universe
+     * @return the mapped universe
+     * @throws IOException if the file cannot be read or is not a valid universe file
+     */
+    public static cMappedUniverse Open(Path file, cLoggingBase logger) throws IOException
+    {
+        logger.LogTrace("Opening mapped universe " + file);
+        Arena arena = Arena.ofShared();
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            if(segment.byteSize() < HEADER_SIZE || segment.get(INT, 0) != MAGIC)
+            {
+                throw Invalid(file, "not a universe file", logger);
+            }
+            if(segment.get(INT, 4) != VERSION)
+            {
+                throw Invalid(file, "unsupported version " + segment.get(INT, 4), logger);
+            }
+            for(long count = 8; count <= 40; count += 8)
+            {
+                if(segment.get(LONG, count) < 0 || segment.get(LONG, count) > Integer.MAX_VALUE)
+                {
+                    throw Invalid(file, "bad count " + segment.get(LONG, count) + " in header", logger);
+                }
+            }
+            long galaxies = segment.get(LONG, 8);
+            long stars = segment.get(LONG, 16);
+            long planets = segment.get(LONG, 24);
+            long moons = segment.get(LONG, 32);
+            long nameCount = segment.get(LONG, 40);
+            long nameOffset = segment.get(LONG, 80);
+            if(segment.get(LONG, 48) != HEADER_SIZE
+                || segment.get(LONG, 56) != HEADER_SIZE + galaxies * GALAXY_RECORD
+                || segment.get(LONG, 64) != segment.get(LONG, 56) + stars * STAR_RECORD
+                || segment.get(LONG, 72) != segment.get(LONG, 64) + planets * PLANET_RECORD
+                || nameOffset != segment.get(LONG, 72) + moons * MOON_RECORD
+                || nameOffset > segment.byteSize())
+            {
+                throw Invalid(file, "inconsistent header", logger);
+            }
+
+            //Every name takes at least its length, so the count is checked against the file before allocating.
+            if(nameCount > (segment.byteSize() - nameOffset) / 4)
+            {
+                throw Invalid(file, "name count " + nameCount + " exceeds the file size", logger);
+            }
+            String[] names = new String[(int)nameCount];
+            long position = nameOffset;
+            for(int n = 0; n < names.length; n++)
+            {
+                if(position + 4 > segment.byteSize())
+                {
+                    throw Invalid(file, "name table truncated at name " + n, logger);
+                }
+                int length = segment.get(INT, position);
+                if(length < 0 || length > segment.byteSize() - position - 4)
+                {
+                    throw Invalid(file, "bad length " + length + " of name " + n, logger);
+                }
+                byte[] bytes = segment.asSlice(position + 4, length).toArray(ValueLayout.JAVA_BYTE);
+                names[n] = new String(bytes, StandardCharsets.UTF_8);
+                position += 4 + length;
+            }
+
+            CheckRecords(segment, HEADER_SIZE, GALAXY_RECORD, galaxies, cColumnarUniverse.GALAXY_TYPES.length, nameCount, "galaxy", file, logger);
+            CheckRecords(segment, segment.get(LONG, 56), STAR_RECORD, stars, cColumnarUniverse.STAR_TYPES.length, nameCount, "star", file, logger);
+            CheckRecords(segment, segment.get(LONG, 64), PLANET_RECORD, planets, cColumnarUniverse.PLANET_TYPES.length, nameCount, "planet", file, logger);
+            CheckRecords(segment, segment.get(LONG, 72), MOON_RECORD, moons, cColumnarUniverse.PLANET_TYPES.length, nameCount, "moon", file, logger);
+            CheckChildren(segment, HEADER_SIZE, GALAXY_RECORD, 5, galaxies, segment.get(LONG, 56), STAR_RECORD, stars, "galaxy", "star", file, logger);
+            CheckChildren(segment, segment.get(LONG, 56), STAR_RECORD, 9, stars, segment.get(LONG, 64), PLANET_RECORD, planets, "star", "planet", file, logger);
+            CheckChildren(segment, segment.get(LONG, 64), PLANET_RECORD, 9, planets, segment.get(LONG, 72), MOON_RECORD, moons, "planet", "moon", file, logger);
+
+            logger.LogInfo("Opened mapped universe " + file + " with " + galaxies + " galaxies, " + stars + " stars, " + planets + " planets and " + moons + " moons");
+            return new cMappedUniverse(arena, segment, names, logger);
+        }
+        catch(IOException | RuntimeException e)
+        {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a universe to a file that can be opened with Open.
+     * Nothing is written if the universe cannot be streamed.
+     *
+     * @param universe the universe to write
+     * @param file the file to write, replaced if it exists
+     * @param logger the logger to use while writing
+     * @throws IOException if the file cannot be written
+     * @throws IllegalStateException if a moon of the universe has moons, which the file cannot hold
+     */
+    public static void Write(cUniverse universe, Path file, cLoggingBase logger) throws IOException, IllegalStateException
+    {
+        cMappedUniverseWriter writer = new cMappedUniverseWriter(file, logger);
+        try
+        {
+            universe.StreamTo(writer);
+            writer.Finish();
+        }
+        finally
+        {
+            writer.Close();
+        }
+    }
+
+    /**
+     * Unmaps the file. Views of this universe must not be used afterwards.
+     */
+    public void Close()
+    {
+        mLogger.LogTrace("Closing mapped universe");
+        mArena.close();
+    }
+
+    /**
+     * Gets a view of the galaxy at the specified index.
+     * A new view is created on each call.
+     *
+     * @param index the index of the galaxy to retrieve
+     * @return the galaxy at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cGalaxy GetGalaxy(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < mGalaxyCount)
+        {
+            return new cColumnarGalaxy(mColumns, index);
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of galaxies in the universe.
+     *
+     * @return the count of galaxies in this universe
+     */
+    @Override
+    public int GetGalaxyCount()
+    {
+        return mGalaxyCount;
+    }
+
+    /**
+     * Gets the number of stars in all galaxies of the universe.
+     *
+     * @return the total count of stars
+     */
+    public int GetTotalStarCount()
+    {
+        return mStarCount;
+    }
+
+    /**
+     * Gets the number of planets in all star systems of the universe, not counting moons.
+     *
+     * @return the total count of planets
+     */
+    public int GetTotalPlanetCount()
+    {
+        return mPlanetCount;
+    }
+
+    /**
+     * Gets the number of moons of all planets of the universe.
+     *
+     * @return the total count of moons
+     */
+    public int GetTotalMoonCount()
+    {
+        return mMoonCount;
+    }
+
+    /**
+     * Counts the galaxies of each type.
+     *
+     * @return the number of galaxies of each type, indexed by eGalaxyType ordinal
+     */
+    public int[] GetGalaxyTypeHistogram()
+    {
+        return Histogram(mGalaxyOffset, GALAXY_RECORD, 0, mGalaxyCount, cColumnarUniverse.GALAXY_TYPES.length);
+    }
+
+    /**
+     * Counts the stars of each type in the universe.
+     *
+     * @return the number of stars of each type, indexed by eStarType ordinal
+     */
+    public int[] GetStarTypeHistogram()
+    {
+        return mColumns.StarTypeHistogram(0, mStarCount);
+    }
+
+    /**
+     * Counts the planets of each type in the universe, not counting moons.
+     *
+     * @return the number of planets of each type, indexed by ePlanetType ordinal
+     */
+    public int[] GetPlanetTypeHistogram()
+    {
+        return mColumns.PlanetTypeHistogram(0, mPlanetCount);
+    }
+
+    /**
+     * Counts the moons of each type in the universe.
+     *
+     * @return the number of moons of each type, indexed by ePlanetType ordinal
+     */
+    public int[] GetMoonTypeHistogram()
+    {
+        return mColumns.MoonTypeHistogram(0, mMoonCount);
+    }
+
+    /**
+     * Gets the number of galaxies, stars, planets and moons in the universe, in total and by type, from the type columns.
+     *
+     * @return the statistics of the bodies of this universe
+     */
+    @Override
+    public cSubtreeStats GetStats()
+    {
+        return cSubtreeStats.FromHistograms(GetGalaxyTypeHistogram(), GetStarTypeHistogram(), GetPlanetTypeHistogram(), GetMoonTypeHistogram());
+    }
+
+    /**
+     * Counts the type ordinals of a range of records of a level.
+     *
+     * @param offset the offset of the level's first record
+     * @param record the size of the level's records
+     * @param from the index of the first record, inclusive
+     * @param to the index of the last record, exclusive
+     * @param size the number of values of the type
+     * @return the number of records of each ordinal
+     */
+    private int[] Histogram(long offset, int record, int from, int to, int size)
+    {
+        int[] counts = new int[size];
+        for(int i = from; i < to; i++)
+        {
+            counts[mSegment.get(ValueLayout.JAVA_BYTE, offset + (long)i * record)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Checks the type ordinal and the name id of every record of a level.
+     *
+     * @param segment the mapped file
+     * @param offset the offset of the level's first record
+     * @param record the size of the level's records
+     * @param count the number of records of the level
+     * @param types the number of values of the level's type
+     * @param names the number of names in the name table
+     * @param level the name of the level, for the error message
+     * @param file the file being opened
+     * @param logger the logger to report to
+     * @throws IOException if a type ordinal or a name id is out of range
+     */
+    private static void CheckRecords(MemorySegment segment, long offset, int record, long count, int types, long names, String level, Path file, cLoggingBase logger) throws IOException
+    {
+        for(long i = 0; i < count; i++)
+        {
+            long position = offset + i * record;
+            byte type = segment.get(ValueLayout.JAVA_BYTE, position);
+            if(type < 0 || type >= types)
+            {
+                throw Invalid(file, "bad type " + type + " of " + level + " " + i, logger);
+            }
+            int name = segment.get(INT, position + 1);
+            if(name < 0 || name >= names)
+            {
+                throw Invalid(file, "bad name id " + name + " of " + level + " " + i, logger);
+            }
+        }
+    }
+
+    /**
+     * Checks that the first child offsets of a level split the next level into contiguous ranges
+     * that start at 0 and cover every child, and that each child names the body whose range holds it
+     * as its parent.
+     *
+     * @param segment the mapped file
+     * @param offset the offset of the level's first record
+     * @param record the size of the level's records
+     * @param field the offset of the first child within the level's records
+     * @param count the number of records of the level
+     * @param childOffset the offset of the next level's first record
+     * @param childRecord the size of the next level's records
+     * @param childCount the number of records of the next level
+     * @param level the name of the level, for the error message
+     * @param child the name of the next level, for the error message
+     * @param file the file being opened
+     * @param logger the logger to report to
+     * @throws IOException if a first child offset or a parent index is inconsistent
+     */
+    private static void CheckChildren(MemorySegment segment, long offset, int record, int field, long count, long childOffset, int childRecord, long childCount, String level, String child, Path file, cLoggingBase logger) throws IOException
+    {
+        if(count > 0 && segment.get(INT, offset + field) != 0)
+        {
+            throw Invalid(file, "bad first " + child + " of " + level + " 0", logger);
+        }
+        long end = 0;
+        for(long i = 0; i < count; i++)
+        {
+            long start = end;
+            end = i + 1 < count ? segment.get(INT, offset + (i + 1) * record + field) : childCount;
+            if(end < start || end > childCount)
+            {
+                throw Invalid(file, "bad first " + child + " of " + level + " " + (i + 1), logger);
+            }
+            for(long c = start; c < end; c++)
+            {
+                if(segment.get(INT, childOffset + c * childRecord + 5) != i)
+                {
+                    throw Invalid(file, "bad parent of " + child + " " + c, logger);
+                }
+            }
+        }
+        if(end != childCount)
+        {
+            throw Invalid(file, childCount + " " + child + " records but no " + level + " to hold them", logger);
+        }
+    }
+
+    /**
+     * Logs and creates the exception thrown for a file that is not a valid universe file.
+     *
+     * @param file the file being opened
+     * @param reason why the file is invalid
+     * @param logger the logger to report to
+     * @return the exception to throw
+     */
+    private static IOException Invalid(Path file, String reason, cLoggingBase logger)
+    {
+        String message = "Cannot open mapped universe " + file + ": " + reason;
+        logger.LogError(message);
+        return new IOException(message);
+    }
+
+    /**
+     * Reads the bodies of the universe from the mapped records for the views.
+     */
+    private class cColumns implements iBodyColumns
+    {
+        @Override
+        public cLoggingBase Logger()
+        {
+            return mLogger;
+        }
+
+        @Override
+        public int[] StarTypeHistogram(int from, int to)
+        {
+            return Histogram(mStarOffset, STAR_RECORD, from, to, cColumnarUniverse.STAR_TYPES.length);
+        }
+
+        @Override
+        public int[] PlanetTypeHistogram(int from, int to)
+        {
+            return Histogram(mPlanetOffset, PLANET_RECORD, from, to, cColumnarUniverse.PLANET_TYPES.length);
+        }
+
+        @Override
+        public int[] MoonTypeHistogram(int from, int to)
+        {
+            return Histogram(mMoonOffset, MOON_RECORD, from, to, cColumnarUniverse.PLANET_TYPES.length);
+        }
+
+        @Override
+        public cGalaxy.eGalaxyType GalaxyType(int galaxy)
+        {
+            return cColumnarUniverse.GALAXY_TYPES[mSegment.get(ValueLayout.JAVA_BYTE, mGalaxyOffset + (long)galaxy * GALAXY_RECORD)];
+        }
+
+        @Override
+        public String GalaxyName(int galaxy)
+        {
+            return mNames[mSegment.get(INT, mGalaxyOffset + (long)galaxy * GALAXY_RECORD + 1)];
+        }
+
+        @Override
+        public int FirstStar(int galaxy)
+        {
+            if(galaxy == mGalaxyCount)
+            {
+                return mStarCount;
+            }
+            return mSegment.get(INT, mGalaxyOffset + (long)galaxy * GALAXY_RECORD + 5);
+        }
+
+        @Override
+        public cStar.eStarType StarType(int star)
+        {
+            return cColumnarUniverse.STAR_TYPES[mSegment.get(ValueLayout.JAVA_BYTE, mStarOffset + (long)star * STAR_RECORD)];
+        }
+
+        @Override
+        public String StarName(int star)
+        {
+            return mNames[mSegment.get(INT, mStarOffset + (long)star * STAR_RECORD + 1)];
+        }
+
+        @Override
+        public int StarParent(int star)
+        {
+            return mSegment.get(INT, mStarOffset + (long)star * STAR_RECORD + 5);
+        }
+
+        @Override
+        public int FirstPlanet(int star)
+        {
+            if(star == mStarCount)
+            {
+                return mPlanetCount;
+            }
+            return mSegment.get(INT, mStarOffset + (long)star * STAR_RECORD + 9);
+        }
+
+        @Override
+        public cPlanet.ePlanetType PlanetType(int planet)
+        {
+            return cColumnarUniverse.PLANET_TYPES[mSegment.get(ValueLayout.JAVA_BYTE, mPlanetOffset + (long)planet * PLANET_RECORD)];
+        }
+
+        @Override
+        public String PlanetName(int planet)
+        {
+            return mNames[mSegment.get(INT, mPlanetOffset + (long)planet * PLANET_RECORD + 1)];
+        }
+
+        @Override
+        public int PlanetParent(int planet)
+        {
+            return mSegment.get(INT, mPlanetOffset + (long)planet * PLANET_RECORD + 5);
+        }
+
+        @Override
+        public int FirstMoon(int planet)
+        {
+            if(planet == mPlanetCount)
+            {
+                return mMoonCount;
+            }
+            return mSegment.get(INT, mPlanetOffset + (long)planet * PLANET_RECORD + 9);
+        }
+
+        @Override
+        public cPlanet.ePlanetType MoonType(int moon)
+        {
+            return cColumnarUniverse.PLANET_TYPES[mSegment.get(ValueLayout.JAVA_BYTE, mMoonOffset + (long)moon * MOON_RECORD)];
+        }
+
+        @Override
+        public String MoonName(int moon)
+        {
+            return mNames[mSegment.get(INT, mMoonOffset + (long)moon * MOON_RECORD + 1)];
+        }
+
+        @Override
+        public int MoonParent(int moon)
+        {
+            return mSegment.get(INT, mMoonOffset + (long)moon * MOON_RECORD + 5);
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package Data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import Logging.cLoggingBase;
+
+/**
+ * Universe sink that writes bodies to a file that can be opened with cMappedUniverse.Open.
+ * Bodies must arrive depth first, as StreamRandomUniverse produces them. The records of each level
+ * are appended to a temporary file next to the target as they arrive, and Finish joins them behind
+ * the header, so only the name table is kept in memory and universes larger than the heap can be
+ * written. The file layout is described in cMappedUniverse.
+ * Errors while writing a body are thrown as UncheckedIOException, since the sink methods cannot
+ * throw checked exceptions.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public final class cMappedUniverseWriter implements iUniverseSink
+{
+    /**
+     * Size of the buffer of each level.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Logger to report progress and errors to.
+     */
+    private final cLoggingBase mLogger;
+
+    /**
+     * The file being written.
+     */
+    private final Path mFile;
+
+    /**
+     * Temporary files holding the records of each level, from galaxies to moons.
+     */
+    private final Path[] mLevelFiles = new Path[4];
+
+    /**
+     * Channels writing the temporary files.
+     */
+    private final FileChannel[] mLevelChannels = new FileChannel[4];
+
+    /**
+     * Buffers collecting records before they are written to the temporary files.
+     */
+    private final ByteBuffer[] mLevelBuffers = new ByteBuffer[4];
+
+    /**
+     * Id of each distinct name seen so far.
+     */
+    private final HashMap<String, Integer> mNameIds = new HashMap<String, Integer>();
+
+    /**
+     * Distinct names in order of their ids.
+     */
+    private final ArrayList<String> mNames = new ArrayList<String>();
+
+    /**
+     * Number of galaxies written.
+     */
+    private long mGalaxyCount;
+
+    /**
+     * Number of stars written.
+     */
+    private long mStarCount;
+
+    /**
+     * Number of planets written.
+     */
+    private long mPlanetCount;
+
+    /**
+     * Number of moons written.
+     */
+    private long mMoonCount;
+
+    /**
+     * Whether Finish or Close has been called.
+     */
+    private boolean mClosed;
+
+    /**
+     * Constructs a writer for the specified file.
+     * The file is only created when Finish is called.
+     *
+     * @param file the file to write, replaced if it exists
+     * @param logger the logger to use while writing
+     * @throws IOException if the temporary files cannot be created
+     */
+    public cMappedUniverseWriter(Path file, cLoggingBase logger) throws IOException
+    {
+        mLogger = logger;
+        mFile = file.toAbsolutePath();
+        try
+        {
+            for(int level = 0; level < 4; level++)
+            {
+                mLevelFiles[level] = Files.createTempFile(mFile.getParent(), mFile.getFileName().toString(), ".tmp");
+                mLevelChannels[level] = FileChannel.open(mLevelFiles[level], StandardOpenOption.READ, StandardOpenOption.WRITE);
+                mLevelBuffers[level] = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        catch(IOException e)
+        {
+            Close();
+            mLogger.LogError("Cannot write mapped universe " + mFile + ": " + e.getMessage());
+            throw e;
+        }
+        mLogger.LogTrace("Writing mapped universe " + mFile);
+    }
+
+    /**
+     * Writes a galaxy after the galaxies received so far.
+     *
+     * @param name the name of the galaxy
+     * @param type the classification type of the galaxy
+     */
+    @Override
+    public void BeginGalaxy(String name, cGalaxy.eGalaxyType type)
+    {
+        ByteBuffer record = Record(0, cMappedUniverse.GALAXY_RECORD);
+        record.put((byte)type.ordinal());
+        record.putInt(NameId(name));
+        record.putInt(Index(mStarCount));
+        mGalaxyCount++;
+    }
+
+    /**
+     * Writes a star of the last galaxy received.
+     *
+     * @param name the name of the star
+     * @param type the stellar classification of the star
+     * @throws IllegalStateException if no galaxy has been received
+     */
+    @Override
+    public void BeginStar(String name, cStar.eStarType type) throws IllegalStateException
+    {
+        CheckParent(mGalaxyCount, "star", "galaxy");
+        ByteBuffer record = Record(1, cMappedUniverse.STAR_RECORD);
+        record.put((byte)type.ordinal());
+        record.putInt(NameId(name));
+        record.putInt(Index(mGalaxyCount - 1));
+        record.putInt(Index(mPlanetCount));
+        mStarCount++;
+    }
+
+    /**
+     * Writes a planet of the last star received.
+     *
+     * @param name the name of the planet
+     * @param type the classification type of the planet
+     * @throws IllegalStateException if no star has been received
+     */
+    @Override
+    public void BeginPlanet(String name, cPlanet.ePlanetType type) throws IllegalStateException
+    {
+        CheckParent(mStarCount, "planet", "star");
+        ByteBuffer record = Record(2, cMappedUniverse.PLANET_RECORD);
+        record.put((byte)type.ordinal());
+        record.putInt(NameId(name));
+        record.putInt(Index(mStarCount - 1));
+        record.putInt(Index(mMoonCount));
+        mPlanetCount++;
+    }
+
+    /**
+     * Writes a moon of the last planet received.
+     *
+     * @param name the name of the moon
+     * @param type the classification type of the moon
+     * @throws IllegalStateException if no planet has been received
+     */
+    @Override
+    public void OnMoon(String name, cPlanet.ePlanetType type) throws IllegalStateException
+    {
+        CheckParent(mPlanetCount, "moon", "planet");
+        ByteBuffer record = Record(3, cMappedUniverse.MOON_RECORD);
+        record.put((byte)type.ordinal());
+        record.putInt(NameId(name));
+        record.putInt(Index(mPlanetCount - 1));
+        mMoonCount++;
+    }
+
+    /**
+     * Writes the header, the records and the name table to the target file and deletes the
+     * temporary files. No more bodies can be written afterwards.
+     *
+     * @throws IOException if the file cannot be written
+     * @throws IllegalStateException if the writer is already finished or closed
+     */
+    public void Finish() throws IOException, IllegalStateException
+    {
+        if(mClosed)
+        {
+            String message = "Cannot finish mapped universe " + mFile + ": writer is closed";
+            mLogger.LogError(message);
+            throw new IllegalStateException(message);
+        }
+
+        try
+        {
+            for(int level = 0; level < 4; level++)
+            {
+                Flush(level);
+            }
+
+            long galaxyOffset = cMappedUniverse.HEADER_SIZE;
+            long starOffset = galaxyOffset + mGalaxyCount * cMappedUniverse.GALAXY_RECORD;
+            long planetOffset = starOffset + mStarCount * cMappedUniverse.STAR_RECORD;
+            long moonOffset = planetOffset + mPlanetCount * cMappedUniverse.PLANET_RECORD;
+            long nameOffset = moonOffset + mMoonCount * cMappedUniverse.MOON_RECORD;
+
+            try(FileChannel out = FileChannel.open(mFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+            {
+                ByteBuffer header = ByteBuffer.allocate(cMappedUniverse.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(cMappedUniverse.MAGIC).putInt(cMappedUniverse.VERSION);
+                header.putLong(mGalaxyCount).putLong(mStarCount).putLong(mPlanetCount).putLong(mMoonCount).putLong(mNames.size());
+                header.putLong(galaxyOffset).putLong(starOffset).putLong(planetOffset).putLong(moonOffset).putLong(nameOffset);
+                WriteFully(out, header.flip());
+
+                for(int level = 0; level < 4; level++)
+                {
+                    FileChannel in = mLevelChannels[level];
+                    long size = in.position();
+                    in.position(0);
+                    long copied = 0;
+                    while(copied < size)
+                    {
+                        copied += in.transferTo(copied, size - copied, out);
+                    }
+                }
+
+                ByteBuffer names = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                for(String name : mNames)
+                {
+                    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                    if(names.remaining() < 4 + bytes.length)
+                    {
+                        WriteFully(out, names.flip());
+                        names.clear();
+                        if(names.capacity() < 4 + bytes.length)
+                        {
+                            names = ByteBuffer.allocate(4 + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+                        }
+                    }
+                    names.putInt(bytes.length).put(bytes);
+                }
+                WriteFully(out, names.flip());
+                out.force(true);
+            }
+        }
+        catch(IOException e)
+        {
+            mLogger.LogError("Cannot write mapped universe " + mFile + ": " + e.getMessage());
+            throw e;
+        }
+        finally
+        {
+            Close();
+        }
+        mLogger.LogInfo("Wrote mapped universe " + mFile + " with " + mGalaxyCount + " galaxies, " + mStarCount + " stars, " + mPlanetCount + " planets and " + mMoonCount + " moons");
+    }
+
+    /**
+     * Deletes the temporary files without writing the target file.
+     * Does nothing if the writer is already finished or closed.
+     */
+    public void Close()
+    {
+        if(mClosed)
+        {
+            return;
+        }
+        mClosed = true;
+        for(int level = 0; level < 4; level++)
+        {
+            try
+            {
+                if(mLevelChannels[level] != null)
+                {
+                    mLevelChannels[level].close();
+                }
+                if(mLevelFiles[level] != null)
+                {
+                    Files.deleteIfExists(mLevelFiles[level]);
+                }
+            }
+            catch(IOException e)
+            {
+                mLogger.LogWarning("Cannot delete temporary file " + mLevelFiles[level] + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gets the buffer to write the next record of a level to, flushing it first if it is full.
+     *
+     * @param level the level of the record, from 0 for galaxies to 3 for moons
+     * @param size the size of the record
+     * @return the buffer to write the record to
+     * @throws IllegalStateException if the writer is finished or closed
+     */
+    private ByteBuffer Record(int level, int size) throws IllegalStateException
+    {
+        if(mClosed)
+        {
+            String message = "Cannot write to mapped universe " + mFile + ": writer is closed";
+            mLogger.LogError(message);
+            throw new IllegalStateException(message);
+        }
+        if(mLevelBuffers[level].remaining() < size)
+        {
+            try
+            {
+                Flush(level);
+            }
+            catch(IOException e)
+            {
+                mLogger.LogError("Cannot write mapped universe " + mFile + ": " + e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        }
+        return mLevelBuffers[level];
+    }
+
+    /**
+     * Writes the buffered records of a level to its temporary file.
+     *
+     * @param level the level to flush
+     * @throws IOException if the temporary file cannot be written
+     */
+    private void Flush(int level) throws IOException
+    {
+        WriteFully(mLevelChannels[level], mLevelBuffers[level].flip());
+        mLevelBuffers[level].clear();
+    }
+
+    /**
+     * Writes all remaining bytes of a buffer to a channel.
+     *
+     * @param channel the channel to write to
+     * @param buffer the buffer to write
+     * @throws IOException if the channel cannot be written
+     */
+    private static void WriteFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while(buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Gets the id of a name, adding it to the name table if it is new.
+     *
+     * @param name the name
+     * @return the id of the name
+     */
+    private int NameId(String name)
+    {
+        Integer id = mNameIds.get(name);
+        if(id == null)
+        {
+            id = mNames.size();
+            mNames.add(name);
+            mNameIds.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Checks that an index fits in the int fields of the records.
+     *
+     * @param index the index to write
+     * @return the index as an int
+     * @throws IllegalStateException if the index is too large
+     */
+    private int Index(long index) throws IllegalStateException
+    {
+        if(index > Integer.MAX_VALUE)
+        {
+            String message = "Cannot write mapped universe " + mFile + ": more than " + Integer.MAX_VALUE + " bodies in one level";
+            mLogger.LogError(message);
+            throw new IllegalStateException(message);
+        }
+        return (int)index;
+    }
+
+    /**
+     * Ensures that a body has a parent to be added to.
+     *
+     * @param parentCount the number of parents received so far
+     * @param body the kind of body being added
+     * @param parent the kind of its parent
+     * @throws IllegalStateException if no parent has been received
+     */
+    private void CheckParent(long parentCount, String body, String parent) throws IllegalStateException
+    {
+        if(parentCount == 0)
+        {
+            String message = "Cannot add " + body + " to mapped universe: no " + parent + " has been added";
+            mLogger.LogError(message);
+            throw new IllegalStateException(message);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package Data;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared name strings for generated and user supplied bodies.
+ * Generated names such as "Star_12" are built once per number and then shared by every body
+ * that has them, so generating a universe allocates no name strings after the first galaxy and
+ * each body only holds a reference to its name. Other names are interned when an object is named,
+ * so repeated user supplied names are also stored once. Generated names are kept out of the interned
+ * table, which is bounded, so that generating a large universe never stops user supplied names from
+ * being interned; bodies given a generated name do not intern it again.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cNames
+{
+    /**
+     * Highest number whose generated name is cached; larger numbers build a new string each time.
+     */
+    static final int MAX_CACHED_NUMBER = 1 << 20;
+
+    /**
+     * Maximum number of distinct names interned, so that unique names cannot grow the table without bound.
+     */
+    static final int MAX_INTERNED = 1 << 16;
+
+    /**
+     * Canonical instance of each interned name.
+     */
+    private static final ConcurrentHashMap<String, String> INTERNED = new ConcurrentHashMap<String, String>();
+
+    /**
+     * Generated names of galaxies.
+     */
+    private static final cGeneratedNames GALAXIES = new cGeneratedNames("Galaxy_");
+
+    /**
+     * Generated names of stars.
+     */
+    private static final cGeneratedNames STARS = new cGeneratedNames("Star_");
+
+    /**
+     * Generated names of planets.
+     */
+    private static final cGeneratedNames PLANETS = new cGeneratedNames("Planet_");
+
+    /**
+     * Generated names of moons.
+     */
+    private static final cGeneratedNames MOONS = new cGeneratedNames("Moon_");
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private cNames()
+    {
+    }
+
+    /**
+     * Gets the generated name of a galaxy.
+     *
+     * @param number the number of the galaxy, starting at 1
+     * @return the shared name "Galaxy_" + number
+     */
+    static String Galaxy(int number)
+    {
+        return GALAXIES.Get(number);
+    }
+
+    /**
+     * Gets the generated name of a star.
+     *
+     * @param number the number of the star within its galaxy, starting at 1
+     * @return the shared name "Star_" + number
+     */
+    static String Star(int number)
+    {
+        return STARS.Get(number);
+    }
+
+    /**
+     * Gets the generated name of a planet.
+     *
+     * @param number the number of the planet within its star system, starting at 1
+     * @return the shared name "Planet_" + number
+     */
+    static String Planet(int number)
+    {
+        return PLANETS.Get(number);
+    }
+
+    /**
+     * Gets the generated name of a moon.
+     *
+     * @param number the number of the moon of its planet, starting at 1
+     * @return the shared name "Moon_" + number
+     */
+    static String Moon(int number)
+    {
+        return MOONS.Get(number);
+    }
+
+    /**
+     * Gets the canonical instance of a name.
+     * Once MAX_INTERNED distinct names have been seen, new names are returned as they are.
+     *
+     * @param name the name, may be null
+     * @return a string equal to the name, shared with earlier objects of the same name when possible
+     */
+    static String Intern(String name)
+    {
+        if(name == null)
+        {
+            return null;
+        }
+        String interned = INTERNED.get(name);
+        if(interned != null)
+        {
+            return interned;
+        }
+        if(INTERNED.size() >= MAX_INTERNED)
+        {
+            return name;
+        }
+        interned = INTERNED.putIfAbsent(name, name);
+        return interned != null ? interned : name;
+    }
+
+    /**
+     * Cache of the generated names with one prefix, indexed by number.
+     * Lookups of cached names take no lock; missing names are added under the lock.
+     */
+    private static final class cGeneratedNames
+    {
+        /**
+         * Prefix of the names, such as "Star_".
+         */
+        private final String mPrefix;
+
+        /**
+         * Names built so far, indexed by number; entries may be null.
+         */
+        private volatile String[] mNames;
+
+        /**
+         * Constructs an empty cache.
+         *
+         * @param prefix the prefix of the names
+         */
+        cGeneratedNames(String prefix)
+        {
+            mPrefix = prefix;
+            mNames = new String[64];
+        }
+
+        /**
+         * Gets the name with the specified number.
+         *
+         * @param number the number of the name
+         * @return the name
+         */
+        String Get(int number)
+        {
+            String[] names = mNames;
+            if(number >= 0 && number < names.length)
+            {
+                String name = names[number];
+                if(name != null)
+                {
+                    return name;
+                }
+            }
+            if(number < 0 || number > MAX_CACHED_NUMBER)
+            {
+                return mPrefix + number;
+            }
+            return Create(number);
+        }
+
+        /**
+         * Builds and caches the name with the specified number.
+         *
+         * @param number the number of the name, between 0 and MAX_CACHED_NUMBER
+         * @return the name
+         */
+        private synchronized String Create(int number)
+        {
+            String[] names = mNames;
+            if(number >= names.length)
+            {
+                names = Arrays.copyOf(names, Math.min(Math.max(number + 1, names.length * 2), MAX_CACHED_NUMBER + 1));
+            }
+            if(names[number] == null)
+            {
+                names[number] = mPrefix + number;
+            }
+            mNames = names;
+            return names[number];
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package Data;
+
+import java.util.ArrayList;
+
+import Logging.cLoggingBase;
+
+/**
+ * Pool of generated galaxies, stars and planets that a universe reuses across regenerations.
+ * Objects handed out since the last reset are in use; Reset marks every pooled object as free
+ * in constant time, and later requests recycle free objects, together with the capacity of their
+ * child lists, before allocating new ones. Repeated regeneration is therefore close to allocation free.
+ * Objects that were taken out of the arena since they were handed out, by being removed from their parent
+ * or moved under a body or universe of another arena, are dropped from the pool when they are reached
+ * instead of being recycled, so that their new owner keeps their contents.
+ * The pool keeps the largest number of objects ever in use until it is released.
+ * Not thread safe.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cObjectArena
+{
+    private final ArrayList<cGalaxy> mGalaxies;
+    private final ArrayList<cStar> mStars;
+    
+    /**
+     * Pooled planets, shared by planets and moons.
+     */
+    private final ArrayList<cPlanet> mPlanets;
+    
+    private int mGalaxiesUsed;
+    private int mStarsUsed;
+    private int mPlanetsUsed;
+
+    /**
+     * Constructs an empty arena.
+     */
+    cObjectArena()
+    {
+        mGalaxies = new ArrayList<cGalaxy>();
+        mStars = new ArrayList<cStar>();
+        mPlanets = new ArrayList<cPlanet>();
+    }
+
+    /**
+     * Marks every pooled object as free for reuse.
+     * Objects handed out before the reset must no longer be used.
+     */
+    void Reset()
+    {
+        mGalaxiesUsed = 0;
+        mStarsUsed = 0;
+        mPlanetsUsed = 0;
+    }
+
+    /**
+     * Drops every pooled object so that it can be garbage collected.
+     */
+    void Release()
+    {
+        Reset();
+        mGalaxies.clear();
+        mGalaxies.trimToSize();
+        mStars.clear();
+        mStars.trimToSize();
+        mPlanets.clear();
+        mPlanets.trimToSize();
+    }
+
+    /**
+     * Gets an empty galaxy, recycling a free one if possible.
+     * 
+     * @param name the shared name of the galaxy, generated or already interned
+     * @param type the classification type of the galaxy
+     * @param logger the logger to use for the galaxy
+     * @return a galaxy without stars
+     */
+    cGalaxy NewGalaxy(String name, cGalaxy.eGalaxyType type, cLoggingBase logger)
+    {
+        while(mGalaxiesUsed < mGalaxies.size())
+        {
+            cGalaxy galaxy = mGalaxies.get(mGalaxiesUsed);
+            if(galaxy.mArena == this)
+            {
+                mGalaxiesUsed++;
+                galaxy.Recycle(name, type, logger);
+                return galaxy;
+            }
+            Drop(mGalaxies, mGalaxiesUsed);
+        }
+        cGalaxy galaxy = new cGalaxy(name, type, logger, false);
+        galaxy.mArena = this;
+        mGalaxies.add(galaxy);
+        mGalaxiesUsed++;
+        return galaxy;
+    }
+
+    /**
+     * Gets an empty star, recycling a free one if possible.
+     * 
+     * @param name the shared name of the star, generated or already interned
+     * @param type the stellar classification of the star
+     * @param logger the logger to use for the star
+     * @return a star without planets
+     */
+    cStar NewStar(String name, cStar.eStarType type, cLoggingBase logger)
+    {
+        while(mStarsUsed < mStars.size())
+        {
+            cStar star = mStars.get(mStarsUsed);
+            if(star.mArena == this)
+            {
+                mStarsUsed++;
+                star.Recycle(name, type, logger);
+                return star;
+            }
+            Drop(mStars, mStarsUsed);
+        }
+        cStar star = new cStar(name, type, logger, false);
+        star.mArena = this;
+        mStars.add(star);
+        mStarsUsed++;
+        return star;
+    }
+
+    /**
+     * Gets an empty planet or moon, recycling a free one if possible.
+     * 
+     * @param name the shared name of the planet, generated or already interned
+     * @param type the classification type of the planet
+     * @param logger the logger to use for the planet
+     * @return a planet without moons
+     */
+    cPlanet NewPlanet(String name, cPlanet.ePlanetType type, cLoggingBase logger)
+    {
+        while(mPlanetsUsed < mPlanets.size())
+        {
+            cPlanet planet = mPlanets.get(mPlanetsUsed);
+            if(planet.mArena == this)
+            {
+                mPlanetsUsed++;
+                planet.Recycle(name, type, logger);
+                return planet;
+            }
+            Drop(mPlanets, mPlanetsUsed);
+        }
+        cPlanet planet = new cPlanet(name, type, logger, false);
+        planet.mArena = this;
+        mPlanets.add(planet);
+        mPlanetsUsed++;
+        return planet;
+    }
+
+    /**
+     * Drops a free object that was taken out of the arena from a pool, by moving the last pooled object into its place.
+     * 
+     * @param pool the pool of the object
+     * @param index the index of the object, which is not below the number of objects in use
+     */
+    private static <T> void Drop(ArrayList<T> pool, int index)
+    {
+        int last = pool.size() - 1;
+        pool.set(index, pool.get(last));
+        pool.remove(last);
+    }
+}
@@ -1,8 +1,14 @@
 package Data;
 
+import java.util.concurrent.locks.ReentrantLock;
+
+import Logging.cLoggingBase;
+
 /**
  * Base class for all named objects in the system.
  * Provides common functionality for objects that have a name and can be converted to string representation.
+ * Each object also has a position relative to its parent: galaxies are placed in the universe and stars
+ * in their galaxy in light years, planets around their star and moons around their planet in astronomical units.
  * This class serves as the foundation for all astronomical objects in the StarViewer application.
  * 
  * @author Stephen Hyberger
@@ -15,6 +21,29 @@ public class cObjectBase
      */
     protected String mName;
 
+    /**
+     * Arena that generated this object and may reuse it once its universe is cleared, or null.
+     * An object only keeps its arena while every body above it, up to the universe, came from the same
+     * arena: removing it from its parent, or adding it to a body or universe of another arena, takes it
+     * and everything below it out of the arena, so that it is never rewritten by a regeneration.
+     */
+    cObjectArena mArena;
+
+    /**
+     * Position of this object along the x axis, relative to its parent.
+     */
+    protected double mX;
+
+    /**
+     * Position of this object along the y axis, relative to its parent.
+     */
+    protected double mY;
+
+    /**
+     * Position of this object along the z axis, relative to its parent.
+     */
+    protected double mZ;
+
     /**
      * Constructs a new named object with the specified name.
      * 
@@ -22,7 +51,20 @@ public class cObjectBase
      */
     public cObjectBase(String name)
     {
-        mName = name;
+        this(name, true);
+    }
+
+    /**
+     * Constructs a new named object, interning its name unless it is already shared.
+     * Generated names and the names of stored bodies come from cNames or are interned when they are read,
+     * so the objects given them skip the lookup.
+     * 
+     * @param name the name to assign to this object
+     * @param intern true to intern the name, false if it is already shared
+     */
+    cObjectBase(String name, boolean intern)
+    {
+        mName = intern ? cNames.Intern(name) : name;
     }
 
     /**
@@ -32,7 +74,177 @@ public class cObjectBase
      */
     public void SetName(String name)
     {
-        mName = name;
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mName = cNames.Intern(name);
+            Renamed();
+            Invalidate();
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Gets the position of this object along the x axis, relative to its parent.
+     * 
+     * @return the x coordinate
+     */
+    public double GetX()
+    {
+        return mX;
+    }
+
+    /**
+     * Gets the position of this object along the y axis, relative to its parent.
+     * 
+     * @return the y coordinate
+     */
+    public double GetY()
+    {
+        return mY;
+    }
+
+    /**
+     * Gets the position of this object along the z axis, relative to its parent.
+     * 
+     * @return the z coordinate
+     */
+    public double GetZ()
+    {
+        return mZ;
+    }
+
+    /**
+     * Moves this object to a new position relative to its parent.
+     * 
+     * @param x the new x coordinate
+     * @param y the new y coordinate
+     * @param z the new z coordinate
+     * @throws IllegalArgumentException if a coordinate is not a finite number
+     */
+    public void SetPosition(double x, double y, double z) throws IllegalArgumentException
+    {
+        if(!Double.isFinite(x) || !Double.isFinite(y) || !Double.isFinite(z))
+        {
+            String message = "Cannot move " + mName + " to a position that is not finite.";
+            Logger().LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            Place(x, y, z);
+            Moved();
+            Invalidate();
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Sets the position of this object without notifying anything, for objects being created.
+     * 
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     */
+    void Place(double x, double y, double z)
+    {
+        mX = x;
+        mY = y;
+        mZ = z;
+    }
+
+    /**
+     * Updates the spatial index containing this object after it moved.
+     * Objects that are not spatially indexed do nothing.
+     */
+    void Moved()
+    {
+    }
+
+    /**
+     * Discards the cached snapshot of this object and of its parents after this object changed.
+     * Objects that do not take part in snapshots do nothing.
+     */
+    void Invalidate()
+    {
+    }
+
+    /**
+     * Gets the logger that errors of this object are reported to.
+     * Objects without a logger of their own use the standby logger.
+     * 
+     * @return the logger of this object
+     */
+    cLoggingBase Logger()
+    {
+        return cLoggingBase.GetStandbyLogger();
+    }
+
+    /**
+     * Gets the galaxy this object is in, following the links to its parents.
+     * 
+     * @return the galaxy containing this object, or null if it is not in a galaxy
+     */
+    cGalaxy Galaxy()
+    {
+        return null;
+    }
+
+    /**
+     * Locks the galaxy this object is in, if that galaxy is in a universe in concurrent mode.
+     * The lock of a galaxy guards it and everything in it. If the object moves to another galaxy
+     * while waiting for the lock, the lock of the new galaxy is taken instead.
+     * 
+     * @return the lock to release with Unlock once done, or null if no lock was taken
+     */
+    final ReentrantLock LockGalaxy()
+    {
+        while(true)
+        {
+            cGalaxy galaxy = Galaxy();
+            ReentrantLock lock = galaxy != null ? galaxy.Lock() : null;
+            if(lock == null || Galaxy() == galaxy)
+            {
+                return lock;
+            }
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a lock taken by LockGalaxy.
+     * 
+     * @param lock the lock to release, or null if none was taken
+     */
+    static void Unlock(ReentrantLock lock)
+    {
+        if(lock != null)
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tells the parent of this object that its name changed, so that the parent's name index is rebuilt.
+     * Objects that are not in a parent's child list do nothing.
+     */
+    void Renamed()
+    {
+    }
+
+    /**
+     * Discards the name index of the children of this object after one of them was renamed.
+     * Objects without children do nothing.
+     */
+    void ChildRenamed()
+    {
     }
     
     /**
@@ -0,0 +1,294 @@
+package Data;
+
+import Logging.cLoggingBase;
+
+/**
+ * Keplerian orbit of a planet around its star, or of a moon around its planet.
+ * The orbit is given by its six classical elements, with angles in radians measured from the x axis
+ * of the plane of the star system, and by its period in days. Positions on the orbit are relative to
+ * the body orbited, in AU, at a time in days since the epoch at which the mean anomaly was taken.
+ * Orbits are immutable, so a planet and its snapshots can share one.
+ * To compute the positions of many bodies at once, use cOrbitPropagator.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public final class cOrbit
+{
+    /**
+     * Number of Newton steps taken to solve Kepler's equation. From the starting guess used, this gives
+     * full double precision for eccentricities up to 0.9 and errors below 1e-7 radians up to 0.98.
+     */
+    static final int KEPLER_ITERATIONS = 6;
+
+    /**
+     * Fraction of the eccentricity added to the mean anomaly as the first guess of the eccentric anomaly.
+     */
+    static final double KEPLER_START = 0.85;
+
+    /**
+     * Full turn in radians.
+     */
+    static final double TWO_PI = 2 * Math.PI;
+
+    /**
+     * Half the longest axis of the orbit, in AU.
+     */
+    private final double mSemiMajorAxis;
+
+    /**
+     * Eccentricity of the orbit, 0 for a circle and below 1 for any ellipse.
+     */
+    private final double mEccentricity;
+
+    /**
+     * Inclination of the orbit to the plane of the star system.
+     */
+    private final double mInclination;
+
+    /**
+     * Longitude of the ascending node, where the orbit crosses the plane of the system going up.
+     */
+    private final double mAscendingNode;
+
+    /**
+     * Argument of periapsis, the angle from the ascending node to the nearest point of the orbit.
+     */
+    private final double mPeriapsisArgument;
+
+    /**
+     * Mean anomaly at the epoch.
+     */
+    private final double mMeanAnomaly;
+
+    /**
+     * Time taken for one orbit, in days.
+     */
+    private final double mPeriod;
+
+    /**
+     * Constructs an orbit from its elements.
+     *
+     * @param semiMajorAxis half the longest axis of the orbit, in AU
+     * @param eccentricity the eccentricity, at least 0 and below 1
+     * @param inclination the inclination to the plane of the star system, in radians
+     * @param ascendingNode the longitude of the ascending node, in radians
+     * @param periapsisArgument the argument of periapsis, in radians
+     * @param meanAnomaly the mean anomaly at the epoch, in radians
+     * @param period the time taken for one orbit, in days
+     * @throws IllegalArgumentException if the axis or period is not positive, the eccentricity is
+     * outside [0, 1) or an angle is not a finite number
+     */
+    public cOrbit(double semiMajorAxis, double eccentricity, double inclination, double ascendingNode, double periapsisArgument, double meanAnomaly, double period) throws IllegalArgumentException
+    {
+        this(semiMajorAxis, eccentricity, inclination, ascendingNode, periapsisArgument, meanAnomaly, period, cLoggingBase.GetStandbyLogger());
+    }
+
+    /**
+     * Constructs an orbit from its elements, reporting invalid elements to a logger.
+     *
+     * @param semiMajorAxis half the longest axis of the orbit, in AU
+     * @param eccentricity the eccentricity, at least 0 and below 1
+     * @param inclination the inclination to the plane of the star system, in radians
+     * @param ascendingNode the longitude of the ascending node, in radians
+     * @param periapsisArgument the argument of periapsis, in radians
+     * @param meanAnomaly the mean anomaly at the epoch, in radians
+     * @param period the time taken for one orbit, in days
+     * @param logger the logger to report invalid elements to
+     * @throws IllegalArgumentException if the axis or period is not positive, the eccentricity is
+     * outside [0, 1) or an angle is not a finite number
+     */
+    public cOrbit(double semiMajorAxis, double eccentricity, double inclination, double ascendingNode, double periapsisArgument, double meanAnomaly, double period, cLoggingBase logger) throws IllegalArgumentException
+    {
+        if(!(semiMajorAxis > 0) || !(period > 0) || Double.isInfinite(semiMajorAxis) || Double.isInfinite(period))
+        {
+            String message = "Orbit needs a positive finite semi-major axis and period.";
+            logger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        if(!(eccentricity >= 0 && eccentricity < 1))
+        {
+            String message = "Orbit eccentricity " + eccentricity + " is outside [0, 1).";
+            logger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        if(!Double.isFinite(inclination) || !Double.isFinite(ascendingNode) || !Double.isFinite(periapsisArgument) || !Double.isFinite(meanAnomaly))
+        {
+            String message = "Orbit angles must be finite.";
+            logger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        mSemiMajorAxis = semiMajorAxis;
+        mEccentricity = eccentricity;
+        mInclination = inclination;
+        mAscendingNode = ascendingNode;
+        mPeriapsisArgument = periapsisArgument;
+        mMeanAnomaly = meanAnomaly;
+        mPeriod = period;
+    }
+
+    /**
+     * Gets half the longest axis of the orbit.
+     *
+     * @return the semi-major axis, in AU
+     */
+    public double GetSemiMajorAxis()
+    {
+        return mSemiMajorAxis;
+    }
+
+    /**
+     * Gets the eccentricity of the orbit.
+     *
+     * @return the eccentricity, 0 for a circle
+     */
+    public double GetEccentricity()
+    {
+        return mEccentricity;
+    }
+
+    /**
+     * Gets the inclination of the orbit to the plane of the star system.
+     *
+     * @return the inclination, in radians
+     */
+    public double GetInclination()
+    {
+        return mInclination;
+    }
+
+    /**
+     * Gets the longitude of the ascending node.
+     *
+     * @return the longitude of the ascending node, in radians
+     */
+    public double GetAscendingNode()
+    {
+        return mAscendingNode;
+    }
+
+    /**
+     * Gets the argument of periapsis.
+     *
+     * @return the argument of periapsis, in radians
+     */
+    public double GetPeriapsisArgument()
+    {
+        return mPeriapsisArgument;
+    }
+
+    /**
+     * Gets the mean anomaly at the epoch.
+     *
+     * @return the mean anomaly at time 0, in radians
+     */
+    public double GetMeanAnomaly()
+    {
+        return mMeanAnomaly;
+    }
+
+    /**
+     * Gets the time taken for one orbit.
+     *
+     * @return the period, in days
+     */
+    public double GetPeriod()
+    {
+        return mPeriod;
+    }
+
+    /**
+     * Gets the angle swept per day by the mean anomaly.
+     *
+     * @return the mean motion, in radians per day
+     */
+    double MeanMotion()
+    {
+        return TWO_PI / mPeriod;
+    }
+
+    /**
+     * Gets the half of the shortest axis of the orbit.
+     *
+     * @return the semi-minor axis, in AU
+     */
+    double SemiMinorAxis()
+    {
+        return mSemiMajorAxis * Math.sqrt(1 - mEccentricity * mEccentricity);
+    }
+
+    /**
+     * Gets the directions of the periapsis and of the point a quarter orbit later, which span the
+     * plane of the orbit.
+     *
+     * @return the x, y and z of the periapsis direction followed by those of the second direction
+     */
+    double[] Basis()
+    {
+        double cosNode = Math.cos(mAscendingNode);
+        double sinNode = Math.sin(mAscendingNode);
+        double cosPeriapsis = Math.cos(mPeriapsisArgument);
+        double sinPeriapsis = Math.sin(mPeriapsisArgument);
+        double cosInclination = Math.cos(mInclination);
+        double sinInclination = Math.sin(mInclination);
+        return new double[]
+        {
+            cosPeriapsis * cosNode - sinPeriapsis * sinNode * cosInclination,
+            cosPeriapsis * sinNode + sinPeriapsis * cosNode * cosInclination,
+            sinPeriapsis * sinInclination,
+            -sinPeriapsis * cosNode - cosPeriapsis * sinNode * cosInclination,
+            -sinPeriapsis * sinNode + cosPeriapsis * cosNode * cosInclination,
+            cosPeriapsis * sinInclination
+        };
+    }
+
+    /**
+     * Computes the position of the body at a time.
+     *
+     * @param time the time in days since the epoch
+     * @return the x, y and z of the body relative to the body it orbits, in AU
+     */
+    public double[] PositionAt(double time)
+    {
+        double anomaly = EccentricAnomaly(Math.fma(MeanMotion(), time, mMeanAnomaly), mEccentricity);
+        double along = mSemiMajorAxis * (Math.cos(anomaly) - mEccentricity);
+        double across = SemiMinorAxis() * Math.sin(anomaly);
+        double[] basis = Basis();
+        return new double[]
+        {
+            along * basis[0] + across * basis[3],
+            along * basis[1] + across * basis[4],
+            along * basis[2] + across * basis[5]
+        };
+    }
+
+    /**
+     * Solves Kepler's equation E - e sin(E) = M for the eccentric anomaly E with Newton's method.
+     * The mean anomaly is first reduced to [-pi, pi], and the steps are the same as those of the
+     * vectorized solver of cOrbitPropagator, so both give the same positions.
+     *
+     * @param meanAnomaly the mean anomaly M, in radians
+     * @param eccentricity the eccentricity e
+     * @return the eccentric anomaly, in radians
+     */
+    static double EccentricAnomaly(double meanAnomaly, double eccentricity)
+    {
+        double turns = (double)(long)(meanAnomaly * (1 / TWO_PI));
+        double mean = meanAnomaly - turns * TWO_PI;
+        if(mean > Math.PI)
+        {
+            mean -= TWO_PI;
+        }
+        if(mean < -Math.PI)
+        {
+            mean += TWO_PI;
+        }
+        double anomaly = mean >= 0 ? mean + KEPLER_START * eccentricity : mean - KEPLER_START * eccentricity;
+        for(int i = 0; i < KEPLER_ITERATIONS; i++)
+        {
+            double error = anomaly - eccentricity * Math.sin(anomaly) - mean;
+            anomaly -= error / (1 - eccentricity * Math.cos(anomaly));
+        }
+        return anomaly;
+    }
+}
@@ -0,0 +1,543 @@
+package Data;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import Logging.cLoggingBase;
+
+/**
+ * Computes the positions of all planets and moons of a universe or star system at any time.
+ * The orbits are read once, when the propagator is created, and packed into one primitive array
+ * per element, with the bodies in depth first order so that every moon comes after the body it
+ * orbits. Propagating then solves Kepler's equation for the whole batch in a tight loop over those
+ * arrays, without touching the planets themselves. When the jdk.incubator.vector module is present
+ * (run with --add-modules jdk.incubator.vector) and cVectorKepler was compiled, the loop is vectorized
+ * with the Vector API, several orbits per instruction; otherwise, or after SetVectorized(false), a
+ * scalar loop doing the same steps is used. cVectorKepler is loaded by name, so the other sources
+ * compile without the incubator module.
+ * Bodies without an orbit stay at the position they had when the propagator was created.
+ * A propagator does not follow later changes to the universe; create a new one after changing it.
+ * A propagator may be used by several threads at once, as long as each passes its own output arrays.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public final class cOrbitPropagator
+{
+    /**
+     * Solve method of cVectorKepler, or null if the Vector API cannot be used in this JVM.
+     */
+    private static final MethodHandle VECTOR_SOLVER = VectorSolver();
+
+    /**
+     * Logger used to report invalid arguments.
+     */
+    private final cLoggingBase mLogger;
+
+    /**
+     * The bodies, in depth first order.
+     */
+    private final cPlanet[] mBodies;
+
+    /**
+     * Index of the body each body orbits, or -1 for planets, which orbit their star.
+     */
+    private final int[] mParents;
+
+    /**
+     * Semi-major axis of each orbit, in AU.
+     */
+    final double[] mSemiMajorAxis;
+
+    /**
+     * Semi-minor axis of each orbit, in AU.
+     */
+    final double[] mSemiMinorAxis;
+
+    /**
+     * Eccentricity of each orbit.
+     */
+    final double[] mEccentricity;
+
+    /**
+     * Mean motion of each orbit, in radians per day.
+     */
+    final double[] mMeanMotion;
+
+    /**
+     * Mean anomaly of each orbit at the epoch, in radians.
+     */
+    final double[] mMeanAnomaly;
+
+    /**
+     * The x component of the direction of the periapsis of each orbit.
+     */
+    final double[] mPx;
+
+    /**
+     * The y component of the direction of the periapsis of each orbit.
+     */
+    final double[] mPy;
+
+    /**
+     * The z component of the direction of the periapsis of each orbit.
+     */
+    final double[] mPz;
+
+    /**
+     * The x component of the direction a quarter orbit after the periapsis of each orbit.
+     */
+    final double[] mQx;
+
+    /**
+     * The y component of the direction a quarter orbit after the periapsis of each orbit.
+     */
+    final double[] mQy;
+
+    /**
+     * The z component of the direction a quarter orbit after the periapsis of each orbit.
+     */
+    final double[] mQz;
+
+    /**
+     * Indexes of the bodies without an orbit.
+     */
+    private final int[] mFixed;
+
+    /**
+     * The x, y and z of each body without an orbit, in the order of mFixed.
+     */
+    private final double[] mFixedPositions;
+
+    /**
+     * Whether propagation should use the Vector API if it is available.
+     */
+    private volatile boolean mVectorized;
+
+    /**
+     * Creates a propagator for every planet and moon of a universe.
+     * Positions are computed relative to the star of each body.
+     *
+     * @param universe the universe whose orbits are propagated
+     * @throws IllegalArgumentException if the universe is null
+     */
+    public cOrbitPropagator(cUniverse universe) throws IllegalArgumentException
+    {
+        this(universe != null ? universe.mLogger : cLoggingBase.GetStandbyLogger(), universe);
+    }
+
+    /**
+     * Creates a propagator for every planet and moon of a universe, reporting to a logger.
+     *
+     * @param logger the logger of the propagator
+     * @param universe the universe whose orbits are propagated
+     * @throws IllegalArgumentException if the universe is null
+     */
+    private cOrbitPropagator(cLoggingBase logger, cUniverse universe) throws IllegalArgumentException
+    {
+        this(logger, Collect(logger, universe));
+    }
+
+    /**
+     * Creates a propagator for the planets and moons of one star system.
+     * Positions are computed relative to the star.
+     *
+     * @param star the star whose planets are propagated
+     * @throws IllegalArgumentException if the star is null
+     */
+    public cOrbitPropagator(cStar star) throws IllegalArgumentException
+    {
+        this(star != null ? star.mLogger : cLoggingBase.GetStandbyLogger(), star);
+    }
+
+    /**
+     * Creates a propagator for the planets and moons of one star system, reporting to a logger.
+     *
+     * @param logger the logger of the propagator
+     * @param star the star whose planets are propagated
+     * @throws IllegalArgumentException if the star is null
+     */
+    private cOrbitPropagator(cLoggingBase logger, cStar star) throws IllegalArgumentException
+    {
+        this(logger, Collect(logger, star));
+    }
+
+    /**
+     * Packs the orbits of collected bodies.
+     *
+     * @param logger the logger to report invalid arguments to
+     * @param collector the bodies in depth first order with the index of the body each orbits
+     */
+    private cOrbitPropagator(cLoggingBase logger, cCollector collector)
+    {
+        int count = collector.mBodies.size();
+        mLogger = logger;
+        mBodies = collector.mBodies.toArray(new cPlanet[count]);
+        mParents = Arrays.copyOf(collector.mParents, count);
+        mSemiMajorAxis = new double[count];
+        mSemiMinorAxis = new double[count];
+        mEccentricity = new double[count];
+        mMeanMotion = new double[count];
+        mMeanAnomaly = new double[count];
+        mPx = new double[count];
+        mPy = new double[count];
+        mPz = new double[count];
+        mQx = new double[count];
+        mQy = new double[count];
+        mQz = new double[count];
+        int fixed = 0;
+        for(int i = 0; i < count; i++)
+        {
+            cOrbit orbit = mBodies[i].mOrbit;
+            if(orbit == null)
+            {
+                fixed++;
+                continue;
+            }
+            double[] basis = orbit.Basis();
+            mSemiMajorAxis[i] = orbit.GetSemiMajorAxis();
+            mSemiMinorAxis[i] = orbit.SemiMinorAxis();
+            mEccentricity[i] = orbit.GetEccentricity();
+            mMeanMotion[i] = orbit.MeanMotion();
+            mMeanAnomaly[i] = orbit.GetMeanAnomaly();
+            mPx[i] = basis[0];
+            mPy[i] = basis[1];
+            mPz[i] = basis[2];
+            mQx[i] = basis[3];
+            mQy[i] = basis[4];
+            mQz[i] = basis[5];
+        }
+        mFixed = new int[fixed];
+        mFixedPositions = new double[fixed * 3];
+        fixed = 0;
+        for(int i = 0; i < count; i++)
+        {
+            cPlanet body = mBodies[i];
+            if(body.mOrbit == null)
+            {
+                mFixedPositions[fixed * 3] = body.mX;
+                mFixedPositions[fixed * 3 + 1] = body.mY;
+                mFixedPositions[fixed * 3 + 2] = body.mZ;
+                mFixed[fixed++] = i;
+            }
+        }
+        mVectorized = true;
+    }
+
+    /**
+     * Checks whether the Vector API can be used in this JVM.
+     *
+     * @return true if the jdk.incubator.vector module is present and usable
+     */
+    public static boolean IsVectorApiAvailable()
+    {
+        return VECTOR_SOLVER != null;
+    }
+
+    /**
+     * Checks whether propagation uses the Vector API.
+     *
+     * @return true if propagation is vectorized
+     */
+    public boolean IsVectorized()
+    {
+        return mVectorized && VECTOR_SOLVER != null;
+    }
+
+    /**
+     * Chooses between the vectorized and the scalar solver, for example to compare them.
+     * The vectorized solver is only used if the Vector API is available.
+     *
+     * @param vectorized true to use the Vector API when available, false to always use the scalar solver
+     */
+    public void SetVectorized(boolean vectorized)
+    {
+        mVectorized = vectorized;
+    }
+
+    /**
+     * Gets the number of propagated bodies.
+     *
+     * @return the number of planets and moons
+     */
+    public int GetBodyCount()
+    {
+        return mBodies.length;
+    }
+
+    /**
+     * Gets a propagated body.
+     *
+     * @param index the index of the body, in depth first order
+     * @return the planet or moon at the index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    public cPlanet GetBody(int index) throws IndexOutOfBoundsException
+    {
+        return mBodies[CheckIndex(index)];
+    }
+
+    /**
+     * Gets the body a body orbits.
+     *
+     * @param index the index of the body
+     * @return the index of the planet or moon the body orbits, or -1 if it is a planet orbiting its star
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    public int GetParent(int index) throws IndexOutOfBoundsException
+    {
+        return mParents[CheckIndex(index)];
+    }
+
+    /**
+     * Computes the position of every body at a time, relative to the body it orbits: planets relative
+     * to their star and moons relative to their planet or moon.
+     *
+     * @param time the time in days since the epoch
+     * @param x receives the x coordinate of each body, in AU
+     * @param y receives the y coordinate of each body, in AU
+     * @param z receives the z coordinate of each body, in AU
+     * @throws IllegalArgumentException if an array is null or shorter than the number of bodies
+     */
+    public void Propagate(double time, double[] x, double[] y, double[] z) throws IllegalArgumentException
+    {
+        CheckOutput(x, y, z);
+        if(IsVectorized())
+        {
+            try
+            {
+                VECTOR_SOLVER.invokeExact(this, time, x, y, z);
+            }
+            catch(RuntimeException | Error e)
+            {
+                throw e;
+            }
+            catch(Throwable e)
+            {
+                //cVectorKepler.Solve declares no checked exception.
+                throw new IllegalStateException(e);
+            }
+        }
+        else
+        {
+            Solve(0, mBodies.length, time, x, y, z);
+        }
+        for(int j = 0; j < mFixed.length; j++)
+        {
+            int i = mFixed[j];
+            x[i] = mFixedPositions[j * 3];
+            y[i] = mFixedPositions[j * 3 + 1];
+            z[i] = mFixedPositions[j * 3 + 2];
+        }
+    }
+
+    /**
+     * Computes the position of every body at a time, relative to its star. The position of a moon
+     * is its position around its planet added to the position of the planet.
+     *
+     * @param time the time in days since the epoch
+     * @param x receives the x coordinate of each body, in AU
+     * @param y receives the y coordinate of each body, in AU
+     * @param z receives the z coordinate of each body, in AU
+     * @throws IllegalArgumentException if an array is null or shorter than the number of bodies
+     */
+    public void PropagateInSystem(double time, double[] x, double[] y, double[] z) throws IllegalArgumentException
+    {
+        Propagate(time, x, y, z);
+        //Every body comes after the body it orbits, so parents are already relative to the star.
+        for(int i = 0; i < mBodies.length; i++)
+        {
+            int parent = mParents[i];
+            if(parent >= 0)
+            {
+                x[i] += x[parent];
+                y[i] += y[parent];
+                z[i] += z[parent];
+            }
+        }
+    }
+
+    /**
+     * Computes the positions of a range of bodies with the scalar solver.
+     * The vectorized solver uses this for the bodies after the last full vector.
+     *
+     * @param from the first body
+     * @param to the body after the last one
+     * @param time the time in days since the epoch
+     * @param x receives the x coordinate of each body
+     * @param y receives the y coordinate of each body
+     * @param z receives the z coordinate of each body
+     */
+    void Solve(int from, int to, double time, double[] x, double[] y, double[] z)
+    {
+        for(int i = from; i < to; i++)
+        {
+            double eccentricity = mEccentricity[i];
+            double anomaly = cOrbit.EccentricAnomaly(Math.fma(mMeanMotion[i], time, mMeanAnomaly[i]), eccentricity);
+            double along = mSemiMajorAxis[i] * (Math.cos(anomaly) - eccentricity);
+            double across = mSemiMinorAxis[i] * Math.sin(anomaly);
+            x[i] = along * mPx[i] + across * mQx[i];
+            y[i] = along * mPy[i] + across * mQy[i];
+            z[i] = along * mPz[i] + across * mQz[i];
+        }
+    }
+
+    /**
+     * Checks that the output arrays can hold the position of every body.
+     *
+     * @param x the array of x coordinates
+     * @param y the array of y coordinates
+     * @param z the array of z coordinates
+     * @throws IllegalArgumentException if an array is null or too short
+     */
+    private void CheckOutput(double[] x, double[] y, double[] z) throws IllegalArgumentException
+    {
+        int count = mBodies.length;
+        if(x == null || y == null || z == null || x.length < count || y.length < count || z.length < count)
+        {
+            String message = "Cannot propagate " + count + " orbits: position arrays are null or too short";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Checks the index of a body.
+     *
+     * @param index the index to check
+     * @return the index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    private int CheckIndex(int index) throws IndexOutOfBoundsException
+    {
+        if(index < 0 || index >= mBodies.length)
+        {
+            String message = "Index " + index + " is out of bounds for " + mBodies.length + " orbits";
+            mLogger.LogError(message);
+            throw new IndexOutOfBoundsException(message);
+        }
+        return index;
+    }
+
+    /**
+     * Collects the planets and moons of a universe.
+     *
+     * @param logger the logger of the propagator, to report a null universe to
+     * @param universe the universe
+     * @return the collected bodies
+     * @throws IllegalArgumentException if the universe is null
+     */
+    private static cCollector Collect(cLoggingBase logger, cUniverse universe) throws IllegalArgumentException
+    {
+        if(universe == null)
+        {
+            String message = "Cannot propagate the orbits of a null universe.";
+            logger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        cCollector collector = new cCollector();
+        universe.Accept(collector);
+        return collector;
+    }
+
+    /**
+     * Collects the planets and moons of a star system.
+     *
+     * @param logger the logger of the propagator, to report a null star to
+     * @param star the star
+     * @return the collected bodies
+     * @throws IllegalArgumentException if the star is null
+     */
+    private static cCollector Collect(cLoggingBase logger, cStar star) throws IllegalArgumentException
+    {
+        if(star == null)
+        {
+            String message = "Cannot propagate the orbits of a null star.";
+            logger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        cCollector collector = new cCollector();
+        star.Accept(collector);
+        return collector;
+    }
+
+    /**
+     * Loads the vectorized solver if the Vector API can be used, which needs the incubator module to be
+     * resolved and cVectorKepler to have been compiled.
+     *
+     * @return the Solve method of cVectorKepler, or null if the vectorized solver cannot run
+     */
+    private static MethodHandle VectorSolver()
+    {
+        if(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+        {
+            return null;
+        }
+        try
+        {
+            Class<?> solver = Class.forName(cOrbitPropagator.class.getPackageName() + ".cVectorKepler");
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            if((int)lookup.findStatic(solver, "LaneCount", MethodType.methodType(int.class)).invokeExact() <= 1)
+            {
+                return null;
+            }
+            return lookup.findStatic(solver, "Solve", MethodType.methodType(void.class, cOrbitPropagator.class, double.class, double[].class, double[].class, double[].class));
+        }
+        catch(Throwable e)
+        {
+            //Missing class, missing module at link time, or any failure of the solver's initialization.
+            return null;
+        }
+    }
+
+    /**
+     * Visitor that lists the planets and moons of a walk in depth first order, with their parents.
+     */
+    private static final class cCollector implements iUniverseVisitor
+    {
+        private final ArrayList<cPlanet> mBodies = new ArrayList<cPlanet>();
+
+        /**
+         * Index of the parent of each listed body, with room for more.
+         */
+        private int[] mParents = new int[64];
+
+        /**
+         * Index of the planet or moon at each depth of the current path; depth 0 is the planet.
+         */
+        private int[] mPath = new int[4];
+
+        @Override
+        public boolean OnPlanet(cPlanet planet)
+        {
+            mPath[0] = Add(planet, -1);
+            return true;
+        }
+
+        @Override
+        public boolean OnMoon(cPlanet moon, int depth)
+        {
+            if(depth >= mPath.length)
+            {
+                mPath = Arrays.copyOf(mPath, mPath.length * 2);
+            }
+            mPath[depth] = Add(moon, mPath[depth - 1]);
+            return true;
+        }
+
+        private int Add(cPlanet body, int parent)
+        {
+            int index = mBodies.size();
+            if(index == mParents.length)
+            {
+                mParents = Arrays.copyOf(mParents, index * 2);
+            }
+            mBodies.add(body);
+            mParents[index] = parent;
+            return index;
+        }
+    }
+}
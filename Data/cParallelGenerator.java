@@ -0,0 +1,202 @@
+package Data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join generator used by cUniverse for parallel random universe generation.
+ * Every galaxy and star is generated from its own seed, derived from the top level seed
+ * with cSeed, so the generated universe depends only on the seed and never on the number
+ * of threads or the order in which tasks are executed.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cParallelGenerator
+{
+    /**
+     * Number of stars below which a galaxy's stars are generated in a single task.
+     */
+    static final int STAR_SPLIT_THRESHOLD = 64;
+
+    /**
+     * Rules used to generate each galaxy and star from its seed.
+     */
+    private final cSeededGenerator mGenerator;
+
+    /**
+     * Constructs a parallel generator that follows the given seeded generation rules.
+     * 
+     * @param generator the seeded generation rules
+     */
+    cParallelGenerator(cSeededGenerator generator)
+    {
+        mGenerator = generator;
+    }
+
+    /**
+     * Generates the specified number of galaxies on the given pool.
+     * 
+     * @param seed the top level seed
+     * @param galaxyCount the number of galaxies to generate
+     * @param pool the pool to run the generation on
+     * @return the generated galaxies, in index order
+     */
+    cGalaxy[] Generate(long seed, int galaxyCount, ForkJoinPool pool)
+    {
+        return pool.invoke(new cUniverseTask(seed, galaxyCount));
+    }
+
+    /**
+     * Task that forks one galaxy task per galaxy of the universe.
+     */
+    @SuppressWarnings("serial")
+    private final class cUniverseTask extends RecursiveTask<cGalaxy[]>
+    {
+        /**
+         * Seed of the universe.
+         */
+        private final long mSeed;
+
+        /**
+         * Number of galaxies to generate.
+         */
+        private final int mGalaxyCount;
+
+        /**
+         * Constructs a task generating the galaxies of a universe.
+         * 
+         * @param seed the seed of the universe
+         * @param galaxyCount the number of galaxies to generate
+         */
+        cUniverseTask(long seed, int galaxyCount)
+        {
+            mSeed = seed;
+            mGalaxyCount = galaxyCount;
+        }
+
+        @Override
+        protected cGalaxy[] compute()
+        {
+            ArrayList<cGalaxyTask> tasks = new ArrayList<cGalaxyTask>(mGalaxyCount);
+            for(int g = 0; g < mGalaxyCount; g++)
+            {
+                tasks.add(new cGalaxyTask(cSeed.Derive(mSeed, g), g));
+            }
+            invokeAll(tasks);
+
+            cGalaxy[] galaxies = new cGalaxy[mGalaxyCount];
+            for(int g = 0; g < mGalaxyCount; g++)
+            {
+                galaxies[g] = tasks.get(g).join();
+            }
+            return galaxies;
+        }
+    }
+
+    /**
+     * Task that generates a galaxy and splits its stars into star range tasks.
+     */
+    @SuppressWarnings("serial")
+    private final class cGalaxyTask extends RecursiveTask<cGalaxy>
+    {
+        /**
+         * Seed of the galaxy.
+         */
+        private final long mSeed;
+
+        /**
+         * Zero based index of the galaxy within its universe.
+         */
+        private final int mIndex;
+
+        /**
+         * Constructs a task generating one galaxy.
+         * 
+         * @param seed the seed of the galaxy
+         * @param index the zero based index of the galaxy within its universe
+         */
+        cGalaxyTask(long seed, int index)
+        {
+            mSeed = seed;
+            mIndex = index;
+        }
+
+        @Override
+        protected cGalaxy compute()
+        {
+            cGalaxy galaxy = mGenerator.GenerateGalaxy(mSeed, mIndex);
+
+            int starCount = mGenerator.GetStarCount(mSeed);
+            cStar[] stars = new cStar[starCount];
+            new cStarRangeTask(mSeed, stars, 0, starCount).invoke();
+
+            galaxy.AddStars(Arrays.asList(stars));
+            return galaxy;
+        }
+    }
+
+    /**
+     * Task that generates a contiguous range of stars of one galaxy, splitting large ranges in half.
+     */
+    @SuppressWarnings("serial")
+    private final class cStarRangeTask extends RecursiveTask<Void>
+    {
+        /**
+         * Seed of the galaxy the stars belong to.
+         */
+        private final long mGalaxySeed;
+
+        /**
+         * Stars of the galaxy, shared by every range task of the galaxy, each filling its own range.
+         */
+        private final cStar[] mStars;
+
+        /**
+         * Index of the first star of the range, inclusive.
+         */
+        private final int mStart;
+
+        /**
+         * Index of the last star of the range, exclusive.
+         */
+        private final int mEnd;
+
+        /**
+         * Constructs a task generating a range of the stars of a galaxy.
+         * 
+         * @param galaxySeed the seed of the galaxy
+         * @param stars the stars of the galaxy, filled in by the task
+         * @param start the index of the first star to generate
+         * @param end the index after the last star to generate
+         */
+        cStarRangeTask(long galaxySeed, cStar[] stars, int start, int end)
+        {
+            mGalaxySeed = galaxySeed;
+            mStars = stars;
+            mStart = start;
+            mEnd = end;
+        }
+
+        @Override
+        protected Void compute()
+        {
+            if(mEnd - mStart <= STAR_SPLIT_THRESHOLD)
+            {
+                for(int s = mStart; s < mEnd; s++)
+                {
+                    mStars[s] = mGenerator.GenerateStar(cSeed.Derive(mGalaxySeed, s), s);
+                }
+            }
+            else
+            {
+                int middle = (mStart + mEnd) >>> 1;
+                invokeAll(new cStarRangeTask(mGalaxySeed, mStars, mStart, middle),
+                          new cStarRangeTask(mGalaxySeed, mStars, middle, mEnd));
+            }
+            return null;
+        }
+    }
+}
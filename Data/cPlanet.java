@@ -1,7 +1,12 @@
 package Data;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
 
 import Logging.cLoggingBase;
 
@@ -32,17 +37,32 @@ public class cPlanet extends cObjectBase
     /**
      * The classification type of this planet.
      */
-    private ePlanetType mType;
+    protected ePlanetType mType;
+
+    /**
+     * Orbit of this body around its star or planet, or null if the body stays at its position.
+     */
+    protected cOrbit mOrbit;
     
     /**
      * List of moons orbiting this planet.
      */
-    private ArrayList<cPlanet> mMoons;
+    private cIndexedList<cPlanet> mMoons;
+    
+    /**
+     * The star or planet this body was last added to, which is told about changes to the counts, or null.
+     */
+    cObjectBase mParent;
+    
+    /**
+     * Snapshot of this planet, shared until the planet or one of its moons changes, or null.
+     */
+    private cPlanetSnapshot mSnapshot;
     
     /**
      * Logger instance for this planet.
      */
-    private cLoggingBase mLogger;
+    protected cLoggingBase mLogger;
 
     /**
      * Constructs a planet with the specified name and type.
@@ -50,13 +70,20 @@ public class cPlanet extends cObjectBase
      * 
      * @param name the name of the planet
      * @param type the classification type of the planet
+     * @throws IllegalArgumentException if the type is null
      */
-    public cPlanet(String name, ePlanetType type)
+    public cPlanet(String name, ePlanetType type) throws IllegalArgumentException
     {
         super(name);
         mType = type;
-        mMoons = new ArrayList<cPlanet>();
+        mMoons = new cIndexedList<cPlanet>();
         mLogger = cLoggingBase.GetStandbyLogger();
+        if(type == null)
+        {
+            String message = "Cannot create planet " + name + " with a null type";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
     }
     
     /**
@@ -77,12 +104,39 @@ public class cPlanet extends cObjectBase
      * @param name the name of the planet
      * @param type the classification type of the planet
      * @param logger the logger to use for this planet
+     * @throws IllegalArgumentException if the type is null
      */
-    public cPlanet(String name, ePlanetType type, cLoggingBase logger)
+    public cPlanet(String name, ePlanetType type, cLoggingBase logger) throws IllegalArgumentException
     {
         super(name);
         mType = type;
-        mMoons = new ArrayList<cPlanet>();
+        mMoons = new cIndexedList<cPlanet>();
+        mLogger = logger;
+        if(type == null)
+        {
+            String message = "Cannot create planet " + name + " with a null type";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Constructs a planet whose name is already shared, so that it is not interned again.
+     * A view keeps no moon list of its own, since cPlanetView provides its moons and cannot change.
+     * 
+     * @param name the shared name of the planet
+     * @param type the classification type of the planet
+     * @param logger the logger to use for this planet
+     * @param view true for a read only view, false for a planet that stores its moons
+     */
+    cPlanet(String name, ePlanetType type, cLoggingBase logger, boolean view)
+    {
+        super(name, false);
+        mType = type;
+        if(!view)
+        {
+            mMoons = new cIndexedList<cPlanet>();
+        }
         mLogger = logger;
     }
     
@@ -104,12 +158,64 @@ public class cPlanet extends cObjectBase
      */
     public void ClearMoons()
     {
-        mLogger.LogTrace("Clearing moons from planet " + this.ToString());
-        for(cPlanet p : mMoons)
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mLogger.LogTrace("Clearing moons from planet " + this.ToString());
+            Invalidate();
+            CountMoons(mParent, -1);
+            for(cPlanet p : mMoons)
+            {
+                if(p.mParent == this)
+                {
+                    p.mParent = null;
+                }
+                p.mArena = null;
+                p.ClearMoons();
+            }
+            mMoons.Clear();
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Takes this planet and its moons out of the arena that generated them, so that they are never reused.
+     * Everything below an object that is not in an arena is not in one either, so the walk stops there.
+     */
+    void LeaveArena()
+    {
+        if(mArena != null)
         {
-            p.ClearMoons();
+            mArena = null;
+            for(cPlanet moon : mMoons)
+            {
+                moon.LeaveArena();
+            }
         }
-        mMoons.clear();
+    }
+
+    /**
+     * Reinitializes this planet for reuse by an object arena.
+     * The moon list is emptied but keeps its capacity, the planet is moved back to the origin as a new one
+     * would be, and no logging is done.
+     * 
+     * @param name the new name of the planet
+     * @param type the new type of the planet
+     * @param logger the logger to use for this planet
+     */
+    void Recycle(String name, ePlanetType type, cLoggingBase logger)
+    {
+        mName = name;
+        mType = type;
+        mLogger = logger;
+        mMoons.Clear();
+        mParent = null;
+        mSnapshot = null;
+        mOrbit = null;
+        Place(0, 0, 0);
     }
     
     /**
@@ -117,28 +223,75 @@ public class cPlanet extends cObjectBase
      * If the moon is already orbiting the planet, a warning is logged but no exception is thrown.
      * 
      * @param moon the moon to add to the planet
+     * @return true if the moon was added, false if it was already orbiting the planet
      * @throws IllegalArgumentException if the moon is null
      */
-    public void AddMoon(cPlanet moon) throws IllegalArgumentException
+    public boolean AddMoon(cPlanet moon) throws IllegalArgumentException
     {
-        if(moon != null)
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            if(!mMoons.contains(moon))
+            if(moon != null)
             {
-                mLogger.LogTrace("Adding moon " + moon.ToString() + " to planet " + this.ToString());
-                mMoons.add(moon);
+                if(!mMoons.Contains(moon))
+                {
+                    mLogger.LogTrace("Adding moon " + moon.ToString() + " to planet " + this.ToString());
+                    mMoons.Add(moon);
+                    Attach(moon);
+                    return true;
+                }
+                else
+                {
+                    String message = "Cannot add " + moon.ToString() + " to planet " + this.ToString() + ": moon already in planet";
+                    mLogger.LogWarning(message);
+                    return false;
+                }
             }
             else
             {
-                String message = "Cannot add " + moon.ToString() + " to planet " + this.ToString() + ": moon already in planet";
-                mLogger.LogWarning(message);
+                String message = "Cannot add null moon to planet " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot add null moon to planet " + this.ToString();
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Appends a collection of moons to the end of the planet's moon list, keeping their order.
+     * Duplicates are checked once for the whole collection and a single summary is logged,
+     * which makes this much cheaper than calling AddMoon for each moon of a large collection.
+     * Moons already orbiting the planet, or repeated in the collection, are skipped with a warning.
+     * If the collection contains a null moon nothing is added.
+     * 
+     * @param moons the moons to add
+     * @throws IllegalArgumentException if the collection is null or contains a null moon
+     */
+    public void AddMoons(Collection<? extends cPlanet> moons) throws IllegalArgumentException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            if(moons == null || cChildLists.ContainsNull(moons))
+            {
+                String message = "Cannot add null moon to planet " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            int skipped = mMoons.AddAllUnique(moons, this::Attach);
+            mLogger.LogTrace("Added " + (moons.size() - skipped) + " moons to planet " + this.ToString());
+            if(skipped > 0)
+            {
+                mLogger.LogWarning("Skipped " + skipped + " moons already in planet " + this.ToString());
+            }
+        }
+        finally
+        {
+            Unlock(lock);
         }
     }
 
@@ -148,39 +301,51 @@ public class cPlanet extends cObjectBase
      * 
      * @param moon the moon to add to the planet
      * @param index the index at which to insert the moon
+     * @return true if the moon was added, false if it was already orbiting the planet
      * @throws IndexOutOfBoundsException if the index is out of bounds
      * @throws IllegalArgumentException if the moon is null
      */
-    public void AddMoon(cPlanet moon, int index) throws IndexOutOfBoundsException, IllegalArgumentException
+    public boolean AddMoon(cPlanet moon, int index) throws IndexOutOfBoundsException, IllegalArgumentException
     {
-        if(moon != null)
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            if(index >= 0 && index <= mMoons.size())
+            if(moon != null)
             {
-
-                if(!mMoons.contains(moon))
+                if(index >= 0 && index <= mMoons.Size())
                 {
-                    mLogger.LogTrace("Adding moon " + moon.ToString() + " to planet " + this.ToString());
-                    mMoons.add(index, moon);
-                }            
+
+                    if(!mMoons.Contains(moon))
+                    {
+                        mLogger.LogTrace("Adding moon " + moon.ToString() + " to planet " + this.ToString());
+                        mMoons.Add(index, moon);
+                        Attach(moon);
+                        return true;
+                    }            
+                    else
+                    {
+                        String message = "Cannot add " + moon.ToString() + " to planet " + this.ToString() + ": moon already in planet";
+                        mLogger.LogWarning(message);
+                        return false;
+                    }
+                }
                 else
                 {
-                    String message = "Cannot add " + moon.ToString() + " to planet " + this.ToString() + ": moon already in planet";
-                    mLogger.LogWarning(message);
+                    String message = "Index of " + index + " is out of bounds for planet " + this.ToString();
+                    mLogger.LogError(message);
+                    throw new IndexOutOfBoundsException(message);
                 }
             }
             else
             {
-                String message = "Index of " + index + " is out of bounds for planet " + this.ToString();
+                String message = "Cannot add null moon to planet " + this.ToString();
                 mLogger.LogError(message);
-                throw new IndexOutOfBoundsException(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot add null moon to planet " + this.ToString();
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
+            Unlock(lock);
         }
     }
 
@@ -189,28 +354,40 @@ public class cPlanet extends cObjectBase
      * If the moon is not orbiting the planet, a warning is logged but no exception is thrown.
      * 
      * @param moon the moon to remove from the planet
+     * @return true if the moon was removed, false if it was not orbiting the planet
      * @throws IllegalArgumentException if the moon is null
      */
-    public void RemoveMoon(cPlanet moon) throws IllegalArgumentException
+    public boolean RemoveMoon(cPlanet moon) throws IllegalArgumentException
     {
-        if(moon != null)
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            if(mMoons.contains(moon))
+            if(moon != null)
             {
-                mLogger.LogTrace("Removing moon " + moon.ToString() + " from planet " + this.ToString());
-                mMoons.remove(moon);
-            }            
+                if(mMoons.Contains(moon))
+                {
+                    mLogger.LogTrace("Removing moon " + moon.ToString() + " from planet " + this.ToString());
+                    mMoons.Remove(moon);
+                    Detach(moon);
+                    return true;
+                }            
+                else
+                {
+                    String message = "Cannot remove " + moon.ToString() + " from planet " + this.ToString() + ": moon not in planet";
+                    mLogger.LogWarning(message);
+                    return false;
+                }
+            }
             else
             {
-                String message = "Cannot remove " + moon.ToString() + " from planet " + this.ToString() + ": moon not in planet";
-                mLogger.LogWarning(message);
+                String message = "Cannot remove null moon from planet " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot remove null moon from planet " + this.ToString();
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
+            Unlock(lock);
         }
     }
 
@@ -222,16 +399,24 @@ public class cPlanet extends cObjectBase
      */
     public void RemoveMoon(int index) throws IndexOutOfBoundsException
     {
-        if(index >= 0 && index < mMoons.size())
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            mLogger.LogTrace("Removing moon at index " + index + " from planet " + this.ToString());
-            mMoons.remove(index);
+            if(index >= 0 && index < mMoons.Size())
+            {
+                mLogger.LogTrace("Removing moon at index " + index + " from planet " + this.ToString());
+                Detach(mMoons.Remove(index));
+            }
+            else
+            {
+                String message = "Index " + index + " is out of bounds for planet " + this.ToString();
+                mLogger.LogError(message);
+                throw new IndexOutOfBoundsException(message);
+            }
         }
-        else
+        finally
         {
-            String message = "Index " + index + " is out of bounds for planet " + this.ToString();
-            mLogger.LogError(message);
-            throw new IndexOutOfBoundsException(message);
+            Unlock(lock);
         }
     }
 
@@ -244,16 +429,24 @@ public class cPlanet extends cObjectBase
      */
     public cPlanet GetMoon(int index) throws IndexOutOfBoundsException
     {
-        if(index >= 0 && index < mMoons.size())
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            mLogger.LogTrace("Getting moon at index " + index + " from planet " + this.ToString());
-            return mMoons.get(index);
+            if(index >= 0 && index < mMoons.Size())
+            {
+                mLogger.LogTrace("Getting moon at index " + index + " from planet " + this.ToString());
+                return mMoons.Get(index);
+            }
+            else
+            {
+                String message = "Index " + index + " is out of bounds for planet " + this.ToString();
+                mLogger.LogError(message);
+                throw new IndexOutOfBoundsException(message);
+            }
         }
-        else
+        finally
         {
-            String message = "Index " + index + " is out of bounds for planet " + this.ToString();
-            mLogger.LogError(message);
-            throw new IndexOutOfBoundsException(message);
+            Unlock(lock);
         }
     }
 
@@ -264,8 +457,119 @@ public class cPlanet extends cObjectBase
      */
     public int GetMoonCount()
     {
-        mLogger.LogTrace("Getting moon count from planet " + this.ToString());
-        return mMoons.size();
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mLogger.LogTrace("Getting moon count from planet " + this.ToString());
+            return mMoons.Size();
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Gets the number of moons without locking, checking or logging, for walks of the hierarchy.
+     * 
+     * @return the count of moons of this planet
+     */
+    int MoonCount()
+    {
+        return mMoons.Size();
+    }
+
+    /**
+     * Gets the moon at an index without locking, checking or logging, for walks of the hierarchy.
+     * 
+     * @param index the index of the moon, which must be valid
+     * @return the moon at the index
+     */
+    cPlanet MoonAt(int index)
+    {
+        return mMoons.Get(index);
+    }
+
+    /**
+     * Walks this body and its moons at any depth, calling the visitor for each of them.
+     * The body itself is reported as a planet, even if it is a moon.
+     * In concurrent mode the galaxy of the body is locked during the walk.
+     * 
+     * @param visitor the visitor to call
+     * @throws IllegalArgumentException if the visitor is null
+     */
+    public void Accept(iUniverseVisitor visitor) throws IllegalArgumentException
+    {
+        if(visitor == null)
+        {
+            String message = "Cannot walk planet " + this.mName + " with null visitor.";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            cTraversal.Planet(this, visitor);
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds the first moon with the specified name.
+     * Large planets keep a name index, so the lookup does not scan the moons.
+     * 
+     * @param name the name of the moon to find
+     * @return the first moon with the name, or null if there is none
+     * @throws IllegalArgumentException if the name is null
+     */
+    public cPlanet FindMoon(String name) throws IllegalArgumentException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            if(name == null)
+            {
+                String message = "Cannot find moon with null name in planet " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+            return mMoons.Find(name);
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds the moons whose names start with the specified prefix, in order.
+     * 
+     * @param prefix the prefix of the names to find
+     * @return the matching moons
+     * @throws IllegalArgumentException if the prefix is null
+     */
+    public List<cPlanet> FindMoons(String prefix) throws IllegalArgumentException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            if(prefix == null)
+            {
+                String message = "Cannot find moons with null prefix in planet " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+            ArrayList<cPlanet> found = new ArrayList<cPlanet>();
+            mMoons.FindByPrefix(prefix, found);
+            return found;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
     }
 
     /**
@@ -275,19 +579,289 @@ public class cPlanet extends cObjectBase
      */
     public ePlanetType GetPlanetType()
     {
-        mLogger.LogTrace("Getting type from planet " + this.ToString());
-        return mType;
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mLogger.LogTrace("Getting type from planet " + this.ToString());
+            return mType;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
     }
     
     /**
      * Sets the classification type of the planet.
      * 
      * @param type the new planetary type to set
+     * @throws IllegalArgumentException if the type is null
      */
-    public void SetPlanetType(ePlanetType type)
+    public void SetPlanetType(ePlanetType type) throws IllegalArgumentException
     {
-        mLogger.LogTrace("Setting type of planet " + this.ToString() + " to " + type);
-        mType = type;
+        if(type == null)
+        {
+            String message = "Cannot set type of planet " + mName + " to null";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mLogger.LogTrace("Setting type of planet " + this.ToString() + " to " + type);
+            Invalidate();
+            if(mParent != null && type != mType)
+            {
+                //Bodies added to a star are counted as planets, bodies added to a planet as moons.
+                boolean moon = mParent instanceof cPlanet;
+                Count(mParent, moon ? cSubtreeStats.MoonSlot(mType) : cSubtreeStats.PlanetSlot(mType), -1);
+                Count(mParent, moon ? cSubtreeStats.MoonSlot(type) : cSubtreeStats.PlanetSlot(type), 1);
+            }
+            mType = type;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Gets the orbit of this planet around its star, or of this moon around its planet.
+     * 
+     * @return the orbit, or null if the body does not orbit
+     */
+    public cOrbit GetOrbit()
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            return mOrbit;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Sets the orbit of this planet around its star, or of this moon around its planet.
+     * The position of the body is not changed; cOrbit.PositionAt gives its position on the orbit.
+     * 
+     * @param orbit the new orbit, or null for a body that does not orbit
+     */
+    public void SetOrbit(cOrbit orbit)
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mLogger.LogTrace("Setting orbit of planet " + this.mName);
+            Invalidate();
+            mOrbit = orbit;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Adds to or subtracts from one count of the star system and galaxy this body is in.
+     * Planets do not keep counts of their own and pass the change on to their parent.
+     * 
+     * @param slot the index of the count
+     * @param sign 1 to add one body, -1 to remove one
+     */
+    void Count(int slot, int sign)
+    {
+        Count(mParent, slot, sign);
+    }
+
+    /**
+     * Counts the moons orbiting this body, at any depth, in a star or planet and its parents.
+     * The moons are read through the walk accessors, so the moons of views are counted as well.
+     * 
+     * @param receiver the star or planet to count the moons in, may be null
+     * @param sign 1 to add the moons, -1 to remove them
+     */
+    void CountMoons(cObjectBase receiver, int sign)
+    {
+        if(receiver == null)
+        {
+            return;
+        }
+        int count = MoonCount();
+        for(int i = 0; i < count; i++)
+        {
+            cPlanet moon = MoonAt(i);
+            Count(receiver, cSubtreeStats.MoonSlot(moon.mType), sign);
+            moon.CountMoons(receiver, sign);
+        }
+    }
+
+    /**
+     * Adds to or subtracts from one count of a star or planet and its parents.
+     * 
+     * @param receiver the star or planet, may be null
+     * @param slot the index of the count
+     * @param sign 1 to add one body, -1 to remove one
+     */
+    private static void Count(cObjectBase receiver, int slot, int sign)
+    {
+        if(receiver instanceof cStar star)
+        {
+            star.Count(slot, sign);
+        }
+        else if(receiver instanceof cPlanet planet)
+        {
+            planet.Count(slot, sign);
+        }
+    }
+
+    /**
+     * Links a moon that was just added to this planet and counts it with its own moons.
+     * 
+     * @param moon the added moon
+     */
+    private void Attach(cPlanet moon)
+    {
+        moon.mParent = this;
+        if(moon.mArena != mArena)
+        {
+            moon.LeaveArena();
+        }
+        Invalidate();
+        Count(cSubtreeStats.MoonSlot(moon.mType), 1);
+        moon.CountMoons(this, 1);
+    }
+
+    /**
+     * Unlinks a moon that was just removed from this planet and stops counting it with its own moons.
+     * 
+     * @param moon the removed moon
+     */
+    private void Detach(cPlanet moon)
+    {
+        if(moon.mParent == this)
+        {
+            moon.mParent = null;
+        }
+        moon.LeaveArena();
+        Invalidate();
+        Count(cSubtreeStats.MoonSlot(moon.mType), -1);
+        moon.CountMoons(this, -1);
+    }
+
+    /**
+     * Gets the snapshot of this planet, reusing the last one if nothing changed since it was taken.
+     * 
+     * @return the snapshot of this planet and its moons
+     */
+    cPlanetSnapshot Snapshot()
+    {
+        if(mSnapshot == null)
+        {
+            cPlanetSnapshot[] moons = new cPlanetSnapshot[mMoons.Size()];
+            for(int i = 0; i < moons.length; i++)
+            {
+                moons[i] = mMoons.Get(i).Snapshot();
+            }
+            cPlanetSnapshot snapshot = new cPlanetSnapshot(mName, mType, moons, mLogger);
+            snapshot.Place(mX, mY, mZ);
+            snapshot.mOrbit = mOrbit;
+            mSnapshot = snapshot;
+        }
+        return mSnapshot;
+    }
+
+    /**
+     * Discards the snapshot of this planet and of its parents.
+     * A parent never keeps a snapshot once a child has none, so this stops at the first body without one.
+     */
+    @Override
+    void Invalidate()
+    {
+        if(mSnapshot != null)
+        {
+            mSnapshot = null;
+            if(mParent != null)
+            {
+                mParent.Invalidate();
+            }
+        }
+    }
+
+    /**
+     * Tells the star or planet this body was last added to that its name changed.
+     */
+    @Override
+    void Renamed()
+    {
+        if(mParent != null)
+        {
+            mParent.ChildRenamed();
+        }
+    }
+
+    /**
+     * Discards the name index of the moons of this planet after one of them was renamed.
+     */
+    @Override
+    void ChildRenamed()
+    {
+        mMoons.DiscardNames();
+    }
+
+    /**
+     * Gets the logger of this planet.
+     * 
+     * @return the logger of this planet
+     */
+    @Override
+    cLoggingBase Logger()
+    {
+        return mLogger;
+    }
+
+    /**
+     * Gets the galaxy this planet or moon is in, through its star and the planets it orbits.
+     * 
+     * @return the galaxy containing this body, or null if it is not in a galaxy
+     */
+    @Override
+    cGalaxy Galaxy()
+    {
+        cObjectBase parent = mParent;
+        return parent != null ? parent.Galaxy() : null;
+    }
+
+    /**
+     * Writes the planet to an output, followed by its moons down to a depth, one body per line.
+     * The text is the same as that of ToString, but streamed, so whole universes can be written to a
+     * console or file in linear time without building them in memory.
+     * 
+     * @param out the output to write to
+     * @param depth the number of levels of moons to include, 0 for the planet alone and Integer.MAX_VALUE for all
+     * @throws IOException if the output cannot be written
+     */
+    public void Render(Appendable out, int depth) throws IOException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            out.append("Planet: ").append(mName).append(" : ").append(String.valueOf(mType)).append(" (").append(Integer.toString(mMoons.Size())).append(")");
+            if(depth > 0)
+            {
+                for(cPlanet m : mMoons)
+                {
+                    out.append("\n\t\t\t");
+                    m.Render(out, depth - 1);
+                }
+            }
+        }
+        finally
+        {
+            Unlock(lock);
+        }
     }
 
     /**
@@ -298,14 +872,17 @@ public class cPlanet extends cObjectBase
      */
     public String ToString(boolean recursive)
     {
-        String strOut = "Planet: " + this.mName + " : " + this.mType + " (" +  this.mMoons.size() + ")";
-        if ((recursive)) {
-            for(cPlanet m : mMoons)
-            {
-                strOut += "\n\t\t\t" + m.ToString(recursive);
-            }
+        StringBuilder strOut = new StringBuilder();
+        try
+        {
+            Render(strOut, recursive ? Integer.MAX_VALUE : 0);
+        }
+        catch(IOException e)
+        {
+            //Appending to a StringBuilder cannot fail.
+            throw new UncheckedIOException(e);
         }
-        return strOut;
+        return strOut.toString();
     }
     
     /**
@@ -334,6 +911,19 @@ public class cPlanet extends cObjectBase
         return typeOut;
     }
 
+    /**
+     * Gets the planetary type determined by a seed, as used by seeded generation.
+     * The same seed always produces the same type.
+     * 
+     * @param seed the seed of the planet
+     * @return the planetary type selected by the seed
+     * @see cSeed#Range(long, int, int, int)
+     */
+    public static ePlanetType GetSeededPlanetType(long seed)
+    {
+        return ePlanetType.values()[cSeed.Range(seed, cSeed.TYPE_SLOT, 0, ePlanetType.values().length)];
+    }
+
     /**
      * Gets a random planetary type using a new random number generator.
      * This is a static utility method that can be used without creating a planet instance.
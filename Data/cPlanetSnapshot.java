@@ -0,0 +1,77 @@
+package Data;
+
+import Logging.cLoggingBase;
+
+/**
+ * Immutable copy of a planet or moon, taken as part of a universe snapshot.
+ * A snapshot of a planet is shared by every universe snapshot taken while neither the planet
+ * nor its moons changed, so unchanged parts of the universe are never copied twice.
+ * Moons cannot be added to or removed from a snapshot.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ * @see cUniverse#Snapshot()
+ */
+public class cPlanetSnapshot extends cPlanetView
+{
+    /**
+     * Snapshots of the moons of the planet, in order.
+     */
+    private final cPlanetSnapshot[] mMoonSnapshots;
+
+    /**
+     * Constructs a snapshot of a planet.
+     * 
+     * @param name the name of the planet
+     * @param type the classification type of the planet
+     * @param moons the snapshots of its moons, owned by the snapshot
+     * @param logger the logger to use for this planet
+     */
+    cPlanetSnapshot(String name, ePlanetType type, cPlanetSnapshot[] moons, cLoggingBase logger)
+    {
+        super(name, type, logger);
+        mMoonSnapshots = moons;
+    }
+
+    /**
+     * Gets the snapshot of a moon at the specified index.
+     * 
+     * @param index the index of the moon to retrieve
+     * @return the moon at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cPlanetSnapshot GetMoon(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < mMoonSnapshots.length)
+        {
+            return mMoonSnapshots[index];
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of moons orbiting this planet.
+     * 
+     * @return the count of moons orbiting this planet
+     */
+    @Override
+    public int GetMoonCount()
+    {
+        return mMoonSnapshots.length;
+    }
+
+    /**
+     * Snapshots never change, so a snapshot is its own snapshot.
+     * 
+     * @return this snapshot
+     */
+    @Override
+    cPlanetSnapshot Snapshot()
+    {
+        return this;
+    }
+}
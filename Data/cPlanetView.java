@@ -0,0 +1,322 @@
+package Data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import Logging.cLoggingBase;
+
+/**
+ * Read only planet whose moons are provided by a subclass instead of being stored in a list.
+ * Base class for planet views over other storage, such as lazily computed or columnar universes.
+ * Subclasses implement GetMoon and GetMoonCount; every method that would modify the planet
+ * throws an UnsupportedOperationException.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public abstract class cPlanetView extends cPlanet
+{
+    /**
+     * Constructs a planet view with the specified name, type and logger.
+     * 
+     * @param name the name of the planet
+     * @param type the classification type of the planet
+     * @param logger the logger to use for this planet
+     */
+    protected cPlanetView(String name, ePlanetType type, cLoggingBase logger)
+    {
+        super(name, type, logger, true);
+    }
+
+    /**
+     * Gets a reference to a moon at the specified index.
+     * 
+     * @param index the index of the moon to retrieve
+     * @return the moon at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public abstract cPlanet GetMoon(int index) throws IndexOutOfBoundsException;
+
+    /**
+     * Gets the number of moons orbiting this planet.
+     * 
+     * @return the count of moons orbiting this planet
+     */
+    @Override
+    public abstract int GetMoonCount();
+
+    /**
+     * Gets the number of moons of the view for walks of the hierarchy.
+     * 
+     * @return the count of moons
+     */
+    @Override
+    int MoonCount()
+    {
+        return GetMoonCount();
+    }
+
+    /**
+     * Gets the moon of the view at an index for walks of the hierarchy.
+     * 
+     * @param index the index of the moon, which must be valid
+     * @return the moon at the index
+     */
+    @Override
+    cPlanet MoonAt(int index)
+    {
+        return GetMoon(index);
+    }
+
+    /**
+     * Finds the first moon with the specified name by scanning the moons of the view.
+     * 
+     * @param name the name of the moon to find
+     * @return the first moon with the name, or null if there is none
+     * @throws IllegalArgumentException if the name is null
+     */
+    @Override
+    public cPlanet FindMoon(String name) throws IllegalArgumentException
+    {
+        if(name == null)
+        {
+            String message = "Cannot find moon with null name in planet " + this.mName;
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        int count = GetMoonCount();
+        for(int i = 0; i < count; i++)
+        {
+            cPlanet moon = GetMoon(i);
+            if(name.equals(moon.GetName()))
+            {
+                return moon;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the moons of the view whose names start with the specified prefix, in order.
+     * 
+     * @param prefix the prefix of the names to find
+     * @return the matching moons
+     * @throws IllegalArgumentException if the prefix is null
+     */
+    @Override
+    public List<cPlanet> FindMoons(String prefix) throws IllegalArgumentException
+    {
+        if(prefix == null)
+        {
+            String message = "Cannot find moons with null prefix in planet " + this.mName;
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ArrayList<cPlanet> found = new ArrayList<cPlanet>();
+        int count = GetMoonCount();
+        for(int i = 0; i < count; i++)
+        {
+            cPlanet moon = GetMoon(i);
+            if(moon.GetName().startsWith(prefix))
+            {
+                found.add(moon);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Views cannot be renamed.
+     * 
+     * @param name ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void SetName(String name)
+    {
+        throw ReadOnly("rename");
+    }
+
+    /**
+     * Views cannot be moved.
+     * 
+     * @param x ignored
+     * @param y ignored
+     * @param z ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void SetPosition(double x, double y, double z)
+    {
+        throw ReadOnly("move");
+    }
+
+    /**
+     * The orbit of a view cannot be changed.
+     * 
+     * @param orbit ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void SetOrbit(cOrbit orbit)
+    {
+        throw ReadOnly("change the orbit of");
+    }
+
+    /**
+     * The type of a view cannot be changed.
+     * 
+     * @param type ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void SetPlanetType(ePlanetType type)
+    {
+        throw ReadOnly("set type of");
+    }
+
+    /**
+     * Moons cannot be removed from a view.
+     * 
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void ClearMoons()
+    {
+        throw ReadOnly("clear moons of");
+    }
+
+    /**
+     * Moons cannot be added to a view.
+     * 
+     * @param moon ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean AddMoon(cPlanet moon)
+    {
+        throw ReadOnly("add moon to");
+    }
+
+    /**
+     * Moons cannot be added to a view.
+     * 
+     * @param moon ignored
+     * @param index ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean AddMoon(cPlanet moon, int index)
+    {
+        throw ReadOnly("add moon to");
+    }
+
+    /**
+     * Moons cannot be added to a view.
+     * 
+     * @param moons ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void AddMoons(Collection<? extends cPlanet> moons)
+    {
+        throw ReadOnly("add moons to");
+    }
+
+    /**
+     * Moons cannot be removed from a view.
+     * 
+     * @param moon ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean RemoveMoon(cPlanet moon)
+    {
+        throw ReadOnly("remove moon from");
+    }
+
+    /**
+     * Moons cannot be removed from a view.
+     * 
+     * @param index ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void RemoveMoon(int index)
+    {
+        throw ReadOnly("remove moon from");
+    }
+
+    /**
+     * Writes the planet to an output, followed by its moons down to a depth, reading them through the view.
+     * 
+     * @param out the output to write to
+     * @param depth the number of levels of bodies to include, 0 for the planet alone and Integer.MAX_VALUE for all
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void Render(Appendable out, int depth) throws IOException
+    {
+        int count = GetMoonCount();
+        out.append("Planet: ").append(mName).append(" : ").append(String.valueOf(mType)).append(" (").append(Integer.toString(count)).append(")");
+        if(depth > 0)
+        {
+            for(int i = 0; i < count; i++)
+            {
+                out.append("\n\t\t\t");
+                GetMoon(i).Render(out, depth - 1);
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot of the view. Views do not track changes, so every call copies the whole view.
+     * 
+     * @return the snapshot of the planet
+     */
+    @Override
+    cPlanetSnapshot Snapshot()
+    {
+        cPlanetSnapshot[] moons = new cPlanetSnapshot[GetMoonCount()];
+        for(int i = 0; i < moons.length; i++)
+        {
+            moons[i] = GetMoon(i).Snapshot();
+        }
+        cPlanetSnapshot snapshot = new cPlanetSnapshot(mName, mType, moons, mLogger);
+        snapshot.Place(mX, mY, mZ);
+        snapshot.mOrbit = GetOrbit();
+        return snapshot;
+    }
+
+    /**
+     * Logs and creates the exception thrown for an index outside the moons of this planet.
+     * 
+     * @param index the invalid index
+     * @return the exception to throw
+     */
+    protected IndexOutOfBoundsException OutOfBounds(int index)
+    {
+        String message = "Index " + index + " is out of bounds for planet " + this.mName;
+        mLogger.LogError(message);
+        return new IndexOutOfBoundsException(message);
+    }
+
+    /**
+     * Logs and creates the exception thrown when trying to modify the view.
+     * 
+     * @param action description of the attempted action
+     * @return the exception to throw
+     */
+    protected UnsupportedOperationException ReadOnly(String action)
+    {
+        String message = "Cannot " + action + " planet " + this.mName + ": planet is read only";
+        mLogger.LogError(message);
+        return new UnsupportedOperationException(message);
+    }
+}
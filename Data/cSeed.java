@@ -0,0 +1,102 @@
+package Data;
+
+/**
+ * Deterministic seed derivation utilities for the StarViewer application.
+ * Derives independent child seeds from a parent seed and a child index using the
+ * SplitMix64 mixing function, so that any subtree of a generated universe can be
+ * seeded without consuming values from a shared random number generator.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public final class cSeed
+{
+    /**
+     * Odd constant derived from the golden ratio used to spread consecutive indices.
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Slot of an object's seed used to pick the object's type.
+     */
+    public static final int TYPE_SLOT = 0;
+
+    /**
+     * Slot of an object's seed used to pick the object's number of children.
+     */
+    public static final int COUNT_SLOT = 1;
+
+    /**
+     * First of the three slots of an object's seed used to pick the object's position.
+     */
+    public static final int POSITION_SLOT = 2;
+
+    /**
+     * First of the six slots of a planet's or moon's seed used to pick its orbital elements.
+     */
+    public static final int ORBIT_SLOT = 5;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private cSeed()
+    {
+    }
+
+    /**
+     * Scrambles a 64 bit value using the SplitMix64 finalizer.
+     * 
+     * @param value the value to scramble
+     * @return the scrambled value
+     */
+    public static long Mix(long value)
+    {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Derives the seed of a child from the seed of its parent and the child's index.
+     * The same parent seed and index always produce the same child seed.
+     * 
+     * @param parentSeed the seed of the parent object
+     * @param index the zero based index of the child within its parent
+     * @return the seed for the child
+     */
+    public static long Derive(long parentSeed, long index)
+    {
+        return Mix(parentSeed + (index + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Draws an integer in the range [origin, bound) from a seed and a slot.
+     * This is a counter based generator: the result depends only on the seed and slot,
+     * so any value of any object can be computed without generating the values before it.
+     * 
+     * @param seed the seed of the object the value belongs to
+     * @param slot the slot identifying which value of the object is drawn
+     * @param origin the smallest value that can be returned
+     * @param bound the upper bound (exclusive), must be greater than origin
+     * @return a value between origin (inclusive) and bound (exclusive)
+     */
+    public static int Range(long seed, int slot, int origin, int bound)
+    {
+        long high = Mix(seed ^ Mix(slot + GOLDEN_GAMMA)) >>> 32;
+        return origin + (int)((high * ((long)bound - origin)) >>> 32);
+    }
+
+    /**
+     * Draws a value in the range [0, 1) from a seed and a slot.
+     * Like Range, the result depends only on the seed and slot.
+     * 
+     * @param seed the seed of the object the value belongs to
+     * @param slot the slot identifying which value of the object is drawn
+     * @return a value between 0 (inclusive) and 1 (exclusive)
+     */
+    public static double Fraction(long seed, int slot)
+    {
+        return (Mix(seed ^ Mix(slot + GOLDEN_GAMMA)) >>> 11) * 0x1.0p-53;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,362 @@
+package Data;
+
+import java.util.ArrayList;
+
+import Logging.cLoggingBase;
+
+/**
+ * Rules for seeded universe generation shared by the parallel generator and the lazy universe.
+ * Every value of a generated object is drawn with cSeed from the object's own seed, and the
+ * seed of a child is derived from the seed of its parent and the child's index. Any object of
+ * a seeded universe can therefore be computed directly from the universe seed and its path.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cSeededGenerator
+{
+    private final int mMinGalaxies;
+    private final int mMaxGalaxies;
+    private final int mMinStars;
+    private final int mMaxStars;
+    private final int mMinPlanets;
+    private final int mMaxPlanets;
+    private final int mMinMoons;
+    private final int mMaxMoons;
+
+    /**
+     * Logger handed to every generated object.
+     */
+    private final cLoggingBase mLogger;
+    
+    /**
+     * Arena generated objects are taken from, or null to allocate new objects.
+     */
+    private final cObjectArena mArena;
+
+    /**
+     * Half the side of the cube galaxies are placed in, in light years.
+     */
+    static final double UNIVERSE_EXTENT = 1.0e7;
+
+    /**
+     * Radius of the disk stars are placed in around the centre of their galaxy, in light years.
+     */
+    static final double GALAXY_EXTENT = 5.0e4;
+
+    /**
+     * Smallest semi-major axis of the orbit of a planet, in AU.
+     */
+    static final double MIN_PLANET_ORBIT = 0.2;
+
+    /**
+     * Largest semi-major axis of the orbit of a planet, in AU.
+     */
+    static final double SYSTEM_EXTENT = 50.0;
+
+    /**
+     * Smallest semi-major axis of the orbit of a moon, in AU.
+     */
+    static final double MIN_MOON_ORBIT = 0.001;
+
+    /**
+     * Largest semi-major axis of the orbit of a moon, in AU.
+     */
+    static final double MOON_EXTENT = 0.05;
+
+    /**
+     * Largest eccentricity of a generated orbit.
+     */
+    private static final double MAX_ECCENTRICITY = 0.3;
+
+    /**
+     * Largest inclination of a generated orbit to the plane of its star system, in radians.
+     */
+    private static final double MAX_INCLINATION = 0.1;
+
+    /**
+     * Mass of every star, in solar masses.
+     */
+    private static final double STAR_MASS = 1.0;
+
+    /**
+     * Mass of every planet that moons orbit, in solar masses, about that of Jupiter.
+     */
+    private static final double PLANET_MASS = 1.0e-3;
+
+    /**
+     * Length of a year, in days.
+     */
+    private static final double DAYS_PER_YEAR = 365.25;
+
+    /**
+     * Thickness of a disk relative to its radius.
+     */
+    private static final double DISK_THICKNESS = 0.05;
+
+    /**
+     * Constructs a generator for the specified ranges.
+     * The ranges are expected to have been validated by the caller.
+     * 
+     * @param minGalaxies minimum number of galaxies in the universe
+     * @param maxGalaxies maximum number of galaxies in the universe
+     * @param minStars minimum number of stars per galaxy
+     * @param maxStars maximum number of stars per galaxy
+     * @param minPlanets minimum number of planets per star
+     * @param maxPlanets maximum number of planets per star
+     * @param minMoons minimum number of moons per planet
+     * @param maxMoons maximum number of moons per planet
+     * @param logger the logger to give to generated objects
+     */
+    cSeededGenerator(int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons, cLoggingBase logger)
+    {
+        this(minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons, logger, null);
+    }
+
+    /**
+     * Constructs a generator for the specified ranges that takes generated objects from an arena.
+     * A generator using an arena must only be used from one thread.
+     * 
+     * @param minGalaxies minimum number of galaxies in the universe
+     * @param maxGalaxies maximum number of galaxies in the universe
+     * @param minStars minimum number of stars per galaxy
+     * @param maxStars maximum number of stars per galaxy
+     * @param minPlanets minimum number of planets per star
+     * @param maxPlanets maximum number of planets per star
+     * @param minMoons minimum number of moons per planet
+     * @param maxMoons maximum number of moons per planet
+     * @param logger the logger to give to generated objects
+     * @param arena the arena to take objects from, or null to allocate new objects
+     */
+    cSeededGenerator(int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons, cLoggingBase logger, cObjectArena arena)
+    {
+        mMinGalaxies = minGalaxies;
+        mMaxGalaxies = maxGalaxies;
+        mMinStars = minStars;
+        mMaxStars = maxStars;
+        mMinPlanets = minPlanets;
+        mMaxPlanets = maxPlanets;
+        mMinMoons = minMoons;
+        mMaxMoons = maxMoons;
+        mLogger = logger;
+        mArena = arena;
+    }
+
+    /**
+     * Gets the logger handed to generated objects.
+     * 
+     * @return the logger of this generator
+     */
+    cLoggingBase GetLogger()
+    {
+        return mLogger;
+    }
+
+    /**
+     * Gets the number of galaxies of the universe with the given seed.
+     * 
+     * @param universeSeed the seed of the universe
+     * @return the number of galaxies
+     */
+    int GetGalaxyCount(long universeSeed)
+    {
+        return cSeed.Range(universeSeed, cSeed.COUNT_SLOT, mMinGalaxies, mMaxGalaxies + 1);
+    }
+
+    /**
+     * Gets the number of stars of the galaxy with the given seed.
+     * 
+     * @param galaxySeed the seed of the galaxy
+     * @return the number of stars
+     */
+    int GetStarCount(long galaxySeed)
+    {
+        return cSeed.Range(galaxySeed, cSeed.COUNT_SLOT, mMinStars, mMaxStars + 1);
+    }
+
+    /**
+     * Gets the number of planets of the star with the given seed.
+     * 
+     * @param starSeed the seed of the star
+     * @return the number of planets
+     */
+    int GetPlanetCount(long starSeed)
+    {
+        return cSeed.Range(starSeed, cSeed.COUNT_SLOT, mMinPlanets, mMaxPlanets + 1);
+    }
+
+    /**
+     * Gets the number of moons of the planet with the given seed.
+     * 
+     * @param planetSeed the seed of the planet
+     * @return the number of moons
+     */
+    int GetMoonCount(long planetSeed)
+    {
+        return cSeed.Range(planetSeed, cSeed.COUNT_SLOT, mMinMoons, mMaxMoons + 1);
+    }
+
+    /**
+     * Generates an empty galaxy with the name and type determined by its seed.
+     * 
+     * @param galaxySeed the seed of the galaxy
+     * @param index the zero based index of the galaxy within its universe
+     * @return the generated galaxy, without stars
+     */
+    cGalaxy GenerateGalaxy(long galaxySeed, int index)
+    {
+        String name = cNames.Galaxy(index + 1);
+        cGalaxy.eGalaxyType type = cGalaxy.GetSeededGalaxyType(galaxySeed);
+        cGalaxy galaxy = (mArena != null) ? mArena.NewGalaxy(name, type, mLogger) : new cGalaxy(name, type, mLogger, false);
+        PlaceGalaxy(galaxy, galaxySeed);
+        return galaxy;
+    }
+
+    /**
+     * Generates a complete star system, including its planets and moons.
+     * 
+     * @param starSeed the seed of the star
+     * @param index the zero based index of the star within its galaxy
+     * @return the generated star
+     */
+    cStar GenerateStar(long starSeed, int index)
+    {
+        String name = cNames.Star(index + 1);
+        cStar.eStarType type = cStar.GetSeededStarType(starSeed);
+        cStar star = (mArena != null) ? mArena.NewStar(name, type, mLogger) : new cStar(name, type, mLogger, false);
+        PlaceStar(star, starSeed);
+        int planetCount = GetPlanetCount(starSeed);
+        ArrayList<cPlanet> planets = new ArrayList<cPlanet>(planetCount);
+        for(int p = 0; p < planetCount; p++)
+        {
+            planets.add(GeneratePlanet(cSeed.Derive(starSeed, p), p));
+        }
+        star.AddPlanets(planets);
+        return star;
+    }
+
+    /**
+     * Generates a complete planet, including its moons.
+     * 
+     * @param planetSeed the seed of the planet
+     * @param index the zero based index of the planet within its star system
+     * @return the generated planet
+     */
+    cPlanet GeneratePlanet(long planetSeed, int index)
+    {
+        cPlanet planet = NewPlanet(cNames.Planet(index + 1), cPlanet.GetSeededPlanetType(planetSeed));
+        PlacePlanet(planet, planetSeed);
+        int moonCount = GetMoonCount(planetSeed);
+        if(moonCount > 0)
+        {
+            ArrayList<cPlanet> moons = new ArrayList<cPlanet>(moonCount);
+            for(int m = 0; m < moonCount; m++)
+            {
+                long moonSeed = cSeed.Derive(planetSeed, m);
+                cPlanet moon = NewPlanet(cNames.Moon(m + 1), cPlanet.GetSeededPlanetType(moonSeed));
+                PlaceMoon(moon, moonSeed);
+                moons.add(moon);
+            }
+            planet.AddMoons(moons);
+        }
+        return planet;
+    }
+
+    /**
+     * Places a galaxy anywhere in the cube of the universe, relative to the centre of the universe.
+     * 
+     * @param galaxy the galaxy to place
+     * @param galaxySeed the seed of the galaxy
+     */
+    static void PlaceGalaxy(cGalaxy galaxy, long galaxySeed)
+    {
+        Place(galaxy, galaxySeed, UNIVERSE_EXTENT, 1.0);
+    }
+
+    /**
+     * Places a star in the disk of its galaxy, relative to the centre of the galaxy.
+     * 
+     * @param star the star to place
+     * @param starSeed the seed of the star
+     */
+    static void PlaceStar(cStar star, long starSeed)
+    {
+        Place(star, starSeed, GALAXY_EXTENT, DISK_THICKNESS);
+    }
+
+    /**
+     * Puts a planet on an orbit around its star and places it where the orbit is at time 0.
+     * 
+     * @param planet the planet to place
+     * @param planetSeed the seed of the planet
+     */
+    static void PlacePlanet(cPlanet planet, long planetSeed)
+    {
+        Orbit(planet, planetSeed, MIN_PLANET_ORBIT, SYSTEM_EXTENT, STAR_MASS);
+    }
+
+    /**
+     * Puts a moon on an orbit around its planet and places it where the orbit is at time 0.
+     * 
+     * @param moon the moon to place
+     * @param moonSeed the seed of the moon
+     */
+    static void PlaceMoon(cPlanet moon, long moonSeed)
+    {
+        Orbit(moon, moonSeed, MIN_MOON_ORBIT, MOON_EXTENT, PLANET_MASS);
+    }
+
+    /**
+     * Gives a body an orbit with elements drawn from its seed and places it on the orbit at time 0.
+     * The period follows from the semi-major axis and the mass orbited by Kepler's third law.
+     * 
+     * @param body the planet or moon to place
+     * @param seed the seed of the body
+     * @param minAxis the smallest semi-major axis, in AU
+     * @param maxAxis the largest semi-major axis, in AU
+     * @param mass the mass of the body orbited, in solar masses
+     */
+    private static void Orbit(cPlanet body, long seed, double minAxis, double maxAxis, double mass)
+    {
+        //Orbits are spread evenly on a log scale of their size, as in the solar system.
+        double axis = minAxis * Math.pow(maxAxis / minAxis, cSeed.Fraction(seed, cSeed.ORBIT_SLOT));
+        double eccentricity = MAX_ECCENTRICITY * cSeed.Fraction(seed, cSeed.ORBIT_SLOT + 1);
+        double inclination = MAX_INCLINATION * cSeed.Fraction(seed, cSeed.ORBIT_SLOT + 2);
+        double node = cOrbit.TWO_PI * cSeed.Fraction(seed, cSeed.ORBIT_SLOT + 3);
+        double periapsis = cOrbit.TWO_PI * cSeed.Fraction(seed, cSeed.ORBIT_SLOT + 4);
+        double anomaly = cOrbit.TWO_PI * cSeed.Fraction(seed, cSeed.ORBIT_SLOT + 5);
+        double period = DAYS_PER_YEAR * Math.sqrt(axis * axis * axis / mass);
+        cOrbit orbit = new cOrbit(axis, eccentricity, inclination, node, periapsis, anomaly, period, body.mLogger);
+        double[] position = orbit.PositionAt(0);
+        body.mOrbit = orbit;
+        body.Place(position[0], position[1], position[2]);
+    }
+
+    /**
+     * Places a body at a position drawn from its seed, within a box centred on its parent.
+     * 
+     * @param body the body to place
+     * @param seed the seed of the body
+     * @param extent half the width of the box along x and y
+     * @param thickness the height of the box relative to its width
+     */
+    private static void Place(cObjectBase body, long seed, double extent, double thickness)
+    {
+        double x = (cSeed.Fraction(seed, cSeed.POSITION_SLOT) * 2 - 1) * extent;
+        double y = (cSeed.Fraction(seed, cSeed.POSITION_SLOT + 1) * 2 - 1) * extent;
+        double z = (cSeed.Fraction(seed, cSeed.POSITION_SLOT + 2) * 2 - 1) * extent * thickness;
+        body.Place(x, y, z);
+    }
+
+    /**
+     * Creates a planet or moon, taking it from the arena if there is one.
+     * 
+     * @param name the name of the planet
+     * @param type the classification type of the planet
+     * @return a planet without moons
+     */
+    private cPlanet NewPlanet(String name, cPlanet.ePlanetType type)
+    {
+        return (mArena != null) ? mArena.NewPlanet(name, type, mLogger) : new cPlanet(name, type, mLogger, false);
+    }
+}
\ No newline at end of file
@@ -1,7 +1,12 @@
 package Data;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
 
 import Logging.cLoggingBase;
 
@@ -41,17 +46,32 @@ public class cStar extends cObjectBase
     /**
      * List of planets orbiting this star.
      */
-    private ArrayList<cPlanet> mPlanets;
+    private cIndexedList<cPlanet> mPlanets;
+    
+    /**
+     * Counts of the planets and moons of this star system, kept up to date as they change.
+     */
+    cSubtreeStats mStats;
+    
+    /**
+     * The galaxy this star was last added to, which is told about changes to the counts, or null.
+     */
+    cGalaxy mGalaxy;
+    
+    /**
+     * Snapshot of this star, shared until something in the star system changes, or null.
+     */
+    private cStarSnapshot mSnapshot;
     
     /**
      * The stellar classification of this star.
      */
-    private eStarType mType;
+    protected eStarType mType;
     
     /**
      * Logger instance for this star system.
      */
-    private cLoggingBase mLogger;
+    protected cLoggingBase mLogger;
 
     /**
      * Constructs a star with the specified name and stellar type.
@@ -59,13 +79,21 @@ public class cStar extends cObjectBase
      * 
      * @param name the name of the star
      * @param type the stellar classification of the star
+     * @throws IllegalArgumentException if the type is null
      */
-    public cStar(String name, eStarType type)
+    public cStar(String name, eStarType type) throws IllegalArgumentException
     {
         super(name);
-        mPlanets = new ArrayList<cPlanet>();
+        mPlanets = new cIndexedList<cPlanet>();
+        mStats = new cSubtreeStats(cSubtreeStats.SYSTEM_SIZE);
         mType = type;
         mLogger = cLoggingBase.GetStandbyLogger();
+        if(type == null)
+        {
+            String message = "Cannot create star " + name + " with a null type";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
     }
     
     /**
@@ -86,11 +114,44 @@ public class cStar extends cObjectBase
      * @param name the name of the star
      * @param type the stellar classification of the star
      * @param logger the logger to use for this star system
+     * @throws IllegalArgumentException if the type is null
      */
-    public cStar(String name, eStarType type, cLoggingBase logger)
+    public cStar(String name, eStarType type, cLoggingBase logger) throws IllegalArgumentException
     {
         super(name);
-        mPlanets = new ArrayList<cPlanet>();
+        mPlanets = new cIndexedList<cPlanet>();
+        mStats = new cSubtreeStats(cSubtreeStats.SYSTEM_SIZE);
+        mType = type;
+        mLogger = logger;
+        if(type == null)
+        {
+            String message = "Cannot create star " + name + " with a null type";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Constructs a star whose name is already shared, so that it is not interned again.
+     * A view keeps no planet list or counts of its own, since cStarView provides its planets and cannot change.
+     * 
+     * @param name the shared name of the star
+     * @param type the stellar classification of the star
+     * @param logger the logger to use for this star system
+     * @param view true for a read only view, false for a star that stores its planets
+     */
+    cStar(String name, eStarType type, cLoggingBase logger, boolean view)
+    {
+        super(name, false);
+        if(view)
+        {
+            mStats = cSubtreeStats.EMPTY;
+        }
+        else
+        {
+            mPlanets = new cIndexedList<cPlanet>();
+            mStats = new cSubtreeStats(cSubtreeStats.SYSTEM_SIZE);
+        }
         mType = type;
         mLogger = logger;
     }
@@ -113,12 +174,68 @@ public class cStar extends cObjectBase
      */
     public void ClearPlanets()
     {
-        mLogger.LogTrace("Clearing planets from system " + this.ToString());
-        for(cPlanet p : mPlanets)
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            p.ClearMoons();
+            mLogger.LogTrace("Clearing planets from system " + this.ToString());
+            Invalidate();
+            if(mGalaxy != null)
+            {
+                mGalaxy.Count(mStats, -1);
+            }
+            mStats.Reset();
+            for(cPlanet p : mPlanets)
+            {
+                if(p.mParent == this)
+                {
+                    p.mParent = null;
+                }
+                p.mArena = null;
+                p.ClearMoons();
+            }
+            mPlanets.Clear();
         }
-        mPlanets.clear();
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Takes this star and its planets and moons out of the arena that generated them, so that they are never reused.
+     * Everything below an object that is not in an arena is not in one either, so the walk stops there.
+     */
+    void LeaveArena()
+    {
+        if(mArena != null)
+        {
+            mArena = null;
+            for(cPlanet planet : mPlanets)
+            {
+                planet.LeaveArena();
+            }
+        }
+    }
+
+    /**
+     * Reinitializes this star for reuse by an object arena.
+     * The planet list is emptied but keeps its capacity, the star is moved back to the origin as a new one
+     * would be, and no logging is done.
+     * 
+     * @param name the new name of the star
+     * @param type the new type of the star
+     * @param logger the logger to use for this star
+     */
+    void Recycle(String name, eStarType type, cLoggingBase logger)
+    {
+        mName = name;
+        mType = type;
+        mLogger = logger;
+        mPlanets.Clear();
+        mStats.Reset();
+        mGalaxy = null;
+        mSnapshot = null;
+        Place(0, 0, 0);
     }
     
     /**
@@ -126,28 +243,75 @@ public class cStar extends cObjectBase
      * If the planet is already in the system, a warning is logged but no exception is thrown.
      * 
      * @param planet the planet to add to the star system
+     * @return true if the planet was added, false if it was already in the system
      * @throws IllegalArgumentException if the planet is null
      */
-    public void AddPlanet(cPlanet planet) throws IllegalArgumentException
+    public boolean AddPlanet(cPlanet planet) throws IllegalArgumentException
     {
-        if(planet != null)
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            if(!mPlanets.contains(planet))
+            if(planet != null)
             {
-                mLogger.LogTrace("Adding planet " + planet.ToString() + " to system " + this.ToString());
-                mPlanets.add(planet);
+                if(!mPlanets.Contains(planet))
+                {
+                    mLogger.LogTrace("Adding planet " + planet.ToString() + " to system " + this.ToString());
+                    mPlanets.Add(planet);
+                    Attach(planet);
+                    return true;
+                }
+                else
+                {
+                    String message = "Cannot add " + planet.ToString() + " to system " + this.ToString() + ": planet already in system";
+                    mLogger.LogWarning(message);
+                    return false;
+                }
             }
             else
             {
-                String message = "Cannot add " + planet.ToString() + " to system " + this.ToString() + ": planet already in system";
-                mLogger.LogWarning(message);
+                String message = "Cannot add null planet to system " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot add null planet to system " + this.ToString();
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Appends a collection of planets to the end of the star system's planet list, keeping their order.
+     * Duplicates are checked once for the whole collection and a single summary is logged,
+     * which makes this much cheaper than calling AddPlanet for each planet of a large collection.
+     * Planets already in the system, or repeated in the collection, are skipped with a warning.
+     * If the collection contains a null planet nothing is added.
+     * 
+     * @param planets the planets to add
+     * @throws IllegalArgumentException if the collection is null or contains a null planet
+     */
+    public void AddPlanets(Collection<? extends cPlanet> planets) throws IllegalArgumentException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            if(planets == null || cChildLists.ContainsNull(planets))
+            {
+                String message = "Cannot add null planet to system " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            int skipped = mPlanets.AddAllUnique(planets, this::Attach);
+            mLogger.LogTrace("Added " + (planets.size() - skipped) + " planets to system " + this.ToString());
+            if(skipped > 0)
+            {
+                mLogger.LogWarning("Skipped " + skipped + " planets already in system " + this.ToString());
+            }
+        }
+        finally
+        {
+            Unlock(lock);
         }
     }
 
@@ -157,39 +321,51 @@ public class cStar extends cObjectBase
      * 
      * @param planet the planet to add to the star system
      * @param index the index at which to insert the planet
+     * @return true if the planet was added, false if it was already in the system
      * @throws IndexOutOfBoundsException if the index is out of bounds
      * @throws IllegalArgumentException if the planet is null
      */
-    public void AddPlanet(cPlanet planet, int index) throws IndexOutOfBoundsException, IllegalArgumentException
+    public boolean AddPlanet(cPlanet planet, int index) throws IndexOutOfBoundsException, IllegalArgumentException
     {
-        if(planet != null)
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            if(index >= 0 && index <= mPlanets.size())
+            if(planet != null)
             {
-
-                if(!mPlanets.contains(planet))
+                if(index >= 0 && index <= mPlanets.Size())
                 {
-                    mLogger.LogTrace("Adding planet " + planet.ToString() + " to system " + this.ToString());
-                    mPlanets.add(index, planet);
-                }            
+
+                    if(!mPlanets.Contains(planet))
+                    {
+                        mLogger.LogTrace("Adding planet " + planet.ToString() + " to system " + this.ToString());
+                        mPlanets.Add(index, planet);
+                        Attach(planet);
+                        return true;
+                    }            
+                    else
+                    {
+                        String message = "Cannot add " + planet.ToString() + " to system " + this.ToString() + ": planet already in system";
+                        mLogger.LogWarning(message);
+                        return false;
+                    }
+                }
                 else
                 {
-                    String message = "Cannot add " + planet.ToString() + " to system " + this.ToString() + ": planet already in system";
-                    mLogger.LogWarning(message);
+                    String message = "Index of " + index + " is out of bounds for system " + this.ToString();
+                    mLogger.LogError(message);
+                    throw new IndexOutOfBoundsException(message);
                 }
             }
             else
             {
-                String message = "Index of " + index + " is out of bounds for system " + this.ToString();
+                String message = "Cannot add null planet to system " + this.ToString();
                 mLogger.LogError(message);
-                throw new IndexOutOfBoundsException(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot add null planet to system " + this.ToString();
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
+            Unlock(lock);
         }
     }
 
@@ -198,28 +374,40 @@ public class cStar extends cObjectBase
      * If the planet is not in the system, a warning is logged but no exception is thrown.
      * 
      * @param planet the planet to remove from the star system
+     * @return true if the planet was removed, false if it was not in the system
      * @throws IllegalArgumentException if the planet is null
      */
-    public void RemovePlanet(cPlanet planet) throws IllegalArgumentException
+    public boolean RemovePlanet(cPlanet planet) throws IllegalArgumentException
     {
-        if(planet != null)
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            if(mPlanets.contains(planet))
+            if(planet != null)
             {
-                mLogger.LogTrace("Removing planet " + planet.ToString() + " from system " + this.ToString());
-                mPlanets.remove(planet);
-            }            
+                if(mPlanets.Contains(planet))
+                {
+                    mLogger.LogTrace("Removing planet " + planet.ToString() + " from system " + this.ToString());
+                    mPlanets.Remove(planet);
+                    Detach(planet);
+                    return true;
+                }            
+                else
+                {
+                    String message = "Cannot remove " + planet.ToString() + " from system " + this.ToString() + ": planet not in system";
+                    mLogger.LogWarning(message);
+                    return false;
+                }
+            }
             else
             {
-                String message = "Cannot remove " + planet.ToString() + " from system " + this.ToString() + ": planet not in system";
-                mLogger.LogWarning(message);
+                String message = "Cannot remove null planet from system " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot remove null planet from system " + this.ToString();
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
+            Unlock(lock);
         }
     }
 
@@ -231,16 +419,24 @@ public class cStar extends cObjectBase
      */
     public void RemovePlanet(int index) throws IndexOutOfBoundsException
     {
-        if(index >= 0 && index < mPlanets.size())
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            mLogger.LogTrace("Removing planet at index " + index + " from system " + this.ToString());
-            mPlanets.remove(index);
+            if(index >= 0 && index < mPlanets.Size())
+            {
+                mLogger.LogTrace("Removing planet at index " + index + " from system " + this.ToString());
+                Detach(mPlanets.Remove(index));
+            }
+            else
+            {
+                String message = "Index " + index + " is out of bounds for system " + this.ToString();
+                mLogger.LogError(message);
+                throw new IndexOutOfBoundsException(message);
+            }
         }
-        else
+        finally
         {
-            String message = "Index " + index + " is out of bounds for system " + this.ToString();
-            mLogger.LogError(message);
-            throw new IndexOutOfBoundsException(message);
+            Unlock(lock);
         }
     }
 
@@ -253,16 +449,24 @@ public class cStar extends cObjectBase
      */
     public cPlanet GetPlanet(int index) throws IndexOutOfBoundsException
     {
-        if(index >= 0 && index < mPlanets.size())
+        ReentrantLock lock = LockGalaxy();
+        try
         {
-            mLogger.LogTrace("Getting planet at index " + index + " from system " + this.ToString());
-            return mPlanets.get(index);
+            if(index >= 0 && index < mPlanets.Size())
+            {
+                mLogger.LogTrace("Getting planet at index " + index + " from system " + this.ToString());
+                return mPlanets.Get(index);
+            }
+            else
+            {
+                String message = "Index " + index + " is out of bounds for system " + this.ToString();
+                mLogger.LogError(message);
+                throw new IndexOutOfBoundsException(message);
+            }
         }
-        else
+        finally
         {
-            String message = "Index " + index + " is out of bounds for system " + this.ToString();
-            mLogger.LogError(message);
-            throw new IndexOutOfBoundsException(message);
+            Unlock(lock);
         }
     }
 
@@ -273,8 +477,118 @@ public class cStar extends cObjectBase
      */
     public int GetPlanetCount()
     {
-        mLogger.LogTrace("Getting planet count from system " + this.ToString());
-        return mPlanets.size();
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mLogger.LogTrace("Getting planet count from system " + this.ToString());
+            return mPlanets.Size();
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Gets the number of planets without locking, checking or logging, for walks of the hierarchy.
+     * 
+     * @return the count of planets of this star system
+     */
+    int PlanetCount()
+    {
+        return mPlanets.Size();
+    }
+
+    /**
+     * Gets the planet at an index without locking, checking or logging, for walks of the hierarchy.
+     * 
+     * @param index the index of the planet, which must be valid
+     * @return the planet at the index
+     */
+    cPlanet PlanetAt(int index)
+    {
+        return mPlanets.Get(index);
+    }
+
+    /**
+     * Walks this star system and everything in it depth first, calling the visitor for each body.
+     * In concurrent mode the galaxy of the star is locked during the walk.
+     * 
+     * @param visitor the visitor to call
+     * @throws IllegalArgumentException if the visitor is null
+     */
+    public void Accept(iUniverseVisitor visitor) throws IllegalArgumentException
+    {
+        if(visitor == null)
+        {
+            String message = "Cannot walk system " + this.mName + " with null visitor.";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            cTraversal.Star(this, visitor);
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds the first planet with the specified name.
+     * Large star systems keep a name index, so the lookup does not scan the planets.
+     * 
+     * @param name the name of the planet to find
+     * @return the first planet with the name, or null if there is none
+     * @throws IllegalArgumentException if the name is null
+     */
+    public cPlanet FindPlanet(String name) throws IllegalArgumentException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            if(name == null)
+            {
+                String message = "Cannot find planet with null name in system " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+            return mPlanets.Find(name);
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds the planets whose names start with the specified prefix, in order.
+     * 
+     * @param prefix the prefix of the names to find
+     * @return the matching planets
+     * @throws IllegalArgumentException if the prefix is null
+     */
+    public List<cPlanet> FindPlanets(String prefix) throws IllegalArgumentException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            if(prefix == null)
+            {
+                String message = "Cannot find planets with null prefix in system " + this.ToString();
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+            ArrayList<cPlanet> found = new ArrayList<cPlanet>();
+            mPlanets.FindByPrefix(prefix, found);
+            return found;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
     }
 
     /**
@@ -284,19 +598,240 @@ public class cStar extends cObjectBase
      */
     public eStarType GetStarType()
     {
-        mLogger.LogTrace("Getting type from system " + this.ToString());
-        return mType;
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mLogger.LogTrace("Getting type from system " + this.ToString());
+            return mType;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
     }
     
     /**
      * Sets the stellar classification of this star.
      * 
      * @param type the new stellar type to set
+     * @throws IllegalArgumentException if the type is null
      */
-    public void SetStarType(eStarType type)
+    public void SetStarType(eStarType type) throws IllegalArgumentException
     {
-        mLogger.LogTrace("Setting type of system " + this.ToString() + " to " + type);
-        mType = type;
+        if(type == null)
+        {
+            String message = "Cannot set type of star " + mName + " to null";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            mLogger.LogTrace("Setting type of system " + this.ToString() + " to " + type);
+            Invalidate();
+            if(mGalaxy != null && type != mType)
+            {
+                mGalaxy.Count(cSubtreeStats.StarSlot(mType), -1);
+                mGalaxy.Count(cSubtreeStats.StarSlot(type), 1);
+            }
+            mType = type;
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Gets the number of planets and moons in the star system, in total and by type.
+     * The counts are kept up to date as bodies are added, removed or change type, so this does not
+     * walk the system. The returned statistics are a copy and do not change with the system.
+     * 
+     * @return the statistics of the planets and moons of this star
+     */
+    public cSubtreeStats GetStats()
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            return mStats.Copy();
+        }
+        finally
+        {
+            Unlock(lock);
+        }
+    }
+
+    /**
+     * Adds to or subtracts from one count of this system and of the galaxy it is in.
+     * 
+     * @param slot the index of the count
+     * @param sign 1 to add one body, -1 to remove one
+     */
+    void Count(int slot, int sign)
+    {
+        mStats.Add(slot, sign);
+        if(mGalaxy != null)
+        {
+            mGalaxy.Count(slot, sign);
+        }
+    }
+
+    /**
+     * Links a planet that was just added to this star and counts it with its moons.
+     * 
+     * @param planet the added planet
+     */
+    private void Attach(cPlanet planet)
+    {
+        planet.mParent = this;
+        if(planet.mArena != mArena)
+        {
+            planet.LeaveArena();
+        }
+        Invalidate();
+        Count(cSubtreeStats.PlanetSlot(planet.mType), 1);
+        planet.CountMoons(this, 1);
+    }
+
+    /**
+     * Unlinks a planet that was just removed from this star and stops counting it with its moons.
+     * 
+     * @param planet the removed planet
+     */
+    private void Detach(cPlanet planet)
+    {
+        if(planet.mParent == this)
+        {
+            planet.mParent = null;
+        }
+        planet.LeaveArena();
+        Invalidate();
+        Count(cSubtreeStats.PlanetSlot(planet.mType), -1);
+        planet.CountMoons(this, -1);
+    }
+
+    /**
+     * Gets the snapshot of this star, reusing the last one if nothing in the system changed since it was taken.
+     * 
+     * @return the snapshot of this star system
+     */
+    cStarSnapshot Snapshot()
+    {
+        if(mSnapshot == null)
+        {
+            cPlanetSnapshot[] planets = new cPlanetSnapshot[mPlanets.Size()];
+            for(int i = 0; i < planets.length; i++)
+            {
+                planets[i] = mPlanets.Get(i).Snapshot();
+            }
+            cStarSnapshot snapshot = new cStarSnapshot(mName, mType, planets, mStats, mLogger);
+            snapshot.Place(mX, mY, mZ);
+            mSnapshot = snapshot;
+        }
+        return mSnapshot;
+    }
+
+    /**
+     * Discards the snapshot of this star and of its galaxy and universe.
+     * A parent never keeps a snapshot once a child has none, so this stops at the first object without one.
+     */
+    @Override
+    void Invalidate()
+    {
+        if(mSnapshot != null)
+        {
+            mSnapshot = null;
+            if(mGalaxy != null)
+            {
+                mGalaxy.Invalidate();
+            }
+        }
+    }
+
+    /**
+     * Tells the galaxy of this star that the star moved, so its spatial index stays up to date.
+     */
+    @Override
+    void Moved()
+    {
+        if(mGalaxy != null)
+        {
+            mGalaxy.StarMoved(this);
+        }
+    }
+
+    /**
+     * Tells the galaxy this star was last added to that its name changed.
+     */
+    @Override
+    void Renamed()
+    {
+        if(mGalaxy != null)
+        {
+            mGalaxy.ChildRenamed();
+        }
+    }
+
+    /**
+     * Discards the name index of the planets of this star after one of them was renamed.
+     */
+    @Override
+    void ChildRenamed()
+    {
+        mPlanets.DiscardNames();
+    }
+
+    /**
+     * Gets the logger of this star.
+     * 
+     * @return the logger of this star
+     */
+    @Override
+    cLoggingBase Logger()
+    {
+        return mLogger;
+    }
+
+    /**
+     * Gets the galaxy this star was last added to.
+     * 
+     * @return the galaxy containing this star, or null if it is not in a galaxy
+     */
+    @Override
+    cGalaxy Galaxy()
+    {
+        return mGalaxy;
+    }
+
+    /**
+     * Writes the star system to an output, followed by its planets and moons down to a depth, one body per line.
+     * The text is the same as that of ToString, but streamed, so whole universes can be written to a
+     * console or file in linear time without building them in memory.
+     * 
+     * @param out the output to write to
+     * @param depth the number of levels of bodies to include, 0 for the star alone and Integer.MAX_VALUE for all
+     * @throws IOException if the output cannot be written
+     */
+    public void Render(Appendable out, int depth) throws IOException
+    {
+        ReentrantLock lock = LockGalaxy();
+        try
+        {
+            out.append("System: ").append(mName).append(" : ").append(String.valueOf(mType)).append(" (").append(Integer.toString(mPlanets.Size())).append(")");
+            if(depth > 0)
+            {
+                for(cPlanet p : mPlanets)
+                {
+                    out.append("\n\t\t");
+                    p.Render(out, depth - 1);
+                }
+            }
+        }
+        finally
+        {
+            Unlock(lock);
+        }
     }
 
     /**
@@ -307,15 +842,17 @@ public class cStar extends cObjectBase
      */
     public String ToString(boolean recursive)
     {
-        String strOut = "System: " + this.mName + " : " + this.mType + " (" +  this.mPlanets.size() + ")";
-        
-        if ((recursive)) {
-            for(cPlanet p : mPlanets)
-            {
-                strOut += "\n\t\t" + p.ToString(recursive);
-            } 
+        StringBuilder strOut = new StringBuilder();
+        try
+        {
+            Render(strOut, recursive ? Integer.MAX_VALUE : 0);
+        }
+        catch(IOException e)
+        {
+            //Appending to a StringBuilder cannot fail.
+            throw new UncheckedIOException(e);
         }
-        return strOut;
+        return strOut.toString();
     }
     
     /**
@@ -344,6 +881,19 @@ public class cStar extends cObjectBase
         return typeOut;
     }
     
+    /**
+     * Gets the stellar type determined by a seed, as used by seeded generation.
+     * The same seed always produces the same type.
+     * 
+     * @param seed the seed of the star
+     * @return the stellar type selected by the seed
+     * @see cSeed#Range(long, int, int, int)
+     */
+    public static eStarType GetSeededStarType(long seed)
+    {
+        return eStarType.values()[cSeed.Range(seed, cSeed.TYPE_SLOT, 0, eStarType.values().length)];
+    }
+
     /**
      * Gets a random stellar type using a new random number generator.
      * This is a static utility method that can be used without creating a star instance.
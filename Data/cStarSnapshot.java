@@ -0,0 +1,90 @@
+package Data;
+
+import Logging.cLoggingBase;
+
+/**
+ * Immutable copy of a star system, taken as part of a universe snapshot.
+ * A snapshot of a star is shared by every universe snapshot taken while nothing in the star
+ * system changed, so unchanged parts of the universe are never copied twice.
+ * Planets cannot be added to or removed from a snapshot.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ * @see cUniverse#Snapshot()
+ */
+public class cStarSnapshot extends cStarView
+{
+    /**
+     * Snapshots of the planets of the star, in order.
+     */
+    private final cPlanetSnapshot[] mPlanetSnapshots;
+
+    /**
+     * Constructs a snapshot of a star system.
+     * 
+     * @param name the name of the star
+     * @param type the stellar classification of the star
+     * @param planets the snapshots of its planets, owned by the snapshot
+     * @param stats the counts of the planets and moons of the star when the snapshot was taken
+     * @param logger the logger to use for this star
+     */
+    cStarSnapshot(String name, eStarType type, cPlanetSnapshot[] planets, cSubtreeStats stats, cLoggingBase logger)
+    {
+        super(name, type, logger);
+        mPlanetSnapshots = planets;
+        mStats = stats.Copy();
+    }
+
+    /**
+     * Gets the snapshot of a planet at the specified index.
+     * 
+     * @param index the index of the planet to retrieve
+     * @return the planet at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cPlanetSnapshot GetPlanet(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < mPlanetSnapshots.length)
+        {
+            return mPlanetSnapshots[index];
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of planets in this star system.
+     * 
+     * @return the count of planets in this star system
+     */
+    @Override
+    public int GetPlanetCount()
+    {
+        return mPlanetSnapshots.length;
+    }
+
+    /**
+     * Gets the number of planets and moons in the star system when the snapshot was taken.
+     * 
+     * @return the statistics of the planets and moons of this star
+     */
+    @Override
+    public cSubtreeStats GetStats()
+    {
+        return mStats.Copy();
+    }
+
+    /**
+     * Snapshots never change, so a snapshot is its own snapshot.
+     * 
+     * @return this snapshot
+     */
+    @Override
+    cStarSnapshot Snapshot()
+    {
+        return this;
+    }
+}
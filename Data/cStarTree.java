@@ -0,0 +1,628 @@
+package Data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Spatial index of the stars of one galaxy, used to answer range and nearest neighbour queries.
+ * The stars are kept in a k-d tree built in one pass: the stars and their coordinates are reordered in
+ * place so that each node is a range of the arrays whose middle star is its median along x, y and z in
+ * turn, with the stars before and after it as its children and ranges of at most LEAF_SIZE stars as leaves. Queries only descend into nodes whose bounds can hold a
+ * match, so they take logarithmic time plus the number of matches.
+ * Stars added or moved after the build are kept in a short list that is searched in full, and stars
+ * removed or moved are skipped in the tree. Once either grows too large for queries to stay fast, the
+ * galaxy discards the index and builds it again on the next query.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cStarTree
+{
+    /**
+     * Largest number of stars in a leaf of the tree.
+     */
+    private static final int LEAF_SIZE = 8;
+
+    /**
+     * Number of stars that may be added or moved before a rebuild is needed, in trees of up to 1024 stars.
+     */
+    private static final int MIN_PENDING = 64;
+
+    /**
+     * Region searched by a range query.
+     */
+    private interface iRegion
+    {
+        /**
+         * Checks whether a box may hold points of the region.
+         *
+         * @param box the minimum x, y and z of the box followed by its maximum x, y and z
+         * @return false if no point of the box is in the region
+         */
+        boolean Overlaps(double[] box);
+
+        /**
+         * Checks whether a point is in the region.
+         *
+         * @param x the x coordinate of the point
+         * @param y the y coordinate of the point
+         * @param z the z coordinate of the point
+         * @return true if the point is in the region
+         */
+        boolean Contains(double x, double y, double z);
+    }
+
+    /**
+     * Stars of the tree, in tree order.
+     */
+    private final cStar[] mStars;
+
+    /**
+     * The x, y and z coordinates of each star of the tree at build time, in tree order.
+     */
+    private final double[] mCoords;
+
+    /**
+     * Bounds of all stars of the tree, the minimum x, y and z followed by the maximum x, y and z.
+     */
+    private final double[] mBounds;
+
+    /**
+     * Stars added or moved since the tree was built.
+     */
+    private final ArrayList<cStar> mPending;
+
+    /**
+     * Stars of the tree that were removed or moved since it was built.
+     */
+    private final Set<cStar> mRemoved;
+
+    /**
+     * Builds the index of a galaxy by reading the positions of all its stars.
+     *
+     * @param galaxy the galaxy to index
+     */
+    cStarTree(cGalaxy galaxy)
+    {
+        int count = galaxy.StarCount();
+        mStars = new cStar[count];
+        mCoords = new double[count * 3];
+        mBounds = new double[] { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                                 Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for(int i = 0; i < count; i++)
+        {
+            cStar star = galaxy.StarAt(i);
+            mStars[i] = star;
+            mCoords[i * 3] = star.mX;
+            mCoords[i * 3 + 1] = star.mY;
+            mCoords[i * 3 + 2] = star.mZ;
+            for(int axis = 0; axis < 3; axis++)
+            {
+                mBounds[axis] = Math.min(mBounds[axis], mCoords[i * 3 + axis]);
+                mBounds[axis + 3] = Math.max(mBounds[axis + 3], mCoords[i * 3 + axis]);
+            }
+        }
+        Build(0, count, 0);
+        mPending = new ArrayList<cStar>();
+        mRemoved = Collections.newSetFromMap(new IdentityHashMap<cStar, Boolean>());
+    }
+
+    /**
+     * Adds a star that was added to the galaxy.
+     *
+     * @param star the added star
+     */
+    void Add(cStar star)
+    {
+        mPending.add(star);
+    }
+
+    /**
+     * Removes a star that was removed from the galaxy.
+     *
+     * @param star the removed star
+     */
+    void Remove(cStar star)
+    {
+        for(int i = mPending.size() - 1; i >= 0; i--)
+        {
+            if(mPending.get(i) == star)
+            {
+                mPending.remove(i);
+                break;
+            }
+        }
+        //The star may also be in the tree if it was moved, so it is always skipped there.
+        mRemoved.add(star);
+    }
+
+    /**
+     * Updates the position of a star of the galaxy that moved.
+     *
+     * @param star the moved star
+     */
+    void Move(cStar star)
+    {
+        mRemoved.add(star);
+        if(!mPending.contains(star))
+        {
+            mPending.add(star);
+        }
+    }
+
+    /**
+     * Checks whether so many stars changed since the build that the tree should be built again.
+     *
+     * @return true if the index should be rebuilt
+     */
+    boolean NeedsRebuild()
+    {
+        int pending = Math.max(MIN_PENDING, 2 * (int)Math.sqrt(mStars.length));
+        return mPending.size() > pending || mRemoved.size() > mStars.length / 4;
+    }
+
+    /**
+     * Finds the stars within a distance of a point.
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param z the z coordinate of the point
+     * @param radius the largest distance of the stars to find
+     * @param found the list to add the stars to
+     */
+    void FindWithin(double x, double y, double z, double radius, List<? super cStar> found)
+    {
+        double limit = radius * radius;
+        Find(new iRegion()
+        {
+            @Override
+            public boolean Overlaps(double[] box)
+            {
+                return BoxDistance(box, x, y, z) <= limit;
+            }
+
+            @Override
+            public boolean Contains(double px, double py, double pz)
+            {
+                return Distance(px, py, pz, x, y, z) <= limit;
+            }
+        }, found);
+    }
+
+    /**
+     * Finds the stars in an axis aligned box.
+     *
+     * @param min the minimum x, y and z of the box
+     * @param max the maximum x, y and z of the box
+     * @param found the list to add the stars to
+     */
+    void FindInBox(double[] min, double[] max, List<? super cStar> found)
+    {
+        Find(new iRegion()
+        {
+            @Override
+            public boolean Overlaps(double[] box)
+            {
+                for(int axis = 0; axis < 3; axis++)
+                {
+                    if(box[axis] > max[axis] || box[axis + 3] < min[axis])
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public boolean Contains(double px, double py, double pz)
+            {
+                return px >= min[0] && px <= max[0] && py >= min[1] && py <= max[1] && pz >= min[2] && pz <= max[2];
+            }
+        }, found);
+    }
+
+    /**
+     * Finds the stars inside every one of a set of planes, such as the six planes of a view frustum.
+     *
+     * @param planes the a, b, c and d of each plane, a point being inside when a*x + b*y + c*z + d &gt;= 0
+     * @param found the list to add the stars to
+     */
+    void FindInside(double[] planes, List<? super cStar> found)
+    {
+        Find(new iRegion()
+        {
+            @Override
+            public boolean Overlaps(double[] box)
+            {
+                //A box is outside a plane when its corner furthest along the plane normal is.
+                for(int i = 0; i < planes.length; i += 4)
+                {
+                    double x = planes[i] >= 0 ? box[3] : box[0];
+                    double y = planes[i + 1] >= 0 ? box[4] : box[1];
+                    double z = planes[i + 2] >= 0 ? box[5] : box[2];
+                    if(planes[i] * x + planes[i + 1] * y + planes[i + 2] * z + planes[i + 3] < 0)
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public boolean Contains(double px, double py, double pz)
+            {
+                for(int i = 0; i < planes.length; i += 4)
+                {
+                    if(planes[i] * px + planes[i + 1] * py + planes[i + 2] * pz + planes[i + 3] < 0)
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }, found);
+    }
+
+    /**
+     * Finds the stars nearest to a point.
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param z the z coordinate of the point
+     * @param count the largest number of stars to find
+     * @param found the list to add the stars to, nearest first
+     */
+    void FindNearest(double x, double y, double z, int count, List<? super cStar> found)
+    {
+        if(count <= 0)
+        {
+            return;
+        }
+        //The nearest stars found so far form a max heap on their squared distance.
+        double[] distances = new double[count];
+        cStar[] stars = new cStar[count];
+        int[] size = new int[1];
+        Nearest(0, mStars.length, 0, mBounds.clone(), x, y, z, distances, stars, size);
+        for(cStar star : mPending)
+        {
+            Offer(Distance(star.mX, star.mY, star.mZ, x, y, z), star, distances, stars, size);
+        }
+        int first = found.size();
+        for(int i = size[0] - 1; i >= 0; i--)
+        {
+            found.add(stars[0]);
+            Pop(distances, stars, i + 1);
+        }
+        Collections.reverse(found.subList(first, found.size()));
+    }
+
+    /**
+     * Finds the stars in a region, in the tree and among the pending stars.
+     *
+     * @param region the region to search
+     * @param found the list to add the stars to
+     */
+    private void Find(iRegion region, List<? super cStar> found)
+    {
+        if(mStars.length > 0)
+        {
+            Collect(0, mStars.length, 0, mBounds.clone(), region, found);
+        }
+        for(cStar star : mPending)
+        {
+            if(region.Contains(star.mX, star.mY, star.mZ))
+            {
+                found.add(star);
+            }
+        }
+    }
+
+    /**
+     * Adds the stars of a node of the tree that are in a region.
+     *
+     * @param from the first star of the node
+     * @param to the star after the node
+     * @param depth the depth of the node, which selects its split axis
+     * @param box the bounds of the node, restored before returning
+     * @param region the region to search
+     * @param found the list to add the stars to
+     */
+    private void Collect(int from, int to, int depth, double[] box, iRegion region, List<? super cStar> found)
+    {
+        if(!region.Overlaps(box))
+        {
+            return;
+        }
+        if(to - from <= LEAF_SIZE)
+        {
+            for(int i = from; i < to; i++)
+            {
+                if(region.Contains(mCoords[i * 3], mCoords[i * 3 + 1], mCoords[i * 3 + 2]) && !mRemoved.contains(mStars[i]))
+                {
+                    found.add(mStars[i]);
+                }
+            }
+            return;
+        }
+        int axis = depth % 3;
+        int middle = (from + to) >>> 1;
+        double split = mCoords[middle * 3 + axis];
+        if(region.Contains(mCoords[middle * 3], mCoords[middle * 3 + 1], mCoords[middle * 3 + 2]) && !mRemoved.contains(mStars[middle]))
+        {
+            found.add(mStars[middle]);
+        }
+        double max = box[axis + 3];
+        box[axis + 3] = split;
+        Collect(from, middle, depth + 1, box, region, found);
+        box[axis + 3] = max;
+        double min = box[axis];
+        box[axis] = split;
+        Collect(middle + 1, to, depth + 1, box, region, found);
+        box[axis] = min;
+    }
+
+    /**
+     * Offers the stars of a node of the tree to the nearest stars found so far, searching the side of
+     * the split nearer the point first so that the far side can usually be skipped.
+     *
+     * @param from the first star of the node
+     * @param to the star after the node
+     * @param depth the depth of the node, which selects its split axis
+     * @param box the bounds of the node, restored before returning
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param z the z coordinate of the point
+     * @param distances the squared distances of the heap
+     * @param stars the stars of the heap
+     * @param size the number of stars in the heap
+     */
+    private void Nearest(int from, int to, int depth, double[] box, double x, double y, double z, double[] distances, cStar[] stars, int[] size)
+    {
+        if(from >= to || (size[0] == stars.length && BoxDistance(box, x, y, z) > distances[0]))
+        {
+            return;
+        }
+        if(to - from <= LEAF_SIZE)
+        {
+            for(int i = from; i < to; i++)
+            {
+                if(!mRemoved.contains(mStars[i]))
+                {
+                    Offer(Distance(mCoords[i * 3], mCoords[i * 3 + 1], mCoords[i * 3 + 2], x, y, z), mStars[i], distances, stars, size);
+                }
+            }
+            return;
+        }
+        int axis = depth % 3;
+        int middle = (from + to) >>> 1;
+        double split = mCoords[middle * 3 + axis];
+        if(!mRemoved.contains(mStars[middle]))
+        {
+            Offer(Distance(mCoords[middle * 3], mCoords[middle * 3 + 1], mCoords[middle * 3 + 2], x, y, z), mStars[middle], distances, stars, size);
+        }
+        double point = axis == 0 ? x : axis == 1 ? y : z;
+        double max = box[axis + 3];
+        double min = box[axis];
+        for(int side = 0; side < 2; side++)
+        {
+            if((side == 0) == (point < split))
+            {
+                box[axis + 3] = split;
+                Nearest(from, middle, depth + 1, box, x, y, z, distances, stars, size);
+                box[axis + 3] = max;
+            }
+            else
+            {
+                box[axis] = split;
+                Nearest(middle + 1, to, depth + 1, box, x, y, z, distances, stars, size);
+                box[axis] = min;
+            }
+        }
+    }
+
+    /**
+     * Adds a star to the heap of nearest stars if it is nearer than the furthest one, or the heap is not full.
+     *
+     * @param distance the squared distance of the star
+     * @param star the star
+     * @param distances the squared distances of the heap
+     * @param stars the stars of the heap
+     * @param size the number of stars in the heap
+     */
+    private static void Offer(double distance, cStar star, double[] distances, cStar[] stars, int[] size)
+    {
+        int i;
+        if(size[0] < stars.length)
+        {
+            //Sift the new star up from the end of the heap.
+            i = size[0]++;
+            while(i > 0 && distances[(i - 1) / 2] < distance)
+            {
+                distances[i] = distances[(i - 1) / 2];
+                stars[i] = stars[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+        }
+        else if(distance < distances[0])
+        {
+            i = SiftDown(distance, distances, stars, size[0]);
+        }
+        else
+        {
+            return;
+        }
+        distances[i] = distance;
+        stars[i] = star;
+    }
+
+    /**
+     * Removes the furthest star from the heap of nearest stars.
+     *
+     * @param distances the squared distances of the heap
+     * @param stars the stars of the heap
+     * @param size the number of stars in the heap before the removal
+     */
+    private static void Pop(double[] distances, cStar[] stars, int size)
+    {
+        int last = size - 1;
+        int i = SiftDown(distances[last], distances, stars, last);
+        distances[i] = distances[last];
+        stars[i] = stars[last];
+        stars[last] = null;
+    }
+
+    /**
+     * Moves the children of the root of the heap up until a distance can replace the root.
+     *
+     * @param distance the squared distance to place
+     * @param distances the squared distances of the heap
+     * @param stars the stars of the heap
+     * @param size the number of stars in the heap
+     * @return the index to place the distance at
+     */
+    private static int SiftDown(double distance, double[] distances, cStar[] stars, int size)
+    {
+        int i = 0;
+        while(i * 2 + 1 < size)
+        {
+            int child = i * 2 + 1;
+            if(child + 1 < size && distances[child + 1] > distances[child])
+            {
+                child++;
+            }
+            if(distances[child] <= distance)
+            {
+                break;
+            }
+            distances[i] = distances[child];
+            stars[i] = stars[child];
+            i = child;
+        }
+        return i;
+    }
+
+    /**
+     * Moves the median of a node of the tree along its split axis to the middle of the node, then builds its children.
+     *
+     * @param from the first star of the node
+     * @param to the star after the node
+     * @param depth the depth of the node, which selects its split axis
+     */
+    private void Build(int from, int to, int depth)
+    {
+        while(to - from > LEAF_SIZE)
+        {
+            int middle = (from + to) >>> 1;
+            Select(from, to, middle, depth % 3);
+            Build(from, middle, depth + 1);
+            from = middle + 1;
+            depth++;
+        }
+    }
+
+    /**
+     * Partially sorts a range of stars along an axis so that the star at an index has no greater
+     * coordinate before it and no smaller one after it.
+     *
+     * @param from the first star of the range
+     * @param to the star after the range
+     * @param index the index to place the star of that rank at
+     * @param axis the axis to sort along
+     */
+    private void Select(int from, int to, int index, int axis)
+    {
+        int low = from;
+        int high = to - 1;
+        while(low < high)
+        {
+            double pivot = mCoords[((low + high) >>> 1) * 3 + axis];
+            int i = low;
+            int j = high;
+            while(i <= j)
+            {
+                while(mCoords[i * 3 + axis] < pivot)
+                {
+                    i++;
+                }
+                while(mCoords[j * 3 + axis] > pivot)
+                {
+                    j--;
+                }
+                if(i <= j)
+                {
+                    Swap(i++, j--);
+                }
+            }
+            if(index <= j)
+            {
+                high = j;
+            }
+            else if(index >= i)
+            {
+                low = i;
+            }
+            else
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Swaps two stars of the tree with their coordinates.
+     *
+     * @param i the index of one star
+     * @param j the index of the other star
+     */
+    private void Swap(int i, int j)
+    {
+        cStar star = mStars[i];
+        mStars[i] = mStars[j];
+        mStars[j] = star;
+        for(int axis = 0; axis < 3; axis++)
+        {
+            double coord = mCoords[i * 3 + axis];
+            mCoords[i * 3 + axis] = mCoords[j * 3 + axis];
+            mCoords[j * 3 + axis] = coord;
+        }
+    }
+
+    /**
+     * Gets the squared distance from a point to the nearest point of a box.
+     *
+     * @param box the minimum x, y and z of the box followed by its maximum x, y and z
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param z the z coordinate of the point
+     * @return the squared distance, 0 if the point is in the box
+     */
+    private static double BoxDistance(double[] box, double x, double y, double z)
+    {
+        double dx = Math.max(0, Math.max(box[0] - x, x - box[3]));
+        double dy = Math.max(0, Math.max(box[1] - y, y - box[4]));
+        double dz = Math.max(0, Math.max(box[2] - z, z - box[5]));
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Gets the squared distance between two points.
+     *
+     * @param x1 the x coordinate of the first point
+     * @param y1 the y coordinate of the first point
+     * @param z1 the z coordinate of the first point
+     * @param x2 the x coordinate of the second point
+     * @param y2 the y coordinate of the second point
+     * @param z2 the z coordinate of the second point
+     * @return the squared distance
+     */
+    private static double Distance(double x1, double y1, double z1, double x2, double y2, double z2)
+    {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        double dz = z1 - z2;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,328 @@
+package Data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import Logging.cLoggingBase;
+
+/**
+ * Read only star whose planets are provided by a subclass instead of being stored in a list.
+ * Base class for star views over other storage, such as lazily computed or columnar universes.
+ * Subclasses implement GetPlanet and GetPlanetCount; every method that would modify the star
+ * throws an UnsupportedOperationException.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public abstract class cStarView extends cStar
+{
+    /**
+     * Constructs a star view with the specified name, type and logger.
+     * 
+     * @param name the name of the star
+     * @param type the stellar classification of the star
+     * @param logger the logger to use for this star
+     */
+    protected cStarView(String name, eStarType type, cLoggingBase logger)
+    {
+        super(name, type, logger, true);
+    }
+
+    /**
+     * Gets a reference to a planet at the specified index.
+     * 
+     * @param index the index of the planet to retrieve
+     * @return the planet at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public abstract cPlanet GetPlanet(int index) throws IndexOutOfBoundsException;
+
+    /**
+     * Gets the number of planets in this star system.
+     * 
+     * @return the count of planets in this star system
+     */
+    @Override
+    public abstract int GetPlanetCount();
+
+    /**
+     * Gets the number of planets of the view for walks of the hierarchy.
+     * 
+     * @return the count of planets
+     */
+    @Override
+    int PlanetCount()
+    {
+        return GetPlanetCount();
+    }
+
+    /**
+     * Gets the planet of the view at an index for walks of the hierarchy.
+     * 
+     * @param index the index of the planet, which must be valid
+     * @return the planet at the index
+     */
+    @Override
+    cPlanet PlanetAt(int index)
+    {
+        return GetPlanet(index);
+    }
+
+    /**
+     * Finds the first planet with the specified name by scanning the planets of the view.
+     * 
+     * @param name the name of the planet to find
+     * @return the first planet with the name, or null if there is none
+     * @throws IllegalArgumentException if the name is null
+     */
+    @Override
+    public cPlanet FindPlanet(String name) throws IllegalArgumentException
+    {
+        if(name == null)
+        {
+            String message = "Cannot find planet with null name in system " + this.mName;
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        int count = GetPlanetCount();
+        for(int i = 0; i < count; i++)
+        {
+            cPlanet planet = GetPlanet(i);
+            if(name.equals(planet.GetName()))
+            {
+                return planet;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the planets of the view whose names start with the specified prefix, in order.
+     * 
+     * @param prefix the prefix of the names to find
+     * @return the matching planets
+     * @throws IllegalArgumentException if the prefix is null
+     */
+    @Override
+    public List<cPlanet> FindPlanets(String prefix) throws IllegalArgumentException
+    {
+        if(prefix == null)
+        {
+            String message = "Cannot find planets with null prefix in system " + this.mName;
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ArrayList<cPlanet> found = new ArrayList<cPlanet>();
+        int count = GetPlanetCount();
+        for(int i = 0; i < count; i++)
+        {
+            cPlanet planet = GetPlanet(i);
+            if(planet.GetName().startsWith(prefix))
+            {
+                found.add(planet);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Views cannot be renamed.
+     * 
+     * @param name ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void SetName(String name)
+    {
+        throw ReadOnly("rename");
+    }
+
+    /**
+     * Views cannot be moved.
+     * 
+     * @param x ignored
+     * @param y ignored
+     * @param z ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void SetPosition(double x, double y, double z)
+    {
+        throw ReadOnly("move");
+    }
+
+    /**
+     * The type of a view cannot be changed.
+     * 
+     * @param type ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void SetStarType(eStarType type)
+    {
+        throw ReadOnly("set type of");
+    }
+
+    /**
+     * Planets cannot be removed from a view.
+     * 
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void ClearPlanets()
+    {
+        throw ReadOnly("clear planets of");
+    }
+
+    /**
+     * Planets cannot be added to a view.
+     * 
+     * @param planet ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean AddPlanet(cPlanet planet)
+    {
+        throw ReadOnly("add planet to");
+    }
+
+    /**
+     * Planets cannot be added to a view.
+     * 
+     * @param planet ignored
+     * @param index ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean AddPlanet(cPlanet planet, int index)
+    {
+        throw ReadOnly("add planet to");
+    }
+
+    /**
+     * Planets cannot be added to a view.
+     * 
+     * @param planets ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void AddPlanets(Collection<? extends cPlanet> planets)
+    {
+        throw ReadOnly("add planets to");
+    }
+
+    /**
+     * Planets cannot be removed from a view.
+     * 
+     * @param planet ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean RemovePlanet(cPlanet planet)
+    {
+        throw ReadOnly("remove planet from");
+    }
+
+    /**
+     * Planets cannot be removed from a view.
+     * 
+     * @param index ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void RemovePlanet(int index)
+    {
+        throw ReadOnly("remove planet from");
+    }
+
+    /**
+     * Writes the star to an output, followed by its planets and moons down to a depth, reading them through the view.
+     * 
+     * @param out the output to write to
+     * @param depth the number of levels of bodies to include, 0 for the star alone and Integer.MAX_VALUE for all
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void Render(Appendable out, int depth) throws IOException
+    {
+        int count = GetPlanetCount();
+        out.append("System: ").append(mName).append(" : ").append(String.valueOf(mType)).append(" (").append(Integer.toString(count)).append(")");
+        if(depth > 0)
+        {
+            for(int i = 0; i < count; i++)
+            {
+                out.append("\n\t\t");
+                GetPlanet(i).Render(out, depth - 1);
+            }
+        }
+    }
+
+    /**
+     * Counts the planets and moons of the view by walking them, as views do not keep counts.
+     * 
+     * @return the statistics of the planets and moons of this star
+     */
+    @Override
+    public cSubtreeStats GetStats()
+    {
+        cSubtreeStats stats = new cSubtreeStats(cSubtreeStats.SYSTEM_SIZE);
+        int count = GetPlanetCount();
+        for(int i = 0; i < count; i++)
+        {
+            stats.Count(GetPlanet(i), false);
+        }
+        return stats;
+    }
+
+    /**
+     * Takes a snapshot of the view. Views do not track changes, so every call copies the whole view.
+     * 
+     * @return the snapshot of the star system
+     */
+    @Override
+    cStarSnapshot Snapshot()
+    {
+        cSubtreeStats stats = new cSubtreeStats(cSubtreeStats.SYSTEM_SIZE);
+        cPlanetSnapshot[] planets = new cPlanetSnapshot[GetPlanetCount()];
+        for(int i = 0; i < planets.length; i++)
+        {
+            planets[i] = GetPlanet(i).Snapshot();
+            stats.Count(planets[i], false);
+        }
+        cStarSnapshot snapshot = new cStarSnapshot(mName, mType, planets, stats, mLogger);
+        snapshot.Place(mX, mY, mZ);
+        return snapshot;
+    }
+
+    /**
+     * Logs and creates the exception thrown for an index outside the planets of this star.
+     * 
+     * @param index the invalid index
+     * @return the exception to throw
+     */
+    protected IndexOutOfBoundsException OutOfBounds(int index)
+    {
+        String message = "Index " + index + " is out of bounds for system " + this.mName;
+        mLogger.LogError(message);
+        return new IndexOutOfBoundsException(message);
+    }
+
+    /**
+     * Logs and creates the exception thrown when trying to modify the view.
+     * 
+     * @param action description of the attempted action
+     * @return the exception to throw
+     */
+    protected UnsupportedOperationException ReadOnly(String action)
+    {
+        String message = "Cannot " + action + " system " + this.mName + ": system is read only";
+        mLogger.LogError(message);
+        return new UnsupportedOperationException(message);
+    }
+}
@@ -0,0 +1,317 @@
+package Data;
+
+import java.util.Arrays;
+
+/**
+ * Body counts of a subtree of the universe, in total and by type.
+ * The universe, its galaxies and its star systems keep their statistics up to date as bodies are
+ * added, removed or change type, by passing each change up the chain of parents, so reading them
+ * never walks the subtree. Planets and moons are counted separately: moons are the bodies orbiting
+ * a planet or another moon.
+ * The counts are kept in one array, with sections for planet types, moon types, star types and galaxy
+ * types in that order, and a star system only allocates the planet and moon sections.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public final class cSubtreeStats
+{
+    /**
+     * Index of the first planet type count.
+     */
+    private static final int PLANET_BASE = 0;
+
+    /**
+     * Index of the first moon type count.
+     */
+    private static final int MOON_BASE = PLANET_BASE + cPlanet.ePlanetType.values().length;
+
+    /**
+     * Index of the first star type count.
+     */
+    private static final int STAR_BASE = MOON_BASE + cPlanet.ePlanetType.values().length;
+
+    /**
+     * Index of the first galaxy type count.
+     */
+    private static final int GALAXY_BASE = STAR_BASE + cStar.eStarType.values().length;
+
+    /**
+     * Number of counts kept for a star system: planets and moons.
+     */
+    static final int SYSTEM_SIZE = STAR_BASE;
+
+    /**
+     * Number of counts kept for a galaxy: stars, planets and moons.
+     */
+    static final int GALAXY_SIZE = GALAXY_BASE;
+
+    /**
+     * Number of counts kept for a universe: galaxies, stars, planets and moons.
+     */
+    static final int UNIVERSE_SIZE = GALAXY_BASE + cGalaxy.eGalaxyType.values().length;
+
+    /**
+     * Statistics with no counts, shared by views, which do not keep counts.
+     */
+    static final cSubtreeStats EMPTY = new cSubtreeStats(0);
+
+    /**
+     * Count of each type, by section.
+     */
+    private final int[] mCounts;
+
+    /**
+     * Constructs empty statistics with the specified number of counts.
+     *
+     * @param size SYSTEM_SIZE, GALAXY_SIZE or UNIVERSE_SIZE
+     */
+    cSubtreeStats(int size)
+    {
+        mCounts = new int[size];
+    }
+
+    /**
+     * Creates universe sized statistics from type histograms.
+     *
+     * @param galaxyTypes galaxies of each type, or null if none are counted
+     * @param starTypes stars of each type, or null if none are counted
+     * @param planetTypes planets of each type
+     * @param moonTypes moons of each type
+     * @return the statistics
+     */
+    static cSubtreeStats FromHistograms(int[] galaxyTypes, int[] starTypes, int[] planetTypes, int[] moonTypes)
+    {
+        cSubtreeStats stats = new cSubtreeStats(UNIVERSE_SIZE);
+        System.arraycopy(planetTypes, 0, stats.mCounts, PLANET_BASE, planetTypes.length);
+        System.arraycopy(moonTypes, 0, stats.mCounts, MOON_BASE, moonTypes.length);
+        if(starTypes != null)
+        {
+            System.arraycopy(starTypes, 0, stats.mCounts, STAR_BASE, starTypes.length);
+        }
+        if(galaxyTypes != null)
+        {
+            System.arraycopy(galaxyTypes, 0, stats.mCounts, GALAXY_BASE, galaxyTypes.length);
+        }
+        return stats;
+    }
+
+    /**
+     * Gets the count index of a planet type.
+     *
+     * @param type the planet type
+     * @return the index of its count
+     */
+    static int PlanetSlot(cPlanet.ePlanetType type)
+    {
+        return PLANET_BASE + type.ordinal();
+    }
+
+    /**
+     * Gets the count index of a moon type.
+     *
+     * @param type the moon type
+     * @return the index of its count
+     */
+    static int MoonSlot(cPlanet.ePlanetType type)
+    {
+        return MOON_BASE + type.ordinal();
+    }
+
+    /**
+     * Gets the count index of a star type.
+     *
+     * @param type the star type
+     * @return the index of its count
+     */
+    static int StarSlot(cStar.eStarType type)
+    {
+        return STAR_BASE + type.ordinal();
+    }
+
+    /**
+     * Gets the count index of a galaxy type.
+     *
+     * @param type the galaxy type
+     * @return the index of its count
+     */
+    static int GalaxySlot(cGalaxy.eGalaxyType type)
+    {
+        return GALAXY_BASE + type.ordinal();
+    }
+
+    /**
+     * Adds to or subtracts from one count.
+     *
+     * @param slot the index of the count
+     * @param sign 1 to add one body, -1 to remove one
+     */
+    void Add(int slot, int sign)
+    {
+        mCounts[slot] += sign;
+    }
+
+    /**
+     * Adds or subtracts all counts of other, possibly smaller, statistics.
+     *
+     * @param other the statistics to add
+     * @param sign 1 to add, -1 to subtract
+     */
+    void Add(cSubtreeStats other, int sign)
+    {
+        for(int i = 0; i < other.mCounts.length; i++)
+        {
+            mCounts[i] += sign * other.mCounts[i];
+        }
+    }
+
+    /**
+     * Counts a planet or moon and its moons at any depth, reading them through the walk accessors.
+     * Used by views, which do not keep counts.
+     *
+     * @param planet the planet or moon to count
+     * @param moon true to count the body as a moon, false as a planet
+     */
+    void Count(cPlanet planet, boolean moon)
+    {
+        cPlanet.ePlanetType type = planet.GetPlanetType();
+        Add(moon ? MoonSlot(type) : PlanetSlot(type), 1);
+        int count = planet.MoonCount();
+        for(int i = 0; i < count; i++)
+        {
+            Count(planet.MoonAt(i), true);
+        }
+    }
+
+    /**
+     * Sets all counts to zero.
+     */
+    void Reset()
+    {
+        Arrays.fill(mCounts, 0);
+    }
+
+    /**
+     * Creates a copy of these statistics that does not change with the subtree.
+     *
+     * @return the copy
+     */
+    cSubtreeStats Copy()
+    {
+        cSubtreeStats copy = new cSubtreeStats(mCounts.length);
+        System.arraycopy(mCounts, 0, copy.mCounts, 0, mCounts.length);
+        return copy;
+    }
+
+    /**
+     * Gets the number of galaxies in the subtree.
+     *
+     * @return the count of galaxies
+     */
+    public int GetGalaxyCount()
+    {
+        return Sum(GALAXY_BASE, UNIVERSE_SIZE);
+    }
+
+    /**
+     * Gets the number of stars in the subtree.
+     *
+     * @return the count of stars
+     */
+    public int GetStarCount()
+    {
+        return Sum(STAR_BASE, GALAXY_BASE);
+    }
+
+    /**
+     * Gets the number of planets in the subtree, not counting moons.
+     *
+     * @return the count of planets
+     */
+    public int GetPlanetCount()
+    {
+        return Sum(PLANET_BASE, MOON_BASE);
+    }
+
+    /**
+     * Gets the number of moons in the subtree.
+     *
+     * @return the count of moons
+     */
+    public int GetMoonCount()
+    {
+        return Sum(MOON_BASE, STAR_BASE);
+    }
+
+    /**
+     * Gets the number of galaxies of a type in the subtree.
+     *
+     * @param type the galaxy type
+     * @return the count of galaxies of the type
+     */
+    public int GetGalaxyTypeCount(cGalaxy.eGalaxyType type)
+    {
+        return Get(GalaxySlot(type));
+    }
+
+    /**
+     * Gets the number of stars of a type in the subtree.
+     *
+     * @param type the star type
+     * @return the count of stars of the type
+     */
+    public int GetStarTypeCount(cStar.eStarType type)
+    {
+        return Get(StarSlot(type));
+    }
+
+    /**
+     * Gets the number of planets of a type in the subtree, not counting moons.
+     *
+     * @param type the planet type
+     * @return the count of planets of the type
+     */
+    public int GetPlanetTypeCount(cPlanet.ePlanetType type)
+    {
+        return Get(PlanetSlot(type));
+    }
+
+    /**
+     * Gets the number of moons of a type in the subtree.
+     *
+     * @param type the moon type
+     * @return the count of moons of the type
+     */
+    public int GetMoonTypeCount(cPlanet.ePlanetType type)
+    {
+        return Get(MoonSlot(type));
+    }
+
+    /**
+     * Gets a count, which is zero if its section is not kept.
+     *
+     * @param slot the index of the count
+     * @return the count
+     */
+    private int Get(int slot)
+    {
+        return slot < mCounts.length ? mCounts[slot] : 0;
+    }
+
+    /**
+     * Sums a range of counts, ignoring the part of the range that is not kept.
+     *
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @return the sum of the counts
+     */
+    private int Sum(int from, int to)
+    {
+        int sum = 0;
+        for(int i = from; i < Math.min(to, mCounts.length); i++)
+        {
+            sum += mCounts[i];
+        }
+        return sum;
+    }
+}
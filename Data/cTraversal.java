@@ -0,0 +1,115 @@
+package Data;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Depth first walks of the universe hierarchy for visitors.
+ * The walks read the child lists through the unchecked accessors, so a step costs a list read
+ * and a call to the visitor, with no index check, log message or allocation.
+ * Each galaxy is locked while it is walked when its universe is in concurrent mode.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cTraversal
+{
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private cTraversal()
+    {
+    }
+
+    /**
+     * Walks the galaxies of a universe and everything in them.
+     *
+     * @param universe the universe to walk
+     * @param visitor the visitor to call
+     */
+    static void Universe(cUniverse universe, iUniverseVisitor visitor)
+    {
+        for(int i = 0; i < universe.GalaxyCount(); i++)
+        {
+            Galaxy(universe.GalaxyAt(i), visitor);
+        }
+    }
+
+    /**
+     * Walks a galaxy and everything in it.
+     *
+     * @param galaxy the galaxy to walk
+     * @param visitor the visitor to call
+     */
+    static void Galaxy(cGalaxy galaxy, iUniverseVisitor visitor)
+    {
+        ReentrantLock lock = galaxy.LockGalaxy();
+        try
+        {
+            if(visitor.OnGalaxy(galaxy))
+            {
+                for(int i = 0; i < galaxy.StarCount(); i++)
+                {
+                    Star(galaxy.StarAt(i), visitor);
+                }
+                visitor.EndGalaxy(galaxy);
+            }
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Walks a star system and everything in it.
+     *
+     * @param star the star to walk
+     * @param visitor the visitor to call
+     */
+    static void Star(cStar star, iUniverseVisitor visitor)
+    {
+        if(visitor.OnStar(star))
+        {
+            for(int i = 0; i < star.PlanetCount(); i++)
+            {
+                Planet(star.PlanetAt(i), visitor);
+            }
+            visitor.EndStar(star);
+        }
+    }
+
+    /**
+     * Walks a planet and its moons at any depth.
+     *
+     * @param planet the planet to walk
+     * @param visitor the visitor to call
+     */
+    static void Planet(cPlanet planet, iUniverseVisitor visitor)
+    {
+        if(visitor.OnPlanet(planet))
+        {
+            Moons(planet, 1, visitor);
+            visitor.EndPlanet(planet);
+        }
+    }
+
+    /**
+     * Walks the moons of a planet or moon and their own moons.
+     *
+     * @param parent the planet or moon whose moons are walked
+     * @param depth the depth of the moons of parent below their planet
+     * @param visitor the visitor to call
+     */
+    static void Moons(cPlanet parent, int depth, iUniverseVisitor visitor)
+    {
+        for(int i = 0; i < parent.MoonCount(); i++)
+        {
+            cPlanet moon = parent.MoonAt(i);
+            if(visitor.OnMoon(moon, depth))
+            {
+                Moons(moon, depth + 1, visitor);
+                visitor.EndMoon(moon, depth);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package Data;
+
+import java.util.EnumSet;
+
+/**
+ * Query for stars or planets by the types of the bodies and of their parents, answered from the type
+ * indexes of a universe. Each condition is a set of accepted types, of which a body needs any one; a
+ * body matches when it meets every condition that is set. Conditions that are not set accept any type.
+ * For example, the kClassM stars of kSpiralBarredB galaxies that host a kGasGiant with moons are found with
+ * <pre>
+ * cTypeQuery query = new cTypeQuery();
+ * query.SetGalaxyTypes(EnumSet.of(cGalaxy.eGalaxyType.kSpiralBarredB));
+ * query.SetStarTypes(EnumSet.of(cStar.eStarType.kClassM));
+ * query.SetPlanetTypes(EnumSet.of(cPlanet.ePlanetType.kGasGiant));
+ * query.SetWithMoons(Boolean.TRUE);
+ * List&lt;cStar&gt; stars = universe.FindStars(query);
+ * </pre>
+ * Stars are matched by their galaxy and their own type, and by hosting at least one planet that meets the
+ * planet conditions. Planets are matched by their galaxy, their star and their own type and moons.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cTypeQuery
+{
+    /**
+     * Accepted galaxy types, or null to accept any.
+     */
+    private EnumSet<cGalaxy.eGalaxyType> mGalaxyTypes;
+
+    /**
+     * Accepted star types, or null to accept any.
+     */
+    private EnumSet<cStar.eStarType> mStarTypes;
+
+    /**
+     * Accepted planet types, or null to accept any.
+     */
+    private EnumSet<cPlanet.ePlanetType> mPlanetTypes;
+
+    /**
+     * True to accept only planets with moons, false only planets without, null to accept both.
+     */
+    private Boolean mWithMoons;
+
+    /**
+     * Constructs a query that matches every star and planet.
+     */
+    public cTypeQuery()
+    {
+    }
+
+    /**
+     * Sets the galaxy types of the bodies to find.
+     *
+     * @param types the accepted types, or null to accept any
+     */
+    public void SetGalaxyTypes(EnumSet<cGalaxy.eGalaxyType> types)
+    {
+        mGalaxyTypes = types != null ? EnumSet.copyOf(types) : null;
+    }
+
+    /**
+     * Sets the types of the stars to find, or of the stars of the planets to find.
+     *
+     * @param types the accepted types, or null to accept any
+     */
+    public void SetStarTypes(EnumSet<cStar.eStarType> types)
+    {
+        mStarTypes = types != null ? EnumSet.copyOf(types) : null;
+    }
+
+    /**
+     * Sets the types of the planets to find, or of the planets the stars to find must host.
+     *
+     * @param types the accepted types, or null to accept any
+     */
+    public void SetPlanetTypes(EnumSet<cPlanet.ePlanetType> types)
+    {
+        mPlanetTypes = types != null ? EnumSet.copyOf(types) : null;
+    }
+
+    /**
+     * Sets whether the planets to find, or the planets the stars to find must host, have moons.
+     *
+     * @param withMoons true for planets with moons, false for planets without, null for both
+     */
+    public void SetWithMoons(Boolean withMoons)
+    {
+        mWithMoons = withMoons;
+    }
+
+    /**
+     * Gets the accepted galaxy types.
+     *
+     * @return the accepted types, or null if any type is accepted
+     */
+    EnumSet<cGalaxy.eGalaxyType> GetGalaxyTypes()
+    {
+        return mGalaxyTypes;
+    }
+
+    /**
+     * Gets the accepted star types.
+     *
+     * @return the accepted types, or null if any type is accepted
+     */
+    EnumSet<cStar.eStarType> GetStarTypes()
+    {
+        return mStarTypes;
+    }
+
+    /**
+     * Gets the accepted planet types.
+     *
+     * @return the accepted types, or null if any type is accepted
+     */
+    EnumSet<cPlanet.ePlanetType> GetPlanetTypes()
+    {
+        return mPlanetTypes;
+    }
+
+    /**
+     * Gets whether planets must have moons.
+     *
+     * @return true for planets with moons, false for planets without, null for both
+     */
+    Boolean GetWithMoons()
+    {
+        return mWithMoons;
+    }
+
+    /**
+     * Checks whether the query has conditions on planets.
+     *
+     * @return true if the planet types or moons are constrained
+     */
+    boolean HasPlanetConditions()
+    {
+        return mPlanetTypes != null || mWithMoons != null;
+    }
+}
@@ -1,7 +1,24 @@
 package Data;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import Logging.cLoggingBase;
 
 /**
@@ -18,12 +35,64 @@ public class cUniverse
     /**
      * List of galaxies contained in this universe.
      */
-    private ArrayList<cGalaxy> mGalaxies;
+    private cIndexedList<cGalaxy> mGalaxies;
+    
+    /**
+     * Counts of the galaxies, stars, planets and moons of this universe, kept up to date as they change.
+     * Galaxies update it from their own threads in concurrent mode, so it is only accessed while synchronized on it.
+     */
+    cSubtreeStats mStats;
+    
+    /**
+     * Snapshot of this universe, valid while mVersion equals mSnapshotVersion, or null.
+     */
+    private cUniverseSnapshot mSnapshot;
+    
+    /**
+     * Value of mVersion when the galaxies of mSnapshot started being copied.
+     */
+    private long mSnapshotVersion;
+    
+    /**
+     * Number of changes anywhere in the universe that discarded a snapshot.
+     */
+    private AtomicLong mVersion;
+    
+    /**
+     * Type index of the galaxies, valid while its version equals mTypeIndexVersion, or null.
+     */
+    private cUniverseIndex mTypeIndex;
+    
+    /**
+     * Number of changes to the galaxy list or to the type of a galaxy. Galaxies change their type
+     * from their own threads in concurrent mode, so the index is checked against this version.
+     */
+    private AtomicLong mTypeIndexVersion;
+    
+    /**
+     * Whether the universe is used by several threads, in which case every access is locked.
+     */
+    private volatile boolean mConcurrent;
+    
+    /**
+     * Lock guarding the galaxy list in concurrent mode. It is always taken before the lock of a galaxy.
+     */
+    private ReentrantLock mLock;
+    
+    /**
+     * The last snapshot taken, which readers on other threads can get without locking, or null.
+     */
+    private volatile cUniverseSnapshot mLatestSnapshot;
     
     /**
      * Logger instance for this universe.
      */
-    private cLoggingBase mLogger;
+    protected cLoggingBase mLogger;
+    
+    /**
+     * Pool of generated objects reused by the next generation after the galaxies are cleared.
+     */
+    private cObjectArena mArena;
 
     /**
      * Constructs a new universe with an empty list of galaxies.
@@ -31,8 +100,13 @@ public class cUniverse
      */
     public cUniverse()
     {
-        mGalaxies = new ArrayList<cGalaxy>();
+        mGalaxies = new cIndexedList<cGalaxy>();
+        mStats = new cSubtreeStats(cSubtreeStats.UNIVERSE_SIZE);
+        mVersion = new AtomicLong();
+        mTypeIndexVersion = new AtomicLong();
+        mLock = new ReentrantLock();
         mLogger = cLoggingBase.GetStandbyLogger();
+        mArena = new cObjectArena();
     }
     
     /**
@@ -42,50 +116,261 @@ public class cUniverse
      */
     public cUniverse(cLoggingBase logger)
     {
-        mGalaxies = new ArrayList<cGalaxy>();
+        mGalaxies = new cIndexedList<cGalaxy>();
+        mStats = new cSubtreeStats(cSubtreeStats.UNIVERSE_SIZE);
+        mVersion = new AtomicLong();
+        mTypeIndexVersion = new AtomicLong();
+        mLock = new ReentrantLock();
         mLogger = logger;
+        mArena = new cObjectArena();
     }
 
     /**
      * Clears all galaxies from the universe.
-     * Also clears all stars from each galaxy before removing them.
+     * The galaxies, stars and planets created by RandomUniverse, TestUniverse and RandomUniverseAsync
+     * are returned to the universe's arena and reused by the next generation, so clearing does not
+     * walk the stars of the removed galaxies. Generated objects must not be kept and used after they are cleared.
+     * Objects removed from the universe before it is cleared, or moved to another universe, are not reused.
      */
     public void ClearGalaxies()
     {
-        for(cGalaxy g : mGalaxies)
+        ReentrantLock lock = Lock();
+        try
+        {
+            mLogger.LogTrace("Clearing galaxies from universe");
+            Invalidate();
+            for(cGalaxy galaxy : mGalaxies)
+            {
+                ReentrantLock galaxyLock = galaxy.Lock();
+                try
+                {
+                    if(galaxy.mUniverse == this)
+                    {
+                        galaxy.mUniverse = null;
+                    }
+                }
+                finally
+                {
+                    cObjectBase.Unlock(galaxyLock);
+                }
+            }
+            synchronized(mStats)
+            {
+                mStats.Reset();
+            }
+            mGalaxies.Clear();
+            DiscardTypeIndex();
+            mArena.Reset();
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Clears all galaxies from the universe and releases the generated objects kept for reuse,
+     * so that the memory of a large generation can be reclaimed.
+     */
+    public void ReleaseArena()
+    {
+        ReentrantLock lock = Lock();
+        try
+        {
+            ClearGalaxies();
+            mArena.Release();
+        }
+        finally
         {
-            g.ClearStars();
+            cObjectBase.Unlock(lock);
         }
-        mGalaxies.clear();
     }
     
+    /**
+     * Gets the arena the generators and the file reader take new bodies from.
+     * 
+     * @return the arena of this universe
+     */
+    cObjectArena Arena()
+    {
+        return mArena;
+    }
+
+    /**
+     * Saves the universe to an uncompressed universe file, with the names, types, positions and orbits of all its bodies.
+     * The layout of the file is described in cUniverseFileReader.
+     * 
+     * @param file the file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void Save(Path file) throws IOException
+    {
+        Save(file, false);
+    }
+
+    /**
+     * Saves the universe to a universe file, optionally compressing each galaxy on its own.
+     * Compressed files still let Load and cFileUniverse decompress only the galaxies they need, several
+     * at once. Names and types are already stored compactly, so how much compression saves depends on
+     * the positions and orbits, which for generated bodies are nearly random and barely compress.
+     * 
+     * @param file the file to write, replaced if it exists
+     * @param compressed whether to compress the galaxy blocks
+     * @throws IOException if the file cannot be written
+     */
+    public void Save(Path file, boolean compressed) throws IOException
+    {
+        mLogger.LogInfo("Saving " + (compressed ? "compressed " : "") + "universe to " + file);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            new cUniverseFileWriter(channel, mLogger, compressed).Write(this);
+        }
+        catch(IOException e)
+        {
+            mLogger.LogError("Cannot save universe to " + file + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the galaxies of the universe with those of a universe file written by Save.
+     * A file that is not a universe file leaves the universe unchanged, while one that is damaged
+     * further on leaves it empty.
+     * 
+     * @param file the file to read
+     * @throws IOException if the file cannot be read or is not a valid universe file
+     */
+    public void Load(Path file) throws IOException
+    {
+        mLogger.LogInfo("Loading universe from " + file);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            new cUniverseFileReader(channel, mLogger).Read(this);
+        }
+        catch(IOException e)
+        {
+            mLogger.LogError("Cannot load universe from " + file + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Exports the universe as newline delimited JSON, one line per body, for exchange with other tools.
+     * The format is described in cUniverseJsonReader.
+     * 
+     * @param file the file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void ExportJson(Path file) throws IOException
+    {
+        mLogger.LogInfo("Exporting universe to " + file);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            new cUniverseJsonWriter(channel, mLogger).Write(this);
+        }
+        catch(IOException e)
+        {
+            mLogger.LogError("Cannot export universe to " + file + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the galaxies of the universe with those of a newline delimited JSON file, such as one
+     * written by ExportJson. A file whose first record is not valid leaves the universe unchanged, while
+     * one that is invalid further on leaves it empty.
+     * 
+     * @param file the file to read
+     * @throws IOException if the file cannot be read or a line is not a valid record
+     */
+    public void ImportJson(Path file) throws IOException
+    {
+        mLogger.LogInfo("Importing universe from " + file);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            new cUniverseJsonReader(channel, mLogger).Read(this);
+        }
+        catch(IOException e)
+        {
+            mLogger.LogError("Cannot import universe from " + file + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
     /**
      * Appends a galaxy to the end of the universe's galaxy list.
      * If the galaxy is already in the universe, a warning is logged but no exception is thrown.
      * 
      * @param galaxy the galaxy to add to the universe
+     * @return true if the galaxy was added, false if it was already in the universe
      * @throws IllegalArgumentException if the galaxy is null
      */
-    public void AddGalaxy(cGalaxy galaxy) throws IllegalArgumentException
+    public boolean AddGalaxy(cGalaxy galaxy) throws IllegalArgumentException
     {
-        if(galaxy != null)
+        ReentrantLock lock = Lock();
+        try
         {
-            if(!mGalaxies.contains(galaxy))
+            if(galaxy != null)
             {
-                mLogger.LogTrace("Adding " + galaxy.ToString() + " to universe");
-                mGalaxies.add(galaxy);
-            }            
+                if(!mGalaxies.Contains(galaxy))
+                {
+                    mLogger.LogTrace("Adding " + galaxy.ToString() + " to universe");
+                    mGalaxies.Add(galaxy);
+                    Attach(galaxy);
+                    return true;
+                }            
+                else
+                {
+                    String message = "Cannot add " + galaxy.ToString() + " to universe: galaxy already in universe";
+                    mLogger.LogWarning(message);
+                    return false;
+                }
+            }
             else
             {
-                String message = "Cannot add " + galaxy.ToString() + " to universe: galaxy already in universe";
+                String message = "Cannot add null galaxy to universe.";
                 mLogger.LogWarning(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot add null galaxy to universe.";
-            mLogger.LogWarning(message);
-            throw new IllegalArgumentException(message);
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Appends a collection of galaxies to the end of the universe's galaxy list, keeping their order.
+     * Duplicates are checked once for the whole collection and a single summary is logged,
+     * which makes this much cheaper than calling AddGalaxy for each galaxy of a large collection.
+     * Galaxies already in the universe, or repeated in the collection, are skipped with a warning.
+     * If the collection contains a null galaxy nothing is added.
+     * 
+     * @param galaxies the galaxies to add
+     * @throws IllegalArgumentException if the collection is null or contains a null galaxy
+     */
+    public void AddGalaxies(Collection<? extends cGalaxy> galaxies) throws IllegalArgumentException
+    {
+        ReentrantLock lock = Lock();
+        try
+        {
+            if(galaxies == null || cChildLists.ContainsNull(galaxies))
+            {
+                String message = "Cannot add null galaxy to universe";
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+
+            int skipped = mGalaxies.AddAllUnique(galaxies, this::Attach);
+            mLogger.LogTrace("Added " + (galaxies.size() - skipped) + " galaxies to universe");
+            if(skipped > 0)
+            {
+                mLogger.LogWarning("Skipped " + skipped + " galaxies already in universe");
+            }
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
         }
     }
 
@@ -95,38 +380,50 @@ public class cUniverse
      * 
      * @param galaxy the galaxy to add to the universe
      * @param index the index at which to insert the galaxy
+     * @return true if the galaxy was added, false if it was already in the universe
      * @throws IndexOutOfBoundsException if the index is out of bounds
      * @throws IllegalArgumentException if the galaxy is null
      */
-    public void AddGalaxy(cGalaxy galaxy, int index) throws IndexOutOfBoundsException, IllegalArgumentException
+    public boolean AddGalaxy(cGalaxy galaxy, int index) throws IndexOutOfBoundsException, IllegalArgumentException
     {
-        if(galaxy != null)
+        ReentrantLock lock = Lock();
+        try
         {
-            if(index >= 0 && index <= mGalaxies.size())
+            if(galaxy != null)
             {
-                mLogger.LogTrace("Adding " + galaxy.ToString() + " to universe at index " + index);
-                if(!mGalaxies.contains(galaxy))
+                if(index >= 0 && index <= mGalaxies.Size())
                 {
-                    mGalaxies.add(index, galaxy);
-                }            
+                    mLogger.LogTrace("Adding " + galaxy.ToString() + " to universe at index " + index);
+                    if(!mGalaxies.Contains(galaxy))
+                    {
+                        mGalaxies.Add(index, galaxy);
+                        Attach(galaxy);
+                        return true;
+                    }            
+                    else
+                    {
+                        String message = "Cannot add " + galaxy.ToString() + " to universe: galaxy already in universe";
+                        mLogger.LogWarning(message);
+                        return false;
+                    }
+                }
                 else
                 {
-                    String message = "Cannot add " + galaxy.ToString() + " to universe: galaxy already in universe";
-                    mLogger.LogWarning(message);
+                    String message = "Index of " + index + " is out of bounds for universe";
+                    mLogger.LogError(message);
+                    throw new IndexOutOfBoundsException(message);
                 }
             }
             else
             {
-                String message = "Index of " + index + " is out of bounds for universe";
+                String message = "Cannot add null galaxy to universe";
                 mLogger.LogError(message);
-                throw new IndexOutOfBoundsException(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot add null galaxy to universe";
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
+            cObjectBase.Unlock(lock);
         }
     }
 
@@ -135,28 +432,40 @@ public class cUniverse
      * If the galaxy is not in the universe, a warning is logged but no exception is thrown.
      * 
      * @param galaxy the galaxy to remove from the universe
+     * @return true if the galaxy was removed, false if it was not in the universe
      * @throws IllegalArgumentException if the galaxy is null
      */
-    public void RemoveGalaxy(cGalaxy galaxy) throws IllegalArgumentException
+    public boolean RemoveGalaxy(cGalaxy galaxy) throws IllegalArgumentException
     {
-        if(galaxy != null)
+        ReentrantLock lock = Lock();
+        try
         {
-            if(mGalaxies.contains(galaxy))
+            if(galaxy != null)
             {
-                mLogger.LogTrace("Removing " + galaxy.ToString() + " from universe");
-                mGalaxies.remove(galaxy);
-            }            
+                if(mGalaxies.Contains(galaxy))
+                {
+                    mLogger.LogTrace("Removing " + galaxy.ToString() + " from universe");
+                    mGalaxies.Remove(galaxy);
+                    Detach(galaxy);
+                    return true;
+                }            
+                else
+                {
+                    String message = "Cannot remove " + galaxy.ToString() + " from universe: galaxy not in universe";
+                    mLogger.LogWarning(message);
+                    return false;
+                }
+            }
             else
             {
-                String message = "Cannot remove " + galaxy.ToString() + " from universe: galaxy not in universe";
-                mLogger.LogWarning(message);
+                String message = "Cannot remove null galaxy from universe";
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
             }
         }
-        else
+        finally
         {
-            String message = "Cannot remove null galaxy from universe";
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
+            cObjectBase.Unlock(lock);
         }
     }
 
@@ -168,16 +477,24 @@ public class cUniverse
      */
     public void RemoveGalaxy(int index) throws IndexOutOfBoundsException
     {
-        if(index >= 0 && index < mGalaxies.size())
+        ReentrantLock lock = Lock();
+        try
         {
-            mLogger.LogTrace("Removing galaxy at index " + index + " from universe");
-            mGalaxies.remove(index);
+            if(index >= 0 && index < mGalaxies.Size())
+            {
+                mLogger.LogTrace("Removing galaxy at index " + index + " from universe");
+                Detach(mGalaxies.Remove(index));
+            }
+            else
+            {
+                String message = "Index " + index + " is out of bounds for universe";
+                mLogger.LogError(message);
+                throw new IndexOutOfBoundsException(message);
+            }
         }
-        else
+        finally
         {
-            String message = "Index " + index + " is out of bounds for universe";
-            mLogger.LogError(message);
-            throw new IndexOutOfBoundsException(message);
+            cObjectBase.Unlock(lock);
         }
     }
 
@@ -190,16 +507,24 @@ public class cUniverse
      */
     public cGalaxy GetGalaxy(int index) throws IndexOutOfBoundsException
     {
-        if(index >= 0 && index < mGalaxies.size())
+        ReentrantLock lock = Lock();
+        try
         {
-            mLogger.LogTrace("Getting galaxy at index " + index + " from universe");
-            return mGalaxies.get(index);
+            if(index >= 0 && index < mGalaxies.Size())
+            {
+                mLogger.LogTrace("Getting galaxy at index " + index + " from universe");
+                return mGalaxies.Get(index);
+            }
+            else
+            {
+                String message = "Index " + index + " is out of bounds for universe";
+                mLogger.LogError(message);
+                throw new IndexOutOfBoundsException(message);
+            }
         }
-        else
+        finally
         {
-            String message = "Index " + index + " is out of bounds for universe";
-            mLogger.LogError(message);
-            throw new IndexOutOfBoundsException(message);
+            cObjectBase.Unlock(lock);
         }
     }
 
@@ -210,137 +535,1075 @@ public class cUniverse
      */
     public int GetGalaxyCount()
     {
-        mLogger.LogTrace("Getting galaxy count from universe: " + this.ToString(false));
-        return mGalaxies.size();
+        ReentrantLock lock = Lock();
+        try
+        {
+            mLogger.LogTrace("Getting galaxy count from universe: " + this.ToString(false));
+            return mGalaxies.Size();
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
     }
 
     /**
-     * Returns a string representation of the universe with optional recursive details.
+     * Gets the number of galaxies without locking, checking or logging, for walks of the hierarchy.
      * 
-     * @param recursive if true, includes detailed information about all contained galaxies
-     * @return a string representation showing the galaxy count and optionally detailed galaxy information
+     * @return the count of galaxies of this universe
      */
-    public String ToString(boolean recursive)
+    int GalaxyCount()
     {
-        String strOut = "Universe: (" + this.mGalaxies.size() + ")\n";
-        if(recursive)
-        {
-            for(cGalaxy g : mGalaxies)
-            {
-                strOut += "\n" + g.ToString(recursive);
-            }
-        }
-        return strOut;
+        return mGalaxies.Size();
     }
-    
+
     /**
-     * Returns a string representation of the universe with full recursive details.
+     * Gets the galaxy at an index without locking, checking or logging, for walks of the hierarchy.
      * 
-     * @return a detailed string representation of the universe and all its contents
+     * @param index the index of the galaxy, which must be valid
+     * @return the galaxy at the index
      */
-    public String ToString()
+    cGalaxy GalaxyAt(int index)
     {
-        return ToString(true);
+        return mGalaxies.Get(index);
     }
 
     /**
-     * Generates a random universe with the specified parameters and seed.
-     * Clears any existing galaxies before generating new content.
+     * Walks the galaxies of this universe and everything in them depth first, calling the visitor for each body.
+     * In concurrent mode the universe is locked during the walk and each galaxy while it is walked.
      * 
-     * @param seed the seed for random generation (0 for random seed)
-     * @param minGalaxies minimum number of galaxies to generate (must be >= 1)
-     * @param maxGalaxies maximum number of galaxies to generate (must be > minGalaxies)
-     * @param minStars minimum number of stars per galaxy (must be >= 1)
-     * @param maxStars maximum number of stars per galaxy (must be > minStars)
-     * @param minPlanets minimum number of planets per star (must be >= 1)
-     * @param maxPlanets maximum number of planets per star (must be > minPlanets)
-     * @param minMoons minimum number of moons per planet (must be >= 0)
-     * @param maxMoons maximum number of moons per planet (must be > minMoons)
-     * @throws IllegalArgumentException if any parameters are invalid
+     * @param visitor the visitor to call
+     * @throws IllegalArgumentException if the visitor is null
      */
-    public void RandomUniverse(long seed, int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons) throws IllegalArgumentException
+    public void Accept(iUniverseVisitor visitor) throws IllegalArgumentException
     {
-        //Validate parameters.
-        //Ensure that minimums are within specs.
-        if(minGalaxies < 1 || minStars < 1 || minPlanets < 1 || minMoons < 0)
-        {
-            String message = "Cannot create random universe: minimums must be at least 1 (except moons, which can be 0)";
-            mLogger.LogError(message);
-            throw new IllegalArgumentException(message);
-        }
-        //Ensure that maximums are within specs.
-        if(minGalaxies >= maxGalaxies || minStars >= maxStars || minPlanets >= maxPlanets || minMoons >= maxMoons)
+        if(visitor == null)
         {
-            String message = "Cannot create random universe: minimums must be less than or equal to maximums";
+            String message = "Cannot walk universe with null visitor.";
             mLogger.LogError(message);
             throw new IllegalArgumentException(message);
         }
-
-        mLogger.LogTrace("Creating random universe with parameters:");
-        mLogger.LogTrace("Seed: " + seed);
-        mLogger.LogTrace("Galaxies: " + minGalaxies + " to " + maxGalaxies);
-        mLogger.LogTrace("Stars per galaxy: " + minStars + " to " + maxStars);
-        mLogger.LogTrace("Planets per star: " + minPlanets + " to " + maxPlanets);
-        mLogger.LogTrace("Moons per planet: " + minMoons + " to " + maxMoons);
-
-        //Make sure to clear the existing universe first.
-        ClearGalaxies();
-
-        //Seed random.
-        Random rand;
-        if(seed == 0)
+        ReentrantLock lock = Lock();
+        try
         {
-            rand = new Random();
+            cTraversal.Universe(this, visitor);
         }
-        else
+        finally
         {
-            rand = new Random(seed);
+            cObjectBase.Unlock(lock);
         }
+    }
 
-        mLogger.LogInfo("Generating universe");
-
-        //Generate the the galaxies.
-        for(int g = 0; g < rand.nextInt(minGalaxies, maxGalaxies + 1); g++)
-        {
-            mLogger.LogInfo("Generating galaxy");
-            cGalaxy galaxy = new cGalaxy("Galaxy_" + (g + 1), cGalaxy.GetRandomGalaxyType(rand), mLogger);
-            
-            //Inside galaxy, generate stars.
-            for(int s = 0; s < rand.nextInt(minStars, maxStars + 1); s++)
-            {
-                mLogger.LogInfo("Generating star");
-                cStar star = new cStar("Star_" + (s + 1), cStar.GetRandomStarType(rand), mLogger);
-
-                //Inside system, generate planets.
-                for(int p = 0; p < rand.nextInt(minPlanets, maxPlanets + 1); p++)
-                {
-                    mLogger.LogInfo("Generating planet");
-                    cPlanet planet = new cPlanet("Planet_" + (p + 1), cPlanet.GetRandomPlanetType(rand), mLogger);
+    /**
+     * Streams the galaxies of this universe in order.
+     * The stream reads the galaxies without locking or logging, so the universe must not change while
+     * it runs; in concurrent mode the stream runs over a snapshot taken when it is created.
+     * 
+     * @return a sequential stream of the galaxies, which can be made parallel
+     */
+    public Stream<cGalaxy> Galaxies()
+    {
+        cUniverse source = StreamSource();
+        return IntStream.range(0, source.GalaxyCount()).mapToObj(source::GalaxyAt);
+    }
 
-                    //For planets, generate moons. This doesn't generate moons for moons.
-                    for(int m = 0; m < rand.nextInt(minMoons, maxMoons + 1); m++)
-                    {
-                        mLogger.LogInfo("Generating moon");
-                        cPlanet moon = new cPlanet("Moon_" + (m + 1), cPlanet.GetRandomPlanetType(rand), mLogger);
-                        mLogger.LogInfo("Moon generated: " + moon.ToString());
-                        planet.AddMoon(moon);
-                    }
-                    mLogger.LogInfo("Planet generated: " + planet.ToString());
-                    star.AddPlanet(planet);
-                }
-                mLogger.LogInfo("Star generated: " + star.ToString());
-                galaxy.AddStar(star);
-            }
-            mLogger.LogInfo("Galaxy generated: " + galaxy.ToString());
-            AddGalaxy(galaxy);
-        }
+    /**
+     * Streams the stars of all galaxies of this universe in order.
+     * Parallel streams split the stars into even shares along galaxy boundaries where possible,
+     * and the size of the stream is known exactly, so filters and reductions scale with the cores.
+     * The stream reads the stars without locking or logging, so the universe must not change while
+     * it runs; in concurrent mode the stream runs over a snapshot taken when it is created.
+     * 
+     * @return a sequential stream of the stars, which can be made parallel
+     */
+    public Stream<cStar> Stars()
+    {
+        return StreamSupport.stream(new cBodySpliterator<cStar>(StreamSource(), cBodySpliterator.eBodies.kStars), false);
+    }
 
-        mLogger.LogInfo("Universe generated");
+    /**
+     * Streams the planets of all stars of this universe in order, not including moons.
+     * Parallel streams split the work by stars in the same way as Stars.
+     * The stream reads the planets without locking or logging, so the universe must not change while
+     * it runs; in concurrent mode the stream runs over a snapshot taken when it is created.
+     * 
+     * @return a sequential stream of the planets, which can be made parallel
+     */
+    public Stream<cPlanet> Planets()
+    {
+        return StreamSupport.stream(new cBodySpliterator<cPlanet>(StreamSource(), cBodySpliterator.eBodies.kPlanets), false);
     }
 
     /**
-     * Generates a random universe with the specified parameters using a random seed.
-     * This is a convenience method that calls the seeded version with seed = 0.
+     * Streams the moons at any depth of all planets of this universe, each moon followed by its own moons.
+     * Parallel streams split the work by stars in the same way as Stars.
+     * The stream reads the moons without locking or logging, so the universe must not change while
+     * it runs; in concurrent mode the stream runs over a snapshot taken when it is created.
+     * 
+     * @return a sequential stream of the moons, which can be made parallel
+     */
+    public Stream<cPlanet> Moons()
+    {
+        return StreamSupport.stream(new cBodySpliterator<cPlanet>(StreamSource(), cBodySpliterator.eBodies.kMoons), false);
+    }
+
+    /**
+     * Gets the universe that streams and the file writer read: a snapshot in concurrent mode, this universe otherwise.
+     * 
+     * @return the universe to stream
+     */
+    cUniverse StreamSource()
+    {
+        return mConcurrent ? Snapshot() : this;
+    }
+
+    /**
+     * Finds the stars that match a type query, in the order of their galaxies and positions.
+     * The query is answered from type indexes: each galaxy indexes its stars and planets on the first
+     * query and again only after something in it changed, so selective queries only visit the matching
+     * stars of the galaxies of the accepted types.
+     * 
+     * @param query the query to answer
+     * @return the matching stars
+     * @throws IllegalArgumentException if the query is null
+     */
+    public List<cStar> FindStars(cTypeQuery query) throws IllegalArgumentException
+    {
+        List<cStar> found = new ArrayList<cStar>();
+        Query(query, index -> index.FindStars(query, found));
+        return found;
+    }
+
+    /**
+     * Counts the stars that match a type query, without visiting them.
+     * 
+     * @param query the query to answer
+     * @return the number of matching stars
+     * @throws IllegalArgumentException if the query is null
+     */
+    public int CountStars(cTypeQuery query) throws IllegalArgumentException
+    {
+        return Query(query, index -> index.FindStars(query, null));
+    }
+
+    /**
+     * Finds the planets, not including moons, that match a type query, in the order of their galaxies
+     * and positions. The query is answered from type indexes in the same way as FindStars.
+     * 
+     * @param query the query to answer
+     * @return the matching planets
+     * @throws IllegalArgumentException if the query is null
+     */
+    public List<cPlanet> FindPlanets(cTypeQuery query) throws IllegalArgumentException
+    {
+        List<cPlanet> found = new ArrayList<cPlanet>();
+        Query(query, index -> index.FindPlanets(query, found));
+        return found;
+    }
+
+    /**
+     * Counts the planets, not including moons, that match a type query.
+     * 
+     * @param query the query to answer
+     * @return the number of matching planets
+     * @throws IllegalArgumentException if the query is null
+     */
+    public int CountPlanets(cTypeQuery query) throws IllegalArgumentException
+    {
+        return Query(query, index -> index.FindPlanets(query, null));
+    }
+
+    /**
+     * Answers a type query in each galaxy of the accepted types, locking the universe and then each
+     * galaxy in concurrent mode.
+     * 
+     * @param query the query to answer
+     * @param find the search of one galaxy, returning the number of matches
+     * @return the total number of matches
+     * @throws IllegalArgumentException if the query is null
+     */
+    private int Query(cTypeQuery query, ToIntFunction<cGalaxyIndex> find) throws IllegalArgumentException
+    {
+        if(query == null)
+        {
+            String message = "Cannot answer null query on universe.";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ReentrantLock lock = Lock();
+        try
+        {
+            cUniverseIndex index = TypeIndex();
+            cBitmap galaxies = index.Galaxies(query.GetGalaxyTypes());
+            int[] count = new int[1];
+            IntConsumer search = number ->
+            {
+                cGalaxy galaxy = index.GetGalaxy(number);
+                ReentrantLock galaxyLock = galaxy.LockGalaxy();
+                try
+                {
+                    count[0] += find.applyAsInt(galaxy.TypeIndex());
+                }
+                finally
+                {
+                    cObjectBase.Unlock(galaxyLock);
+                }
+            };
+            if(galaxies != null)
+            {
+                galaxies.ForEach(search);
+            }
+            else
+            {
+                for(int i = 0; i < index.GetGalaxyCount(); i++)
+                {
+                    search.accept(i);
+                }
+            }
+            return count[0];
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Gets the type index of the galaxies, building it if a galaxy was added, removed or changed type since
+     * it was last built. Called with the universe locked in concurrent mode.
+     * 
+     * @return the type index of the galaxies
+     */
+    private cUniverseIndex TypeIndex()
+    {
+        long version = mTypeIndexVersion.get();
+        if(mTypeIndex == null || mTypeIndex.GetVersion() != version)
+        {
+            mTypeIndex = new cUniverseIndex(this, version);
+        }
+        return mTypeIndex;
+    }
+
+    /**
+     * Marks the type index of the galaxies as stale after a galaxy was added, removed or changed type.
+     */
+    void DiscardTypeIndex()
+    {
+        mTypeIndexVersion.incrementAndGet();
+    }
+
+    /**
+     * Discards the name index of the galaxies after one of them was renamed.
+     * Called with the lock of the renamed galaxy held, so the universe lock is not taken.
+     */
+    void GalaxyRenamed()
+    {
+        mGalaxies.DiscardNames();
+    }
+
+    /**
+     * Gets the number of galaxies, stars, planets and moons in the universe, in total and by type.
+     * The counts are kept up to date as bodies are added, removed or change type anywhere in the
+     * universe, so this does not walk it. The returned statistics are a copy and do not change with the universe.
+     * Counts are only exact while each body belongs to a single parent.
+     * 
+     * @return the statistics of the bodies of this universe
+     */
+    public cSubtreeStats GetStats()
+    {
+        synchronized(mStats)
+        {
+            return mStats.Copy();
+        }
+    }
+
+    /**
+     * Adds to or subtracts from one count of this universe.
+     * 
+     * @param slot the index of the count
+     * @param sign 1 to add one body, -1 to remove one
+     */
+    void Count(int slot, int sign)
+    {
+        synchronized(mStats)
+        {
+            mStats.Add(slot, sign);
+        }
+    }
+
+    /**
+     * Adds or subtracts the counts of a galaxy or star system to this universe.
+     * 
+     * @param stats the counts to add
+     * @param sign 1 to add, -1 to subtract
+     */
+    void Count(cSubtreeStats stats, int sign)
+    {
+        synchronized(mStats)
+        {
+            mStats.Add(stats, sign);
+        }
+    }
+
+    /**
+     * Links a galaxy that was just added to this universe and counts it with its contents.
+     * 
+     * @param galaxy the added galaxy
+     */
+    private void Attach(cGalaxy galaxy)
+    {
+        galaxy.mUniverse = this;
+        if(galaxy.mArena != mArena)
+        {
+            galaxy.LeaveArena();
+        }
+        Invalidate();
+        DiscardTypeIndex();
+        synchronized(mStats)
+        {
+            mStats.Add(cSubtreeStats.GalaxySlot(galaxy.mType), 1);
+            mStats.Add(galaxy.mStats, 1);
+        }
+    }
+
+    /**
+     * Unlinks a galaxy that was just removed from this universe and stops counting it with its contents.
+     * In concurrent mode the galaxy is locked, so that its counts cannot change while they are subtracted.
+     * 
+     * @param galaxy the removed galaxy
+     */
+    private void Detach(cGalaxy galaxy)
+    {
+        ReentrantLock lock = galaxy.Lock();
+        try
+        {
+            if(galaxy.mUniverse == this)
+            {
+                galaxy.mUniverse = null;
+            }
+            galaxy.LeaveArena();
+            Invalidate();
+            DiscardTypeIndex();
+            synchronized(mStats)
+            {
+                mStats.Add(cSubtreeStats.GalaxySlot(galaxy.mType), -1);
+                mStats.Add(galaxy.mStats, -1);
+            }
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Takes an immutable snapshot of the universe, which readers on any thread can use while the universe
+     * keeps changing. Galaxies, stars and planets that did not change since the last snapshot are shared
+     * with it, so the cost is proportional to the changed paths rather than to the size of the universe,
+     * and taking a snapshot of an unchanged universe returns the previous one.
+     * This must be called by the thread that modifies the universe, or while no modification is in progress,
+     * unless the universe is in concurrent mode. In concurrent mode each galaxy is copied while it is locked,
+     * so every galaxy of the snapshot is consistent, while other galaxies may keep changing in the meantime.
+     * The snapshot is also published for GetLatestSnapshot.
+     * 
+     * @return the snapshot of the universe
+     */
+    public cUniverseSnapshot Snapshot()
+    {
+        ReentrantLock lock = Lock();
+        try
+        {
+            if(mSnapshot == null || mSnapshotVersion != mVersion.get())
+            {
+                //Changes made while copying leave the version different, so the next call copies them.
+                mSnapshotVersion = mVersion.get();
+                cSubtreeStats stats = new cSubtreeStats(cSubtreeStats.UNIVERSE_SIZE);
+                cGalaxySnapshot[] galaxies = new cGalaxySnapshot[mGalaxies.Size()];
+                for(int i = 0; i < galaxies.length; i++)
+                {
+                    galaxies[i] = mGalaxies.Get(i).Snapshot();
+                    stats.Add(cSubtreeStats.GalaxySlot(galaxies[i].mType), 1);
+                    stats.Add(galaxies[i].mStats, 1);
+                }
+                mSnapshot = new cUniverseSnapshot(galaxies, stats, mLogger);
+                mLatestSnapshot = mSnapshot;
+                mLogger.LogTrace("Took snapshot of universe");
+            }
+            return mSnapshot;
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Gets the last snapshot taken of this universe.
+     * Readers on any thread can call this without blocking the thread modifying the universe,
+     * and the snapshot they get is safely published and never changes.
+     * 
+     * @return the last snapshot taken by Snapshot, or null if none was taken
+     */
+    public cUniverseSnapshot GetLatestSnapshot()
+    {
+        return mLatestSnapshot;
+    }
+
+    /**
+     * Marks the snapshot of this universe as stale after something in it changed.
+     * The published snapshot is kept until the next one is taken.
+     */
+    void Invalidate()
+    {
+        mVersion.incrementAndGet();
+    }
+
+    /**
+     * Switches the universe in or out of concurrent mode.
+     * In concurrent mode every galaxy has its own lock, which guards the galaxy and all the stars, planets
+     * and moons in it, so threads working on different galaxies never wait for each other. Changes to the
+     * galaxy list take a lock of the universe. Adding and removing a child is atomic, as are reads by index,
+     * but a child index read earlier may be stale; iterate over a Snapshot to read a consistent state.
+     * Children, counts and types are read and changed under these locks. Names and positions are not:
+     * a body renamed or moved by one thread may be read by another with its old value, so threads that
+     * read them while others change them must synchronize with each other.
+     * Bodies must only be shared between threads once they are in the universe, and each body must belong
+     * to a single parent. The mode must be set before the universe is shared between threads.
+     * 
+     * @param concurrent true to lock the children, counts and types of every body, false to use the universe
+     *                   from one thread at a time
+     */
+    public void SetConcurrent(boolean concurrent)
+    {
+        mLogger.LogTrace("Setting concurrent mode of universe to " + concurrent);
+        mConcurrent = concurrent;
+    }
+
+    /**
+     * Checks whether the universe is in concurrent mode.
+     * 
+     * @return true if the children, counts and types of every body are locked
+     */
+    public boolean IsConcurrent()
+    {
+        return mConcurrent;
+    }
+
+    /**
+     * Locks the galaxy list if the universe is in concurrent mode.
+     * 
+     * @return the lock to release once done, or null if no lock was taken
+     */
+    private ReentrantLock Lock()
+    {
+        if(!mConcurrent)
+        {
+            return null;
+        }
+        mLock.lock();
+        return mLock;
+    }
+
+    /**
+     * Finds the first galaxy with the specified name.
+     * Universes with many galaxies keep a name index, so the lookup does not scan the galaxies.
+     * 
+     * @param name the name of the galaxy to find
+     * @return the first galaxy with the name, or null if there is none
+     * @throws IllegalArgumentException if the name is null
+     */
+    public cGalaxy FindGalaxy(String name) throws IllegalArgumentException
+    {
+        ReentrantLock lock = Lock();
+        try
+        {
+            if(name == null)
+            {
+                String message = "Cannot find galaxy with null name in universe";
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+            return mGalaxies.Find(name);
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds the galaxies whose names start with the specified prefix, in order.
+     * 
+     * @param prefix the prefix of the names to find
+     * @return the matching galaxies
+     * @throws IllegalArgumentException if the prefix is null
+     */
+    public List<cGalaxy> FindGalaxies(String prefix) throws IllegalArgumentException
+    {
+        ReentrantLock lock = Lock();
+        try
+        {
+            if(prefix == null)
+            {
+                String message = "Cannot find galaxies with null prefix in universe";
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+            ArrayList<cGalaxy> found = new ArrayList<cGalaxy>();
+            mGalaxies.FindByPrefix(prefix, found);
+            return found;
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds an object by its path of slash separated names, such as "Galaxy_2/Star_7/Planet_3".
+     * The first name is a galaxy, the second a star, the third a planet and any further names are
+     * moons; whitespace around each name is ignored. Each step is a name index lookup in large
+     * galaxies, stars and planets, so the time does not grow with the size of the universe.
+     * When several siblings share a name, the first one is followed.
+     * 
+     * @param path the path of the object to find
+     * @return the object at the path, or null if there is none
+     * @throws IllegalArgumentException if the path is null
+     */
+    public cObjectBase Find(String path) throws IllegalArgumentException
+    {
+        ReentrantLock lock = Lock();
+        try
+        {
+            String[] names = SplitPath(path);
+            cObjectBase found = null;
+            for(String name : names)
+            {
+                found = FindChild(found, name);
+                if(found == null)
+                {
+                    break;
+                }
+            }
+            mLogger.LogTrace("Found " + (found == null ? "nothing" : found.GetName()) + " at path " + path);
+            return found;
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds the objects whose path starts with the specified path prefix, such as "Galaxy_2/Star_1".
+     * All names but the last must match exactly; the children of the object they lead to are returned
+     * if their names start with the last name. A prefix ending with a slash returns all children.
+     * 
+     * @param prefix the path prefix of the objects to find
+     * @return the matching objects, in order, or an empty list if the path leads nowhere
+     * @throws IllegalArgumentException if the prefix is null
+     */
+    public List<cObjectBase> FindByPrefix(String prefix) throws IllegalArgumentException
+    {
+        ReentrantLock lock = Lock();
+        try
+        {
+            String[] names = SplitPath(prefix);
+            ArrayList<cObjectBase> found = new ArrayList<cObjectBase>();
+            cObjectBase parent = null;
+            for(int i = 0; i < names.length - 1; i++)
+            {
+                parent = FindChild(parent, names[i]);
+                if(parent == null)
+                {
+                    return found;
+                }
+            }
+
+            String last = names[names.length - 1];
+            if(parent == null)
+            {
+                found.addAll(FindGalaxies(last));
+            }
+            else if(parent instanceof cGalaxy galaxy)
+            {
+                found.addAll(galaxy.FindStars(last));
+            }
+            else if(parent instanceof cStar star)
+            {
+                found.addAll(star.FindPlanets(last));
+            }
+            else
+            {
+                found.addAll(((cPlanet)parent).FindMoons(last));
+            }
+            mLogger.LogTrace("Found " + found.size() + " objects with path prefix " + prefix);
+            return found;
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Splits a path into trimmed names.
+     * 
+     * @param path the path to split
+     * @return the names of the path, with a trailing empty name if the path ends with a slash
+     * @throws IllegalArgumentException if the path is null
+     */
+    private String[] SplitPath(String path) throws IllegalArgumentException
+    {
+        if(path == null)
+        {
+            String message = "Cannot find object in universe: path is null";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        String[] names = path.split("/", -1);
+        for(int i = 0; i < names.length; i++)
+        {
+            names[i] = names[i].trim();
+        }
+        return names;
+    }
+
+    /**
+     * Finds a child of an object on a path by name.
+     * 
+     * @param parent the object whose child to find, or null for a galaxy of this universe
+     * @param name the name of the child
+     * @return the first child with the name, or null if there is none
+     */
+    private cObjectBase FindChild(cObjectBase parent, String name)
+    {
+        if(parent == null)
+        {
+            return FindGalaxy(name);
+        }
+        else if(parent instanceof cGalaxy galaxy)
+        {
+            return galaxy.FindStar(name);
+        }
+        else if(parent instanceof cStar star)
+        {
+            return star.FindPlanet(name);
+        }
+        return ((cPlanet)parent).FindMoon(name);
+    }
+
+    /**
+     * Writes the universe to an output, followed by its galaxies and their bodies down to a depth, one body per line.
+     * The text is the same as that of ToString, but streamed, so whole universes can be written to a
+     * console or file in linear time without building them in memory.
+     * 
+     * @param out the output to write to
+     * @param depth the number of levels of bodies to include, 0 for the galaxy count alone and Integer.MAX_VALUE for all
+     * @throws IOException if the output cannot be written
+     */
+    public void Render(Appendable out, int depth) throws IOException
+    {
+        ReentrantLock lock = Lock();
+        try
+        {
+            out.append("Universe: (").append(Integer.toString(mGalaxies.Size())).append(")\n");
+            if(depth > 0)
+            {
+                for(cGalaxy g : mGalaxies)
+                {
+                    out.append("\n");
+                    g.Render(out, depth - 1);
+                }
+            }
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Returns a string representation of the universe with optional recursive details.
+     * 
+     * @param recursive if true, includes detailed information about all contained galaxies
+     * @return a string representation showing the galaxy count and optionally detailed galaxy information
+     */
+    public String ToString(boolean recursive)
+    {
+        StringBuilder strOut = new StringBuilder();
+        try
+        {
+            Render(strOut, recursive ? Integer.MAX_VALUE : 0);
+        }
+        catch(IOException e)
+        {
+            //Appending to a StringBuilder cannot fail.
+            throw new UncheckedIOException(e);
+        }
+        return strOut.toString();
+    }
+    
+    /**
+     * Returns a string representation of the universe with full recursive details.
+     * 
+     * @return a detailed string representation of the universe and all its contents
+     */
+    public String ToString()
+    {
+        return ToString(true);
+    }
+
+    /**
+     * Validates and logs the parameters of a random universe generation.
+     * 
+     * @param seed the seed for random generation (0 for random seed)
+     * @param minGalaxies minimum number of galaxies to generate (must be >= 1)
+     * @param maxGalaxies maximum number of galaxies to generate (must be > minGalaxies)
+     * @param minStars minimum number of stars per galaxy (must be >= 1)
+     * @param maxStars maximum number of stars per galaxy (must be > minStars)
+     * @param minPlanets minimum number of planets per star (must be >= 1)
+     * @param maxPlanets maximum number of planets per star (must be > minPlanets)
+     * @param minMoons minimum number of moons per planet (must be >= 0)
+     * @param maxMoons maximum number of moons per planet (must be > minMoons)
+     * @throws IllegalArgumentException if any parameters are invalid
+     */
+    protected void ValidateRandomParameters(long seed, int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons) throws IllegalArgumentException
+    {
+        //Ensure that minimums are within specs.
+        if(minGalaxies < 1 || minStars < 1 || minPlanets < 1 || minMoons < 0)
+        {
+            String message = "Cannot create random universe: minimums must be at least 1 (except moons, which can be 0)";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        //Ensure that maximums are within specs.
+        if(minGalaxies >= maxGalaxies || minStars >= maxStars || minPlanets >= maxPlanets || minMoons >= maxMoons)
+        {
+            String message = "Cannot create random universe: minimums must be less than or equal to maximums";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        mLogger.LogTrace("Creating random universe with parameters:");
+        mLogger.LogTrace("Seed: " + seed);
+        mLogger.LogTrace("Galaxies: " + minGalaxies + " to " + maxGalaxies);
+        mLogger.LogTrace("Stars per galaxy: " + minStars + " to " + maxStars);
+        mLogger.LogTrace("Planets per star: " + minPlanets + " to " + maxPlanets);
+        mLogger.LogTrace("Moons per planet: " + minMoons + " to " + maxMoons);
+    }
+
+    /**
+     * Generates a random universe with the specified parameters and seed.
+     * Clears any existing galaxies before generating new content.
+     * 
+     * @param seed the seed for random generation (0 for random seed)
+     * @param minGalaxies minimum number of galaxies to generate (must be >= 1)
+     * @param maxGalaxies maximum number of galaxies to generate (must be > minGalaxies)
+     * @param minStars minimum number of stars per galaxy (must be >= 1)
+     * @param maxStars maximum number of stars per galaxy (must be > minStars)
+     * @param minPlanets minimum number of planets per star (must be >= 1)
+     * @param maxPlanets maximum number of planets per star (must be > minPlanets)
+     * @param minMoons minimum number of moons per planet (must be >= 0)
+     * @param maxMoons maximum number of moons per planet (must be > minMoons)
+     * @throws IllegalArgumentException if any parameters are invalid
+     */
+    public void RandomUniverse(long seed, int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons) throws IllegalArgumentException
+    {
+        ValidateRandomParameters(seed, minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons);
+
+        //Make sure to clear the existing universe first.
+        ClearGalaxies();
+
+        mLogger.LogInfo("Generating universe");
+
+        //Positions are drawn from seeds of their own so that the bodies drawn from rand stay the same.
+        cTreeBuilder builder = new cTreeBuilder(seed != 0 ? cSeed.Mix(seed) : new Random().nextLong());
+        GenerateRandom(SeededRandom(seed), minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons, builder);
+        AddGalaxies(builder.mGalaxies);
+
+        mLogger.LogInfo("Universe generated");
+    }
+
+    /**
+     * Generates a random universe with the specified parameters and seed and streams it to a sink
+     * instead of building it. The sink receives exactly the bodies RandomUniverse would create for
+     * the same seed, in the same order, while only the current path is kept in memory.
+     * This universe's galaxies are not modified.
+     * 
+     * @param seed the seed for random generation (0 for random seed)
+     * @param minGalaxies minimum number of galaxies to generate (must be >= 1)
+     * @param maxGalaxies maximum number of galaxies to generate (must be > minGalaxies)
+     * @param minStars minimum number of stars per galaxy (must be >= 1)
+     * @param maxStars maximum number of stars per galaxy (must be > minStars)
+     * @param minPlanets minimum number of planets per star (must be >= 1)
+     * @param maxPlanets maximum number of planets per star (must be > minPlanets)
+     * @param minMoons minimum number of moons per planet (must be >= 0)
+     * @param maxMoons maximum number of moons per planet (must be > minMoons)
+     * @param sink the sink receiving the generated bodies
+     * @throws IllegalArgumentException if any parameters are invalid or the sink is null
+     */
+    public void StreamRandomUniverse(long seed, int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons, iUniverseSink sink) throws IllegalArgumentException
+    {
+        if(sink == null)
+        {
+            String message = "Cannot stream random universe: sink is null";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ValidateRandomParameters(seed, minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons);
+
+        mLogger.LogInfo("Streaming universe");
+        GenerateRandom(SeededRandom(seed), minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons, sink);
+        mLogger.LogInfo("Universe streamed");
+    }
+
+    /**
+     * Streams the bodies of this universe to a sink, depth first and in index order.
+     * The sink receives the same events StreamRandomUniverse produces, so any sink can be used to
+     * copy an existing universe. Sinks receive moons without children, so a universe in which a moon
+     * has moons of its own is refused before anything is streamed rather than losing those moons.
+     * 
+     * @param sink the sink receiving the bodies
+     * @throws IllegalArgumentException if the sink is null
+     * @throws IllegalStateException if a moon of the universe has moons
+     */
+    public void StreamTo(iUniverseSink sink) throws IllegalArgumentException, IllegalStateException
+    {
+        ReentrantLock lock = Lock();
+        try
+        {
+            if(sink == null)
+            {
+                String message = "Cannot stream universe: sink is null";
+                mLogger.LogError(message);
+                throw new IllegalArgumentException(message);
+            }
+            cPlanet nested = FindMoonWithMoons();
+            if(nested != null)
+            {
+                String message = "Cannot stream universe: moon " + nested.GetName() + " has moons, which sinks cannot receive";
+                mLogger.LogError(message);
+                throw new IllegalStateException(message);
+            }
+
+            for(int g = 0; g < GetGalaxyCount(); g++)
+            {
+                cGalaxy galaxy = GetGalaxy(g);
+                sink.BeginGalaxy(galaxy.GetName(), galaxy.GetType());
+                for(int s = 0; s < galaxy.GetStarCount(); s++)
+                {
+                    cStar star = galaxy.GetStar(s);
+                    sink.BeginStar(star.GetName(), star.GetStarType());
+                    for(int p = 0; p < star.GetPlanetCount(); p++)
+                    {
+                        cPlanet planet = star.GetPlanet(p);
+                        sink.BeginPlanet(planet.GetName(), planet.GetPlanetType());
+                        for(int m = 0; m < planet.GetMoonCount(); m++)
+                        {
+                            cPlanet moon = planet.GetMoon(m);
+                            sink.OnMoon(moon.GetName(), moon.GetPlanetType());
+                        }
+                        sink.EndPlanet();
+                    }
+                    sink.EndStar();
+                }
+                sink.EndGalaxy();
+            }
+        }
+        finally
+        {
+            cObjectBase.Unlock(lock);
+        }
+    }
+
+    /**
+     * Finds a moon that has moons of its own.
+     * 
+     * @return the first such moon in depth first order, or null if no moon has moons
+     */
+    private cPlanet FindMoonWithMoons()
+    {
+        for(int g = 0; g < GetGalaxyCount(); g++)
+        {
+            cGalaxy galaxy = GetGalaxy(g);
+            for(int s = 0; s < galaxy.GetStarCount(); s++)
+            {
+                cStar star = galaxy.GetStar(s);
+                for(int p = 0; p < star.GetPlanetCount(); p++)
+                {
+                    cPlanet planet = star.GetPlanet(p);
+                    for(int m = 0; m < planet.GetMoonCount(); m++)
+                    {
+                        if(planet.GetMoon(m).GetMoonCount() > 0)
+                        {
+                            return planet.GetMoon(m);
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the random number generator for sequential generation.
+     * 
+     * @param seed the seed for random generation (0 for random seed)
+     * @return the seeded random number generator
+     */
+    private static Random SeededRandom(long seed)
+    {
+        if(seed == 0)
+        {
+            return new Random();
+        }
+        return new Random(seed);
+    }
+
+    /**
+     * Sequential generation shared by RandomUniverse and StreamRandomUniverse.
+     * Draws every value from a single random number generator and pushes each body to the sink.
+     * The number of children is drawn again for every loop iteration, as the original generator did,
+     * so that existing seeds keep producing the same universes.
+     * 
+     * @param rand the random number generator to draw from
+     * @param minGalaxies minimum number of galaxies to generate
+     * @param maxGalaxies maximum number of galaxies to generate
+     * @param minStars minimum number of stars per galaxy
+     * @param maxStars maximum number of stars per galaxy
+     * @param minPlanets minimum number of planets per star
+     * @param maxPlanets maximum number of planets per star
+     * @param minMoons minimum number of moons per planet
+     * @param maxMoons maximum number of moons per planet
+     * @param sink the sink receiving the generated bodies
+     */
+    private static void GenerateRandom(Random rand, int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons, iUniverseSink sink)
+    {
+        //Generate the the galaxies.
+        for(int g = 0; g < rand.nextInt(minGalaxies, maxGalaxies + 1); g++)
+        {
+            sink.BeginGalaxy(cNames.Galaxy(g + 1), cGalaxy.GetRandomGalaxyType(rand));
+
+            //Inside galaxy, generate stars.
+            for(int s = 0; s < rand.nextInt(minStars, maxStars + 1); s++)
+            {
+                sink.BeginStar(cNames.Star(s + 1), cStar.GetRandomStarType(rand));
+
+                //Inside system, generate planets.
+                for(int p = 0; p < rand.nextInt(minPlanets, maxPlanets + 1); p++)
+                {
+                    sink.BeginPlanet(cNames.Planet(p + 1), cPlanet.GetRandomPlanetType(rand));
+
+                    //For planets, generate moons. This doesn't generate moons for moons.
+                    for(int m = 0; m < rand.nextInt(minMoons, maxMoons + 1); m++)
+                    {
+                        sink.OnMoon(cNames.Moon(m + 1), cPlanet.GetRandomPlanetType(rand));
+                    }
+                    sink.EndPlanet();
+                }
+                sink.EndStar();
+            }
+            sink.EndGalaxy();
+        }
+    }
+
+    /**
+     * Sink used by RandomUniverse that builds the generated bodies into a tree.
+     * The children of each body are collected and added in bulk once the body is complete,
+     * and the generated galaxies are left in mGalaxies for the universe to add.
+     * Each body is placed from a seed derived from its parent's seed and its index, as in seeded generation.
+     */
+    private class cTreeBuilder implements iUniverseSink
+    {
+        private final long mSeed;
+        private final ArrayList<cGalaxy> mGalaxies = new ArrayList<cGalaxy>();
+        private final ArrayList<cStar> mStars = new ArrayList<cStar>();
+        private final ArrayList<cPlanet> mPlanets = new ArrayList<cPlanet>();
+        private final ArrayList<cPlanet> mMoons = new ArrayList<cPlanet>();
+        private cGalaxy mGalaxy;
+        private cStar mStar;
+        private cPlanet mPlanet;
+        private long mGalaxySeed;
+        private long mStarSeed;
+        private long mPlanetSeed;
+
+        cTreeBuilder(long seed)
+        {
+            mSeed = seed;
+        }
+
+        @Override
+        public void BeginGalaxy(String name, cGalaxy.eGalaxyType type)
+        {
+            mLogger.LogInfo("Generating galaxy");
+            mGalaxy = mArena.NewGalaxy(name, type, mLogger);
+            mGalaxySeed = cSeed.Derive(mSeed, mGalaxies.size());
+            cSeededGenerator.PlaceGalaxy(mGalaxy, mGalaxySeed);
+        }
+
+        @Override
+        public void EndGalaxy()
+        {
+            mGalaxy.AddStars(mStars);
+            mStars.clear();
+            mLogger.LogInfo("Galaxy generated: " + mGalaxy.ToString());
+            mGalaxies.add(mGalaxy);
+        }
+
+        @Override
+        public void BeginStar(String name, cStar.eStarType type)
+        {
+            mLogger.LogInfo("Generating star");
+            mStar = mArena.NewStar(name, type, mLogger);
+            mStarSeed = cSeed.Derive(mGalaxySeed, mStars.size());
+            cSeededGenerator.PlaceStar(mStar, mStarSeed);
+        }
+
+        @Override
+        public void EndStar()
+        {
+            mStar.AddPlanets(mPlanets);
+            mPlanets.clear();
+            mLogger.LogInfo("Star generated: " + mStar.ToString());
+            mStars.add(mStar);
+        }
+
+        @Override
+        public void BeginPlanet(String name, cPlanet.ePlanetType type)
+        {
+            mLogger.LogInfo("Generating planet");
+            mPlanet = mArena.NewPlanet(name, type, mLogger);
+            mPlanetSeed = cSeed.Derive(mStarSeed, mPlanets.size());
+            cSeededGenerator.PlacePlanet(mPlanet, mPlanetSeed);
+        }
+
+        @Override
+        public void EndPlanet()
+        {
+            if(!mMoons.isEmpty())
+            {
+                mPlanet.AddMoons(mMoons);
+                mMoons.clear();
+            }
+            mLogger.LogInfo("Planet generated: " + mPlanet.ToString());
+            mPlanets.add(mPlanet);
+        }
+
+        @Override
+        public void OnMoon(String name, cPlanet.ePlanetType type)
+        {
+            mLogger.LogInfo("Generating moon");
+            cPlanet moon = mArena.NewPlanet(name, type, mLogger);
+            cSeededGenerator.PlaceMoon(moon, cSeed.Derive(mPlanetSeed, mMoons.size()));
+            mLogger.LogInfo("Moon generated: " + moon.ToString());
+            mMoons.add(moon);
+        }
+    }
+
+    /**
+     * Generates a random universe with the specified parameters using a random seed.
+     * This is a convenience method that calls the seeded version with seed = 0.
      * 
      * @param minGalaxies minimum number of galaxies to generate (must be >= 1)
      * @param maxGalaxies maximum number of galaxies to generate (must be > minGalaxies)
@@ -357,6 +1620,117 @@ public class cUniverse
         RandomUniverse(0, minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons);
     }
 
+    /**
+     * Generates a random universe in parallel with the specified parameters and seed.
+     * Each galaxy, and each star within a galaxy, is generated from its own seed derived from
+     * the top level seed, and large galaxies have their stars split across several tasks.
+     * A given seed therefore always produces the same universe regardless of the parallelism,
+     * but not the same universe as the sequential RandomUniverse for that seed.
+     * Clears any existing galaxies before generating new content.
+     * 
+     * @param seed the seed for random generation (0 for random seed)
+     * @param minGalaxies minimum number of galaxies to generate (must be >= 1)
+     * @param maxGalaxies maximum number of galaxies to generate (must be > minGalaxies)
+     * @param minStars minimum number of stars per galaxy (must be >= 1)
+     * @param maxStars maximum number of stars per galaxy (must be > minStars)
+     * @param minPlanets minimum number of planets per star (must be >= 1)
+     * @param maxPlanets maximum number of planets per star (must be > minPlanets)
+     * @param minMoons minimum number of moons per planet (must be >= 0)
+     * @param maxMoons maximum number of moons per planet (must be > minMoons)
+     * @param pool the fork-join pool to generate on
+     * @throws IllegalArgumentException if any parameters are invalid or the pool is null
+     */
+    public void RandomUniverseParallel(long seed, int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons, ForkJoinPool pool) throws IllegalArgumentException
+    {
+        if(pool == null)
+        {
+            String message = "Cannot create random universe: fork-join pool is null";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ValidateRandomParameters(seed, minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons);
+
+        //Make sure to clear the existing universe first.
+        ClearGalaxies();
+
+        //Pick a seed if none was given, all subtree seeds are derived from it.
+        if(seed == 0)
+        {
+            seed = new Random().nextLong();
+        }
+        cSeededGenerator generator = new cSeededGenerator(minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons, mLogger);
+        int galaxyCount = generator.GetGalaxyCount(seed);
+
+        mLogger.LogInfo("Generating universe in parallel with " + galaxyCount + " galaxies");
+
+        AddGalaxies(Arrays.asList(new cParallelGenerator(generator).Generate(seed, galaxyCount, pool)));
+
+        mLogger.LogInfo("Universe generated");
+    }
+
+    /**
+     * Generates a random universe in parallel on the common fork-join pool.
+     * 
+     * @param seed the seed for random generation (0 for random seed)
+     * @param minGalaxies minimum number of galaxies to generate (must be >= 1)
+     * @param maxGalaxies maximum number of galaxies to generate (must be > minGalaxies)
+     * @param minStars minimum number of stars per galaxy (must be >= 1)
+     * @param maxStars maximum number of stars per galaxy (must be > minStars)
+     * @param minPlanets minimum number of planets per star (must be >= 1)
+     * @param maxPlanets maximum number of planets per star (must be > minPlanets)
+     * @param minMoons minimum number of moons per planet (must be >= 0)
+     * @param maxMoons maximum number of moons per planet (must be > minMoons)
+     * @throws IllegalArgumentException if any parameters are invalid
+     * @see #RandomUniverseParallel(long, int, int, int, int, int, int, int, int, ForkJoinPool)
+     */
+    public void RandomUniverseParallel(long seed, int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons) throws IllegalArgumentException
+    {
+        RandomUniverseParallel(seed, minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Starts generating a random universe into this universe on the given executor and returns at once.
+     * The universe generated for a seed is the same as RandomUniverseParallel produces for that seed.
+     * Progress can be followed and the generation cancelled through the returned handle. Existing
+     * galaxies are cleared when the generation starts so that their objects can be reused, and a
+     * cancelled generation leaves the universe empty. The universe must not be accessed from other
+     * threads until the handle's future has completed.
+     * 
+     * @param seed the seed for random generation (0 for random seed)
+     * @param minGalaxies minimum number of galaxies to generate (must be >= 1)
+     * @param maxGalaxies maximum number of galaxies to generate (must be > minGalaxies)
+     * @param minStars minimum number of stars per galaxy (must be >= 1)
+     * @param maxStars maximum number of stars per galaxy (must be > minStars)
+     * @param minPlanets minimum number of planets per star (must be >= 1)
+     * @param maxPlanets maximum number of planets per star (must be > minPlanets)
+     * @param minMoons minimum number of moons per planet (must be >= 0)
+     * @param maxMoons maximum number of moons per planet (must be > minMoons)
+     * @param executor the executor to generate on
+     * @return the handle of the running generation
+     * @throws IllegalArgumentException if any parameters are invalid or the executor is null
+     */
+    public cGenerationHandle RandomUniverseAsync(long seed, int minGalaxies, int maxGalaxies, int minStars, int maxStars, int minPlanets, int maxPlanets, int minMoons, int maxMoons, Executor executor) throws IllegalArgumentException
+    {
+        if(executor == null)
+        {
+            String message = "Cannot create random universe: executor is null";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ValidateRandomParameters(seed, minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons);
+
+        if(seed == 0)
+        {
+            seed = new Random().nextLong();
+        }
+        cSeededGenerator generator = new cSeededGenerator(minGalaxies, maxGalaxies, minStars, maxStars, minPlanets, maxPlanets, minMoons, maxMoons, mLogger, mArena);
+        cGenerationHandle handle = new cGenerationHandle(this, generator, seed);
+
+        mLogger.LogInfo("Generating universe asynchronously");
+        executor.execute(handle::Run);
+        return handle;
+    }
+
     /**
      * Creates a default test universe with predefined parameters.
      * Generates 2-3 galaxies, each with 9-16 star systems, 1-12 planets per system,
@@ -0,0 +1,332 @@
+package Data;
+
+import java.util.Arrays;
+
+/**
+ * Reusable cursor that walks a universe depth first, one body per call to Next.
+ * Bodies are reached in the same order as with a visitor: each galaxy, then its stars, each star
+ * followed by its planets and each planet by its moons at any depth. The cursor keeps the current
+ * path in arrays and reads the child lists through the unchecked accessors, so stepping does not
+ * allocate, check indexes or log. A cursor can be reset and reused for any number of walks; its
+ * arrays only grow when a walk reaches moons nested deeper than any earlier walk.
+ * The cursor takes no locks. The universe must not be changed during a walk; in concurrent mode,
+ * walk a snapshot of the universe instead.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public final class cUniverseCursor
+{
+    /**
+     * Level of the body at the cursor.
+     */
+    public enum eLevel
+    {
+        kGalaxy,
+        kStar,
+        kPlanet,
+        kMoon
+    }
+
+    /**
+     * Depth of a galaxy in the path.
+     */
+    private static final int GALAXY_DEPTH = 0;
+
+    /**
+     * Depth of a star in the path.
+     */
+    private static final int STAR_DEPTH = 1;
+
+    /**
+     * Depth of a planet in the path; moons follow at greater depths.
+     */
+    private static final int PLANET_DEPTH = 2;
+
+    /**
+     * The universe being walked, or null if the cursor was not reset.
+     */
+    private cUniverse mUniverse;
+
+    /**
+     * The galaxy on the current path.
+     */
+    private cGalaxy mGalaxy;
+
+    /**
+     * The star on the current path.
+     */
+    private cStar mStar;
+
+    /**
+     * The planet and moons on the current path, indexed by depth minus PLANET_DEPTH.
+     */
+    private cPlanet[] mBodies;
+
+    /**
+     * Index of each body on the current path within its parent, indexed by depth.
+     */
+    private int[] mIndexes;
+
+    /**
+     * Depth of the body at the cursor, or -1 before the first body.
+     */
+    private int mDepth;
+
+    /**
+     * Whether the children of the body at the cursor are skipped by the next step.
+     */
+    private boolean mSkipChildren;
+
+    /**
+     * Whether the walk has passed the last body.
+     */
+    private boolean mDone;
+
+    /**
+     * Constructs a cursor that is not positioned on any universe.
+     */
+    public cUniverseCursor()
+    {
+        mBodies = new cPlanet[4];
+        mIndexes = new int[PLANET_DEPTH + mBodies.length];
+        mDone = true;
+        mDepth = -1;
+    }
+
+    /**
+     * Constructs a cursor positioned before the first galaxy of a universe.
+     *
+     * @param universe the universe to walk
+     * @throws IllegalArgumentException if the universe is null
+     */
+    public cUniverseCursor(cUniverse universe) throws IllegalArgumentException
+    {
+        this();
+        Reset(universe);
+    }
+
+    /**
+     * Positions the cursor before the first galaxy of a universe, keeping its arrays for reuse.
+     *
+     * @param universe the universe to walk
+     * @throws IllegalArgumentException if the universe is null
+     */
+    public void Reset(cUniverse universe) throws IllegalArgumentException
+    {
+        if(universe == null)
+        {
+            throw new IllegalArgumentException("Cannot walk null universe.");
+        }
+        Arrays.fill(mBodies, null);
+        mUniverse = universe;
+        mGalaxy = null;
+        mStar = null;
+        mDepth = -1;
+        mSkipChildren = false;
+        mDone = false;
+    }
+
+    /**
+     * Moves the cursor to the next body in depth first order.
+     *
+     * @return true if the cursor is on a body, false if the walk is over
+     */
+    public boolean Next()
+    {
+        if(mDone)
+        {
+            return false;
+        }
+        if(!mSkipChildren && ChildCount(mDepth) > 0)
+        {
+            mDepth++;
+            Move(0);
+            return true;
+        }
+        mSkipChildren = false;
+        while(mDepth >= 0)
+        {
+            int next = mIndexes[mDepth] + 1;
+            if(next < ChildCount(mDepth - 1))
+            {
+                Move(next);
+                return true;
+            }
+            if(mDepth >= PLANET_DEPTH)
+            {
+                mBodies[mDepth - PLANET_DEPTH] = null;
+            }
+            mDepth--;
+        }
+        mDone = true;
+        return false;
+    }
+
+    /**
+     * Skips the children of the body at the cursor, so the next step moves to its next sibling
+     * or to the next sibling of one of its parents.
+     */
+    public void SkipChildren()
+    {
+        mSkipChildren = true;
+    }
+
+    /**
+     * Gets the level of the body at the cursor.
+     *
+     * @return the level of the body, or null if the cursor is not on a body
+     */
+    public eLevel GetLevel()
+    {
+        if(mDepth < 0 || mDone)
+        {
+            return null;
+        }
+        switch(mDepth)
+        {
+            case GALAXY_DEPTH:
+                return eLevel.kGalaxy;
+            case STAR_DEPTH:
+                return eLevel.kStar;
+            case PLANET_DEPTH:
+                return eLevel.kPlanet;
+            default:
+                return eLevel.kMoon;
+        }
+    }
+
+    /**
+     * Gets the depth of the body at the cursor: 0 for a galaxy, 1 for a star, 2 for a planet and
+     * 3 or more for a moon.
+     *
+     * @return the depth of the body, or -1 if the cursor is not on a body
+     */
+    public int GetDepth()
+    {
+        return mDone ? -1 : mDepth;
+    }
+
+    /**
+     * Gets the index of the body at the cursor within its parent.
+     *
+     * @return the index of the body, or -1 if the cursor is not on a body
+     */
+    public int GetIndex()
+    {
+        return mDepth < 0 || mDone ? -1 : mIndexes[mDepth];
+    }
+
+    /**
+     * Gets the body at the cursor.
+     *
+     * @return the body, or null if the cursor is not on a body
+     */
+    public cObjectBase GetCurrent()
+    {
+        if(mDepth < 0 || mDone)
+        {
+            return null;
+        }
+        switch(mDepth)
+        {
+            case GALAXY_DEPTH:
+                return mGalaxy;
+            case STAR_DEPTH:
+                return mStar;
+            default:
+                return mBodies[mDepth - PLANET_DEPTH];
+        }
+    }
+
+    /**
+     * Gets the galaxy at or above the cursor.
+     *
+     * @return the galaxy, or null if the cursor is not on a body
+     */
+    public cGalaxy GetGalaxy()
+    {
+        return mDepth >= GALAXY_DEPTH && !mDone ? mGalaxy : null;
+    }
+
+    /**
+     * Gets the star at or above the cursor.
+     *
+     * @return the star, or null if the cursor is on a galaxy or not on a body
+     */
+    public cStar GetStar()
+    {
+        return mDepth >= STAR_DEPTH && !mDone ? mStar : null;
+    }
+
+    /**
+     * Gets the planet at or above the cursor.
+     *
+     * @return the planet, or null if the cursor is above the planets or not on a body
+     */
+    public cPlanet GetPlanet()
+    {
+        return mDepth >= PLANET_DEPTH && !mDone ? mBodies[0] : null;
+    }
+
+    /**
+     * Gets the moon at the cursor.
+     *
+     * @return the moon, or null if the cursor is not on a moon
+     */
+    public cPlanet GetMoon()
+    {
+        return mDepth > PLANET_DEPTH && !mDone ? mBodies[mDepth - PLANET_DEPTH] : null;
+    }
+
+    /**
+     * Gets the number of children of the body at a depth of the current path.
+     *
+     * @param depth the depth of the body, -1 for the universe
+     * @return the number of children of the body
+     */
+    private int ChildCount(int depth)
+    {
+        switch(depth)
+        {
+            case -1:
+                return mUniverse.GalaxyCount();
+            case GALAXY_DEPTH:
+                return mGalaxy.StarCount();
+            case STAR_DEPTH:
+                return mStar.PlanetCount();
+            default:
+                return mBodies[depth - PLANET_DEPTH].MoonCount();
+        }
+    }
+
+    /**
+     * Puts the child at an index of the parent of the current depth on the path.
+     *
+     * @param index the index of the child within its parent
+     */
+    private void Move(int index)
+    {
+        if(mDepth >= mIndexes.length)
+        {
+            mIndexes = Arrays.copyOf(mIndexes, mIndexes.length * 2);
+            mBodies = Arrays.copyOf(mBodies, mIndexes.length - PLANET_DEPTH);
+        }
+        mIndexes[mDepth] = index;
+        switch(mDepth)
+        {
+            case GALAXY_DEPTH:
+                mGalaxy = mUniverse.GalaxyAt(index);
+                break;
+            case STAR_DEPTH:
+                mStar = mGalaxy.StarAt(index);
+                break;
+            case PLANET_DEPTH:
+                mBodies[0] = mStar.PlanetAt(index);
+                break;
+            default:
+                mBodies[mDepth - PLANET_DEPTH] = mBodies[mDepth - PLANET_DEPTH - 1].MoonAt(index);
+                break;
+        }
+    }
+}
@@ -0,0 +1,689 @@
+package Data;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import Logging.cLoggingBase;
+
+/**
+ * Reads a universe file written by cUniverseFileWriter into a universe, through a buffer refilled from a channel.
+ * Bodies are decoded in one pass and attached level by level as the generators do, so millions of bodies
+ * load in well under a second.
+ *
+ * A universe file stores the whole hierarchy depth first, one block per galaxy, with every name stored once.
+ * Fixed size values are little endian, and counts and name ids are unsigned LEB128 varints of up to five bytes:
+ * <pre>
+ * header   int magic "SVUF", int version, int galaxy count, int name count
+ * names    for each name, varint UTF-8 byte length and the UTF-8 bytes
+ * galaxies one block per galaxy, holding the galaxy record
+ * galaxy   byte type, varint name id, [position], varint star count, star records
+ * star     byte type, varint name id, [position], int byte length of the rest of the star,
+ *          varint planet count, planet records
+ * planet   byte type, varint name id, [position], [orbit], varint moon count, moons as planet records
+ * index    for each galaxy, long offset of its block from the start of the file
+ * trailer  long offset of the index, int magic
+ * </pre>
+ * Name id 0 stands for a body without a name, and id n for name n - 1 of the table.
+ * The type byte holds the ordinal of the body type in its low six bits. Bit 6 is set when a position
+ * follows, as three doubles x, y and z, and bodies at the origin leave it out. Bit 7 is set when an
+ * orbit follows, as seven doubles: semi-major axis, eccentricity, inclination, ascending node, argument
+ * of periapsis, mean anomaly and period. Moons are planet records, so moons can have moons of their own.
+ * The byte length of each star lets a reader skip its planets, and the index and trailer let a reader
+ * find any galaxy without decoding the ones before it. A sequential reader only needs the index to check
+ * that the file is complete.
+ *
+ * Version 2 files are compressed. Each galaxy block is stored as an int length of the compressed bytes,
+ * an int length of the block and the block compressed on its own with Deflater, and the index gives the
+ * offset of each compressed block. Any galaxy can therefore be decompressed without the ones before it,
+ * and this reader decompresses several blocks at once on the common fork join pool while it decodes the
+ * earlier ones in order.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cUniverseFileReader
+{
+    /**
+     * Value of the first four bytes of a universe file, and of its last four, "SVUF" in little endian.
+     */
+    static final int MAGIC = 0x46555653;
+
+    /**
+     * Version of the file layout.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Version of the file layout with compressed galaxy blocks.
+     */
+    static final int COMPRESSED_VERSION = 2;
+
+    /**
+     * Size of the file header in bytes.
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * Size of the file trailer in bytes.
+     */
+    static final int TRAILER_SIZE = 12;
+
+    /**
+     * Mask of the type ordinal in the type byte of a record.
+     */
+    static final int TYPE_MASK = 0x3F;
+
+    /**
+     * Flag of the type byte set when the record holds a position.
+     */
+    static final int HAS_POSITION = 0x40;
+
+    /**
+     * Flag of the type byte set when the record holds an orbit.
+     */
+    static final int HAS_ORBIT = 0x80;
+
+    /**
+     * Largest size of the fixed part of a record, that of a planet with a position and an orbit.
+     */
+    static final int MAX_RECORD = 1 + 5 + 3 * 8 + 7 * 8 + 5;
+
+    /**
+     * Size of the read buffer.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Largest number of galaxies or names allocated for up front, so that a damaged count cannot exhaust the heap.
+     */
+    private static final int MAX_PRESIZE = 1 << 12;
+
+    /**
+     * Largest ratio of the length of a block to its compressed length that Deflater can reach, so that a
+     * damaged length cannot exhaust the heap.
+     */
+    private static final int MAX_RATIO = 1032;
+
+    /**
+     * Most galaxies being decompressed at once, which bounds the memory held by decompressed blocks.
+     */
+    private static final int MAX_PENDING = ForkJoinPool.getCommonPoolParallelism() + 1;
+
+    /**
+     * Galaxy types in ordinal order.
+     */
+    private static final cGalaxy.eGalaxyType[] GALAXY_TYPES = cGalaxy.eGalaxyType.values();
+
+    /**
+     * Star types in ordinal order.
+     */
+    private static final cStar.eStarType[] STAR_TYPES = cStar.eStarType.values();
+
+    /**
+     * Planet types in ordinal order.
+     */
+    private static final cPlanet.ePlanetType[] PLANET_TYPES = cPlanet.ePlanetType.values();
+
+    /**
+     * Logger to report progress and errors to.
+     */
+    private final cLoggingBase mLogger;
+
+    /**
+     * Channel the file is read from.
+     */
+    private final ReadableByteChannel mChannel;
+
+    /**
+     * Buffer of bytes read from the channel and not decoded yet, ready for reading.
+     */
+    private ByteBuffer mBuffer;
+
+    /**
+     * Whether mBuffer holds a decompressed galaxy block, which is complete and must not be refilled from the channel.
+     */
+    private boolean mInBlock;
+
+    /**
+     * Number of bytes read from the channel so far.
+     */
+    private long mRead;
+
+    /**
+     * Name table of the file.
+     */
+    private String[] mNames;
+
+    /**
+     * Arena the bodies are taken from.
+     */
+    private cObjectArena mArena;
+
+    /**
+     * Stars of the galaxy being read.
+     */
+    private final ArrayList<cStar> mStars = new ArrayList<cStar>();
+
+    /**
+     * Planets being read, one list for each level of moons.
+     */
+    private final ArrayList<ArrayList<cPlanet>> mPlanets = new ArrayList<ArrayList<cPlanet>>();
+
+    /**
+     * Constructs a reader over a channel positioned at the start of a universe file.
+     * The channel is not closed by the reader.
+     *
+     * @param channel the channel to read from
+     * @param logger the logger to use while reading, also given to the bodies read
+     */
+    public cUniverseFileReader(ReadableByteChannel channel, cLoggingBase logger)
+    {
+        mLogger = logger;
+        mChannel = channel;
+        mBuffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        mBuffer.flip();
+    }
+
+    /**
+     * Reads the universe file and replaces the galaxies of a universe with its contents.
+     * The header and name table are checked before the universe is cleared, so a file of the wrong kind
+     * leaves the universe unchanged, while a file that turns out to be damaged further on leaves it empty.
+     *
+     * @param universe the universe to fill
+     * @throws IOException if the channel cannot be read or does not hold a valid universe file
+     */
+    public void Read(cUniverse universe) throws IOException
+    {
+        try
+        {
+            Require(HEADER_SIZE);
+            if(mBuffer.remaining() < HEADER_SIZE || mBuffer.getInt() != MAGIC)
+            {
+                throw Invalid("not a universe file");
+            }
+            int version = mBuffer.getInt();
+            if(version != VERSION && version != COMPRESSED_VERSION)
+            {
+                throw Invalid("unsupported version " + version);
+            }
+            int galaxyCount = mBuffer.getInt();
+            int nameCount = mBuffer.getInt();
+            if(galaxyCount < 0 || nameCount < 0)
+            {
+                throw Invalid("inconsistent header");
+            }
+            mNames = ReadNames(nameCount);
+
+            universe.ClearGalaxies();
+            mArena = universe.Arena();
+            ArrayList<cGalaxy> galaxies = new ArrayList<cGalaxy>(Math.min(galaxyCount, MAX_PRESIZE));
+            long[] offsets = new long[Math.min(galaxyCount, MAX_PRESIZE)];
+            ArrayDeque<ForkJoinTask<ByteBuffer>> pending = new ArrayDeque<ForkJoinTask<ByteBuffer>>();
+            for(int g = 0; g < galaxyCount; g++)
+            {
+                if(g == offsets.length)
+                {
+                    offsets = Arrays.copyOf(offsets, 2 * g);
+                }
+                offsets[g] = Offset();
+                if(version == COMPRESSED_VERSION)
+                {
+                    pending.add(ReadBlock());
+                    if(pending.size() > MAX_PENDING)
+                    {
+                        galaxies.add(DecodeBlock(pending.poll()));
+                    }
+                }
+                else
+                {
+                    galaxies.add(ReadGalaxy());
+                }
+            }
+            while(!pending.isEmpty())
+            {
+                galaxies.add(DecodeBlock(pending.poll()));
+            }
+            CheckIndex(offsets, galaxyCount);
+            universe.AddGalaxies(galaxies);
+            mLogger.LogInfo("Read universe with " + galaxyCount + " galaxies and " + nameCount + " names");
+        }
+        catch(BufferUnderflowException e)
+        {
+            throw Invalid("file is truncated");
+        }
+        finally
+        {
+            mArena = null;
+            mStars.clear();
+            mPlanets.clear();
+        }
+    }
+
+    /**
+     * Reads the name table.
+     *
+     * @param count the number of names in the table
+     * @return the names in order of their ids
+     * @throws IOException if the channel cannot be read or a name is damaged
+     */
+    private String[] ReadNames(int count) throws IOException
+    {
+        ArrayList<String> names = new ArrayList<String>(Math.min(count, MAX_PRESIZE));
+        for(int n = 0; n < count; n++)
+        {
+            Require(5);
+            int length = GetVarint(mBuffer);
+            if(length < 0)
+            {
+                throw Invalid("damaged name table");
+            }
+            Require(length);
+            if(mBuffer.remaining() < length)
+            {
+                throw new BufferUnderflowException();
+            }
+            names.add(cNames.Intern(new String(mBuffer.array(), mBuffer.arrayOffset() + mBuffer.position(), length, StandardCharsets.UTF_8)));
+            mBuffer.position(mBuffer.position() + length);
+        }
+        return names.toArray(new String[count]);
+    }
+
+    /**
+     * Reads a compressed galaxy block and starts decompressing it on the common fork join pool.
+     *
+     * @return the task decompressing the block, which gives null if the block is damaged
+     * @throws IOException if the channel cannot be read or the lengths of the block are damaged
+     */
+    private ForkJoinTask<ByteBuffer> ReadBlock() throws IOException
+    {
+        Require(8);
+        int compressedLength = mBuffer.getInt();
+        int length = mBuffer.getInt();
+        if(!IsBlockLength(compressedLength, length))
+        {
+            throw Invalid("damaged galaxy block");
+        }
+        Require(compressedLength);
+        if(mBuffer.remaining() < compressedLength)
+        {
+            throw new BufferUnderflowException();
+        }
+        ByteBuffer compressed = ByteBuffer.allocate(compressedLength);
+        compressed.put(mBuffer.slice(mBuffer.position(), compressedLength)).flip();
+        mBuffer.position(mBuffer.position() + compressedLength);
+        return ForkJoinPool.commonPool().submit(() -> Inflate(compressed, length));
+    }
+
+    /**
+     * Waits for a compressed galaxy block to be decompressed and decodes it.
+     *
+     * @param task the task decompressing the block
+     * @return the galaxy with its stars attached
+     * @throws IOException if the block is damaged
+     */
+    private cGalaxy DecodeBlock(ForkJoinTask<ByteBuffer> task) throws IOException
+    {
+        ByteBuffer block = task.join();
+        if(block == null)
+        {
+            throw Invalid("damaged galaxy block");
+        }
+        ByteBuffer buffer = mBuffer;
+        mBuffer = block;
+        mInBlock = true;
+        try
+        {
+            cGalaxy galaxy = ReadGalaxy();
+            if(mBuffer.hasRemaining())
+            {
+                throw Invalid("damaged galaxy block");
+            }
+            return galaxy;
+        }
+        catch(BufferUnderflowException e)
+        {
+            throw Invalid("damaged galaxy block");
+        }
+        finally
+        {
+            mBuffer = buffer;
+            mInBlock = false;
+        }
+    }
+
+    /**
+     * Checks that the lengths of a compressed galaxy block are possible, before memory is allocated for it.
+     *
+     * @param compressedLength the length of the compressed bytes
+     * @param length the length of the block
+     * @return true if Deflater can compress a block of that length to that many bytes
+     */
+    static boolean IsBlockLength(int compressedLength, int length)
+    {
+        return compressedLength >= 0 && length >= 0 && length < Integer.MAX_VALUE - 8 && length <= (long)MAX_RATIO * compressedLength + 64;
+    }
+
+    /**
+     * Decompresses a galaxy block.
+     *
+     * @param compressed the compressed bytes, which are consumed
+     * @param length the length of the block
+     * @return a little endian buffer holding exactly the block, or null if the compressed bytes are damaged
+     */
+    static ByteBuffer Inflate(ByteBuffer compressed, int length)
+    {
+        Inflater inflater = new Inflater();
+        try
+        {
+            //One spare byte makes a block longer than its length show up instead of stopping the inflater.
+            inflater.setInput(compressed);
+            ByteBuffer block = ByteBuffer.allocate(length + 1).order(ByteOrder.LITTLE_ENDIAN);
+            while(!inflater.finished())
+            {
+                if(inflater.inflate(block) == 0 && (inflater.needsInput() || inflater.needsDictionary() || !block.hasRemaining()))
+                {
+                    return null;
+                }
+            }
+            if(block.position() != length || inflater.getRemaining() != 0)
+            {
+                return null;
+            }
+            return block.flip();
+        }
+        catch(DataFormatException e)
+        {
+            return null;
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Reads a galaxy block.
+     *
+     * @return the galaxy with its stars attached
+     * @throws IOException if the channel cannot be read or the block is damaged
+     */
+    private cGalaxy ReadGalaxy() throws IOException
+    {
+        Require(MAX_RECORD);
+        int type = mBuffer.get() & 0xFF;
+        cGalaxy galaxy = mArena.NewGalaxy(Name(), Type(GALAXY_TYPES, type), mLogger);
+        ReadPosition(galaxy, type);
+        int starCount = Count();
+
+        ArrayList<cStar> stars = mStars;
+        for(int s = 0; s < starCount; s++)
+        {
+            Require(MAX_RECORD);
+            type = mBuffer.get() & 0xFF;
+            cStar star = mArena.NewStar(Name(), Type(STAR_TYPES, type), mLogger);
+            ReadPosition(star, type);
+            int length = mBuffer.getInt();
+            long end = Offset() + length;
+            ArrayList<cPlanet> planets = ReadPlanets(0);
+            if(Offset() != end)
+            {
+                throw Invalid("damaged star " + star.mName);
+            }
+            star.AddPlanets(planets);
+            planets.clear();
+            stars.add(star);
+        }
+        galaxy.AddStars(stars);
+        stars.clear();
+        return galaxy;
+    }
+
+    /**
+     * Reads a count of planets and the planets, with their moons attached.
+     *
+     * @param depth the level of the planets, 0 for the planets of a star and 1 and more for moons
+     * @return the list of the planets read, which the caller must clear once it has attached them
+     * @throws IOException if the channel cannot be read or a record is damaged
+     */
+    private ArrayList<cPlanet> ReadPlanets(int depth) throws IOException
+    {
+        if(mPlanets.size() == depth)
+        {
+            mPlanets.add(new ArrayList<cPlanet>());
+        }
+        ArrayList<cPlanet> planets = mPlanets.get(depth);
+        int count = Count();
+        for(int p = 0; p < count; p++)
+        {
+            Require(MAX_RECORD);
+            int type = mBuffer.get() & 0xFF;
+            cPlanet planet = mArena.NewPlanet(Name(), Type(PLANET_TYPES, type), mLogger);
+            ReadPosition(planet, type);
+            if((type & HAS_ORBIT) != 0)
+            {
+                planet.mOrbit = ReadOrbit();
+            }
+            ArrayList<cPlanet> moons = ReadPlanets(depth + 1);
+            if(!moons.isEmpty())
+            {
+                planet.AddMoons(moons);
+                moons.clear();
+            }
+            planets.add(planet);
+        }
+        return planets;
+    }
+
+    /**
+     * Reads the position of a record if its type byte says it has one.
+     *
+     * @param body the body to place
+     * @param type the type byte of the record
+     * @throws IOException if the position is not finite
+     */
+    private void ReadPosition(cObjectBase body, int type) throws IOException
+    {
+        if((type & HAS_POSITION) != 0)
+        {
+            double x = mBuffer.getDouble();
+            double y = mBuffer.getDouble();
+            double z = mBuffer.getDouble();
+            if(!Double.isFinite(x) || !Double.isFinite(y) || !Double.isFinite(z))
+            {
+                throw Invalid("damaged position of " + body.mName);
+            }
+            body.Place(x, y, z);
+        }
+    }
+
+    /**
+     * Reads an orbit.
+     *
+     * @return the orbit
+     * @throws IOException if the elements do not form a valid orbit
+     */
+    private cOrbit ReadOrbit() throws IOException
+    {
+        double semiMajorAxis = mBuffer.getDouble();
+        double eccentricity = mBuffer.getDouble();
+        double inclination = mBuffer.getDouble();
+        double ascendingNode = mBuffer.getDouble();
+        double periapsisArgument = mBuffer.getDouble();
+        double meanAnomaly = mBuffer.getDouble();
+        double period = mBuffer.getDouble();
+        try
+        {
+            return new cOrbit(semiMajorAxis, eccentricity, inclination, ascendingNode, periapsisArgument, meanAnomaly, period);
+        }
+        catch(IllegalArgumentException e)
+        {
+            throw Invalid("damaged orbit: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the galaxy index and the trailer and checks that they match the blocks read.
+     *
+     * @param offsets the offset of each galaxy block read
+     * @param count the number of galaxies read
+     * @throws IOException if the channel cannot be read or the index does not match
+     */
+    private void CheckIndex(long[] offsets, int count) throws IOException
+    {
+        long indexOffset = Offset();
+        for(int g = 0; g < count; g++)
+        {
+            Require(8);
+            if(mBuffer.getLong() != offsets[g])
+            {
+                throw Invalid("damaged galaxy index");
+            }
+        }
+        Require(TRAILER_SIZE);
+        if(mBuffer.getLong() != indexOffset || mBuffer.getInt() != MAGIC)
+        {
+            throw Invalid("damaged trailer");
+        }
+    }
+
+    /**
+     * Reads a name id and looks the name up.
+     *
+     * @return the name, or null for id 0
+     * @throws IOException if the id is not in the name table
+     */
+    private String Name() throws IOException
+    {
+        int id = GetVarint(mBuffer);
+        if(id < 0 || id > mNames.length)
+        {
+            throw Invalid("name id " + id + " is not in the name table");
+        }
+        return id != 0 ? mNames[id - 1] : null;
+    }
+
+    /**
+     * Reads a count of child records.
+     *
+     * @return the count
+     * @throws IOException if the count is damaged
+     */
+    private int Count() throws IOException
+    {
+        int count = GetVarint(mBuffer);
+        if(count < 0)
+        {
+            throw Invalid("damaged count");
+        }
+        return count;
+    }
+
+    /**
+     * Looks up the type of a record from its type byte.
+     *
+     * @param <T> the type enumeration of the body
+     * @param types the values of the enumeration in ordinal order
+     * @param type the type byte of the record
+     * @return the type
+     * @throws IOException if the ordinal is not a type
+     */
+    private <T> T Type(T[] types, int type) throws IOException
+    {
+        int ordinal = type & TYPE_MASK;
+        if(ordinal >= types.length)
+        {
+            throw Invalid("unknown type ordinal " + ordinal);
+        }
+        return types[ordinal];
+    }
+
+    /**
+     * Gets the offset from the start of the file of the next byte to decode.
+     *
+     * @return the offset of the next byte
+     */
+    private long Offset()
+    {
+        return mRead - mBuffer.remaining();
+    }
+
+    /**
+     * Makes sure the buffer holds at least the given number of bytes, unless the file or the decompressed block ends first.
+     * Reading past the end of the file is detected by the buffer when the bytes are decoded. The buffer
+     * only grows as bytes arrive, so a damaged length cannot make it larger than the file.
+     *
+     * @param bytes the number of bytes needed
+     * @throws IOException if the channel cannot be read
+     */
+    private void Require(int bytes) throws IOException
+    {
+        if(mBuffer.remaining() >= bytes || mInBlock)
+        {
+            return;
+        }
+        mBuffer.compact();
+        while(mBuffer.position() < bytes)
+        {
+            if(!mBuffer.hasRemaining())
+            {
+                ByteBuffer larger = ByteBuffer.allocate(2 * mBuffer.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+                mBuffer.flip();
+                larger.put(mBuffer);
+                mBuffer = larger;
+            }
+            int read = mChannel.read(mBuffer);
+            if(read < 0)
+            {
+                break;
+            }
+            mRead += read;
+        }
+        mBuffer.flip();
+    }
+
+    /**
+     * Decodes an unsigned LEB128 varint of up to five bytes.
+     *
+     * @param buffer the buffer to decode from, advanced past the varint
+     * @return the value, or -1 if the varint is longer than five bytes or does not fit an int
+     * @throws BufferUnderflowException if the buffer ends within the varint
+     */
+    static int GetVarint(ByteBuffer buffer) throws BufferUnderflowException
+    {
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7)
+        {
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if(b >= 0)
+            {
+                return shift == 28 && (b & 0x78) != 0 ? -1 : value;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Logs and creates the exception thrown for a file that is not a valid universe file.
+     *
+     * @param reason the reason the file is rejected
+     * @return the exception to throw
+     */
+    private IOException Invalid(String reason)
+    {
+        String message = "Cannot read universe file: " + reason;
+        mLogger.LogError(message);
+        return new IOException(message);
+    }
+}
@@ -0,0 +1,437 @@
+package Data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Deflater;
+
+import Logging.cLoggingBase;
+
+/**
+ * Writes a universe to a channel as a universe file, which cUniverseFileReader reads back.
+ * A first walk collects the distinct names into the name table, and a second encodes the bodies into a
+ * buffer that is written out between stars, so the file is written in one sequential pass without
+ * seeking and the channel can be a socket or pipe as well as a file. The file layout is described in
+ * cUniverseFileReader.
+ * A compressing writer encodes each galaxy block whole and compresses it on the common fork join pool,
+ * so several galaxies are compressed at once while the next ones are encoded, and writes the blocks in order.
+ * The universe is read without locking or logging, so it must not change while it is written; in
+ * concurrent mode a snapshot taken at the start is written instead.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cUniverseFileWriter
+{
+    /**
+     * Size of the write buffer, which is written to the channel whenever it fills past this size.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Compression level of the blocks of compressed files, favouring speed, as positions and orbital elements
+     * make up most of a block and compress little at any level.
+     */
+    private static final int COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+
+    /**
+     * Most galaxies being compressed at once, which bounds the memory held by encoded blocks.
+     */
+    private static final int MAX_PENDING = ForkJoinPool.getCommonPoolParallelism() + 1;
+
+    /**
+     * Logger to report progress and errors to.
+     */
+    private final cLoggingBase mLogger;
+
+    /**
+     * Channel the file is written to.
+     */
+    private final WritableByteChannel mChannel;
+
+    /**
+     * Whether galaxy blocks are compressed.
+     */
+    private final boolean mCompressed;
+
+    /**
+     * Buffer of encoded bytes not yet written to the channel.
+     */
+    private ByteBuffer mBuffer;
+
+    /**
+     * Number of bytes written to the channel so far.
+     */
+    private long mWritten;
+
+    /**
+     * Id of each distinct name of the universe.
+     */
+    private final HashMap<String, Integer> mNameIds = new HashMap<String, Integer>();
+
+    /**
+     * Distinct names in order of their ids.
+     */
+    private final ArrayList<String> mNames = new ArrayList<String>();
+
+    /**
+     * Constructs a writer over a channel that writes uncompressed files.
+     * The channel is not closed by the writer.
+     *
+     * @param channel the channel to write to
+     * @param logger the logger to use while writing
+     */
+    public cUniverseFileWriter(WritableByteChannel channel, cLoggingBase logger)
+    {
+        this(channel, logger, false);
+    }
+
+    /**
+     * Constructs a writer over a channel.
+     * The channel is not closed by the writer.
+     *
+     * @param channel the channel to write to
+     * @param logger the logger to use while writing
+     * @param compressed whether to compress each galaxy block, which makes a version 2 file
+     */
+    public cUniverseFileWriter(WritableByteChannel channel, cLoggingBase logger, boolean compressed)
+    {
+        mLogger = logger;
+        mChannel = channel;
+        mCompressed = compressed;
+        mBuffer = ByteBuffer.allocate(2 * BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Writes a universe as a complete universe file.
+     *
+     * @param universe the universe to write
+     * @throws IOException if the channel cannot be written
+     */
+    public void Write(cUniverse universe) throws IOException
+    {
+        cUniverse source = universe.StreamSource();
+        int galaxyCount = source.GalaxyCount();
+        mNameIds.clear();
+        mNames.clear();
+        for(int g = 0; g < galaxyCount; g++)
+        {
+            CollectNames(source.GalaxyAt(g));
+        }
+
+        int version = mCompressed ? cUniverseFileReader.COMPRESSED_VERSION : cUniverseFileReader.VERSION;
+        mBuffer.putInt(cUniverseFileReader.MAGIC).putInt(version).putInt(galaxyCount).putInt(mNames.size());
+        for(String name : mNames)
+        {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            Ensure(5 + bytes.length);
+            PutVarint(mBuffer, bytes.length);
+            mBuffer.put(bytes);
+            FlushIfFull();
+        }
+
+        long[] offsets = new long[galaxyCount];
+        if(mCompressed)
+        {
+            WriteCompressedGalaxies(source, offsets);
+        }
+        else
+        {
+            for(int g = 0; g < galaxyCount; g++)
+            {
+                offsets[g] = Offset();
+                WriteGalaxy(source.GalaxyAt(g), true);
+            }
+        }
+
+        long indexOffset = Offset();
+        for(long offset : offsets)
+        {
+            Ensure(8);
+            mBuffer.putLong(offset);
+        }
+        Ensure(cUniverseFileReader.TRAILER_SIZE);
+        mBuffer.putLong(indexOffset).putInt(cUniverseFileReader.MAGIC);
+        Flush();
+        mLogger.LogInfo("Wrote " + (mCompressed ? "compressed " : "") + "universe with " + galaxyCount + " galaxies and " + mNames.size() + " names in " + mWritten + " bytes");
+    }
+
+    /**
+     * Adds the names of a galaxy and of everything in it to the name table.
+     *
+     * @param galaxy the galaxy whose names to collect
+     */
+    private void CollectNames(cGalaxy galaxy)
+    {
+        CollectName(galaxy.mName);
+        int starCount = galaxy.StarCount();
+        for(int s = 0; s < starCount; s++)
+        {
+            cStar star = galaxy.StarAt(s);
+            CollectName(star.mName);
+            int planetCount = star.PlanetCount();
+            for(int p = 0; p < planetCount; p++)
+            {
+                CollectNames(star.PlanetAt(p));
+            }
+        }
+    }
+
+    /**
+     * Adds the names of a planet and of its moons to the name table.
+     *
+     * @param planet the planet whose names to collect
+     */
+    private void CollectNames(cPlanet planet)
+    {
+        CollectName(planet.mName);
+        int moonCount = planet.MoonCount();
+        for(int m = 0; m < moonCount; m++)
+        {
+            CollectNames(planet.MoonAt(m));
+        }
+    }
+
+    /**
+     * Adds a name to the name table if it is not in it yet.
+     *
+     * @param name the name, which is left out if null
+     */
+    private void CollectName(String name)
+    {
+        if(name != null && !mNameIds.containsKey(name))
+        {
+            mNameIds.put(name, mNames.size());
+            mNames.add(name);
+        }
+    }
+
+    /**
+     * Encodes each galaxy block whole, compresses the blocks in parallel and writes them out in order.
+     *
+     * @param source the universe to write
+     * @param offsets receives the offset of each compressed block
+     * @throws IOException if the channel cannot be written
+     */
+    private void WriteCompressedGalaxies(cUniverse source, long[] offsets) throws IOException
+    {
+        Flush();
+        ArrayDeque<ForkJoinTask<ByteBuffer>> pending = new ArrayDeque<ForkJoinTask<ByteBuffer>>();
+        int written = 0;
+        for(int g = 0; g < offsets.length; g++)
+        {
+            WriteGalaxy(source.GalaxyAt(g), false);
+            byte[] block = Arrays.copyOf(mBuffer.array(), mBuffer.position());
+            mBuffer.clear();
+            pending.add(ForkJoinPool.commonPool().submit(() -> Deflate(block)));
+            if(pending.size() > MAX_PENDING)
+            {
+                offsets[written++] = Offset();
+                WriteBlock(pending.poll().join());
+            }
+        }
+        while(!pending.isEmpty())
+        {
+            offsets[written++] = Offset();
+            WriteBlock(pending.poll().join());
+        }
+    }
+
+    /**
+     * Writes a compressed block straight to the channel.
+     *
+     * @param block the block with its lengths
+     * @throws IOException if the channel cannot be written
+     */
+    private void WriteBlock(ByteBuffer block) throws IOException
+    {
+        while(block.hasRemaining())
+        {
+            mWritten += mChannel.write(block);
+        }
+    }
+
+    /**
+     * Compresses a galaxy block on its own.
+     *
+     * @param block the encoded galaxy block
+     * @return the compressed length, the length of the block and the compressed bytes, ready to be written
+     */
+    private static ByteBuffer Deflate(byte[] block)
+    {
+        Deflater deflater = new Deflater(COMPRESSION_LEVEL);
+        try
+        {
+            deflater.setInput(block);
+            deflater.finish();
+            byte[] compressed = new byte[8 + block.length / 2 + 64];
+            int length = 8;
+            while(!deflater.finished())
+            {
+                if(length == compressed.length)
+                {
+                    compressed = Arrays.copyOf(compressed, 2 * compressed.length);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            return ByteBuffer.wrap(compressed, 0, length).order(ByteOrder.LITTLE_ENDIAN).putInt(0, length - 8).putInt(4, block.length);
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Encodes a galaxy block.
+     *
+     * @param galaxy the galaxy to write
+     * @param flush whether to write the buffer out between stars once it fills up, or to keep the whole block in it
+     * @throws IOException if the channel cannot be written
+     */
+    private void WriteGalaxy(cGalaxy galaxy, boolean flush) throws IOException
+    {
+        int starCount = galaxy.StarCount();
+        Ensure(cUniverseFileReader.MAX_RECORD);
+        PutHeader(galaxy, galaxy.mType.ordinal(), null);
+        PutVarint(mBuffer, starCount);
+        for(int s = 0; s < starCount; s++)
+        {
+            cStar star = galaxy.StarAt(s);
+            Ensure(cUniverseFileReader.MAX_RECORD);
+            PutHeader(star, star.mType.ordinal(), null);
+            int lengthPosition = mBuffer.position();
+            mBuffer.putInt(0);
+            WritePlanets(star.PlanetCount(), star, null);
+            mBuffer.putInt(lengthPosition, mBuffer.position() - lengthPosition - 4);
+            if(flush)
+            {
+                FlushIfFull();
+            }
+        }
+    }
+
+    /**
+     * Encodes a count of planets or moons followed by their records.
+     * The buffer is not written out here, as the length of the star being encoded is filled in afterwards.
+     *
+     * @param count the number of planets or moons
+     * @param star the star whose planets to encode, or null to encode the moons of the planet
+     * @param planet the planet whose moons to encode, when the star is null
+     */
+    private void WritePlanets(int count, cStar star, cPlanet planet)
+    {
+        Ensure(5);
+        PutVarint(mBuffer, count);
+        for(int p = 0; p < count; p++)
+        {
+            cPlanet body = star != null ? star.PlanetAt(p) : planet.MoonAt(p);
+            Ensure(cUniverseFileReader.MAX_RECORD);
+            PutHeader(body, body.mType.ordinal(), body.mOrbit);
+            WritePlanets(body.MoonCount(), null, body);
+        }
+    }
+
+    /**
+     * Encodes the type byte, name id, position and orbit of a record.
+     *
+     * @param body the body to encode
+     * @param ordinal the ordinal of the type of the body
+     * @param orbit the orbit of the body, or null if it has none
+     */
+    private void PutHeader(cObjectBase body, int ordinal, cOrbit orbit)
+    {
+        boolean placed = (Double.doubleToRawLongBits(body.mX) | Double.doubleToRawLongBits(body.mY) | Double.doubleToRawLongBits(body.mZ)) != 0;
+        int type = ordinal | (placed ? cUniverseFileReader.HAS_POSITION : 0) | (orbit != null ? cUniverseFileReader.HAS_ORBIT : 0);
+        mBuffer.put((byte)type);
+        PutVarint(mBuffer, body.mName != null ? mNameIds.get(body.mName) + 1 : 0);
+        if(placed)
+        {
+            mBuffer.putDouble(body.mX).putDouble(body.mY).putDouble(body.mZ);
+        }
+        if(orbit != null)
+        {
+            mBuffer.putDouble(orbit.GetSemiMajorAxis()).putDouble(orbit.GetEccentricity()).putDouble(orbit.GetInclination())
+                   .putDouble(orbit.GetAscendingNode()).putDouble(orbit.GetPeriapsisArgument()).putDouble(orbit.GetMeanAnomaly())
+                   .putDouble(orbit.GetPeriod());
+        }
+    }
+
+    /**
+     * Gets the offset from the start of the file of the next byte to encode.
+     *
+     * @return the offset of the next byte
+     */
+    private long Offset()
+    {
+        return mWritten + mBuffer.position();
+    }
+
+    /**
+     * Makes sure the buffer has room for the given number of bytes, growing it if a star is larger than the buffer.
+     *
+     * @param bytes the number of bytes to encode
+     */
+    private void Ensure(int bytes)
+    {
+        if(mBuffer.remaining() < bytes)
+        {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * mBuffer.capacity(), mBuffer.position() + bytes)).order(ByteOrder.LITTLE_ENDIAN);
+            mBuffer.flip();
+            larger.put(mBuffer);
+            mBuffer = larger;
+        }
+    }
+
+    /**
+     * Writes the buffer to the channel if it holds at least BUFFER_SIZE bytes.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    private void FlushIfFull() throws IOException
+    {
+        if(mBuffer.position() >= BUFFER_SIZE)
+        {
+            Flush();
+        }
+    }
+
+    /**
+     * Writes the whole buffer to the channel.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    private void Flush() throws IOException
+    {
+        mBuffer.flip();
+        while(mBuffer.hasRemaining())
+        {
+            mWritten += mChannel.write(mBuffer);
+        }
+        mBuffer.clear();
+    }
+
+    /**
+     * Encodes an int as an unsigned LEB128 varint of up to five bytes.
+     *
+     * @param buffer the buffer to encode into
+     * @param value the value, taken as unsigned
+     */
+    static void PutVarint(ByteBuffer buffer, int value)
+    {
+        while((value & ~0x7F) != 0)
+        {
+            buffer.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+}
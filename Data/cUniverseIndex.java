@@ -0,0 +1,107 @@
+package Data;
+
+import java.util.EnumSet;
+
+/**
+ * Type index of the galaxies of a universe, used to answer type queries.
+ * Galaxies are numbered by their position in the universe and a bitmap over those numbers is kept for
+ * each galaxy type. The stars and planets of each galaxy are indexed by the galaxy itself.
+ * The universe discards this index when a galaxy is added, removed or changes type.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cUniverseIndex
+{
+    /**
+     * Galaxies of the universe, by number.
+     */
+    private final cGalaxy[] mGalaxies;
+
+    /**
+     * Galaxies of each galaxy type.
+     */
+    private final cBitmap[] mGalaxyTypes;
+
+    /**
+     * Version of the galaxy types of the universe when the index was built.
+     */
+    private final long mVersion;
+
+    /**
+     * Builds the index of a universe by reading its galaxies.
+     *
+     * @param universe the universe to index
+     * @param version the version of the galaxy types of the universe, read before the galaxies
+     */
+    cUniverseIndex(cUniverse universe, long version)
+    {
+        int count = universe.GalaxyCount();
+        mGalaxies = new cGalaxy[count];
+        int[][] types = new int[cGalaxy.eGalaxyType.values().length][count];
+        int[] typeCounts = new int[types.length];
+        for(int i = 0; i < count; i++)
+        {
+            mGalaxies[i] = universe.GalaxyAt(i);
+            int type = mGalaxies[i].mType.ordinal();
+            types[type][typeCounts[type]++] = i;
+        }
+        mGalaxyTypes = new cBitmap[types.length];
+        for(int i = 0; i < types.length; i++)
+        {
+            mGalaxyTypes[i] = cBitmap.Of(types[i], typeCounts[i], count);
+        }
+        mVersion = version;
+    }
+
+    /**
+     * Gets the version of the galaxy types of the universe when the index was built.
+     *
+     * @return the version
+     */
+    long GetVersion()
+    {
+        return mVersion;
+    }
+
+    /**
+     * Gets the number of galaxies.
+     *
+     * @return the number of galaxies
+     */
+    int GetGalaxyCount()
+    {
+        return mGalaxies.length;
+    }
+
+    /**
+     * Gets a galaxy by number.
+     *
+     * @param galaxy the number of the galaxy
+     * @return the galaxy
+     */
+    cGalaxy GetGalaxy(int galaxy)
+    {
+        return mGalaxies[galaxy];
+    }
+
+    /**
+     * Gets the galaxies of any of the accepted types.
+     *
+     * @param types the accepted galaxy types, or null for any
+     * @return the galaxies of the types, or null if any type is accepted
+     */
+    cBitmap Galaxies(EnumSet<cGalaxy.eGalaxyType> types)
+    {
+        if(types == null)
+        {
+            return null;
+        }
+        cBitmap galaxies = cBitmap.Of(new int[0], 0, mGalaxies.length);
+        for(cGalaxy.eGalaxyType type : types)
+        {
+            galaxies = galaxies.Or(mGalaxyTypes[type.ordinal()]);
+        }
+        return galaxies;
+    }
+}
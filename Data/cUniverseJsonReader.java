@@ -0,0 +1,1246 @@
+package Data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import Logging.cLoggingBase;
+
+/**
+ * Reads newline delimited JSON written by cUniverseJsonWriter, or by any other tool, into a universe.
+ * Lines are scanned straight from a byte buffer refilled from a channel, so only the current line is held
+ * in memory. Strings without escapes are compared in place, repeated names are looked up in a small cache
+ * instead of being decoded again, and no maps or trees are built for the records, so reading allocates
+ * little more than the bodies themselves.
+ *
+ * Every line holds one JSON object describing one body, and blank lines are ignored:
+ * <pre>
+ * {"kind":"galaxy","name":"Galaxy_1","type":"kSpiralB","position":[1.5,-2.0,0.25]}
+ * {"kind":"star","parent":"Galaxy_1","name":"Star_1","type":"kClassG"}
+ * {"kind":"planet","parent":"Galaxy_1/Star_1","name":"Planet_1","type":"kTerrestrial","orbit":{"semiMajorAxis":1.0,
+ *  "eccentricity":0.0167,"inclination":0.0,"ascendingNode":0.0,"periapsisArgument":1.8,"meanAnomaly":0.1,"period":365.25}}
+ * {"kind":"moon","parent":"Galaxy_1/Star_1/Planet_1","name":"Moon_1","type":"kTerrestrial"}
+ * </pre>
+ * The kind is one of galaxy, star, planet and moon, and the type is the name of a constant of the type
+ * enumeration of that kind. The parent is the path of the body the record belongs to, as taken by
+ * cUniverse.Find: the names of the galaxy, star, planet and any moons above the body joined by slashes.
+ * Galaxies have no parent. A null or missing name stands for a body without a name, and is an empty
+ * name in the paths of its children. The position is an array of x, y and z and defaults to the origin.
+ * The orbit is optional, only read for planets and moons, and holds all seven elements of cOrbit.
+ * Keys may come in any order, and unknown keys are skipped.
+ *
+ * Records are depth first: each body follows its parent, and the parent must be the last galaxy, the
+ * last star or the last planet or moon of the lines before it. This is how the reader attaches children
+ * without looking bodies up, and how the writer writes them.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cUniverseJsonReader
+{
+    /**
+     * Kind of galaxy records.
+     */
+    static final byte[] GALAXY = Ascii("galaxy");
+
+    /**
+     * Kind of star records.
+     */
+    static final byte[] STAR = Ascii("star");
+
+    /**
+     * Kind of planet records.
+     */
+    static final byte[] PLANET = Ascii("planet");
+
+    /**
+     * Kind of moon records.
+     */
+    static final byte[] MOON = Ascii("moon");
+
+    /**
+     * Keys of a record, in the order of the fields they set.
+     */
+    private static final byte[][] KEYS = {Ascii("kind"), Ascii("parent"), Ascii("name"), Ascii("type"), Ascii("position"), Ascii("orbit")};
+
+    /**
+     * Keys of an orbit, in the order of the arguments of the cOrbit constructor.
+     */
+    private static final byte[][] ELEMENTS = {Ascii("semiMajorAxis"), Ascii("eccentricity"), Ascii("inclination"), Ascii("ascendingNode"),
+                                               Ascii("periapsisArgument"), Ascii("meanAnomaly"), Ascii("period")};
+
+    /**
+     * Literals that may stand for a value.
+     */
+    private static final byte[] NULL = Ascii("null");
+    private static final byte[] TRUE = Ascii("true");
+    private static final byte[] FALSE = Ascii("false");
+
+    /**
+     * Galaxy types and their names.
+     */
+    private static final cGalaxy.eGalaxyType[] GALAXY_TYPES = cGalaxy.eGalaxyType.values();
+    private static final byte[][] GALAXY_TYPE_NAMES = Names(GALAXY_TYPES);
+
+    /**
+     * Star types and their names.
+     */
+    private static final cStar.eStarType[] STAR_TYPES = cStar.eStarType.values();
+    private static final byte[][] STAR_TYPE_NAMES = Names(STAR_TYPES);
+
+    /**
+     * Planet types and their names, shared by moons.
+     */
+    private static final cPlanet.ePlanetType[] PLANET_TYPES = cPlanet.ePlanetType.values();
+    private static final byte[][] PLANET_TYPE_NAMES = Names(PLANET_TYPES);
+
+    /**
+     * Initial size of the read buffer, which grows for longer lines.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Longest line accepted, so that input without line breaks cannot exhaust the heap.
+     */
+    private static final int MAX_LINE = 1 << 24;
+
+    /**
+     * Deepest nesting of skipped values accepted.
+     */
+    private static final int MAX_NESTING = 64;
+
+    /**
+     * Number of names remembered by the name cache, a power of two.
+     */
+    private static final int NAME_CACHE_SIZE = 1 << 12;
+
+    /**
+     * Logger to report progress and errors to.
+     */
+    private final cLoggingBase mLogger;
+
+    /**
+     * Channel the lines are read from.
+     */
+    private final ReadableByteChannel mChannel;
+
+    /**
+     * Bytes read from the channel, from the current line on.
+     */
+    private byte[] mBytes = new byte[BUFFER_SIZE];
+
+    /**
+     * Number of bytes of mBytes read from the channel.
+     */
+    private int mFill;
+
+    /**
+     * Start of the line after the current one in mBytes.
+     */
+    private int mNext;
+
+    /**
+     * Start of the current line in mBytes.
+     */
+    private int mLineStart;
+
+    /**
+     * Next byte of the current line to scan.
+     */
+    private int mPos;
+
+    /**
+     * End of the current line, before its line break.
+     */
+    private int mLimit;
+
+    /**
+     * Whether the channel has no more bytes.
+     */
+    private boolean mEnd;
+
+    /**
+     * Number of the current line, starting at 1.
+     */
+    private long mLine;
+
+    /**
+     * Array, start and length of the last string scanned, without its quotes and with escapes decoded.
+     * Strings without escapes are left in mBytes; others are decoded into mEscaped.
+     */
+    private byte[] mString;
+    private int mStringStart;
+    private int mStringLength;
+
+    /**
+     * Decoded bytes of the last string scanned that had escapes.
+     */
+    private byte[] mEscaped = new byte[256];
+
+    /**
+     * Kind of the current record, or null if it has none.
+     */
+    private byte[] mKind;
+
+    /**
+     * UTF-8 bytes of the parent path of the current record, and whether it has one.
+     */
+    private byte[] mParent = new byte[256];
+    private int mParentLength;
+    private boolean mHasParent;
+
+    /**
+     * UTF-8 bytes of the name of the current record, and the name itself, which is null if it has none.
+     */
+    private byte[] mNameBytes = new byte[256];
+    private int mNameLength;
+    private String mName;
+
+    /**
+     * Type name of the current record, or an empty one if it has none.
+     */
+    private byte[] mType = new byte[32];
+    private int mTypeLength;
+
+    /**
+     * Position of the current record.
+     */
+    private double mX;
+    private double mY;
+    private double mZ;
+
+    /**
+     * Orbital elements of the current record, in the order of ELEMENTS, and whether it has an orbit.
+     */
+    private final double[] mElements = new double[ELEMENTS.length];
+    private boolean mHasOrbit;
+
+    /**
+     * Bytes of recently read names, and the shared names they decode to, by hash of the bytes.
+     */
+    private final byte[][] mCachedBytes = new byte[NAME_CACHE_SIZE][];
+    private final String[] mCachedNames = new String[NAME_CACHE_SIZE];
+
+    /**
+     * Arena the bodies are taken from, set once the first record is read.
+     */
+    private cObjectArena mArena;
+
+    /**
+     * Last body read at each level, from galaxies to the deepest moons, whose children are still being read.
+     */
+    private cObjectBase[] mOpen = new cObjectBase[8];
+
+    /**
+     * Number of levels of mOpen in use.
+     */
+    private int mDepth;
+
+    /**
+     * UTF-8 paths of the open bodies, one after the other, and where the path of each level ends.
+     */
+    private byte[] mPath = new byte[256];
+    private int[] mPathEnds = new int[8];
+
+    /**
+     * Galaxies read.
+     */
+    private final ArrayList<cGalaxy> mGalaxies = new ArrayList<cGalaxy>();
+
+    /**
+     * Stars of the open galaxy.
+     */
+    private final ArrayList<cStar> mStars = new ArrayList<cStar>();
+
+    /**
+     * Planets of the open star, then moons of each open planet or moon, one list for each level.
+     */
+    private final ArrayList<ArrayList<cPlanet>> mPlanets = new ArrayList<ArrayList<cPlanet>>();
+
+    /**
+     * Constructs a reader over a channel.
+     * The channel is not closed by the reader.
+     *
+     * @param channel the channel to read from
+     * @param logger the logger to use while reading, also given to the bodies read
+     */
+    public cUniverseJsonReader(ReadableByteChannel channel, cLoggingBase logger)
+    {
+        mLogger = logger;
+        mChannel = channel;
+    }
+
+    /**
+     * Reads every line of the channel and replaces the galaxies of a universe with the bodies read.
+     * The universe is only cleared once the first record has been scanned, so input whose first record is
+     * not valid leaves the universe unchanged, while input that is invalid further on leaves it empty.
+     *
+     * @param universe the universe to fill
+     * @throws IOException if the channel cannot be read or a line is not a valid record
+     */
+    public void Read(cUniverse universe) throws IOException
+    {
+        long records = 0;
+        try
+        {
+            while(NextLine())
+            {
+                SkipSpace();
+                if(mPos == mLimit)
+                {
+                    continue;
+                }
+                ReadRecord();
+                if(mArena == null)
+                {
+                    universe.ClearGalaxies();
+                    mArena = universe.Arena();
+                }
+                AddRecord();
+                records++;
+            }
+            if(mArena == null)
+            {
+                universe.ClearGalaxies();
+            }
+            Close(0);
+            universe.AddGalaxies(mGalaxies);
+            mLogger.LogInfo("Read universe with " + mGalaxies.size() + " galaxies from " + records + " JSON lines");
+        }
+        finally
+        {
+            mArena = null;
+            Arrays.fill(mOpen, null);
+            mDepth = 0;
+            mGalaxies.clear();
+            mStars.clear();
+            mPlanets.clear();
+        }
+    }
+
+    /**
+     * Scans the current line as a record into the fields of the current record.
+     *
+     * @throws IOException if the line is not a valid record
+     */
+    private void ReadRecord() throws IOException
+    {
+        mKind = null;
+        mHasParent = false;
+        mName = null;
+        mNameLength = 0;
+        mTypeLength = 0;
+        mX = 0;
+        mY = 0;
+        mZ = 0;
+        mHasOrbit = false;
+
+        Expect('{');
+        SkipSpace();
+        if(!Take('}'))
+        {
+            do
+            {
+                SkipSpace();
+                ScanString();
+                int key = Key(KEYS);
+                SkipSpace();
+                Expect(':');
+                SkipSpace();
+                switch(key)
+                {
+                    case 0:
+                        ScanString();
+                        mKind = Match(GALAXY) ? GALAXY : Match(STAR) ? STAR : Match(PLANET) ? PLANET : Match(MOON) ? MOON : null;
+                        if(mKind == null)
+                        {
+                            throw Invalid("unknown kind " + Text());
+                        }
+                        break;
+                    case 1:
+                        ScanString();
+                        mParent = Copy(mParent);
+                        mParentLength = mStringLength;
+                        mHasParent = true;
+                        break;
+                    case 2:
+                        if(!TakeLiteral(NULL))
+                        {
+                            ScanString();
+                            mNameBytes = Copy(mNameBytes);
+                            mNameLength = mStringLength;
+                            mName = CachedName();
+                        }
+                        break;
+                    case 3:
+                        ScanString();
+                        mType = Copy(mType);
+                        mTypeLength = mStringLength;
+                        break;
+                    case 4:
+                        ScanPosition();
+                        break;
+                    case 5:
+                        ScanOrbit();
+                        break;
+                    default:
+                        SkipValue(0);
+                        break;
+                }
+                SkipSpace();
+            }
+            while(Take(','));
+            Expect('}');
+        }
+        SkipSpace();
+        if(mPos != mLimit)
+        {
+            throw Invalid("unexpected text after the record");
+        }
+        if(mKind == null)
+        {
+            throw Invalid("record has no kind");
+        }
+    }
+
+    /**
+     * Scans a position array, or null for the origin.
+     *
+     * @throws IOException if the value is not an array of three finite numbers
+     */
+    private void ScanPosition() throws IOException
+    {
+        if(TakeLiteral(NULL))
+        {
+            mX = 0;
+            mY = 0;
+            mZ = 0;
+            return;
+        }
+        Expect('[');
+        SkipSpace();
+        mX = ScanNumber();
+        SkipSpace();
+        Expect(',');
+        SkipSpace();
+        mY = ScanNumber();
+        SkipSpace();
+        Expect(',');
+        SkipSpace();
+        mZ = ScanNumber();
+        SkipSpace();
+        Expect(']');
+        if(!Double.isFinite(mX) || !Double.isFinite(mY) || !Double.isFinite(mZ))
+        {
+            throw Invalid("position is not finite");
+        }
+    }
+
+    /**
+     * Scans an orbit object, or null for no orbit.
+     *
+     * @throws IOException if the value is not an object holding every orbital element
+     */
+    private void ScanOrbit() throws IOException
+    {
+        mHasOrbit = !TakeLiteral(NULL);
+        if(!mHasOrbit)
+        {
+            return;
+        }
+        int found = 0;
+        Expect('{');
+        SkipSpace();
+        if(!Take('}'))
+        {
+            do
+            {
+                SkipSpace();
+                ScanString();
+                int element = Key(ELEMENTS);
+                SkipSpace();
+                Expect(':');
+                SkipSpace();
+                if(element >= 0)
+                {
+                    mElements[element] = ScanNumber();
+                    found |= 1 << element;
+                }
+                else
+                {
+                    SkipValue(1);
+                }
+                SkipSpace();
+            }
+            while(Take(','));
+            Expect('}');
+        }
+        if(found != (1 << ELEMENTS.length) - 1)
+        {
+            int missing = Integer.numberOfTrailingZeros(~found);
+            throw Invalid("orbit has no " + new String(ELEMENTS[missing], StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * Creates the body of the current record and adds it below its parent.
+     *
+     * @throws IOException if the record has no valid type or its parent is not open
+     */
+    private void AddRecord() throws IOException
+    {
+        int level;
+        if(mKind == GALAXY)
+        {
+            if(mHasParent && mParentLength != 0)
+            {
+                throw Invalid("galaxy has a parent");
+            }
+            level = 0;
+        }
+        else
+        {
+            if(!mHasParent)
+            {
+                throw Invalid(new String(mKind, StandardCharsets.US_ASCII) + " has no parent");
+            }
+            String missing;
+            if(mKind == MOON)
+            {
+                //A moon can belong to a planet or to any moon below it, so find the deepest open body it names.
+                level = mDepth;
+                while(level > 2 && !IsOpen(level - 1))
+                {
+                    level--;
+                }
+                missing = level > 2 ? null : "planet or moon";
+            }
+            else
+            {
+                level = mKind == STAR ? 1 : 2;
+                missing = mDepth >= level && IsOpen(level - 1) ? null : level == 1 ? "galaxy" : "star";
+            }
+            if(missing != null)
+            {
+                throw Invalid("parent " + new String(mParent, 0, mParentLength, StandardCharsets.UTF_8) + " is not the last " + missing + " before this line");
+            }
+        }
+        Close(level);
+
+        cObjectBase body;
+        if(level == 0)
+        {
+            cGalaxy galaxy = mArena.NewGalaxy(mName, Type(GALAXY_TYPES, GALAXY_TYPE_NAMES), mLogger);
+            mGalaxies.add(galaxy);
+            body = galaxy;
+        }
+        else if(level == 1)
+        {
+            cStar star = mArena.NewStar(mName, Type(STAR_TYPES, STAR_TYPE_NAMES), mLogger);
+            mStars.add(star);
+            body = star;
+        }
+        else
+        {
+            cPlanet planet = mArena.NewPlanet(mName, Type(PLANET_TYPES, PLANET_TYPE_NAMES), mLogger);
+            if(mHasOrbit)
+            {
+                try
+                {
+                    planet.mOrbit = new cOrbit(mElements[0], mElements[1], mElements[2], mElements[3], mElements[4], mElements[5], mElements[6]);
+                }
+                catch(IllegalArgumentException e)
+                {
+                    throw Invalid("invalid orbit: " + e.getMessage());
+                }
+            }
+            while(mPlanets.size() <= level - 2)
+            {
+                mPlanets.add(new ArrayList<cPlanet>());
+            }
+            mPlanets.get(level - 2).add(planet);
+            body = planet;
+        }
+        if((Double.doubleToRawLongBits(mX) | Double.doubleToRawLongBits(mY) | Double.doubleToRawLongBits(mZ)) != 0)
+        {
+            body.Place(mX, mY, mZ);
+        }
+        Open(level, body);
+    }
+
+    /**
+     * Checks whether the parent of the current record is the path of the open body at a level.
+     *
+     * @param level the level of the open body
+     * @return true if the parent names that body
+     */
+    private boolean IsOpen(int level)
+    {
+        return Arrays.equals(mPath, 0, mPathEnds[level], mParent, 0, mParentLength);
+    }
+
+    /**
+     * Makes a body the open body at its level, after the open bodies above it.
+     *
+     * @param level the level of the body
+     * @param body the body
+     */
+    private void Open(int level, cObjectBase body)
+    {
+        if(level == mOpen.length)
+        {
+            mOpen = Arrays.copyOf(mOpen, 2 * level);
+            mPathEnds = Arrays.copyOf(mPathEnds, 2 * level);
+        }
+        int start = level > 0 ? mPathEnds[level - 1] + 1 : 0;
+        if(mPath.length < start + mNameLength)
+        {
+            mPath = Arrays.copyOf(mPath, Math.max(2 * mPath.length, start + mNameLength));
+        }
+        if(level > 0)
+        {
+            mPath[start - 1] = '/';
+        }
+        System.arraycopy(mNameBytes, 0, mPath, start, mNameLength);
+        mPathEnds[level] = start + mNameLength;
+        mOpen[level] = body;
+        mDepth = level + 1;
+    }
+
+    /**
+     * Attaches the children read for the open bodies at a level and below, which are then no longer open.
+     *
+     * @param level the first level to close
+     */
+    private void Close(int level)
+    {
+        for(int open = mDepth - 1; open >= level; open--)
+        {
+            if(open == 0)
+            {
+                ((cGalaxy)mOpen[0]).AddStars(mStars);
+                mStars.clear();
+            }
+            else if(mPlanets.size() > open - 1)
+            {
+                ArrayList<cPlanet> children = mPlanets.get(open - 1);
+                if(!children.isEmpty())
+                {
+                    if(open == 1)
+                    {
+                        ((cStar)mOpen[1]).AddPlanets(children);
+                    }
+                    else
+                    {
+                        ((cPlanet)mOpen[open]).AddMoons(children);
+                    }
+                    children.clear();
+                }
+            }
+            mOpen[open] = null;
+        }
+        mDepth = Math.min(mDepth, level);
+    }
+
+    /**
+     * Looks up the type of the current record by its name.
+     *
+     * @param <T> the type enumeration of the body
+     * @param types the values of the enumeration
+     * @param names the names of the values
+     * @return the type
+     * @throws IOException if the record has no type or the name is not a type of its kind
+     */
+    private <T> T Type(T[] types, byte[][] names) throws IOException
+    {
+        for(int t = 0; t < types.length; t++)
+        {
+            if(Arrays.equals(names[t], 0, names[t].length, mType, 0, mTypeLength))
+            {
+                return types[t];
+            }
+        }
+        throw Invalid(mTypeLength == 0 ? "record has no type" : "unknown " + new String(mKind, StandardCharsets.US_ASCII) + " type "
+                      + new String(mType, 0, mTypeLength, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Gets the shared name for the bytes of the last string scanned, decoding it only if it is not cached.
+     *
+     * @return the name
+     */
+    private String CachedName()
+    {
+        byte[] bytes = mString;
+        int start = mStringStart;
+        int end = start + mStringLength;
+        int hash = 0;
+        for(int i = start; i < end; i++)
+        {
+            hash = 31 * hash + bytes[i];
+        }
+        int slot = (hash ^ (hash >>> 12)) & (NAME_CACHE_SIZE - 1);
+        byte[] cached = mCachedBytes[slot];
+        if(cached != null && Arrays.equals(cached, 0, cached.length, bytes, start, end))
+        {
+            return mCachedNames[slot];
+        }
+        String name = cNames.Intern(new String(bytes, start, mStringLength, StandardCharsets.UTF_8));
+        mCachedBytes[slot] = Arrays.copyOfRange(bytes, start, end);
+        mCachedNames[slot] = name;
+        return name;
+    }
+
+    /**
+     * Makes the next line of the channel the current line, reading more bytes as needed.
+     *
+     * @return false if the channel has no more lines
+     * @throws IOException if the channel cannot be read or the line is too long
+     */
+    private boolean NextLine() throws IOException
+    {
+        int start = mNext;
+        int scan = start;
+        while(true)
+        {
+            for(int i = scan; i < mFill; i++)
+            {
+                if(mBytes[i] == '\n')
+                {
+                    mLine++;
+                    mLineStart = start;
+                    mPos = start;
+                    mLimit = i;
+                    mNext = i + 1;
+                    return true;
+                }
+            }
+            if(mEnd)
+            {
+                if(start == mFill)
+                {
+                    return false;
+                }
+                mLine++;
+                mLineStart = start;
+                mPos = start;
+                mLimit = mFill;
+                mNext = mFill;
+                return true;
+            }
+
+            //Move the partial line to the start of the buffer, or grow the buffer if the line fills it, and read on.
+            scan = mFill - start;
+            if(start > 0)
+            {
+                System.arraycopy(mBytes, start, mBytes, 0, scan);
+                mFill = scan;
+                start = 0;
+            }
+            else if(mFill == mBytes.length)
+            {
+                if(mBytes.length >= MAX_LINE)
+                {
+                    mLine++;
+                    throw Invalid("line is longer than " + MAX_LINE + " bytes");
+                }
+                mBytes = Arrays.copyOf(mBytes, 2 * mBytes.length);
+            }
+            int read = mChannel.read(ByteBuffer.wrap(mBytes, mFill, mBytes.length - mFill));
+            if(read < 0)
+            {
+                mEnd = true;
+            }
+            else
+            {
+                mFill += read;
+            }
+        }
+    }
+
+    /**
+     * Scans a string into mString, mStringStart and mStringLength.
+     *
+     * @throws IOException if the next value is not a valid string
+     */
+    private void ScanString() throws IOException
+    {
+        Expect('"');
+        byte[] bytes = mBytes;
+        int start = mPos;
+        int pos = start;
+        while(pos < mLimit)
+        {
+            byte b = bytes[pos];
+            if(b == '"')
+            {
+                mString = bytes;
+                mStringStart = start;
+                mStringLength = pos - start;
+                mPos = pos + 1;
+                return;
+            }
+            if(b == '\\' || (b >= 0 && b < 0x20))
+            {
+                break;
+            }
+            pos++;
+        }
+        mPos = pos;
+        ScanEscapedString(start);
+    }
+
+    /**
+     * Scans the rest of a string that has escapes, decoding it into mEscaped.
+     *
+     * @param start the start of the string in mBytes, after its opening quote
+     * @throws IOException if the string is not valid
+     */
+    private void ScanEscapedString(int start) throws IOException
+    {
+        int length = mPos - start;
+        byte[] escaped = mEscaped;
+        if(escaped.length < mLimit - start)
+        {
+            escaped = mEscaped = new byte[Math.max(2 * escaped.length, mLimit - start)];
+        }
+        System.arraycopy(mBytes, start, escaped, 0, length);
+        while(true)
+        {
+            if(mPos == mLimit)
+            {
+                throw Invalid("unterminated string");
+            }
+            byte b = mBytes[mPos++];
+            if(b == '"')
+            {
+                break;
+            }
+            if(b >= 0 && b < 0x20)
+            {
+                throw Invalid("control character in string");
+            }
+            if(b != '\\')
+            {
+                escaped[length++] = b;
+                continue;
+            }
+            if(mPos == mLimit)
+            {
+                throw Invalid("unterminated string");
+            }
+            b = mBytes[mPos++];
+            switch(b)
+            {
+                case '"':
+                case '\\':
+                case '/':
+                    escaped[length++] = b;
+                    break;
+                case 'b':
+                    escaped[length++] = '\b';
+                    break;
+                case 'f':
+                    escaped[length++] = '\f';
+                    break;
+                case 'n':
+                    escaped[length++] = '\n';
+                    break;
+                case 'r':
+                    escaped[length++] = '\r';
+                    break;
+                case 't':
+                    escaped[length++] = '\t';
+                    break;
+                case 'u':
+                    int c = ScanHex();
+                    if(Character.isHighSurrogate((char)c) && mPos + 1 < mLimit && mBytes[mPos] == '\\' && mBytes[mPos + 1] == 'u')
+                    {
+                        int mark = mPos;
+                        mPos += 2;
+                        int low = ScanHex();
+                        if(Character.isLowSurrogate((char)low))
+                        {
+                            c = Character.toCodePoint((char)c, (char)low);
+                        }
+                        else
+                        {
+                            mPos = mark;
+                        }
+                    }
+                    length = PutUtf8(escaped, length, c);
+                    break;
+                default:
+                    throw Invalid("invalid escape in string");
+            }
+        }
+        mString = escaped;
+        mStringStart = 0;
+        mStringLength = length;
+    }
+
+    /**
+     * Scans the four hexadecimal digits of a unicode escape.
+     *
+     * @return the character they encode
+     * @throws IOException if they are not four hexadecimal digits
+     */
+    private int ScanHex() throws IOException
+    {
+        if(mLimit - mPos < 4)
+        {
+            throw Invalid("invalid escape in string");
+        }
+        int c = 0;
+        for(int i = 0; i < 4; i++)
+        {
+            int digit = Character.digit(mBytes[mPos++], 16);
+            if(digit < 0)
+            {
+                throw Invalid("invalid escape in string");
+            }
+            c = (c << 4) | digit;
+        }
+        return c;
+    }
+
+    /**
+     * Encodes a code point as UTF-8, replacing lone surrogates as String.getBytes does.
+     * Each escape is at least six bytes long and encodes to at most four, so the bytes always fit.
+     *
+     * @param bytes the bytes to encode into
+     * @param at where to encode
+     * @param c the code point
+     * @return the end of the encoded code point
+     */
+    private static int PutUtf8(byte[] bytes, int at, int c)
+    {
+        if(c < 0x80)
+        {
+            bytes[at++] = (byte)c;
+        }
+        else if(c < 0x800)
+        {
+            bytes[at++] = (byte)(0xC0 | (c >> 6));
+            bytes[at++] = (byte)(0x80 | (c & 0x3F));
+        }
+        else if(c >= 0x10000)
+        {
+            bytes[at++] = (byte)(0xF0 | (c >> 18));
+            bytes[at++] = (byte)(0x80 | ((c >> 12) & 0x3F));
+            bytes[at++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+            bytes[at++] = (byte)(0x80 | (c & 0x3F));
+        }
+        else if(Character.isSurrogate((char)c))
+        {
+            bytes[at++] = '?';
+        }
+        else
+        {
+            bytes[at++] = (byte)(0xE0 | (c >> 12));
+            bytes[at++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+            bytes[at++] = (byte)(0x80 | (c & 0x3F));
+        }
+        return at;
+    }
+
+    /**
+     * Scans a number.
+     * The digits are gathered into a long as they are scanned and converted by cDecimalParser, and only
+     * numbers of more than 18 significant digits or that it cannot convert are left to Double.parseDouble.
+     *
+     * @return the number, which is infinite if it is too large for a double
+     * @throws IOException if the next value is not a valid number
+     */
+    private double ScanNumber() throws IOException
+    {
+        byte[] bytes = mBytes;
+        int start = mPos;
+        int pos = start;
+        int limit = mLimit;
+        boolean negative = pos < limit && bytes[pos] == '-';
+        if(negative)
+        {
+            pos++;
+        }
+        long digits = 0;
+        int significant = 0;
+        int scale = 0;
+
+        int integerStart = pos;
+        while(pos < limit && bytes[pos] >= '0' && bytes[pos] <= '9')
+        {
+            if(significant < 18)
+            {
+                digits = 10 * digits + (bytes[pos] - '0');
+                significant += digits != 0 ? 1 : 0;
+            }
+            else
+            {
+                significant++;
+                scale++;
+            }
+            pos++;
+        }
+        if(pos == integerStart || (bytes[integerStart] == '0' && pos - integerStart > 1))
+        {
+            throw Invalid("invalid number");
+        }
+        if(pos < limit && bytes[pos] == '.')
+        {
+            int fractionStart = ++pos;
+            while(pos < limit && bytes[pos] >= '0' && bytes[pos] <= '9')
+            {
+                if(significant < 18)
+                {
+                    digits = 10 * digits + (bytes[pos] - '0');
+                    significant += digits != 0 ? 1 : 0;
+                    scale--;
+                }
+                else
+                {
+                    significant++;
+                }
+                pos++;
+            }
+            if(pos == fractionStart)
+            {
+                throw Invalid("invalid number");
+            }
+        }
+        if(pos < limit && (bytes[pos] == 'e' || bytes[pos] == 'E'))
+        {
+            pos++;
+            boolean negativeExponent = pos < limit && bytes[pos] == '-';
+            if(pos < limit && (bytes[pos] == '-' || bytes[pos] == '+'))
+            {
+                pos++;
+            }
+            int exponentStart = pos;
+            int exponent = 0;
+            while(pos < limit && bytes[pos] >= '0' && bytes[pos] <= '9')
+            {
+                exponent = Math.min(10 * exponent + (bytes[pos] - '0'), 100000);
+                pos++;
+            }
+            if(pos == exponentStart)
+            {
+                throw Invalid("invalid number");
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        mPos = pos;
+
+        if(significant <= 18)
+        {
+            double value = cDecimalParser.ToDouble(digits, scale, negative);
+            if(!Double.isNaN(value))
+            {
+                return value;
+            }
+        }
+        return Double.parseDouble(new String(bytes, start, pos - start, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Skips a value of any kind.
+     *
+     * @param nesting the number of arrays and objects the value is in
+     * @throws IOException if the next value is not valid or is nested too deeply
+     */
+    private void SkipValue(int nesting) throws IOException
+    {
+        if(nesting > MAX_NESTING)
+        {
+            throw Invalid("values are nested too deeply");
+        }
+        byte b = mPos < mLimit ? mBytes[mPos] : 0;
+        if(b == '"')
+        {
+            ScanString();
+        }
+        else if(b == '{' || b == '[')
+        {
+            mPos++;
+            byte close = b == '{' ? (byte)'}' : (byte)']';
+            SkipSpace();
+            if(!Take((char)close))
+            {
+                do
+                {
+                    SkipSpace();
+                    if(close == '}')
+                    {
+                        ScanString();
+                        SkipSpace();
+                        Expect(':');
+                        SkipSpace();
+                    }
+                    SkipValue(nesting + 1);
+                    SkipSpace();
+                }
+                while(Take(','));
+                Expect((char)close);
+            }
+        }
+        else if(!TakeLiteral(NULL) && !TakeLiteral(TRUE) && !TakeLiteral(FALSE))
+        {
+            ScanNumber();
+        }
+    }
+
+    /**
+     * Finds the last string scanned in a list of keys.
+     *
+     * @param keys the keys
+     * @return the index of the key, or -1 if it is not one of them
+     */
+    private int Key(byte[][] keys)
+    {
+        for(int k = 0; k < keys.length; k++)
+        {
+            if(Match(keys[k]))
+            {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the last string scanned equals the given bytes.
+     *
+     * @param bytes the bytes to compare to
+     * @return true if they are equal
+     */
+    private boolean Match(byte[] bytes)
+    {
+        return Arrays.equals(mString, mStringStart, mStringStart + mStringLength, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Copies the last string scanned into a buffer, growing it if needed.
+     *
+     * @param buffer the buffer
+     * @return the buffer, or a larger one holding the string
+     */
+    private byte[] Copy(byte[] buffer)
+    {
+        if(buffer.length < mStringLength)
+        {
+            buffer = new byte[Math.max(2 * buffer.length, mStringLength)];
+        }
+        System.arraycopy(mString, mStringStart, buffer, 0, mStringLength);
+        return buffer;
+    }
+
+    /**
+     * Decodes the last string scanned, for error messages.
+     *
+     * @return the string
+     */
+    private String Text()
+    {
+        return new String(mString, mStringStart, mStringLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips whitespace within the current line.
+     */
+    private void SkipSpace()
+    {
+        while(mPos < mLimit && (mBytes[mPos] == ' ' || mBytes[mPos] == '\t' || mBytes[mPos] == '\r'))
+        {
+            mPos++;
+        }
+    }
+
+    /**
+     * Skips a character if it is the next one.
+     *
+     * @param c the character
+     * @return true if it was skipped
+     */
+    private boolean Take(char c)
+    {
+        if(mPos < mLimit && mBytes[mPos] == c)
+        {
+            mPos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skips a character that must be the next one.
+     *
+     * @param c the character
+     * @throws IOException if it is not the next one
+     */
+    private void Expect(char c) throws IOException
+    {
+        if(!Take(c))
+        {
+            throw Invalid("expected '" + c + "' " + (mPos < mLimit ? "at column " + (mPos - mLineStart + 1) : "at the end of the line"));
+        }
+    }
+
+    /**
+     * Skips a literal if it is next.
+     *
+     * @param literal the literal
+     * @return true if it was skipped
+     */
+    private boolean TakeLiteral(byte[] literal)
+    {
+        if(mLimit - mPos >= literal.length && Arrays.equals(mBytes, mPos, mPos + literal.length, literal, 0, literal.length))
+        {
+            mPos += literal.length;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Logs and creates the exception thrown for input that is not valid.
+     *
+     * @param reason the reason the current line is rejected
+     * @return the exception to throw
+     */
+    private IOException Invalid(String reason)
+    {
+        String message = "Cannot read universe JSON: line " + mLine + ": " + reason;
+        mLogger.LogError(message);
+        return new IOException(message);
+    }
+
+    /**
+     * Encodes ASCII text.
+     *
+     * @param text the text
+     * @return its bytes
+     */
+    private static byte[] Ascii(String text)
+    {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Encodes the names of enumeration constants.
+     *
+     * @param values the constants
+     * @return the bytes of their names, in the same order
+     */
+    private static byte[][] Names(Enum<?>[] values)
+    {
+        byte[][] names = new byte[values.length][];
+        for(int v = 0; v < values.length; v++)
+        {
+            names[v] = Ascii(values[v].name());
+        }
+        return names;
+    }
+}
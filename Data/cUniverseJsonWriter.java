@@ -0,0 +1,373 @@
+package Data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import Logging.cLoggingBase;
+
+/**
+ * Writes a universe to a channel as newline delimited JSON, which cUniverseJsonReader reads back.
+ * Each body is encoded straight into a byte buffer as it is walked, and the buffer is written out
+ * whenever it fills, so only one line is ever built in memory. Numbers are written with the shortest
+ * text that reads back to the same double. The record layout is described in cUniverseJsonReader.
+ * The universe is read without locking or logging, so it must not change while it is written; in
+ * concurrent mode a snapshot taken at the start is written instead.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cUniverseJsonWriter
+{
+    /**
+     * Size of the write buffer, which is written to the channel whenever it fills past this size.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Hexadecimal digits for escaped control characters.
+     */
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Logger to report progress and errors to.
+     */
+    private final cLoggingBase mLogger;
+
+    /**
+     * Channel the records are written to.
+     */
+    private final WritableByteChannel mChannel;
+
+    /**
+     * Buffer of encoded lines not yet written to the channel.
+     */
+    private ByteBuffer mBuffer;
+
+    /**
+     * Number of bytes written to the channel so far.
+     */
+    private long mWritten;
+
+    /**
+     * Escaped paths of the bodies being walked, one after the other.
+     */
+    private byte[] mPath = new byte[256];
+
+    /**
+     * End of the escaped path of the body at each level within mPath, from galaxies to the deepest moons.
+     */
+    private int[] mPathEnds = new int[8];
+
+    /**
+     * Text of the number being written.
+     */
+    private final StringBuilder mNumber = new StringBuilder(32);
+
+    /**
+     * Constructs a writer over a channel.
+     * The channel is not closed by the writer.
+     *
+     * @param channel the channel to write to
+     * @param logger the logger to use while writing
+     */
+    public cUniverseJsonWriter(WritableByteChannel channel, cLoggingBase logger)
+    {
+        mLogger = logger;
+        mChannel = channel;
+        mBuffer = ByteBuffer.allocate(2 * BUFFER_SIZE);
+    }
+
+    /**
+     * Writes every body of a universe, one line each, galaxies first and then depth first.
+     *
+     * @param universe the universe to write
+     * @throws IOException if the channel cannot be written
+     */
+    public void Write(cUniverse universe) throws IOException
+    {
+        cUniverse source = universe.StreamSource();
+        int galaxyCount = source.GalaxyCount();
+        long lines = 0;
+        for(int g = 0; g < galaxyCount; g++)
+        {
+            cGalaxy galaxy = source.GalaxyAt(g);
+            PutRecord(cUniverseJsonReader.GALAXY, 0, galaxy, galaxy.mType.name(), null);
+            int starCount = galaxy.StarCount();
+            for(int s = 0; s < starCount; s++)
+            {
+                cStar star = galaxy.StarAt(s);
+                PutRecord(cUniverseJsonReader.STAR, 1, star, star.mType.name(), null);
+                int planetCount = star.PlanetCount();
+                for(int p = 0; p < planetCount; p++)
+                {
+                    lines += WritePlanet(star.PlanetAt(p), 2);
+                }
+                FlushIfFull();
+            }
+            lines += 1 + starCount;
+        }
+        Flush();
+        mLogger.LogInfo("Wrote universe as " + lines + " JSON lines in " + mWritten + " bytes");
+    }
+
+    /**
+     * Writes a planet or moon followed by its moons.
+     *
+     * @param planet the planet to write
+     * @param level the level of the planet, 2 for planets and more for moons
+     * @return the number of lines written
+     */
+    private long WritePlanet(cPlanet planet, int level)
+    {
+        PutRecord(level == 2 ? cUniverseJsonReader.PLANET : cUniverseJsonReader.MOON, level, planet, planet.mType.name(), planet.mOrbit);
+        long lines = 1;
+        int moonCount = planet.MoonCount();
+        for(int m = 0; m < moonCount; m++)
+        {
+            lines += WritePlanet(planet.MoonAt(m), level + 1);
+        }
+        return lines;
+    }
+
+    /**
+     * Encodes the line of a body and records its path for the lines of its children.
+     *
+     * @param kind the kind of the body
+     * @param level the level of the body, 0 for galaxies
+     * @param body the body to write
+     * @param type the name of the type of the body
+     * @param orbit the orbit of the body, or null if it has none
+     */
+    private void PutRecord(byte[] kind, int level, cObjectBase body, String type, cOrbit orbit)
+    {
+        int parentEnd = level > 0 ? mPathEnds[level - 1] : 0;
+        Ensure(256 + parentEnd);
+        PutAscii("{\"kind\":\"");
+        mBuffer.put(kind);
+        if(level > 0)
+        {
+            PutAscii("\",\"parent\":\"");
+            mBuffer.put(mPath, 0, parentEnd);
+        }
+        PutAscii("\",\"name\":");
+
+        //Escape the name once, into the path of the body, and copy it from there into the line.
+        int nameStart = level > 0 ? parentEnd + 1 : 0;
+        if(body.mName != null)
+        {
+            PathEnd(level, PutPathName(level, nameStart, body.mName));
+            Ensure(4 + mPathEnds[level] - nameStart);
+            mBuffer.put((byte)'"').put(mPath, nameStart, mPathEnds[level] - nameStart).put((byte)'"');
+        }
+        else
+        {
+            PathEnd(level, PutPathName(level, nameStart, ""));
+            PutAscii("null");
+        }
+
+        PutAscii(",\"type\":\"");
+        PutAscii(type);
+        mBuffer.put((byte)'"');
+        if((Double.doubleToRawLongBits(body.mX) | Double.doubleToRawLongBits(body.mY) | Double.doubleToRawLongBits(body.mZ)) != 0)
+        {
+            PutAscii(",\"position\":[");
+            PutNumber(body.mX);
+            mBuffer.put((byte)',');
+            PutNumber(body.mY);
+            mBuffer.put((byte)',');
+            PutNumber(body.mZ);
+            mBuffer.put((byte)']');
+        }
+        if(orbit != null)
+        {
+            PutAscii(",\"orbit\":{\"semiMajorAxis\":");
+            PutNumber(orbit.GetSemiMajorAxis());
+            PutAscii(",\"eccentricity\":");
+            PutNumber(orbit.GetEccentricity());
+            PutAscii(",\"inclination\":");
+            PutNumber(orbit.GetInclination());
+            PutAscii(",\"ascendingNode\":");
+            PutNumber(orbit.GetAscendingNode());
+            PutAscii(",\"periapsisArgument\":");
+            PutNumber(orbit.GetPeriapsisArgument());
+            PutAscii(",\"meanAnomaly\":");
+            PutNumber(orbit.GetMeanAnomaly());
+            PutAscii(",\"period\":");
+            PutNumber(orbit.GetPeriod());
+            mBuffer.put((byte)'}');
+        }
+        PutAscii("}\n");
+    }
+
+    /**
+     * Records where the escaped path of the body at a level ends.
+     *
+     * @param level the level of the body
+     * @param end the end of its path within mPath
+     */
+    private void PathEnd(int level, int end)
+    {
+        if(level == mPathEnds.length)
+        {
+            mPathEnds = Arrays.copyOf(mPathEnds, 2 * level);
+        }
+        mPathEnds[level] = end;
+    }
+
+    /**
+     * Escapes a name as JSON string content into mPath, after the path of the parent and a slash.
+     *
+     * @param level the level of the body
+     * @param start where the name starts in mPath
+     * @param name the name to escape
+     * @return the end of the escaped name in mPath
+     */
+    private int PutPathName(int level, int start, String name)
+    {
+        int length = name.length();
+        if(mPath.length < start + 12 * length + 1)
+        {
+            mPath = Arrays.copyOf(mPath, Math.max(2 * mPath.length, start + 12 * length + 1));
+        }
+        byte[] path = mPath;
+        if(level > 0)
+        {
+            path[start - 1] = '/';
+        }
+        int end = start;
+        for(int i = 0; i < length; i++)
+        {
+            char c = name.charAt(i);
+            if(c >= 0x20 && c < 0x80 && c != '"' && c != '\\')
+            {
+                path[end++] = (byte)c;
+            }
+            else if(c < 0x20 || c == '"' || c == '\\')
+            {
+                path[end++] = '\\';
+                switch(c)
+                {
+                    case '"':
+                    case '\\':
+                        path[end++] = (byte)c;
+                        break;
+                    case '\n':
+                        path[end++] = 'n';
+                        break;
+                    case '\t':
+                        path[end++] = 't';
+                        break;
+                    case '\r':
+                        path[end++] = 'r';
+                        break;
+                    default:
+                        path[end++] = 'u';
+                        path[end++] = '0';
+                        path[end++] = '0';
+                        path[end++] = HEX[c >> 4];
+                        path[end++] = HEX[c & 0xF];
+                        break;
+                }
+            }
+            else if(c < 0x800)
+            {
+                path[end++] = (byte)(0xC0 | (c >> 6));
+                path[end++] = (byte)(0x80 | (c & 0x3F));
+            }
+            else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(name.charAt(i + 1)))
+            {
+                int point = Character.toCodePoint(c, name.charAt(++i));
+                path[end++] = (byte)(0xF0 | (point >> 18));
+                path[end++] = (byte)(0x80 | ((point >> 12) & 0x3F));
+                path[end++] = (byte)(0x80 | ((point >> 6) & 0x3F));
+                path[end++] = (byte)(0x80 | (point & 0x3F));
+            }
+            else
+            {
+                //Lone surrogates cannot be encoded in UTF-8 and are replaced, as String.getBytes does.
+                if(Character.isSurrogate(c))
+                {
+                    c = '?';
+                }
+                path[end++] = (byte)(0xE0 | (c >> 12));
+                path[end++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                path[end++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Encodes a number with the shortest text that reads back to the same double.
+     *
+     * @param value the number, which must be finite
+     */
+    private void PutNumber(double value)
+    {
+        mNumber.setLength(0);
+        mNumber.append(value);
+        PutAscii(mNumber);
+    }
+
+    /**
+     * Encodes ASCII text.
+     *
+     * @param text the text, with no characters outside ASCII
+     */
+    private void PutAscii(CharSequence text)
+    {
+        int length = text.length();
+        Ensure(length);
+        for(int i = 0; i < length; i++)
+        {
+            mBuffer.put((byte)text.charAt(i));
+        }
+    }
+
+    /**
+     * Makes sure the buffer has room for the given number of bytes, growing it for very long lines.
+     *
+     * @param bytes the number of bytes to encode
+     */
+    private void Ensure(int bytes)
+    {
+        if(mBuffer.remaining() < bytes)
+        {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * mBuffer.capacity(), mBuffer.position() + bytes));
+            mBuffer.flip();
+            larger.put(mBuffer);
+            mBuffer = larger;
+        }
+    }
+
+    /**
+     * Writes the buffer to the channel if it holds at least BUFFER_SIZE bytes.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    private void FlushIfFull() throws IOException
+    {
+        if(mBuffer.position() >= BUFFER_SIZE)
+        {
+            Flush();
+        }
+    }
+
+    /**
+     * Writes the whole buffer to the channel.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    private void Flush() throws IOException
+    {
+        mBuffer.flip();
+        while(mBuffer.hasRemaining())
+        {
+            mWritten += mChannel.write(mBuffer);
+        }
+        mBuffer.clear();
+    }
+}
@@ -0,0 +1,90 @@
+package Data;
+
+import Logging.cLoggingBase;
+
+/**
+ * Immutable, persistent copy of a universe taken by cUniverse.Snapshot.
+ * A snapshot never changes, so any number of threads can read it while the universe it was taken
+ * from keeps being modified, without locking. Galaxies, stars and planets that did not change
+ * between two snapshots are shared by them, so taking a snapshot only copies the changed paths.
+ * The usual read API is available, and every method that would modify the universe throws an
+ * UnsupportedOperationException.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ * @see cUniverse#Snapshot()
+ */
+public class cUniverseSnapshot extends cUniverseView
+{
+    /**
+     * Snapshots of the galaxies of the universe, in order.
+     */
+    private final cGalaxySnapshot[] mGalaxySnapshots;
+
+    /**
+     * Constructs a snapshot of a universe.
+     * 
+     * @param galaxies the snapshots of its galaxies, owned by the snapshot
+     * @param stats the counts of the bodies of the universe when the snapshot was taken
+     * @param logger the logger to use for this universe
+     */
+    cUniverseSnapshot(cGalaxySnapshot[] galaxies, cSubtreeStats stats, cLoggingBase logger)
+    {
+        super(logger);
+        mGalaxySnapshots = galaxies;
+        mStats.Add(stats, 1);
+    }
+
+    /**
+     * Gets the snapshot of a galaxy at the specified index.
+     * 
+     * @param index the index of the galaxy to retrieve
+     * @return the galaxy at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public cGalaxySnapshot GetGalaxy(int index) throws IndexOutOfBoundsException
+    {
+        if(index >= 0 && index < mGalaxySnapshots.length)
+        {
+            return mGalaxySnapshots[index];
+        }
+        else
+        {
+            throw OutOfBounds(index);
+        }
+    }
+
+    /**
+     * Gets the number of galaxies in the universe.
+     * 
+     * @return the count of galaxies in this universe
+     */
+    @Override
+    public int GetGalaxyCount()
+    {
+        return mGalaxySnapshots.length;
+    }
+
+    /**
+     * Gets the number of galaxies, stars, planets and moons in the universe when the snapshot was taken.
+     * 
+     * @return the statistics of the bodies of this universe
+     */
+    @Override
+    public cSubtreeStats GetStats()
+    {
+        return mStats.Copy();
+    }
+
+    /**
+     * Snapshots never change, so a snapshot is its own snapshot.
+     * 
+     * @return this snapshot
+     */
+    @Override
+    public cUniverseSnapshot Snapshot()
+    {
+        return this;
+    }
+}
@@ -0,0 +1,290 @@
+package Data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import Logging.cLoggingBase;
+
+/**
+ * Read only universe whose galaxies are provided by a subclass instead of being stored in a list.
+ * Base class for universe views over other storage, such as lazily computed or columnar universes.
+ * Subclasses implement GetGalaxy and GetGalaxyCount; every method that would modify the universe
+ * throws an UnsupportedOperationException.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public abstract class cUniverseView extends cUniverse
+{
+    /**
+     * Constructs a universe view with the specified logger.
+     * 
+     * @param logger the logger to use for this universe
+     */
+    protected cUniverseView(cLoggingBase logger)
+    {
+        super(logger);
+    }
+
+    /**
+     * Gets a reference to a galaxy at the specified index.
+     * 
+     * @param index the index of the galaxy to retrieve
+     * @return the galaxy at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    @Override
+    public abstract cGalaxy GetGalaxy(int index) throws IndexOutOfBoundsException;
+
+    /**
+     * Gets the number of galaxies in the universe.
+     * 
+     * @return the count of galaxies in this universe
+     */
+    @Override
+    public abstract int GetGalaxyCount();
+
+    /**
+     * Gets the number of galaxies of the view for walks of the hierarchy.
+     * 
+     * @return the count of galaxies
+     */
+    @Override
+    int GalaxyCount()
+    {
+        return GetGalaxyCount();
+    }
+
+    /**
+     * Gets the galaxy of the view at an index for walks of the hierarchy.
+     * 
+     * @param index the index of the galaxy, which must be valid
+     * @return the galaxy at the index
+     */
+    @Override
+    cGalaxy GalaxyAt(int index)
+    {
+        return GetGalaxy(index);
+    }
+
+    /**
+     * Finds the first galaxy with the specified name by scanning the galaxies of the view.
+     * 
+     * @param name the name of the galaxy to find
+     * @return the first galaxy with the name, or null if there is none
+     * @throws IllegalArgumentException if the name is null
+     */
+    @Override
+    public cGalaxy FindGalaxy(String name) throws IllegalArgumentException
+    {
+        if(name == null)
+        {
+            String message = "Cannot find galaxy with null name in universe";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        int count = GetGalaxyCount();
+        for(int i = 0; i < count; i++)
+        {
+            cGalaxy galaxy = GetGalaxy(i);
+            if(name.equals(galaxy.GetName()))
+            {
+                return galaxy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the galaxies of the view whose names start with the specified prefix, in order.
+     * 
+     * @param prefix the prefix of the names to find
+     * @return the matching galaxies
+     * @throws IllegalArgumentException if the prefix is null
+     */
+    @Override
+    public List<cGalaxy> FindGalaxies(String prefix) throws IllegalArgumentException
+    {
+        if(prefix == null)
+        {
+            String message = "Cannot find galaxies with null prefix in universe";
+            mLogger.LogError(message);
+            throw new IllegalArgumentException(message);
+        }
+        ArrayList<cGalaxy> found = new ArrayList<cGalaxy>();
+        int count = GetGalaxyCount();
+        for(int i = 0; i < count; i++)
+        {
+            cGalaxy galaxy = GetGalaxy(i);
+            if(galaxy.GetName().startsWith(prefix))
+            {
+                found.add(galaxy);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Galaxies cannot be removed from a view.
+     * 
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void ClearGalaxies()
+    {
+        throw ReadOnly("clear galaxies of");
+    }
+
+    /**
+     * Galaxies cannot be added to a view.
+     * 
+     * @param galaxy ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean AddGalaxy(cGalaxy galaxy)
+    {
+        throw ReadOnly("add galaxy to");
+    }
+
+    /**
+     * Galaxies cannot be added to a view.
+     * 
+     * @param galaxy ignored
+     * @param index ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean AddGalaxy(cGalaxy galaxy, int index)
+    {
+        throw ReadOnly("add galaxy to");
+    }
+
+    /**
+     * Galaxies cannot be added to a view.
+     * 
+     * @param galaxies ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void AddGalaxies(Collection<? extends cGalaxy> galaxies)
+    {
+        throw ReadOnly("add galaxies to");
+    }
+
+    /**
+     * Galaxies cannot be removed from a view.
+     * 
+     * @param galaxy ignored
+     * @return never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean RemoveGalaxy(cGalaxy galaxy)
+    {
+        throw ReadOnly("remove galaxy from");
+    }
+
+    /**
+     * Galaxies cannot be removed from a view.
+     * 
+     * @param index ignored
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void RemoveGalaxy(int index)
+    {
+        throw ReadOnly("remove galaxy from");
+    }
+
+    /**
+     * Writes the universe to an output, followed by its galaxies and their bodies down to a depth, reading them through the view.
+     * 
+     * @param out the output to write to
+     * @param depth the number of levels of bodies to include, 0 for the galaxy count alone and Integer.MAX_VALUE for all
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void Render(Appendable out, int depth) throws IOException
+    {
+        int count = GetGalaxyCount();
+        out.append("Universe: (").append(Integer.toString(count)).append(")\n");
+        if(depth > 0)
+        {
+            for(int g = 0; g < count; g++)
+            {
+                out.append("\n");
+                GetGalaxy(g).Render(out, depth - 1);
+            }
+        }
+    }
+
+    /**
+     * Counts the bodies of the view by walking them, as views do not keep counts.
+     * 
+     * @return the statistics of the bodies of this universe
+     */
+    @Override
+    public cSubtreeStats GetStats()
+    {
+        cSubtreeStats stats = new cSubtreeStats(cSubtreeStats.UNIVERSE_SIZE);
+        int count = GetGalaxyCount();
+        for(int i = 0; i < count; i++)
+        {
+            cGalaxy galaxy = GetGalaxy(i);
+            stats.Add(cSubtreeStats.GalaxySlot(galaxy.GetType()), 1);
+            stats.Add(galaxy.GetStats(), 1);
+        }
+        return stats;
+    }
+
+    /**
+     * Takes a snapshot of the view. Views do not track changes, so every call copies the whole view,
+     * and the snapshot is not published for GetLatestSnapshot.
+     * 
+     * @return the snapshot of the universe
+     */
+    @Override
+    public cUniverseSnapshot Snapshot()
+    {
+        cSubtreeStats stats = new cSubtreeStats(cSubtreeStats.UNIVERSE_SIZE);
+        cGalaxySnapshot[] galaxies = new cGalaxySnapshot[GetGalaxyCount()];
+        for(int i = 0; i < galaxies.length; i++)
+        {
+            galaxies[i] = GetGalaxy(i).Snapshot();
+            stats.Add(cSubtreeStats.GalaxySlot(galaxies[i].mType), 1);
+            stats.Add(galaxies[i].mStats, 1);
+        }
+        return new cUniverseSnapshot(galaxies, stats, mLogger);
+    }
+
+    /**
+     * Logs and creates the exception thrown for an index outside the galaxies of this universe.
+     * 
+     * @param index the invalid index
+     * @return the exception to throw
+     */
+    protected IndexOutOfBoundsException OutOfBounds(int index)
+    {
+        String message = "Index " + index + " is out of bounds for universe";
+        mLogger.LogError(message);
+        return new IndexOutOfBoundsException(message);
+    }
+
+    /**
+     * Logs and creates the exception thrown when trying to modify the view.
+     * 
+     * @param action description of the attempted action
+     * @return the exception to throw
+     */
+    protected UnsupportedOperationException ReadOnly(String action)
+    {
+        String message = "Cannot " + action + " universe: universe is read only";
+        mLogger.LogError(message);
+        return new UnsupportedOperationException(message);
+    }
+}
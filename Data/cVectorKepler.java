@@ -0,0 +1,87 @@
+package Data;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vectorized solver of cOrbitPropagator, which propagates as many orbits at once as the widest
+ * double vector of the processor holds. It takes the same steps as the scalar solver, lane by lane:
+ * the mean anomaly is reduced to [-pi, pi], Kepler's equation is solved with cOrbit.KEPLER_ITERATIONS
+ * Newton steps from the same starting guess, and the result is turned into a position in the plane
+ * of the orbit. The orbits after the last full vector are left to the scalar solver.
+ * This class uses the incubating jdk.incubator.vector module and must be compiled with
+ * --add-modules jdk.incubator.vector. cOrbitPropagator loads it by name once it has found the module,
+ * so it must not be referenced from anywhere else, which keeps the other sources compiling without it.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+final class cVectorKepler
+{
+    /**
+     * Widest vector shape of the processor.
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private cVectorKepler()
+    {
+    }
+
+    /**
+     * Gets the number of orbits propagated per vector.
+     *
+     * @return the number of lanes of a vector
+     */
+    static int LaneCount()
+    {
+        return SPECIES.length();
+    }
+
+    /**
+     * Computes the positions of every body of a propagator, relative to the body it orbits.
+     *
+     * @param orbits the propagator holding the packed orbits
+     * @param time the time in days since the epoch
+     * @param x receives the x coordinate of each body
+     * @param y receives the y coordinate of each body
+     * @param z receives the z coordinate of each body
+     */
+    static void Solve(cOrbitPropagator orbits, double time, double[] x, double[] y, double[] z)
+    {
+        int count = orbits.GetBodyCount();
+        int bound = SPECIES.loopBound(count);
+        for(int i = 0; i < bound; i += SPECIES.length())
+        {
+            DoubleVector eccentricity = DoubleVector.fromArray(SPECIES, orbits.mEccentricity, i);
+            DoubleVector mean = DoubleVector.fromArray(SPECIES, orbits.mMeanMotion, i).fma(DoubleVector.broadcast(SPECIES, time), DoubleVector.fromArray(SPECIES, orbits.mMeanAnomaly, i));
+
+            //Reduce the mean anomaly to [-pi, pi] by removing whole turns, as cOrbit.EccentricAnomaly does.
+            DoubleVector turns = (DoubleVector)mean.mul(1 / cOrbit.TWO_PI).convert(VectorOperators.D2L, 0).convert(VectorOperators.L2D, 0);
+            mean = mean.sub(turns.mul(cOrbit.TWO_PI));
+            mean = mean.sub(cOrbit.TWO_PI, mean.compare(VectorOperators.GT, Math.PI));
+            mean = mean.add(cOrbit.TWO_PI, mean.compare(VectorOperators.LT, -Math.PI));
+
+            DoubleVector start = eccentricity.mul(cOrbit.KEPLER_START);
+            VectorMask<Double> negative = mean.compare(VectorOperators.LT, 0);
+            DoubleVector anomaly = mean.add(start.neg().blend(start, negative.not()));
+            for(int k = 0; k < cOrbit.KEPLER_ITERATIONS; k++)
+            {
+                DoubleVector error = anomaly.sub(eccentricity.mul(anomaly.lanewise(VectorOperators.SIN))).sub(mean);
+                DoubleVector slope = eccentricity.mul(anomaly.lanewise(VectorOperators.COS)).neg().add(1);
+                anomaly = anomaly.sub(error.div(slope));
+            }
+
+            DoubleVector along = DoubleVector.fromArray(SPECIES, orbits.mSemiMajorAxis, i).mul(anomaly.lanewise(VectorOperators.COS).sub(eccentricity));
+            DoubleVector across = DoubleVector.fromArray(SPECIES, orbits.mSemiMinorAxis, i).mul(anomaly.lanewise(VectorOperators.SIN));
+            along.mul(DoubleVector.fromArray(SPECIES, orbits.mPx, i)).add(across.mul(DoubleVector.fromArray(SPECIES, orbits.mQx, i))).intoArray(x, i);
+            along.mul(DoubleVector.fromArray(SPECIES, orbits.mPy, i)).add(across.mul(DoubleVector.fromArray(SPECIES, orbits.mQy, i))).intoArray(y, i);
+            along.mul(DoubleVector.fromArray(SPECIES, orbits.mPz, i)).add(across.mul(DoubleVector.fromArray(SPECIES, orbits.mQz, i))).intoArray(z, i);
+        }
+        orbits.Solve(bound, count, time, x, y, z);
+    }
+}
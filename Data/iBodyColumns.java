@@ -0,0 +1,163 @@
+package Data;
+
+import Logging.cLoggingBase;
+
+/**
+ * Read access to a universe stored depth first as one record per body, such as the columns of a
+ * cColumnarUniverse or the records of a cMappedUniverse. The columnar views read bodies through
+ * this interface, so they serve every such storage.
+ * Bodies are identified by their index within their level. The children of body i of a level are
+ * the range [first child of i, first child of i + 1) of the next level; passing the body count as
+ * i gives the child count. Indexes are not checked: the views only pass indexes within range.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+interface iBodyColumns
+{
+    /**
+     * Gets the logger of the universe, used by the views.
+     *
+     * @return the logger of the universe
+     */
+    cLoggingBase Logger();
+
+    /**
+     * Gets the name of a galaxy.
+     *
+     * @param galaxy the index of the galaxy
+     * @return the name of the galaxy
+     */
+    String GalaxyName(int galaxy);
+
+    /**
+     * Gets the type of a galaxy.
+     *
+     * @param galaxy the index of the galaxy
+     * @return the type of the galaxy
+     */
+    cGalaxy.eGalaxyType GalaxyType(int galaxy);
+
+    /**
+     * Gets the index of the first star of a galaxy.
+     *
+     * @param galaxy the index of the galaxy, or the galaxy count to get the star count
+     * @return the index of the galaxy's first star
+     */
+    int FirstStar(int galaxy);
+
+    /**
+     * Gets the name of a star.
+     *
+     * @param star the index of the star
+     * @return the name of the star
+     */
+    String StarName(int star);
+
+    /**
+     * Gets the type of a star.
+     *
+     * @param star the index of the star
+     * @return the type of the star
+     */
+    cStar.eStarType StarType(int star);
+
+    /**
+     * Gets the index of the galaxy of a star.
+     *
+     * @param star the index of the star
+     * @return the index of the star's galaxy
+     */
+    int StarParent(int star);
+
+    /**
+     * Gets the index of the first planet of a star.
+     *
+     * @param star the index of the star, or the star count to get the planet count
+     * @return the index of the star's first planet
+     */
+    int FirstPlanet(int star);
+
+    /**
+     * Gets the name of a planet.
+     *
+     * @param planet the index of the planet
+     * @return the name of the planet
+     */
+    String PlanetName(int planet);
+
+    /**
+     * Gets the type of a planet.
+     *
+     * @param planet the index of the planet
+     * @return the type of the planet
+     */
+    cPlanet.ePlanetType PlanetType(int planet);
+
+    /**
+     * Gets the index of the star of a planet.
+     *
+     * @param planet the index of the planet
+     * @return the index of the planet's star
+     */
+    int PlanetParent(int planet);
+
+    /**
+     * Gets the index of the first moon of a planet.
+     *
+     * @param planet the index of the planet, or the planet count to get the moon count
+     * @return the index of the planet's first moon
+     */
+    int FirstMoon(int planet);
+
+    /**
+     * Gets the name of a moon.
+     *
+     * @param moon the index of the moon
+     * @return the name of the moon
+     */
+    String MoonName(int moon);
+
+    /**
+     * Gets the type of a moon.
+     *
+     * @param moon the index of the moon
+     * @return the type of the moon
+     */
+    cPlanet.ePlanetType MoonType(int moon);
+
+    /**
+     * Gets the index of the planet of a moon.
+     *
+     * @param moon the index of the moon
+     * @return the index of the moon's planet
+     */
+    int MoonParent(int moon);
+
+    /**
+     * Counts the stars of each type in a range of stars.
+     *
+     * @param from the index of the first star, inclusive
+     * @param to the index of the last star, exclusive
+     * @return the number of stars of each type, indexed by eStarType ordinal
+     */
+    int[] StarTypeHistogram(int from, int to);
+
+    /**
+     * Counts the planets of each type in a range of planets.
+     *
+     * @param from the index of the first planet, inclusive
+     * @param to the index of the last planet, exclusive
+     * @return the number of planets of each type, indexed by ePlanetType ordinal
+     */
+    int[] PlanetTypeHistogram(int from, int to);
+
+    /**
+     * Counts the moons of each type in a range of moons.
+     *
+     * @param from the index of the first moon, inclusive
+     * @param to the index of the last moon, exclusive
+     * @return the number of moons of each type, indexed by ePlanetType ordinal
+     */
+    int[] MoonTypeHistogram(int from, int to);
+}
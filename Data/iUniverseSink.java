@@ -0,0 +1,64 @@
+package Data;
+
+/**
+ * Receiver for universes produced by streaming generation.
+ * Generated bodies are pushed to the sink depth first, in the order RandomUniverse creates them:
+ * each galaxy, star and planet is opened with a Begin call, followed by its children, and closed
+ * with the matching End call. Moons have no children and are reported with a single call, so
+ * cUniverse.StreamTo refuses universes in which a moon has moons of its own.
+ * Only the current path is held by the generator, so a sink that writes or aggregates bodies as
+ * they arrive can process universes far larger than the heap.
+ * All methods do nothing by default, so a sink only needs to override the events it uses.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public interface iUniverseSink
+{
+    /**
+     * Called when a galaxy is generated, before any of its stars.
+     * 
+     * @param name the name of the galaxy
+     * @param type the classification type of the galaxy
+     */
+    default void BeginGalaxy(String name, cGalaxy.eGalaxyType type) {}
+
+    /**
+     * Called after the last star of the current galaxy.
+     */
+    default void EndGalaxy() {}
+
+    /**
+     * Called when a star is generated, before any of its planets.
+     * 
+     * @param name the name of the star
+     * @param type the stellar classification of the star
+     */
+    default void BeginStar(String name, cStar.eStarType type) {}
+
+    /**
+     * Called after the last planet of the current star.
+     */
+    default void EndStar() {}
+
+    /**
+     * Called when a planet is generated, before any of its moons.
+     * 
+     * @param name the name of the planet
+     * @param type the classification type of the planet
+     */
+    default void BeginPlanet(String name, cPlanet.ePlanetType type) {}
+
+    /**
+     * Called after the last moon of the current planet.
+     */
+    default void EndPlanet() {}
+
+    /**
+     * Called when a moon of the current planet is generated.
+     * 
+     * @param name the name of the moon
+     * @param type the classification type of the moon
+     */
+    default void OnMoon(String name, cPlanet.ePlanetType type) {}
+}
@@ -0,0 +1,79 @@
+package Data;
+
+/**
+ * Callbacks for a depth first walk of a universe, or of a galaxy, star system or planet within it.
+ * Each body is reported with an On call before its children. Returning false from an On call skips
+ * the children of that body, which prunes the walk; otherwise the children are visited and the body
+ * is closed with the matching End call. Moons are reported with their depth: 1 for a moon of a planet,
+ * 2 for a moon of that moon, and so on.
+ * The walk reads the child lists directly, so it does not check indexes or log each step.
+ * All methods do nothing and visit every child by default, so a visitor only needs to override
+ * the events it uses.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public interface iUniverseVisitor
+{
+    /**
+     * Called when the walk reaches a galaxy, before any of its stars.
+     *
+     * @param galaxy the galaxy
+     * @return true to visit the stars of the galaxy, false to skip them
+     */
+    default boolean OnGalaxy(cGalaxy galaxy) { return true; }
+
+    /**
+     * Called after the last star of a galaxy whose stars were visited.
+     *
+     * @param galaxy the galaxy
+     */
+    default void EndGalaxy(cGalaxy galaxy) {}
+
+    /**
+     * Called when the walk reaches a star, before any of its planets.
+     *
+     * @param star the star
+     * @return true to visit the planets of the star, false to skip them
+     */
+    default boolean OnStar(cStar star) { return true; }
+
+    /**
+     * Called after the last planet of a star whose planets were visited.
+     *
+     * @param star the star
+     */
+    default void EndStar(cStar star) {}
+
+    /**
+     * Called when the walk reaches a planet, before any of its moons.
+     *
+     * @param planet the planet
+     * @return true to visit the moons of the planet, false to skip them
+     */
+    default boolean OnPlanet(cPlanet planet) { return true; }
+
+    /**
+     * Called after the last moon of a planet whose moons were visited.
+     *
+     * @param planet the planet
+     */
+    default void EndPlanet(cPlanet planet) {}
+
+    /**
+     * Called when the walk reaches a moon, before any moons of its own.
+     *
+     * @param moon the moon
+     * @param depth the depth of the moon below its planet, starting at 1
+     * @return true to visit the moons of the moon, false to skip them
+     */
+    default boolean OnMoon(cPlanet moon, int depth) { return true; }
+
+    /**
+     * Called after the last moon of a moon whose moons were visited.
+     *
+     * @param moon the moon
+     * @param depth the depth of the moon below its planet, starting at 1
+     */
+    default void EndMoon(cPlanet moon, int depth) {}
+}
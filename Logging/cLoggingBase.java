@@ -77,7 +77,11 @@ public abstract class cLoggingBase
      */
     public void SetLogLevel(eLogLevel level)
     {
-        mStandbyLogger.SetLogLevel(level);
+        //The standby logger must not forward to itself.
+        if(this != mStandbyLogger)
+        {
+            mStandbyLogger.SetLogLevel(level);
+        }
         mLogLevel = level;
     }
 
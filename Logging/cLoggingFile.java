@@ -69,12 +69,13 @@ public class cLoggingFile extends cLoggingDecorator
      * Creates the log file and necessary directories if they don't exist.
      * Existing log files are deleted and recreated.
      * Messages are formatted with UTC timestamp and log level information.
+     * Synchronized so that objects generated on several threads can share one file logger.
      * 
      * @param message the message to log
      * @param level the level at which to log the message
      */
     @Override
-    public void Log(String message, eLogLevel level)
+    public synchronized void Log(String message, eLogLevel level)
     {
         //If set to not log skip.
         if(level == eLogLevel.kOff)
@@ -121,7 +122,7 @@ public class cLoggingFile extends cLoggingDecorator
      * Closes the file writer and releases resources.
      * Should be called when logging is complete to ensure all data is flushed and the file is properly closed.
      */
-    public void Close()
+    public synchronized void Close()
     {
         try
         {
@@ -0,0 +1,69 @@
+package Tests;
+
+import Data.cGalaxy;
+import Data.cPlanet;
+import Data.cStar;
+import Data.cSubtreeStats;
+import Data.cUniverse;
+
+/**
+ * Tests that bodies always have a type.
+ * The type counts of a subtree are kept by type, so galaxies, stars, planets and moons reject a null
+ * type when they are created or change type, and the counts stay unchanged.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cBodyTypeTest extends cTestBase
+{
+    /**
+     * Runs every case of this test.
+     */
+    @Override
+    public void Run()
+    {
+        NullTypeIsRejectedOnCreation();
+        NullTypeIsRejectedOnChange();
+    }
+
+    /**
+     * Creating a body with a null type throws IllegalArgumentException.
+     */
+    private void NullTypeIsRejectedOnCreation()
+    {
+        CheckThrows(IllegalArgumentException.class, () -> new cGalaxy("Galaxy", (cGalaxy.eGalaxyType)null), "galaxy with a null type");
+        CheckThrows(IllegalArgumentException.class, () -> new cGalaxy("Galaxy", null, mLogger), "galaxy with a null type and a logger");
+        CheckThrows(IllegalArgumentException.class, () -> new cStar("Star", (cStar.eStarType)null), "star with a null type");
+        CheckThrows(IllegalArgumentException.class, () -> new cStar("Star", null, mLogger), "star with a null type and a logger");
+        CheckThrows(IllegalArgumentException.class, () -> new cPlanet("Planet", (cPlanet.ePlanetType)null), "planet with a null type");
+        CheckThrows(IllegalArgumentException.class, () -> new cPlanet("Planet", null, mLogger), "planet with a null type and a logger");
+    }
+
+    /**
+     * Setting the type of an attached body to null throws IllegalArgumentException and leaves the counts unchanged.
+     */
+    private void NullTypeIsRejectedOnChange()
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        cGalaxy galaxy = new cGalaxy("Galaxy", cGalaxy.eGalaxyType.kIrregular, mLogger);
+        cStar star = new cStar("Star", cStar.eStarType.kClassM, mLogger);
+        cPlanet planet = new cPlanet("Planet", cPlanet.ePlanetType.kGasGiant, mLogger);
+        cPlanet moon = new cPlanet("Moon", cPlanet.ePlanetType.kTerrestrial, mLogger);
+        universe.AddGalaxy(galaxy);
+        galaxy.AddStar(star);
+        star.AddPlanet(planet);
+        planet.AddMoon(moon);
+
+        CheckThrows(IllegalArgumentException.class, () -> galaxy.SetType(null), "galaxy type set to null");
+        CheckThrows(IllegalArgumentException.class, () -> star.SetStarType(null), "star type set to null");
+        CheckThrows(IllegalArgumentException.class, () -> planet.SetPlanetType(null), "planet type set to null");
+        CheckThrows(IllegalArgumentException.class, () -> moon.SetPlanetType(null), "moon type set to null");
+
+        CheckEqual(cGalaxy.eGalaxyType.kIrregular, galaxy.GetType(), "galaxy type after rejected change");
+        cSubtreeStats stats = universe.GetStats();
+        CheckEqual(1, stats.GetGalaxyTypeCount(cGalaxy.eGalaxyType.kIrregular), "irregular galaxies");
+        CheckEqual(1, stats.GetStarTypeCount(cStar.eStarType.kClassM), "class M stars");
+        CheckEqual(1, stats.GetPlanetTypeCount(cPlanet.ePlanetType.kGasGiant), "gas giant planets");
+        CheckEqual(1, stats.GetMoonTypeCount(cPlanet.ePlanetType.kTerrestrial), "terrestrial moons");
+    }
+}
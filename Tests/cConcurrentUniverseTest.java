@@ -0,0 +1,166 @@
+package Tests;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import Data.cGalaxy;
+import Data.cPlanet;
+import Data.cStar;
+import Data.cSubtreeStats;
+import Data.cUniverse;
+import Data.cUniverseSnapshot;
+
+/**
+ * Tests a universe in concurrent mode changed by several threads while another takes snapshots.
+ * Each writer adds, removes and re-types the stars and planets of its own galaxy. The reader checks
+ * that every snapshot it takes or reads back has counts that match its bodies, and once the writers are
+ * done the counts of the universe must match its bodies as well.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cConcurrentUniverseTest extends cTestBase
+{
+    /**
+     * Number of galaxies, each changed by its own writer thread.
+     */
+    private static final int WRITERS = 4;
+
+    /**
+     * Number of changes each writer makes.
+     */
+    private static final int ROUNDS = 2000;
+
+    /**
+     * Runs every case of this test.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting for the threads
+     */
+    @Override
+    public void Run() throws InterruptedException
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        universe.SetConcurrent(true);
+        for(int g = 0; g < WRITERS; g++)
+        {
+            universe.AddGalaxy(new cGalaxy("Galaxy_" + g, mLogger));
+        }
+
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ArrayList<Thread> writers = new ArrayList<Thread>();
+        for(int g = 0; g < WRITERS; g++)
+        {
+            cGalaxy galaxy = universe.GetGalaxy(g);
+            Random random = new Random(g);
+            writers.add(new Thread(() -> Guard(failure, () -> Write(galaxy, random))));
+        }
+        int[] snapshots = new int[1];
+        Thread reader = new Thread(() -> Guard(failure, () ->
+        {
+            while(writing.get())
+            {
+                CheckSnapshot(universe.Snapshot());
+                CheckSnapshot(universe.GetLatestSnapshot());
+                snapshots[0]++;
+            }
+        }));
+
+        reader.start();
+        for(Thread writer : writers)
+        {
+            writer.start();
+        }
+        for(Thread writer : writers)
+        {
+            writer.join();
+        }
+        writing.set(false);
+        reader.join();
+
+        Check(failure.get() == null, "no thread failed: " + failure.get());
+        Check(snapshots[0] > 0, "snapshots were taken while writing");
+
+        cSubtreeStats stats = universe.GetStats();
+        CheckEqual(stats.GetStarCount(), (int)universe.Stars().count(), "stars after concurrent changes");
+        CheckEqual(stats.GetPlanetCount(), (int)universe.Planets().count(), "planets after concurrent changes");
+        CheckEqual(stats.GetMoonCount(), (int)universe.Moons().count(), "moons after concurrent changes");
+        for(cStar.eStarType type : cStar.eStarType.values())
+        {
+            CheckEqual(stats.GetStarTypeCount(type), (int)universe.Stars().filter(star -> star.GetStarType() == type).count(), "stars of type " + type);
+        }
+        for(cPlanet.ePlanetType type : cPlanet.ePlanetType.values())
+        {
+            CheckEqual(stats.GetPlanetTypeCount(type), (int)universe.Planets().filter(planet -> planet.GetPlanetType() == type).count(), "planets of type " + type);
+        }
+        CheckSnapshot(universe.Snapshot());
+    }
+
+    /**
+     * Adds, removes and re-types the stars and planets of a galaxy.
+     *
+     * @param galaxy the galaxy to change
+     * @param random the source of the changes
+     */
+    private void Write(cGalaxy galaxy, Random random)
+    {
+        cStar.eStarType[] starTypes = cStar.eStarType.values();
+        cPlanet.ePlanetType[] planetTypes = cPlanet.ePlanetType.values();
+        for(int round = 0; round < ROUNDS; round++)
+        {
+            cStar star = new cStar("Star_" + round, starTypes[random.nextInt(starTypes.length)], mLogger);
+            galaxy.AddStar(star);
+            for(int p = 0; p < 2; p++)
+            {
+                cPlanet planet = new cPlanet("Planet_" + p, planetTypes[random.nextInt(planetTypes.length)], mLogger);
+                star.AddPlanet(planet);
+                planet.AddMoon(new cPlanet("Moon_1", planetTypes[random.nextInt(planetTypes.length)], mLogger));
+            }
+
+            cStar changed = galaxy.GetStar(random.nextInt(galaxy.GetStarCount()));
+            changed.SetStarType(starTypes[random.nextInt(starTypes.length)]);
+            changed.GetPlanet(0).SetPlanetType(planetTypes[random.nextInt(planetTypes.length)]);
+            if(round % 3 == 0)
+            {
+                galaxy.RemoveStar(random.nextInt(galaxy.GetStarCount()));
+            }
+        }
+    }
+
+    /**
+     * Checks that the counts of a snapshot match its bodies.
+     *
+     * @param snapshot the snapshot to check, which may be null before the first snapshot is published
+     */
+    private void CheckSnapshot(cUniverseSnapshot snapshot)
+    {
+        if(snapshot == null)
+        {
+            return;
+        }
+        cSubtreeStats stats = snapshot.GetStats();
+        CheckEqual(stats.GetStarCount(), (int)snapshot.Stars().count(), "stars of a snapshot");
+        CheckEqual(stats.GetPlanetCount(), (int)snapshot.Planets().count(), "planets of a snapshot");
+        CheckEqual(stats.GetMoonCount(), (int)snapshot.Moons().count(), "moons of a snapshot");
+    }
+
+    /**
+     * Runs an action, recording the first failure of any thread.
+     *
+     * @param failure the first failure so far
+     * @param action the action to run
+     */
+    private static void Guard(AtomicReference<Throwable> failure, Runnable action)
+    {
+        try
+        {
+            action.run();
+        }
+        catch(Throwable e)
+        {
+            failure.compareAndSet(null, e);
+        }
+    }
+}
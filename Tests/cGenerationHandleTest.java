@@ -0,0 +1,165 @@
+package Tests;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import Data.cGenerationHandle;
+import Data.cUniverse;
+import Logging.cLoggingBase;
+
+/**
+ * Tests cancelling asynchronous universe generation before, during and at the end of a generation,
+ * and that a generation failing with an error still completes its future.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cGenerationHandleTest extends cTestBase
+{
+    /**
+     * Longest time to wait for a generation to make progress, in nanoseconds.
+     */
+    private static final long TIMEOUT = 30_000_000_000L;
+
+    /**
+     * Threads started by the executor of this test.
+     */
+    private final ArrayList<Thread> mThreads = new ArrayList<Thread>();
+
+    /**
+     * Executor that runs each generation on a new thread, so that the test can wait for it to return.
+     */
+    private final Executor mExecutor = (task) ->
+    {
+        Thread thread = new Thread(task);
+        mThreads.add(thread);
+        thread.start();
+    };
+
+    /**
+     * Runs every case of this test.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting for a generation
+     */
+    @Override
+    public void Run() throws InterruptedException
+    {
+        CancelBeforeStart();
+        CancelDuringGeneration();
+        CancelRacingPublication();
+        ErrorCompletesFuture();
+    }
+
+    /**
+     * A generation cancelled before it runs leaves the universe empty.
+     */
+    private void CancelBeforeStart()
+    {
+        Runnable[] pending = new Runnable[1];
+        cUniverse universe = new cUniverse(mLogger);
+        cGenerationHandle handle = universe.RandomUniverseAsync(7, 2, 3, 5, 10, 1, 4, 0, 3, (task) -> pending[0] = task);
+        handle.Cancel();
+        pending[0].run();
+        Check(handle.IsCancelled(), "generation cancelled before it ran is cancelled");
+        CheckEqual(0, universe.GetGalaxyCount(), "galaxies after cancelling before the run");
+    }
+
+    /**
+     * A generation cancelled while it generates stars stops and leaves the universe empty.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting for the generation
+     */
+    private void CancelDuringGeneration() throws InterruptedException
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        cGenerationHandle handle = universe.RandomUniverseAsync(11, 40, 50, 200, 400, 4, 12, 0, 6, mExecutor);
+        long start = System.nanoTime();
+        while(handle.GetStarsDone() == 0 && !handle.IsDone() && System.nanoTime() - start < TIMEOUT)
+        {
+            Thread.onSpinWait();
+        }
+        handle.Cancel();
+        Join();
+        Check(handle.IsCancelled(), "generation cancelled while running is cancelled");
+        Check(handle.GetStarsDone() < handle.GetStarsPlanned(), "generation stopped before every star was generated");
+        CheckEqual(0, universe.GetGalaxyCount(), "galaxies after cancelling during generation");
+    }
+
+    /**
+     * Cancelling small generations at random moments, many of them as the galaxies are published, either
+     * cancels the generation and leaves the universe empty or fails and leaves the whole universe.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting for a generation
+     */
+    private void CancelRacingPublication() throws InterruptedException
+    {
+        Random random = new Random(3);
+        int cancelled = 0;
+        int mismatches = 0;
+        for(int i = 0; i < 500; i++)
+        {
+            cUniverse universe = new cUniverse(mLogger);
+            cGenerationHandle handle = universe.RandomUniverseAsync(i + 1, 1, 2, 1, 3, 1, 2, 0, 1, mExecutor);
+            int spins = random.nextInt(20000);
+            for(int s = 0; s < spins; s++)
+            {
+                Thread.onSpinWait();
+            }
+            handle.Cancel();
+            Join();
+            if(handle.IsCancelled())
+            {
+                cancelled++;
+                mismatches += universe.GetGalaxyCount() == 0 ? 0 : 1;
+            }
+            else
+            {
+                mismatches += universe.GetGalaxyCount() == handle.GetGalaxiesPlanned() ? 0 : 1;
+            }
+        }
+        CheckEqual(0, mismatches, "generations whose universe does not match their cancellation");
+        Check(cancelled > 0, "some generations were cancelled");
+    }
+
+    /**
+     * A generation that fails with an error completes its future exceptionally and rethrows the error.
+     */
+    private void ErrorCompletesFuture()
+    {
+        boolean[] failing = new boolean[1];
+        cLoggingBase logger = new cLoggingBase()
+        {
+            @Override
+            public void Log(String message, eLogLevel level)
+            {
+                if(failing[0])
+                {
+                    throw new OutOfMemoryError("test");
+                }
+            }
+        };
+        Runnable[] pending = new Runnable[1];
+        cUniverse universe = new cUniverse(logger);
+        cGenerationHandle handle = universe.RandomUniverseAsync(7, 2, 3, 5, 10, 1, 4, 0, 3, (task) -> pending[0] = task);
+        failing[0] = true;
+        CheckThrows(OutOfMemoryError.class, () -> pending[0].run(), "error rethrown by the generation");
+        failing[0] = false;
+        Check(handle.IsDone(), "generation that failed with an error is done");
+        Check(handle.GetFuture().isCompletedExceptionally(), "generation that failed with an error completed exceptionally");
+    }
+
+    /**
+     * Waits for every generation started by the executor to return.
+     *
+     * @throws InterruptedException if the test is interrupted while waiting
+     */
+    private void Join() throws InterruptedException
+    {
+        for(Thread thread : mThreads)
+        {
+            thread.join();
+        }
+        mThreads.clear();
+    }
+}
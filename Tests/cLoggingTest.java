@@ -0,0 +1,40 @@
+package Tests;
+
+import Logging.cLoggingBase;
+import Logging.cLoggingBase.eLogLevel;
+import Logging.cLoggingDecorator;
+
+/**
+ * Tests the log levels of loggers and of the standby logger they share.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cLoggingTest extends cTestBase
+{
+    /**
+     * Runs every case of this test.
+     */
+    @Override
+    public void Run()
+    {
+        cLoggingBase standby = cLoggingBase.GetStandbyLogger();
+        eLogLevel original = standby.GetLogLevel();
+        try
+        {
+            //Setting the level of the standby logger itself must not forward to itself forever.
+            standby.SetLogLevel(eLogLevel.kWarning);
+            CheckEqual(eLogLevel.kWarning, standby.GetLogLevel(), "standby level after setting it directly");
+
+            //Other loggers set the standby level along with their own.
+            cLoggingDecorator logger = new cLoggingDecorator(null, eLogLevel.kOff);
+            logger.SetLogLevel(eLogLevel.kTrace);
+            CheckEqual(eLogLevel.kTrace, logger.GetLogLevel(), "logger level");
+            CheckEqual(eLogLevel.kTrace, standby.GetLogLevel(), "standby level after setting a logger");
+        }
+        finally
+        {
+            standby.SetLogLevel(original);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package Tests;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import Data.cColumnarStar;
+import Data.cMappedUniverse;
+import Data.cUniverse;
+
+/**
+ * Tests that mapped universe files read back as the universe that was written, and that opening
+ * a corrupt file throws an IOException instead of failing later or allocating without bound.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cMappedUniverseTest extends cTestBase
+{
+    /**
+     * Runs every case of this test.
+     *
+     * @throws IOException if a temporary file cannot be used
+     */
+    @Override
+    public void Run() throws IOException
+    {
+        Path directory = Files.createTempDirectory("starviewer");
+        Path file = directory.resolve("universe.map");
+        Path corrupt = directory.resolve("corrupt.map");
+        try
+        {
+            cUniverse universe = new cUniverse(mLogger);
+            universe.RandomUniverse(7, 2, 3, 4, 8, 2, 5, 1, 3);
+            cMappedUniverse.Write(universe, file, mLogger);
+            cMappedUniverse mapped = cMappedUniverse.Open(file, mLogger);
+            try
+            {
+                CheckEqual(universe.ToString(true), mapped.ToString(true), "mapped copy");
+                CheckEqual(universe.GetStats().GetMoonCount(), mapped.GetStats().GetMoonCount(), "moons of the mapped copy");
+                cColumnarStar star = (cColumnarStar)mapped.GetGalaxy(1).GetStar(0);
+                CheckEqual(mapped.GetGalaxy(1).GetName(), star.GetGalaxy().GetName(), "galaxy of a mapped star");
+            }
+            finally
+            {
+                mapped.Close();
+            }
+
+            byte[] bytes = Files.readAllBytes(file);
+            CheckCorrupt(bytes, corrupt, buffer -> buffer.put(0, (byte)0), "bad magic");
+            CheckCorrupt(Arrays.copyOf(bytes, 40), corrupt, buffer -> {}, "truncated header");
+            CheckCorrupt(Arrays.copyOf(bytes, bytes.length - 1), corrupt, buffer -> {}, "truncated name table");
+            CheckCorrupt(bytes, corrupt, buffer -> buffer.putLong(8, -1), "negative galaxy count");
+            CheckCorrupt(bytes, corrupt, buffer -> buffer.putLong(40, Integer.MAX_VALUE), "name count beyond the file");
+            CheckCorrupt(bytes, corrupt, buffer -> buffer.putInt((int)buffer.getLong(80), -5), "negative name length");
+            CheckCorrupt(bytes, corrupt, buffer -> buffer.put(88, (byte)100), "bad galaxy type");
+            CheckCorrupt(bytes, corrupt, buffer -> buffer.putInt(89, (int)buffer.getLong(40)), "bad galaxy name id");
+            CheckCorrupt(bytes, corrupt, buffer -> buffer.putInt(88 + 9 + 5, (int)buffer.getLong(16) + 1), "first star beyond the star count");
+            CheckCorrupt(bytes, corrupt, buffer -> buffer.putInt(88 + 5, 1), "first star of the first galaxy not 0");
+            CheckCorrupt(bytes, corrupt, buffer -> buffer.putInt((int)buffer.getLong(56) + 5, 1), "bad parent of a star");
+            CheckCorrupt(bytes, corrupt, buffer -> buffer.putInt((int)buffer.getLong(72) - 4, -1), "bad first moon");
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(corrupt);
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Writes a corrupted copy of a file and checks that opening it throws an IOException.
+     *
+     * @param bytes the content of a valid file, which is not modified
+     * @param file the file to write the corrupted copy to
+     * @param corruption the change to make to the copy, given as a little endian buffer
+     * @param message what the corruption is
+     * @throws IOException if the copy cannot be written
+     */
+    private void CheckCorrupt(byte[] bytes, Path file, Consumer<ByteBuffer> corruption, String message) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        corruption.accept(buffer);
+        Files.write(file, buffer.array());
+        CheckThrows(IOException.class, () -> cMappedUniverse.Open(file, mLogger).Close(), message);
+    }
+}
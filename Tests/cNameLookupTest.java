@@ -0,0 +1,108 @@
+package Tests;
+
+import Data.cGalaxy;
+import Data.cPlanet;
+import Data.cStar;
+import Data.cUniverse;
+
+/**
+ * Tests that lookups by name follow renames in lists large enough to keep a name index.
+ * Renaming a body discards the name index of the list holding it, so the next lookup finds it under
+ * its new name and no longer under its old one. Generated names do not fill the table of shared
+ * user supplied names.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cNameLookupTest extends cTestBase
+{
+    /**
+     * Number of children added to each list, enough for the list to keep a name index.
+     */
+    private static final int COUNT = 40;
+
+    /**
+     * Runs every case of this test.
+     */
+    @Override
+    public void Run()
+    {
+        RenamedGalaxyIsFound();
+        RenamedStarIsFound();
+        RenamedPlanetAndMoonAreFound();
+        UserNamesAreSharedAfterGeneration();
+    }
+
+    /**
+     * A renamed galaxy is found by its new name and not by its old one.
+     */
+    private void RenamedGalaxyIsFound()
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        for(int i = 0; i < COUNT; i++)
+        {
+            universe.AddGalaxy(new cGalaxy("Galaxy_" + i, mLogger));
+        }
+        cGalaxy galaxy = universe.FindGalaxy("Galaxy_7");
+        Check(galaxy != null, "galaxy found before rename");
+        galaxy.SetName("Renamed");
+        Check(universe.FindGalaxy("Renamed") == galaxy, "galaxy found by its new name");
+        Check(universe.FindGalaxy("Galaxy_7") == null, "galaxy not found by its old name");
+    }
+
+    /**
+     * A renamed star is found by its new name and not by its old one.
+     */
+    private void RenamedStarIsFound()
+    {
+        cGalaxy galaxy = new cGalaxy("Galaxy", mLogger);
+        for(int i = 0; i < COUNT; i++)
+        {
+            galaxy.AddStar(new cStar("Star_" + i, mLogger));
+        }
+        cStar star = galaxy.FindStar("Star_7");
+        Check(star != null, "star found before rename");
+        star.SetName("Renamed");
+        Check(galaxy.FindStar("Renamed") == star, "star found by its new name");
+        Check(galaxy.FindStar("Star_7") == null, "star not found by its old name");
+    }
+
+    /**
+     * A renamed planet and a renamed moon are found by their new names and not by their old ones.
+     */
+    private void RenamedPlanetAndMoonAreFound()
+    {
+        cStar star = new cStar("Star", mLogger);
+        cPlanet planet = null;
+        for(int i = 0; i < COUNT; i++)
+        {
+            planet = new cPlanet("Planet_" + i, mLogger);
+            star.AddPlanet(planet);
+        }
+        for(int i = 0; i < COUNT; i++)
+        {
+            planet.AddMoon(new cPlanet("Moon_" + i, mLogger));
+        }
+        cPlanet renamedPlanet = star.FindPlanet("Planet_7");
+        cPlanet moon = planet.FindMoon("Moon_7");
+        Check(renamedPlanet != null && moon != null, "planet and moon found before rename");
+        renamedPlanet.SetName("Renamed");
+        moon.SetName("Renamed");
+        Check(star.FindPlanet("Renamed") == renamedPlanet, "planet found by its new name");
+        Check(star.FindPlanet("Planet_7") == null, "planet not found by its old name");
+        Check(planet.FindMoon("Renamed") == moon, "moon found by its new name");
+        Check(planet.FindMoon("Moon_7") == null, "moon not found by its old name");
+    }
+
+    /**
+     * User supplied names are still shared after generating more bodies than the table of shared names holds.
+     */
+    private void UserNamesAreSharedAfterGeneration()
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        universe.RandomUniverse(1L, 1, 2, 70000, 70001, 1, 2, 0, 1);
+        cStar first = new cStar(new String("UserStar"), mLogger);
+        cStar second = new cStar(new String("UserStar"), mLogger);
+        Check(first.GetName() == second.GetName(), "user supplied names are shared after generation");
+    }
+}
@@ -0,0 +1,217 @@
+package Tests;
+
+import Data.cGalaxy;
+import Data.cPlanet;
+import Data.cStar;
+import Data.cSubtreeStats;
+import Data.cUniverse;
+
+/**
+ * Tests that regenerating a universe only reuses the generated objects it still owns.
+ * Galaxies, stars, planets and moons moved out of a generated universe must keep their contents
+ * when that universe is regenerated, while the objects left in it are still reused.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cObjectArenaTest extends cTestBase
+{
+    /**
+     * Runs every case of this test.
+     */
+    @Override
+    public void Run()
+    {
+        RegenerationReusesObjects();
+        MovedGalaxyIsKept();
+        SharedGalaxyIsKept();
+        MovedStarPlanetAndMoonAreKept();
+    }
+
+    /**
+     * Regenerating a universe reuses the objects of the galaxies that were cleared.
+     */
+    private void RegenerationReusesObjects()
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        Generate(universe, 1);
+        cGalaxy first = universe.GetGalaxy(0);
+        Generate(universe, 1);
+        Check(first == universe.GetGalaxy(0), "regeneration reuses the first galaxy");
+    }
+
+    /**
+     * A galaxy removed from a universe and added to another is not rewritten when the first is regenerated.
+     */
+    private void MovedGalaxyIsKept()
+    {
+        cUniverse source = new cUniverse(mLogger);
+        Generate(source, 1);
+        cGalaxy moved = source.GetGalaxy(0);
+        source.RemoveGalaxy(moved);
+        cUniverse target = new cUniverse(mLogger);
+        target.AddGalaxy(moved);
+        String contents = moved.ToString(true);
+
+        Generate(source, 2);
+        Check(!Contains(source, moved), "regenerated universe does not reuse the moved galaxy");
+        CheckEqual(contents, moved.ToString(true), "contents of the moved galaxy");
+        CheckStats(target);
+    }
+
+    /**
+     * A galaxy also added to another universe without being removed is not rewritten when the first is regenerated.
+     */
+    private void SharedGalaxyIsKept()
+    {
+        cUniverse source = new cUniverse(mLogger);
+        Generate(source, 1);
+        cGalaxy shared = source.GetGalaxy(0);
+        cUniverse target = new cUniverse(mLogger);
+        target.AddGalaxy(shared);
+        String contents = shared.ToString(true);
+
+        Generate(source, 2);
+        Check(!Contains(source, shared), "regenerated universe does not reuse the shared galaxy");
+        CheckEqual(contents, shared.ToString(true), "contents of the shared galaxy");
+        CheckStats(target);
+    }
+
+    /**
+     * A star, a planet and a moon moved to bodies of another universe are not rewritten when the first is regenerated.
+     */
+    private void MovedStarPlanetAndMoonAreKept()
+    {
+        cUniverse source = new cUniverse(mLogger);
+        Generate(source, 1);
+        cGalaxy galaxy = source.GetGalaxy(0);
+        cStar star = galaxy.GetStar(0);
+        cStar otherStar = galaxy.GetStar(1);
+        cPlanet planet = otherStar.GetPlanet(0);
+        cPlanet host = FindMoonHost(source);
+        cPlanet moon = host.GetMoon(0);
+
+        cUniverse target = new cUniverse(mLogger);
+        cGalaxy targetGalaxy = new cGalaxy("Target", mLogger);
+        cStar targetStar = new cStar("Target", mLogger);
+        cPlanet targetPlanet = new cPlanet("Target", mLogger);
+        target.AddGalaxy(targetGalaxy);
+        targetGalaxy.AddStar(targetStar);
+        targetStar.AddPlanet(targetPlanet);
+
+        host.RemoveMoon(moon);
+        targetPlanet.AddMoon(moon);
+        galaxy.RemoveStar(star);
+        targetGalaxy.AddStar(star);
+        otherStar.RemovePlanet(planet);
+        targetStar.AddPlanet(planet);
+        String contents = targetGalaxy.ToString(true);
+
+        Generate(source, 2);
+        CheckEqual(contents, targetGalaxy.ToString(true), "contents of the galaxy the bodies were moved to");
+        CheckStats(target);
+    }
+
+    /**
+     * Regenerates a universe with enough bodies that every kind of object is reused.
+     *
+     * @param universe the universe to regenerate
+     * @param seed the seed to generate from
+     */
+    private static void Generate(cUniverse universe, long seed)
+    {
+        universe.RandomUniverse(seed, 2, 3, 4, 8, 2, 5, 1, 3);
+    }
+
+    /**
+     * Checks that the counts of a universe match its contents.
+     *
+     * @param universe the universe to check
+     */
+    private void CheckStats(cUniverse universe)
+    {
+        int stars = 0;
+        int planets = 0;
+        int moons = 0;
+        for(int g = 0; g < universe.GetGalaxyCount(); g++)
+        {
+            cGalaxy galaxy = universe.GetGalaxy(g);
+            for(int s = 0; s < galaxy.GetStarCount(); s++)
+            {
+                cStar star = galaxy.GetStar(s);
+                for(int p = 0; p < star.GetPlanetCount(); p++)
+                {
+                    planets++;
+                    moons += CountMoons(star.GetPlanet(p));
+                }
+                stars++;
+            }
+        }
+        cSubtreeStats stats = universe.GetStats();
+        CheckEqual(universe.GetGalaxyCount(), stats.GetGalaxyCount(), "counted galaxies");
+        CheckEqual(stars, stats.GetStarCount(), "counted stars");
+        CheckEqual(planets, stats.GetPlanetCount(), "counted planets");
+        CheckEqual(moons, stats.GetMoonCount(), "counted moons");
+    }
+
+    /**
+     * Counts the moons of a planet and of its moons.
+     *
+     * @param planet the planet
+     * @return the number of moons below the planet
+     */
+    private static int CountMoons(cPlanet planet)
+    {
+        int moons = planet.GetMoonCount();
+        for(int m = 0; m < planet.GetMoonCount(); m++)
+        {
+            moons += CountMoons(planet.GetMoon(m));
+        }
+        return moons;
+    }
+
+    /**
+     * Finds a planet with moons in a universe.
+     *
+     * @param universe the universe to search
+     * @return the first planet with moons, or null if the universe has none
+     */
+    private static cPlanet FindMoonHost(cUniverse universe)
+    {
+        for(int g = 0; g < universe.GetGalaxyCount(); g++)
+        {
+            cGalaxy galaxy = universe.GetGalaxy(g);
+            for(int s = 0; s < galaxy.GetStarCount(); s++)
+            {
+                cStar star = galaxy.GetStar(s);
+                for(int p = 0; p < star.GetPlanetCount(); p++)
+                {
+                    if(star.GetPlanet(p).GetMoonCount() > 0)
+                    {
+                        return star.GetPlanet(p);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a universe contains a galaxy.
+     *
+     * @param universe the universe to search
+     * @param galaxy the galaxy to look for
+     * @return true if the galaxy is in the universe
+     */
+    private static boolean Contains(cUniverse universe, cGalaxy galaxy)
+    {
+        for(int g = 0; g < universe.GetGalaxyCount(); g++)
+        {
+            if(universe.GetGalaxy(g) == galaxy)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,90 @@
+package Tests;
+
+import java.util.concurrent.ForkJoinPool;
+
+import Data.cUniverse;
+
+/**
+ * Tests that parallel generation is deterministic and that the test universe is unchanged.
+ * A seed must give the same universe whatever the number of threads generating it, including when the
+ * stars of a galaxy are split between tasks, and the seed of TestUniverse must still give the universe
+ * it gave before generation was made parallel.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cParallelGeneratorTest extends cTestBase
+{
+    /**
+     * Seed of the parallel universes.
+     */
+    private static final long SEED = 1234567L;
+
+    /**
+     * Length of the text of the test universe, as first generated.
+     */
+    private static final int TEST_UNIVERSE_LENGTH = 14422;
+
+    /**
+     * Hash code of the text of the test universe, as first generated.
+     */
+    private static final int TEST_UNIVERSE_HASH = -1845893159;
+
+    /**
+     * Runs every case of this test.
+     */
+    @Override
+    public void Run()
+    {
+        SameUniverseOnAnyPool();
+        TestUniverseIsUnchanged();
+    }
+
+    /**
+     * A seed gives the same universe on one thread, on eight threads and on the common pool.
+     * Galaxies have more stars than a star range task generates without splitting.
+     */
+    private void SameUniverseOnAnyPool()
+    {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool eight = new ForkJoinPool(8);
+        try
+        {
+            String expected = Generate(single);
+            CheckEqual(expected, Generate(eight), "universe generated on eight threads");
+            CheckEqual(expected, Generate(ForkJoinPool.commonPool()), "universe generated on the common pool");
+            CheckEqual(expected, Generate(eight), "universe generated again on eight threads");
+        }
+        finally
+        {
+            single.shutdown();
+            eight.shutdown();
+        }
+    }
+
+    /**
+     * TestUniverse gives the same universe as before generation was made parallel.
+     */
+    private void TestUniverseIsUnchanged()
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        universe.TestUniverse();
+        String text = universe.ToString(true);
+        CheckEqual(TEST_UNIVERSE_LENGTH, text.length(), "length of the test universe");
+        CheckEqual(TEST_UNIVERSE_HASH, text.hashCode(), "hash code of the test universe");
+        Check(text.startsWith("Universe: (3)"), "test universe has three galaxies");
+    }
+
+    /**
+     * Generates the universe of SEED on a pool.
+     *
+     * @param pool the pool to generate on
+     * @return the text of the universe
+     */
+    private String Generate(ForkJoinPool pool)
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        universe.RandomUniverseParallel(SEED, 2, 4, 150, 200, 1, 4, 0, 3, pool);
+        return universe.ToString(true);
+    }
+}
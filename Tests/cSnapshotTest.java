@@ -0,0 +1,113 @@
+package Tests;
+
+import Data.cGalaxySnapshot;
+import Data.cPlanet;
+import Data.cStar;
+import Data.cStarSnapshot;
+import Data.cUniverse;
+import Data.cUniverseSnapshot;
+
+/**
+ * Tests that snapshots share the parts of the universe that did not change and never change themselves.
+ * A snapshot of an unchanged universe is the previous snapshot, a change only copies the path from the
+ * changed body up to the universe, and an old snapshot keeps its contents whatever happens to the universe.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cSnapshotTest extends cTestBase
+{
+    /**
+     * Runs every case of this test.
+     */
+    @Override
+    public void Run()
+    {
+        UnchangedUniverseSharesSnapshot();
+        ChangeCopiesOnlyItsPath();
+        OldSnapshotKeepsContents();
+    }
+
+    /**
+     * Taking a snapshot of an unchanged universe returns the previous snapshot.
+     */
+    private void UnchangedUniverseSharesSnapshot()
+    {
+        cUniverse universe = Generate();
+        cUniverseSnapshot first = universe.Snapshot();
+        Check(universe.Snapshot() == first, "snapshot of an unchanged universe is the previous snapshot");
+        Check(universe.GetLatestSnapshot() == first, "latest snapshot is the one taken");
+    }
+
+    /**
+     * Changing one star copies its galaxy and itself, and shares every other galaxy, star and planet.
+     */
+    private void ChangeCopiesOnlyItsPath()
+    {
+        cUniverse universe = Generate();
+        cUniverseSnapshot before = universe.Snapshot();
+        cStar star = universe.GetGalaxy(1).GetStar(2);
+        star.SetStarType(star.GetStarType() == cStar.eStarType.kClassO ? cStar.eStarType.kClassM : cStar.eStarType.kClassO);
+        cUniverseSnapshot after = universe.Snapshot();
+
+        Check(after != before, "snapshot after a change is new");
+        Check(universe.GetLatestSnapshot() == after, "latest snapshot is the new one");
+        for(int g = 0; g < after.GetGalaxyCount(); g++)
+        {
+            Check((after.GetGalaxy(g) == before.GetGalaxy(g)) == (g != 1), "only the changed galaxy is copied, galaxy " + g);
+        }
+        cGalaxySnapshot galaxyBefore = before.GetGalaxy(1);
+        cGalaxySnapshot galaxyAfter = after.GetGalaxy(1);
+        for(int s = 0; s < galaxyAfter.GetStarCount(); s++)
+        {
+            Check((galaxyAfter.GetStar(s) == galaxyBefore.GetStar(s)) == (s != 2), "only the changed star is copied, star " + s);
+        }
+        cStarSnapshot starBefore = galaxyBefore.GetStar(2);
+        cStarSnapshot starAfter = galaxyAfter.GetStar(2);
+        CheckEqual(star.GetStarType(), starAfter.GetStarType(), "type of the changed star in the new snapshot");
+        for(int p = 0; p < starAfter.GetPlanetCount(); p++)
+        {
+            Check(starAfter.GetPlanet(p) == starBefore.GetPlanet(p), "planets of the changed star are shared, planet " + p);
+        }
+    }
+
+    /**
+     * A snapshot keeps its contents and counts after the universe is changed in every way.
+     */
+    private void OldSnapshotKeepsContents()
+    {
+        cUniverse universe = Generate();
+        cUniverseSnapshot snapshot = universe.Snapshot();
+        String text = snapshot.ToString(true);
+        int stars = snapshot.GetStats().GetStarCount();
+        int moons = snapshot.GetStats().GetMoonCount();
+        double x = snapshot.GetGalaxy(0).GetStar(0).GetX();
+
+        cStar star = universe.GetGalaxy(0).GetStar(0);
+        star.SetName("Renamed");
+        star.SetPosition(1.0, 2.0, 3.0);
+        star.GetPlanet(0).AddMoon(new cPlanet("Added", mLogger));
+        star.RemovePlanet(star.GetPlanetCount() - 1);
+        universe.GetGalaxy(1).AddStar(new cStar("Added", mLogger));
+        universe.GetGalaxy(2).ClearStars();
+        universe.RemoveGalaxy(universe.GetGalaxy(0));
+        universe.Snapshot();
+
+        CheckEqual(text, snapshot.ToString(true), "contents of the old snapshot");
+        CheckEqual(stars, snapshot.GetStats().GetStarCount(), "stars of the old snapshot");
+        CheckEqual(moons, snapshot.GetStats().GetMoonCount(), "moons of the old snapshot");
+        CheckEqual(x, snapshot.GetGalaxy(0).GetStar(0).GetX(), "position of a star of the old snapshot");
+    }
+
+    /**
+     * Generates a universe of three galaxies with several stars, planets and moons each.
+     *
+     * @return the universe
+     */
+    private cUniverse Generate()
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        universe.RandomUniverse(99L, 3, 4, 5, 8, 2, 4, 1, 3);
+        return universe;
+    }
+}
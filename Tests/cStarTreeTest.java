@@ -0,0 +1,266 @@
+package Tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import Data.cGalaxy;
+import Data.cStar;
+
+/**
+ * Tests the spatial queries of a galaxy against a scan of all its stars.
+ * Each query is checked on a freshly built index, after a few stars are moved, added and removed, which
+ * the index keeps track of without rebuilding, and after so many changes that it is rebuilt.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cStarTreeTest extends cTestBase
+{
+    /**
+     * Number of stars the galaxy starts with.
+     */
+    private static final int STAR_COUNT = 2000;
+
+    /**
+     * Half of the width of the cube the stars are placed in, in light years.
+     */
+    private static final double EXTENT = 1000.0;
+
+    /**
+     * Number of query points checked after each change.
+     */
+    private static final int QUERY_COUNT = 20;
+
+    /**
+     * Source of the positions of the stars and of the queries.
+     */
+    private final Random mRandom = new Random(42);
+
+    /**
+     * Number of stars created so far, used to name them.
+     */
+    private int mCreated;
+
+    /**
+     * Runs every case of this test.
+     */
+    @Override
+    public void Run()
+    {
+        cGalaxy galaxy = new cGalaxy("Galaxy", mLogger);
+        ArrayList<cStar> stars = new ArrayList<cStar>();
+        for(int i = 0; i < STAR_COUNT; i++)
+        {
+            stars.add(NewStar());
+        }
+        galaxy.AddStars(stars);
+        CheckQueries(galaxy, "built index");
+
+        //A few changes stay in the pending list and the skipped stars of the tree.
+        Change(galaxy, stars, 10, 10, 10);
+        CheckQueries(galaxy, "few changes");
+        stars.get(0).SetPosition(1.0, 2.0, 3.0);
+        stars.get(0).SetPosition(-4.0, 5.0, -6.0);
+        cStar removed = stars.remove(1);
+        galaxy.RemoveStar(removed);
+        galaxy.AddStar(removed);
+        stars.add(removed);
+        CheckQueries(galaxy, "star moved twice and star removed and added again");
+
+        //Many moves, then many removals, go past the rebuild bound.
+        Change(galaxy, stars, 300, 0, 0);
+        CheckQueries(galaxy, "many moves");
+        Change(galaxy, stars, 0, 700, 0);
+        CheckQueries(galaxy, "many removals");
+        Change(galaxy, stars, 0, 0, 300);
+        CheckQueries(galaxy, "many additions");
+    }
+
+    /**
+     * Moves, removes and adds random stars of a galaxy.
+     *
+     * @param galaxy the galaxy
+     * @param stars the stars of the galaxy, kept up to date
+     * @param moves the number of stars to move
+     * @param removals the number of stars to remove
+     * @param additions the number of stars to add
+     */
+    private void Change(cGalaxy galaxy, List<cStar> stars, int moves, int removals, int additions)
+    {
+        for(int i = 0; i < moves; i++)
+        {
+            stars.get(mRandom.nextInt(stars.size())).SetPosition(Coordinate(), Coordinate(), Coordinate());
+        }
+        for(int i = 0; i < removals; i++)
+        {
+            galaxy.RemoveStar(stars.remove(mRandom.nextInt(stars.size())));
+        }
+        for(int i = 0; i < additions; i++)
+        {
+            cStar star = NewStar();
+            galaxy.AddStar(star);
+            stars.add(star);
+        }
+    }
+
+    /**
+     * Checks radius, nearest, box and frustum queries around random points against a scan.
+     *
+     * @param galaxy the galaxy to query
+     * @param state the changes made to the galaxy, for the messages
+     */
+    private void CheckQueries(cGalaxy galaxy, String state)
+    {
+        for(int q = 0; q < QUERY_COUNT; q++)
+        {
+            double x = Coordinate();
+            double y = Coordinate();
+            double z = Coordinate();
+            double radius = mRandom.nextDouble() * EXTENT / 2;
+            double size = mRandom.nextDouble() * EXTENT / 2;
+            int count = 1 + mRandom.nextInt(50);
+
+            //A box cut by a slanted plane, as a frustum.
+            double[] planes =
+            {
+                1, 0, 0, size - x,
+                -1, 0, 0, size + x,
+                0, 1, 0, size - y,
+                0, -1, 0, size + y,
+                0, 0, 1, size - z,
+                1, 1, -1, size - x - y + z
+            };
+
+            ArrayList<cStar> within = new ArrayList<cStar>();
+            ArrayList<cStar> inBox = new ArrayList<cStar>();
+            ArrayList<cStar> inside = new ArrayList<cStar>();
+            for(int i = 0; i < galaxy.GetStarCount(); i++)
+            {
+                cStar star = galaxy.GetStar(i);
+                double dx = star.GetX() - x;
+                double dy = star.GetY() - y;
+                double dz = star.GetZ() - z;
+                if(dx * dx + dy * dy + dz * dz <= radius * radius)
+                {
+                    within.add(star);
+                }
+                if(Math.abs(dx) <= size && Math.abs(dy) <= size && Math.abs(dz) <= size)
+                {
+                    inBox.add(star);
+                }
+                if(Inside(planes, star))
+                {
+                    inside.add(star);
+                }
+            }
+
+            CheckEqual(Names(within, true), Names(galaxy.FindStarsWithin(x, y, z, radius), true), "stars within a radius, " + state);
+            CheckEqual(Names(inBox, true), Names(galaxy.FindStarsInBox(x - size, y - size, z - size, x + size, y + size, z + size), true), "stars in a box, " + state);
+            CheckEqual(Names(inside, true), Names(galaxy.FindStarsInFrustum(planes), true), "stars in a frustum, " + state);
+            CheckEqual(Names(Nearest(galaxy, x, y, z, count), false), Names(galaxy.FindNearestStars(x, y, z, count), false), "nearest stars, " + state);
+        }
+    }
+
+    /**
+     * Finds the stars of a galaxy nearest to a point by sorting all of them by distance.
+     *
+     * @param galaxy the galaxy
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param z the z coordinate of the point
+     * @param count the number of stars to find
+     * @return the nearest stars, nearest first
+     */
+    private static List<cStar> Nearest(cGalaxy galaxy, double x, double y, double z, int count)
+    {
+        ArrayList<cStar> stars = new ArrayList<cStar>();
+        for(int i = 0; i < galaxy.GetStarCount(); i++)
+        {
+            stars.add(galaxy.GetStar(i));
+        }
+        stars.sort(Comparator.comparingDouble((cStar star) -> Distance(star, x, y, z)));
+        return stars.subList(0, Math.min(count, stars.size()));
+    }
+
+    /**
+     * Gets the squared distance of a star from a point.
+     *
+     * @param star the star
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param z the z coordinate of the point
+     * @return the squared distance
+     */
+    private static double Distance(cStar star, double x, double y, double z)
+    {
+        double dx = star.GetX() - x;
+        double dy = star.GetY() - y;
+        double dz = star.GetZ() - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Checks whether a star is inside every plane.
+     *
+     * @param planes the a, b, c and d of each plane
+     * @param star the star
+     * @return true if a*x + b*y + c*z + d &gt;= 0 for every plane
+     */
+    private static boolean Inside(double[] planes, cStar star)
+    {
+        for(int p = 0; p < planes.length; p += 4)
+        {
+            if(planes[p] * star.GetX() + planes[p + 1] * star.GetY() + planes[p + 2] * star.GetZ() + planes[p + 3] < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the names of stars.
+     *
+     * @param stars the stars
+     * @param sort true to sort the names, for queries that return stars in no particular order
+     * @return the names
+     */
+    private static List<String> Names(List<cStar> stars, boolean sort)
+    {
+        ArrayList<String> names = new ArrayList<String>();
+        for(cStar star : stars)
+        {
+            names.add(star.GetName());
+        }
+        if(sort)
+        {
+            Collections.sort(names);
+        }
+        return names;
+    }
+
+    /**
+     * Creates a star at a random position.
+     *
+     * @return the star
+     */
+    private cStar NewStar()
+    {
+        cStar star = new cStar("Star_" + mCreated++, mLogger);
+        star.SetPosition(Coordinate(), Coordinate(), Coordinate());
+        return star;
+    }
+
+    /**
+     * Gets a random coordinate inside the cube of the stars.
+     *
+     * @return the coordinate
+     */
+    private double Coordinate()
+    {
+        return (mRandom.nextDouble() * 2 - 1) * EXTENT;
+    }
+}
@@ -0,0 +1,50 @@
+package Tests;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import Data.cColumnarUniverse;
+import Data.cMappedUniverse;
+import Data.cPlanet;
+import Data.cUniverse;
+
+/**
+ * Tests that copying a universe through a sink either keeps every body or refuses the universe.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cStreamToTest extends cTestBase
+{
+    /**
+     * Runs every case of this test.
+     *
+     * @throws IOException if a temporary file cannot be used
+     */
+    @Override
+    public void Run() throws IOException
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        universe.RandomUniverse(4, 2, 3, 4, 8, 2, 5, 1, 3);
+        cColumnarUniverse columnar = cColumnarUniverse.FromUniverse(universe, mLogger);
+        CheckEqual(universe.ToString(true), columnar.ToString(true), "columnar copy");
+
+        cPlanet moon = universe.GetGalaxy(0).GetStar(0).GetPlanet(0).GetMoon(0);
+        moon.AddMoon(new cPlanet("Nested", mLogger));
+        CheckThrows(IllegalStateException.class, () -> cColumnarUniverse.FromUniverse(universe, mLogger), "columnar copy of a moon with moons");
+
+        Path directory = Files.createTempDirectory("starviewer");
+        Path file = directory.resolve("universe.map");
+        try
+        {
+            CheckThrows(IllegalStateException.class, () -> cMappedUniverse.Write(universe, file, mLogger), "mapped file of a moon with moons");
+            Check(!Files.exists(file), "no mapped file is written for a moon with moons");
+        }
+        finally
+        {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+}
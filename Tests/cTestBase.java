@@ -0,0 +1,147 @@
+package Tests;
+
+import java.util.Objects;
+
+import Logging.cLoggingBase;
+import Logging.cLoggingBase.eLogLevel;
+import Logging.cLoggingDecorator;
+
+/**
+ * Abstract base class of the tests run by cTestRunner.
+ * A test runs its cases in Run and records each expectation with the Check methods; failed checks are
+ * counted and reported without stopping the test, so one run shows every broken expectation.
+ * Tests only use the JDK, so they build and run with the rest of the sources and need no test framework.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public abstract class cTestBase
+{
+    /**
+     * Action expected to throw, for CheckThrows.
+     */
+    @FunctionalInterface
+    protected interface iAction
+    {
+        /**
+         * Runs the action.
+         *
+         * @throws Exception if the action fails
+         */
+        void Run() throws Exception;
+    }
+
+    /**
+     * Logger that discards every message, for the objects under test.
+     */
+    protected final cLoggingBase mLogger = new cLoggingDecorator(null, eLogLevel.kOff);
+
+    /**
+     * Number of checks made so far.
+     */
+    private int mChecks;
+
+    /**
+     * Number of checks that failed so far.
+     */
+    private int mFailures;
+
+    /**
+     * Runs every case of this test.
+     *
+     * @throws Exception if a case fails unexpectedly, which counts as a failure
+     */
+    public abstract void Run() throws Exception;
+
+    /**
+     * Gets the name of this test, as reported by the runner.
+     *
+     * @return the name of this test
+     */
+    public String GetName()
+    {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Gets the number of checks made so far.
+     *
+     * @return the number of checks
+     */
+    public int GetChecks()
+    {
+        return mChecks;
+    }
+
+    /**
+     * Gets the number of checks that failed so far.
+     *
+     * @return the number of failed checks
+     */
+    public int GetFailures()
+    {
+        return mFailures;
+    }
+
+    /**
+     * Records a failure that was not found by a check, such as an unexpected exception.
+     *
+     * @param message what went wrong
+     */
+    public void Fail(String message)
+    {
+        mChecks++;
+        mFailures++;
+        IO.println("  FAILED " + GetName() + ": " + message);
+    }
+
+    /**
+     * Checks that a condition holds.
+     *
+     * @param condition the condition
+     * @param message what the condition means, reported if it does not hold
+     */
+    protected void Check(boolean condition, String message)
+    {
+        if(condition)
+        {
+            mChecks++;
+        }
+        else
+        {
+            Fail(message);
+        }
+    }
+
+    /**
+     * Checks that a value is the expected one.
+     *
+     * @param expected the expected value
+     * @param actual the actual value
+     * @param message what the value is, reported with both values if they differ
+     */
+    protected void CheckEqual(Object expected, Object actual, String message)
+    {
+        Check(Objects.equals(expected, actual), message + ": expected " + expected + " but was " + actual);
+    }
+
+    /**
+     * Checks that an action throws an exception of the expected type.
+     *
+     * @param type the type of exception expected
+     * @param action the action to run
+     * @param message what the action does, reported if it does not throw as expected
+     */
+    protected void CheckThrows(Class<? extends Throwable> type, iAction action, String message)
+    {
+        try
+        {
+            action.Run();
+            Fail(message + ": expected " + type.getSimpleName() + " but nothing was thrown");
+        }
+        catch(Throwable e)
+        {
+            Check(type.isInstance(e), message + ": expected " + type.getSimpleName() + " but got " + e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package Tests;
+
+/**
+ * Runs every test and reports the results.
+ * The process exits with status 1 if any check failed, so the runner can be used as a build gate.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cTestRunner
+{
+    /**
+     * Runs every test.
+     *
+     * @param args command-line arguments, which are ignored
+     */
+    public static void main(String[] args)
+    {
+        cTestBase[] tests =
+        {
+            new cLoggingTest(),
+            new cGenerationHandleTest(),
+            new cObjectArenaTest(),
+            new cStreamToTest(),
+            new cMappedUniverseTest(),
+            new cUniverseFileTest(),
+            new cBodyTypeTest(),
+            new cNameLookupTest(),
+            new cParallelGeneratorTest(),
+            new cStarTreeTest(),
+            new cConcurrentUniverseTest(),
+            new cSnapshotTest()
+        };
+
+        int checks = 0;
+        int failures = 0;
+        for(cTestBase test : tests)
+        {
+            try
+            {
+                test.Run();
+            }
+            catch(Throwable e)
+            {
+                test.Fail("unexpected " + e);
+                e.printStackTrace();
+            }
+            IO.println((test.GetFailures() == 0 ? "PASSED " : "FAILED ") + test.GetName() + " (" + test.GetChecks() + " checks)");
+            checks += test.GetChecks();
+            failures += test.GetFailures();
+        }
+
+        IO.println(failures + " of " + checks + " checks failed");
+        if(failures > 0)
+        {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package Tests;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import Data.cFileUniverse;
+import Data.cGalaxy;
+import Data.cObjectBase;
+import Data.cOrbit;
+import Data.cPlanet;
+import Data.cStar;
+import Data.cUniverse;
+
+/**
+ * Tests that universes saved to universe files or exported as JSON read back with every name, type,
+ * position and orbit they had, and that damaged files are refused with an IOException.
+ *
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cUniverseFileTest extends cTestBase
+{
+    /**
+     * Directory of the files written by this test.
+     */
+    private Path mDirectory;
+
+    /**
+     * Runs every case of this test.
+     *
+     * @throws IOException if a temporary file cannot be used
+     */
+    @Override
+    public void Run() throws IOException
+    {
+        mDirectory = Files.createTempDirectory("starviewer");
+        try
+        {
+            RoundTrip();
+            EmptyUniverse();
+            DamagedUniverseFile();
+            OpenDamagedUniverseFile();
+            DamagedJson();
+            LoadIntoGeneratedUniverse();
+        }
+        finally
+        {
+            try(var files = Files.list(mDirectory))
+            {
+                for(Path file : (Iterable<Path>)files::iterator)
+                {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(mDirectory);
+        }
+    }
+
+    /**
+     * A generated universe, with a moon of a moon and names that need escaping added, reads back unchanged
+     * from an uncompressed file, a compressed file and JSON.
+     *
+     * @throws IOException if a file cannot be used
+     */
+    private void RoundTrip() throws IOException
+    {
+        cUniverse source = new cUniverse(mLogger);
+        source.RandomUniverse(5, 2, 3, 3, 5, 1, 4, 1, 3);
+        cPlanet moon = source.GetGalaxy(0).GetStar(0).GetPlanet(0).GetMoon(0);
+        cPlanet nested = new cPlanet("Moonlet \"\u00e9\\\u2603\"", cPlanet.ePlanetType.kIceGiant, mLogger);
+        nested.SetPosition(-0.5, 1e-9, 3.25);
+        nested.SetOrbit(new cOrbit(0.001, 0.25, 0.1, 2.0, 3.0, -1.0, 1.5));
+        moon.AddMoon(nested);
+        source.GetGalaxy(1).SetName("Galaxy \t\u00e9");
+        String expected = Describe(source);
+        Check(expected.contains(" orbit "), "generated universe has orbits");
+
+        cUniverse loaded = new cUniverse(mLogger);
+        source.Save(mDirectory.resolve("universe.svu"));
+        loaded.Load(mDirectory.resolve("universe.svu"));
+        CheckEqual(expected, Describe(loaded), "universe file");
+
+        source.Save(mDirectory.resolve("compressed.svu"), true);
+        loaded.Load(mDirectory.resolve("compressed.svu"));
+        CheckEqual(expected, Describe(loaded), "compressed universe file");
+
+        source.ExportJson(mDirectory.resolve("universe.jsonl"));
+        loaded.ImportJson(mDirectory.resolve("universe.jsonl"));
+        CheckEqual(expected, Describe(loaded), "JSON");
+    }
+
+    /**
+     * An empty universe reads back empty, replacing the galaxies of the universe read into.
+     *
+     * @throws IOException if a file cannot be used
+     */
+    private void EmptyUniverse() throws IOException
+    {
+        cUniverse empty = new cUniverse(mLogger);
+        empty.Save(mDirectory.resolve("empty.svu"));
+        empty.ExportJson(mDirectory.resolve("empty.jsonl"));
+
+        cUniverse loaded = new cUniverse(mLogger);
+        loaded.RandomUniverse(3, 1, 2, 1, 2, 1, 2, 0, 1);
+        loaded.Load(mDirectory.resolve("empty.svu"));
+        CheckEqual(0, loaded.GetGalaxyCount(), "galaxies loaded from an empty universe file");
+
+        loaded.RandomUniverse(3, 1, 2, 1, 2, 1, 2, 0, 1);
+        loaded.ImportJson(mDirectory.resolve("empty.jsonl"));
+        CheckEqual(0, loaded.GetGalaxyCount(), "galaxies imported from an empty JSON file");
+    }
+
+    /**
+     * Universe files with a bad magic number or cut short are refused.
+     *
+     * @throws IOException if a file cannot be used
+     */
+    private void DamagedUniverseFile() throws IOException
+    {
+        cUniverse source = new cUniverse(mLogger);
+        source.RandomUniverse(9, 2, 3, 2, 4, 1, 3, 0, 2);
+        Path file = mDirectory.resolve("source.svu");
+        source.Save(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        cUniverse loaded = new cUniverse(mLogger);
+        loaded.RandomUniverse(3, 1, 2, 1, 2, 1, 2, 0, 1);
+        String before = Describe(loaded);
+        byte[] magic = bytes.clone();
+        magic[0] ^= 0x55;
+        Path damaged = mDirectory.resolve("damaged.svu");
+        Files.write(damaged, magic);
+        CheckThrows(IOException.class, () -> loaded.Load(damaged), "loading a file with a bad magic number");
+        CheckEqual(before, Describe(loaded), "universe after refusing a file with a bad magic number");
+
+        for(int length : new int[] {0, 3, bytes.length / 2, bytes.length - 1})
+        {
+            Files.write(damaged, Arrays.copyOf(bytes, length));
+            CheckThrows(IOException.class, () -> loaded.Load(damaged), "loading a file cut to " + length + " of " + bytes.length + " bytes");
+        }
+    }
+
+    /**
+     * Opening universe files whose counts exceed the file is refused before anything is allocated for them.
+     *
+     * @throws IOException if a file cannot be used
+     */
+    private void OpenDamagedUniverseFile() throws IOException
+    {
+        cUniverse source = new cUniverse(mLogger);
+        source.RandomUniverse(9, 2, 3, 2, 4, 1, 3, 0, 2);
+        Path file = mDirectory.resolve("source.svu");
+        source.Save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        cFileUniverse opened = cFileUniverse.Open(file, mLogger);
+        CheckEqual(Describe(source), Describe(opened), "opened universe file");
+        opened.Close();
+
+        Path damaged = mDirectory.resolve("damaged.svu");
+        ByteBuffer names = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        names.putInt(12, Integer.MAX_VALUE);
+        Files.write(damaged, names.array());
+        CheckThrows(IOException.class, () -> cFileUniverse.Open(damaged, mLogger), "opening a file with a name count beyond the file");
+
+        //A galaxy count with a matching index offset before the header.
+        ByteBuffer galaxies = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        int count = Integer.MAX_VALUE - 8;
+        galaxies.putInt(8, count);
+        galaxies.putLong(bytes.length - 12, bytes.length - 12 - 8L * count);
+        Files.write(damaged, galaxies.array());
+        CheckThrows(IOException.class, () -> cFileUniverse.Open(damaged, mLogger), "opening a file with a galaxy count beyond the file");
+    }
+
+    /**
+     * JSON files with a record that is not valid or cut short are refused.
+     *
+     * @throws IOException if a file cannot be used
+     */
+    private void DamagedJson() throws IOException
+    {
+        cUniverse source = new cUniverse(mLogger);
+        source.RandomUniverse(9, 2, 3, 2, 4, 1, 3, 0, 2);
+        Path file = mDirectory.resolve("source.jsonl");
+        source.ExportJson(file);
+        String text = Files.readString(file, StandardCharsets.UTF_8);
+
+        cUniverse imported = new cUniverse(mLogger);
+        imported.RandomUniverse(3, 1, 2, 1, 2, 1, 2, 0, 1);
+        String before = Describe(imported);
+        Path damaged = mDirectory.resolve("damaged.jsonl");
+        Files.writeString(damaged, "not json\n" + text, StandardCharsets.UTF_8);
+        CheckThrows(IOException.class, () -> imported.ImportJson(damaged), "importing a file whose first record is not JSON");
+        CheckEqual(before, Describe(imported), "universe after refusing a file whose first record is not JSON");
+
+        Files.writeString(damaged, text.substring(0, text.length() / 2), StandardCharsets.UTF_8);
+        CheckThrows(IOException.class, () -> imported.ImportJson(damaged), "importing a file cut in the middle of a record");
+    }
+
+    /**
+     * Reading into a universe that was generated before keeps bodies stored at the origin there,
+     * although the generated objects reused for them had other positions.
+     *
+     * @throws IOException if a file cannot be used
+     */
+    private void LoadIntoGeneratedUniverse() throws IOException
+    {
+        cUniverse source = new cUniverse(mLogger);
+        cGalaxy galaxy = new cGalaxy("Origin", cGalaxy.eGalaxyType.kSpiralB, mLogger);
+        cStar star = new cStar("Sun", cStar.eStarType.kClassG, mLogger);
+        cPlanet planet = new cPlanet("Earth", cPlanet.ePlanetType.kTerrestrial, mLogger);
+        planet.AddMoon(new cPlanet("Moon", cPlanet.ePlanetType.kTerrestrial, mLogger));
+        star.AddPlanet(planet);
+        galaxy.AddStar(star);
+        source.AddGalaxy(galaxy);
+
+        Path file = mDirectory.resolve("origin.svu");
+        source.Save(file);
+        cUniverse loaded = new cUniverse(mLogger);
+        loaded.RandomUniverse(11, 2, 3, 2, 3, 2, 3, 2, 3);
+        loaded.Load(file);
+        CheckEqual(Describe(source), Describe(loaded), "universe file loaded into a generated universe");
+
+        Path json = mDirectory.resolve("origin.jsonl");
+        source.ExportJson(json);
+        cUniverse imported = new cUniverse(mLogger);
+        imported.RandomUniverse(11, 2, 3, 2, 3, 2, 3, 2, 3);
+        imported.ImportJson(json);
+        CheckEqual(Describe(source), Describe(imported), "JSON imported into a generated universe");
+    }
+
+    /**
+     * Describes every body of a universe with its name, type, position and orbit, one per line.
+     *
+     * @param universe the universe to describe
+     * @return the description of the universe
+     */
+    private static String Describe(cUniverse universe)
+    {
+        StringBuilder builder = new StringBuilder();
+        for(int g = 0; g < universe.GetGalaxyCount(); g++)
+        {
+            cGalaxy galaxy = universe.GetGalaxy(g);
+            Describe(builder, 0, galaxy, galaxy.GetType());
+            for(int s = 0; s < galaxy.GetStarCount(); s++)
+            {
+                cStar star = galaxy.GetStar(s);
+                Describe(builder, 1, star, star.GetStarType());
+                for(int p = 0; p < star.GetPlanetCount(); p++)
+                {
+                    Describe(builder, 2, star.GetPlanet(p));
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Describes a planet or moon and, below it, its moons.
+     *
+     * @param builder the description to append to
+     * @param depth the depth of the body below its galaxy
+     * @param planet the planet or moon
+     */
+    private static void Describe(StringBuilder builder, int depth, cPlanet planet)
+    {
+        Describe(builder, depth, planet, planet.GetPlanetType());
+        cOrbit orbit = planet.GetOrbit();
+        if(orbit != null)
+        {
+            builder.setLength(builder.length() - 1);
+            builder.append(" orbit ").append(orbit.GetSemiMajorAxis()).append(' ').append(orbit.GetEccentricity())
+                   .append(' ').append(orbit.GetInclination()).append(' ').append(orbit.GetAscendingNode())
+                   .append(' ').append(orbit.GetPeriapsisArgument()).append(' ').append(orbit.GetMeanAnomaly())
+                   .append(' ').append(orbit.GetPeriod()).append('\n');
+        }
+        for(int m = 0; m < planet.GetMoonCount(); m++)
+        {
+            Describe(builder, depth + 1, planet.GetMoon(m));
+        }
+    }
+
+    /**
+     * Describes one body.
+     *
+     * @param builder the description to append to
+     * @param depth the depth of the body below its galaxy
+     * @param body the body
+     * @param type the type of the body
+     */
+    private static void Describe(StringBuilder builder, int depth, cObjectBase body, Enum<?> type)
+    {
+        builder.append("  ".repeat(depth)).append(body.GetName()).append(' ').append(type)
+               .append(" at ").append(body.GetX()).append(' ').append(body.GetY()).append(' ').append(body.GetZ()).append('\n');
+    }
+}
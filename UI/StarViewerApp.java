@@ -1,6 +1,13 @@
 package UI;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Orientation;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -24,8 +31,35 @@ public class StarViewerApp extends Application
     private VBox detailPanel;
     private Label titleLabel;
     private TextArea propertiesArea;
+    private ProgressBar generationProgress;
+    private Button cancelButton;
     
     private cUniverse universe;
+    
+    /**
+     * Universe that is not displayed, regenerated in the background and then swapped with the
+     * displayed one. Alternating between two universes lets each reuse its generated objects.
+     */
+    private cUniverse spareUniverse;
+
+    /**
+     * Background thread that runs universe generation so the UI stays responsive.
+     */
+    private final ExecutorService generationExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "StarViewer generation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Handle of the generation currently running, or null if none is.
+     */
+    private cGenerationHandle generationHandle;
+    
+    /**
+     * Timer that copies the generation progress to the progress bar every frame.
+     */
+    private AnimationTimer progressTimer;
 
     /**
      * Main entry point for graphical application of StarViewer.
@@ -105,10 +139,16 @@ public class StarViewerApp extends Application
         Button refreshButton = new Button("Refresh");
         Button generateButton = new Button("Generate New Universe");
         
+        cancelButton = new Button("Cancel");
+        cancelButton.setDisable(true);
+        generationProgress = new ProgressBar(0);
+        generationProgress.setVisible(false);
+        
         refreshButton.setOnAction(e -> RefreshTreeView());
         generateButton.setOnAction(e -> GenerateNewUniverse());
+        cancelButton.setOnAction(e -> CancelGeneration());
         
-        controls.getChildren().addAll(refreshButton, generateButton);
+        controls.getChildren().addAll(refreshButton, generateButton, cancelButton, generationProgress);
         
         treePanel.getChildren().addAll(controls, treeView);
         VBox.setVgrow(treeView, Priority.ALWAYS);
@@ -163,39 +203,61 @@ public class StarViewerApp extends Application
         TreeItem<Object> rootItem = new TreeItem<>(universe);
         rootItem.setExpanded(true);
         
-        // Add galaxies
-        for (int i = 0; i < universe.GetGalaxyCount(); i++) {
-            cGalaxy galaxy = universe.GetGalaxy(i);
-            TreeItem<Object> galaxyItem = new TreeItem<>(galaxy);
-            galaxyItem.setExpanded(false);
+        // Add galaxies, stars, planets and moons in one walk, keeping the open items on a stack
+        Deque<TreeItem<Object>> open = new ArrayDeque<>();
+        open.push(rootItem);
+        universe.Accept(new iUniverseVisitor() {
+            @Override
+            public boolean OnGalaxy(cGalaxy galaxy) {
+                return Open(galaxy);
+            }
             
-            // Add stars to this galaxy
-            for (int j = 0; j < galaxy.GetStarCount(); j++) {
-                cStar star = galaxy.GetStar(j);
-                TreeItem<Object> starItem = new TreeItem<>(star);
-                starItem.setExpanded(false);
-                
-                // Add planets to this star
-                for (int k = 0; k < star.GetPlanetCount(); k++) {
-                    cPlanet planet = star.GetPlanet(k);
-                    TreeItem<Object> planetItem = new TreeItem<>(planet);
-                    planetItem.setExpanded(false);
-                    
-                    // Add moons to this planet
-                    for (int l = 0; l < planet.GetMoonCount(); l++) {
-                        cPlanet moon = planet.GetMoon(l);
-                        TreeItem<Object> moonItem = new TreeItem<>(moon);
-                        planetItem.getChildren().add(moonItem);
-                    }
-                    
-                    starItem.getChildren().add(planetItem);
-                }
-                
-                galaxyItem.getChildren().add(starItem);
+            @Override
+            public void EndGalaxy(cGalaxy galaxy) {
+                open.pop();
             }
             
-            rootItem.getChildren().add(galaxyItem);
-        }
+            @Override
+            public boolean OnStar(cStar star) {
+                return Open(star);
+            }
+            
+            @Override
+            public void EndStar(cStar star) {
+                open.pop();
+            }
+            
+            @Override
+            public boolean OnPlanet(cPlanet planet) {
+                return Open(planet);
+            }
+            
+            @Override
+            public void EndPlanet(cPlanet planet) {
+                open.pop();
+            }
+            
+            @Override
+            public boolean OnMoon(cPlanet moon, int depth) {
+                return Open(moon);
+            }
+            
+            @Override
+            public void EndMoon(cPlanet moon, int depth) {
+                open.pop();
+            }
+            
+            /**
+             * Adds a collapsed item for a body to the item of its parent and opens it for the children of the body.
+             */
+            private boolean Open(Object body) {
+                TreeItem<Object> item = new TreeItem<>(body);
+                item.setExpanded(false);
+                open.peek().getChildren().add(item);
+                open.push(item);
+                return true;
+            }
+        });
         
         treeView.setRoot(rootItem);
         
@@ -254,43 +316,8 @@ public class StarViewerApp extends Application
     
     private void DisplayUniverseDetails(cUniverse universe) 
     {
-        // Calculate aggregate statistics
-        int totalStars = 0;
-        int totalPlanets = 0;
-        int totalMoons = 0;
-        
-        java.util.Map<String, Integer> galaxyTypeCount = new java.util.HashMap<>();
-        java.util.Map<String, Integer> starTypeCount = new java.util.HashMap<>();
-        java.util.Map<String, Integer> planetTypeCount = new java.util.HashMap<>();
-
-        for (int i = 0; i < universe.GetGalaxyCount(); i++) 
-        {
-            cGalaxy galaxy = universe.GetGalaxy(i);
-            String galaxyType = galaxy.GetType().toString().replace("k", "");
-            galaxyTypeCount.put(galaxyType, galaxyTypeCount.getOrDefault(galaxyType, 0) + 1);
-
-            for (int j = 0; j < galaxy.GetStarCount(); j++) 
-            {
-                cStar star = galaxy.GetStar(j);
-                String starType = star.GetStarType().toString().replace("kClass", "");
-                starTypeCount.put(starType, starTypeCount.getOrDefault(starType, 0) + 1);
-
-                for (int k = 0; k < star.GetPlanetCount(); k++) 
-                {
-                    cPlanet planet = star.GetPlanet(k);
-                    String planetType = planet.GetPlanetType().toString().replace("k", "");
-                    planetTypeCount.put(planetType, planetTypeCount.getOrDefault(planetType, 0) + 1);
-                    for(int e = 0; e < planet.GetMoonCount(); e++) {
-                        cPlanet moon = planet.GetMoon(e);
-                        String moonType = moon.GetPlanetType().toString().replace("k", "");
-                        planetTypeCount.put(moonType, planetTypeCount.getOrDefault(moonType, 0) + 1);
-                    }
-                    totalMoons += planet.GetMoonCount();
-                }
-                totalPlanets += star.GetPlanetCount();
-            }
-            totalStars += galaxy.GetStarCount();
-        }
+        // Aggregate statistics are kept up to date by the universe, so no walk is needed
+        cSubtreeStats stats = universe.GetStats();
 
         titleLabel.setText("Universe Details");
 
@@ -298,11 +325,11 @@ public class StarViewerApp extends Application
         props.append("═══════════════════════════════════════════════════════════════\n");
         props.append("                          UNIVERSE DETAILS                         \n");
         props.append("═══════════════════════════════════════════════════════════════\n\n");
-        props.append("Total Galaxies: ").append(universe.GetGalaxyCount()).append("\n");
-        props.append("Total Star Systems: ").append(totalStars).append("\n");
-        props.append("Total Planets: ").append(totalPlanets).append("\n");
-        props.append("Total Moons: ").append(totalMoons).append("\n");
-        props.append("Total Celestial Objects: ").append(universe.GetGalaxyCount() + totalStars + totalPlanets + totalMoons).append("\n\n");
+        props.append("Total Galaxies: ").append(stats.GetGalaxyCount()).append("\n");
+        props.append("Total Star Systems: ").append(stats.GetStarCount()).append("\n");
+        props.append("Total Planets: ").append(stats.GetPlanetCount()).append("\n");
+        props.append("Total Moons: ").append(stats.GetMoonCount()).append("\n");
+        props.append("Total Celestial Objects: ").append(stats.GetGalaxyCount() + stats.GetStarCount() + stats.GetPlanetCount() + stats.GetMoonCount()).append("\n\n");
         
         if (universe.GetGalaxyCount() > 0) {
             props.append("BREAKDOWN BY GALACTIC CLASSIFICATION:\n");
@@ -316,50 +343,17 @@ public class StarViewerApp extends Application
             }
         }
         props.append("\n");
-        if (!starTypeCount.isEmpty()) {
-            props.append("BREAKDOWN BY STELLAR CLASSIFICATION:\n");
-            props.append("───────────────────────────────────────────────────────────────\n");
-            for (java.util.Map.Entry<String, Integer> entry : starTypeCount.entrySet()) {
-                props.append(String.format("%-10s: %3d stars\n", entry.getKey() + "-type", entry.getValue()));
-            }
-        }
+        AppendStarTypes(props, stats);
         props.append("\n");
-        if (!planetTypeCount.isEmpty()) {
-            props.append("BREAKDOWN BY PLANETARY CLASSIFICATION:\n");
-            props.append("───────────────────────────────────────────────────────────────\n");
-            for (java.util.Map.Entry<String, Integer> entry : planetTypeCount.entrySet()) {
-                props.append(String.format("%-10s: %3d planets\n", entry.getKey() + "-type", entry.getValue()));
-            }
-        }
+        AppendPlanetTypes(props, stats, "%-10s: %3d planets\n", "-type");
 
         propertiesArea.setText(props.toString());
     }
     
     private void DisplayGalaxyDetails(cGalaxy galaxy) 
     {
-        // Calculate statistics
-        int totalPlanets = 0;
-        int totalMoons = 0;
-        java.util.Map<String, Integer> starTypeCount = new java.util.HashMap<>();
-        java.util.Map<String, Integer> planetTypeCount = new java.util.HashMap<>();
-
-        for (int i = 0; i < galaxy.GetStarCount(); i++) {
-            cStar star = galaxy.GetStar(i);
-            String starType = star.GetStarType().toString().replace("kClass", "");
-            starTypeCount.put(starType, starTypeCount.getOrDefault(starType, 0) + 1);
-            for(int e = 0; e < star.GetPlanetCount(); e++) {
-                cPlanet planet = star.GetPlanet(e);
-                String planetType = planet.GetPlanetType().toString().replace("k", "");
-                planetTypeCount.put(planetType, planetTypeCount.getOrDefault(planetType, 0) + 1);
-                for(int j = 0; j < planet.GetMoonCount(); j++) {
-                    cPlanet moon = planet.GetMoon(j);
-                    String moonType = moon.GetPlanetType().toString().replace("k", "");
-                    planetTypeCount.put(moonType, planetTypeCount.getOrDefault(moonType, 0) + 1);
-                }
-                totalMoons += planet.GetMoonCount();
-            }
-            totalPlanets += star.GetPlanetCount();
-        }
+        // Statistics are kept up to date by the galaxy, so no walk is needed
+        cSubtreeStats stats = galaxy.GetStats();
 
         titleLabel.setText(galaxy.GetName() + " - Galaxy Details");
 
@@ -369,25 +363,14 @@ public class StarViewerApp extends Application
         props.append("═══════════════════════════════════════════════════════════════\n\n");
         props.append("Galaxy Name: ").append(galaxy.GetName()).append("\n");
         props.append("Galactic Classification: ").append(galaxy.GetType().toString().replace("k", "")).append("\n");
+        props.append(String.format("Position: (%.0f, %.0f, %.0f) ly\n", galaxy.GetX(), galaxy.GetY(), galaxy.GetZ()));
         props.append("Total Star Systems: ").append(galaxy.GetStarCount()).append("\n");
-        props.append("Total Planets: ").append(totalPlanets).append("\n");
-        props.append("Total Moons: ").append(totalMoons).append("\n\n");
+        props.append("Total Planets: ").append(stats.GetPlanetCount()).append("\n");
+        props.append("Total Moons: ").append(stats.GetMoonCount()).append("\n\n");
         
-        if (!starTypeCount.isEmpty()) {
-            props.append("BREAKDOWN BY STELLAR CLASSIFICATION:\n");
-            props.append("───────────────────────────────────────────────────────────────\n");
-            for (java.util.Map.Entry<String, Integer> entry : starTypeCount.entrySet()) {
-                props.append(String.format("%-10s: %3d stars\n", entry.getKey() + "-type", entry.getValue()));
-            }
-        }
+        AppendStarTypes(props, stats);
         props.append("\n");
-        if (!planetTypeCount.isEmpty()) {
-            props.append("BREAKDOWN BY PLANETARY CLASSIFICATION:\n");
-            props.append("───────────────────────────────────────────────────────────────\n");
-            for (java.util.Map.Entry<String, Integer> entry : planetTypeCount.entrySet()) {
-                props.append(String.format("%-10s: %3d planets\n", entry.getKey() + "-type", entry.getValue()));
-            }
-        }
+        AppendPlanetTypes(props, stats, "%-10s: %3d planets\n", "-type");
         
         propertiesArea.setText(props.toString());
     }
@@ -395,21 +378,8 @@ public class StarViewerApp extends Application
     private void DisplayStarDetails(cStar star) {
         titleLabel.setText(star.GetName() + " - Star System Details");
         
-        // Calculate planetary statistics
-        int totalMoons = 0;
-        java.util.Map<String, Integer> planetTypeCount = new java.util.HashMap<>();
-        
-        for (int i = 0; i < star.GetPlanetCount(); i++) {
-            cPlanet planet = star.GetPlanet(i);
-            String planetType = planet.GetPlanetType().toString().replace("k", "");
-            planetTypeCount.put(planetType, planetTypeCount.getOrDefault(planetType, 0) + 1);
-            for(int e = 0; e < planet.GetMoonCount(); e++) {
-                cPlanet moon = planet.GetMoon(e);
-                String moonType = moon.GetPlanetType().toString().replace("k", "");
-                planetTypeCount.put(moonType, planetTypeCount.getOrDefault(moonType, 0) + 1);
-            }
-            totalMoons += planet.GetMoonCount();
-        }
+        // Planetary statistics are kept up to date by the star, so no walk is needed
+        cSubtreeStats stats = star.GetStats();
 
         StringBuilder props = new StringBuilder();
         props.append("═══════════════════════════════════════════════════════════════\n");
@@ -417,18 +387,53 @@ public class StarViewerApp extends Application
         props.append("═══════════════════════════════════════════════════════════════\n\n");
         props.append("Star Name: ").append(star.GetName()).append("\n");
         props.append("Stellar Classification: ").append(star.GetStarType().toString().replace("kClass", "")).append("-type\n");
+        props.append(String.format("Position in Galaxy: (%.0f, %.0f, %.0f) ly\n", star.GetX(), star.GetY(), star.GetZ()));
         props.append("Total Planets: ").append(star.GetPlanetCount()).append("\n");
-        props.append("Total Moons: ").append(totalMoons).append("\n\n");
+        props.append("Total Moons: ").append(stats.GetMoonCount()).append("\n\n");
+        
+        AppendPlanetTypes(props, stats, "%-15s: %2d planets\n", "");
         
-        if (!planetTypeCount.isEmpty()) {
+        propertiesArea.setText(props.toString());
+    }
+
+    /**
+     * Appends the number of stars of each stellar classification, if there are any stars.
+     * 
+     * @param props the text to append to
+     * @param stats the statistics of the selected object
+     */
+    private void AppendStarTypes(StringBuilder props, cSubtreeStats stats) {
+        if (stats.GetStarCount() > 0) {
+            props.append("BREAKDOWN BY STELLAR CLASSIFICATION:\n");
+            props.append("───────────────────────────────────────────────────────────────\n");
+            for (cStar.eStarType type : cStar.eStarType.values()) {
+                int count = stats.GetStarTypeCount(type);
+                if (count > 0) {
+                    props.append(String.format("%-10s: %3d stars\n", type.toString().replace("kClass", "") + "-type", count));
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the number of planets and moons of each planetary classification, if there are any.
+     * 
+     * @param props the text to append to
+     * @param stats the statistics of the selected object
+     * @param format the format of a line, taking the type name and the count
+     * @param suffix text appended to the type name
+     */
+    private void AppendPlanetTypes(StringBuilder props, cSubtreeStats stats, String format, String suffix) {
+        if (stats.GetPlanetCount() + stats.GetMoonCount() > 0) {
             props.append("BREAKDOWN BY PLANETARY CLASSIFICATION:\n");
             props.append("───────────────────────────────────────────────────────────────\n");
-            for (java.util.Map.Entry<String, Integer> entry : planetTypeCount.entrySet()) {
-                props.append(String.format("%-15s: %2d planets\n", entry.getKey(), entry.getValue()));
+            for (cPlanet.ePlanetType type : cPlanet.ePlanetType.values()) {
+                int count = stats.GetPlanetTypeCount(type) + stats.GetMoonTypeCount(type);
+                if (count > 0) {
+                    props.append(String.format(format, type.toString().replace("k", "") + suffix, count));
+                }
             }
         }
-        
-        propertiesArea.setText(props.toString());
     }
     
     private void DisplayPlanetDetails(cPlanet planet) 
@@ -441,6 +446,7 @@ public class StarViewerApp extends Application
         props.append("═══════════════════════════════════════════════════════════════\n\n");
         props.append("Planet Name: ").append(planet.GetName()).append("\n");
         props.append("Planetary Classification: ").append(planet.GetPlanetType().toString().replace("k", "")).append("\n");
+        props.append(String.format("Position in System: (%.2f, %.2f, %.2f) AU\n", planet.GetX(), planet.GetY(), planet.GetZ()));
         props.append("Total Moons: ").append(planet.GetMoonCount()).append("\n\n");
         
         if (planet.GetMoonCount() > 0) 
@@ -478,18 +484,71 @@ public class StarViewerApp extends Application
     }
     
     /**
-     * Generates a new random universe
+     * Generates a new random universe in the background, showing its progress.
+     * The current universe stays visible until the new one is complete.
      */
     private void GenerateNewUniverse() {
-        universe.ClearGalaxies();
-        universe.RandomUniverse(1, 4, 12, 24, 1, 12, 0, 8);
-        RefreshTreeView();
+        CancelGeneration();
+        
+        if (spareUniverse == null) {
+            spareUniverse = new cUniverse();
+        }
+        cGenerationHandle generation = spareUniverse.RandomUniverseAsync(0, 1, 4, 12, 24, 1, 12, 0, 8, generationExecutor);
+        generationHandle = generation;
+        
+        generationProgress.setProgress(0);
+        generationProgress.setVisible(true);
+        cancelButton.setDisable(false);
+        progressTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                generationProgress.setProgress(generation.GetProgress());
+            }
+        };
+        progressTimer.start();
+        
+        generation.GetFuture().whenComplete((result, error) -> Platform.runLater(() -> {
+            // Ignore generations that were replaced by a newer one
+            if (generation != generationHandle) {
+                return;
+            }
+            EndGeneration();
+            if (error == null) {
+                spareUniverse = universe;
+                universe = result;
+                RefreshTreeView();
+            }
+        }));
+    }
+    
+    /**
+     * Cancels the running generation, if any, and keeps the current universe
+     */
+    private void CancelGeneration() {
+        if (generationHandle != null) {
+            generationHandle.Cancel();
+            EndGeneration();
+        }
+    }
+    
+    /**
+     * Hides the generation progress once a generation has finished or been cancelled
+     */
+    private void EndGeneration() {
+        generationHandle = null;
+        if (progressTimer != null) {
+            progressTimer.stop();
+            progressTimer = null;
+        }
+        generationProgress.setVisible(false);
+        cancelButton.setDisable(true);
     }
     
     /**
      * Loads the test universe
      */
     private void LoadTestUniverse() {
+        CancelGeneration();
         universe.ClearGalaxies();
         universe.TestUniverse();
         RefreshTreeView();
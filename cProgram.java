@@ -1,3 +1,9 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+
 import Data.*;
 import Logging.*;
 import Logging.cLoggingBase.eLogLevel;
@@ -27,6 +33,11 @@ public class cProgram
         cLoggingDecorator logger = null;
         eLogLevel lvl = eLogLevel.kWarning;
         String filepath = "";
+        String loadpath = "";
+        String savepath = "";
+        boolean compress = false;
+        String importpath = "";
+        String exportpath = "";
 
         //Parse command line arguments.
         if(args.length > 0)
@@ -70,6 +81,36 @@ public class cProgram
                     filepath = args[i + 1];
                     i+=2;
                 }
+                //Get the universe file to start from.
+                else if(arg.equals("-load"))
+                {
+                    loadpath = args[i + 1];
+                    i+=2;
+                }
+                //Get the universe file to save to on exit.
+                else if(arg.equals("-save"))
+                {
+                    savepath = args[i + 1];
+                    i+=2;
+                }
+                //Compress the universe file saved on exit.
+                else if(arg.equals("-compress"))
+                {
+                    compress = true;
+                    i++;
+                }
+                //Get the JSON file to start from.
+                else if(arg.equals("-import"))
+                {
+                    importpath = args[i + 1];
+                    i+=2;
+                }
+                //Get the JSON file to export to on exit.
+                else if(arg.equals("-export"))
+                {
+                    exportpath = args[i + 1];
+                    i+=2;
+                }
                 //Print help message.
                 else if(arg.equals("-help"))
                 {
@@ -77,6 +118,11 @@ public class cProgram
                     IO.println("  -version    Display the current version.");
                     IO.println("  -lvl        Set the logging level.");
                     IO.println("  -log        Enable text file logging and set the file path.");
+                    IO.println("  -load       Load the universe from a universe file instead of generating it.");
+                    IO.println("  -save       Save the universe to a universe file on exit.");
+                    IO.println("  -compress   Compress each galaxy of the universe file written by -save.");
+                    IO.println("  -import     Import the universe from a newline delimited JSON file instead of generating it.");
+                    IO.println("  -export     Export the universe as newline delimited JSON on exit.");
                     IO.println("  -help       Display this help message.");
                     
                     //Terminate after help message.
@@ -119,13 +165,77 @@ public class cProgram
         IO.println("Starting StarViewer " + VERSION);
 
         cUniverse universe = new cUniverse(logger);
-        universe.TestUniverse();
+        if(!loadpath.isEmpty())
+        {
+            try
+            {
+                universe.Load(Path.of(loadpath));
+            }
+            catch(IOException e)
+            {
+                IO.println("Cannot load " + loadpath + ", generating a test universe instead.");
+                universe.TestUniverse();
+            }
+        }
+        else if(!importpath.isEmpty())
+        {
+            try
+            {
+                universe.ImportJson(Path.of(importpath));
+            }
+            catch(IOException e)
+            {
+                IO.println("Cannot import " + importpath + ", generating a test universe instead.");
+                universe.TestUniverse();
+            }
+        }
+        else
+        {
+            universe.TestUniverse();
+        }
 
-        IO.println(universe.ToString());
+        //Stream the universe to the console instead of building it as one string first.
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, System.out.charset()));
+        try
+        {
+            universe.Render(out, Integer.MAX_VALUE);
+            out.write(System.lineSeparator());
+            out.flush();
+        }
+        catch(IOException e)
+        {
+            logger.LogError("Cannot print universe: " + e.getMessage());
+        }
 
         IO.println("Press any key to exit.");
         IO.readln();
 
+        //Save the universe if asked to.
+        if(!savepath.isEmpty())
+        {
+            try
+            {
+                universe.Save(Path.of(savepath), compress);
+            }
+            catch(IOException e)
+            {
+                IO.println("Cannot save " + savepath + ".");
+            }
+        }
+
+        //Export the universe if asked to.
+        if(!exportpath.isEmpty())
+        {
+            try
+            {
+                universe.ExportJson(Path.of(exportpath));
+            }
+            catch(IOException e)
+            {
+                IO.println("Cannot export " + exportpath + ".");
+            }
+        }
+
         //Close file if it was opened.
         if(file_logger != null)
         {
@@ -0,0 +1,45 @@
+package Benchmarks;
+
+import Data.cGalaxy;
+import Data.cPlanet;
+import Data.cStar;
+import Data.iUniverseSink;
+
+/**
+ * Universe sink that only counts the streamed bodies, so streaming generation can be measured
+ * without the cost of writing the bodies anywhere.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public class cCountingSink implements iUniverseSink
+{
+    /**
+     * Number of bodies received so far.
+     */
+    public long mBodies;
+
+    @Override
+    public void BeginGalaxy(String name, cGalaxy.eGalaxyType type)
+    {
+        mBodies++;
+    }
+
+    @Override
+    public void BeginStar(String name, cStar.eStarType type)
+    {
+        mBodies++;
+    }
+
+    @Override
+    public void BeginPlanet(String name, cPlanet.ePlanetType type)
+    {
+        mBodies++;
+    }
+
+    @Override
+    public void OnMoon(String name, cPlanet.ePlanetType type)
+    {
+        mBodies++;
+    }
+}
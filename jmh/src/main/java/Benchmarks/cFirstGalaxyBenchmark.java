@@ -0,0 +1,131 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Data.cGalaxy;
+import Data.cLazyUniverse;
+import Data.cUniverse;
+import Logging.cLoggingBase;
+import Logging.cLoggingBase.eLogLevel;
+import Logging.cLoggingDecorator;
+
+/**
+ * Time from starting a generation until the first galaxy can be read, at every scale.
+ * Eager generation has to build the whole universe first, streaming stops at the end of
+ * the first galaxy and the lazy universe only materializes the galaxy that is read.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xms8g", "-Xmx8g"})
+public class cFirstGalaxyBenchmark
+{
+    /**
+     * Size of the generated universes.
+     */
+    @Param({"kThousands", "kHundredThousands", "kMillions", "kTensOfMillions"})
+    public eScale mScale;
+
+    private cLoggingBase mLogger;
+
+    /**
+     * Creates the silent logger shared by all invocations.
+     */
+    @Setup
+    public void Setup()
+    {
+        mLogger = new cLoggingDecorator(null, eLogLevel.kOff);
+    }
+
+    /**
+     * Builds the whole universe and reads its first galaxy.
+     * 
+     * @return the first galaxy
+     */
+    @Benchmark
+    public cGalaxy RandomUniverse()
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        universe.RandomUniverse(cGenerationBenchmark.SEED, mScale.mMinGalaxies, mScale.mMaxGalaxies, mScale.mMinStars, mScale.mMaxStars,
+                                eScale.MIN_PLANETS, eScale.MAX_PLANETS, eScale.MIN_MOONS, eScale.MAX_MOONS);
+        return universe.GetGalaxy(0);
+    }
+
+    /**
+     * Streams the universe until the first galaxy is complete.
+     * 
+     * @return the number of bodies streamed before stopping
+     */
+    @Benchmark
+    public long StreamRandomUniverse()
+    {
+        cFirstGalaxySink sink = new cFirstGalaxySink();
+        try
+        {
+            new cUniverse(mLogger).StreamRandomUniverse(cGenerationBenchmark.SEED, mScale.mMinGalaxies, mScale.mMaxGalaxies, mScale.mMinStars, mScale.mMaxStars,
+                                                        eScale.MIN_PLANETS, eScale.MAX_PLANETS, eScale.MIN_MOONS, eScale.MAX_MOONS, sink);
+        }
+        catch(cFirstGalaxySink.cStop e)
+        {
+            //Expected once the first galaxy is complete.
+        }
+        return sink.mBodies;
+    }
+
+    /**
+     * Creates a lazy universe and reads the first star of its first galaxy.
+     * 
+     * @return the first galaxy
+     */
+    @Benchmark
+    public cGalaxy LazyUniverse()
+    {
+        cLazyUniverse universe = new cLazyUniverse(cGenerationBenchmark.SEED, mScale.mMinGalaxies, mScale.mMaxGalaxies, mScale.mMinStars, mScale.mMaxStars,
+                                                   eScale.MIN_PLANETS, eScale.MAX_PLANETS, eScale.MIN_MOONS, eScale.MAX_MOONS, mLogger);
+        cGalaxy galaxy = universe.GetGalaxy(0);
+        galaxy.GetStar(0);
+        return galaxy;
+    }
+
+    /**
+     * Counting sink that stops the stream once the first galaxy is complete.
+     */
+    static final class cFirstGalaxySink extends cCountingSink
+    {
+        /**
+         * Thrown to stop streaming, without a stack trace since it is not an error.
+         */
+        static final class cStop extends RuntimeException
+        {
+            private static final long serialVersionUID = 1L;
+
+            cStop()
+            {
+                super(null, null, false, false);
+            }
+        }
+
+        @Override
+        public void EndGalaxy()
+        {
+            throw new cStop();
+        }
+    }
+}
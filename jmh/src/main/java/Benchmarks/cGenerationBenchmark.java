@@ -0,0 +1,103 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Data.cUniverse;
+import Logging.cLoggingBase;
+import Logging.cLoggingBase.eLogLevel;
+import Logging.cLoggingDecorator;
+
+/**
+ * Throughput of the universe generators at every scale, with logging switched off.
+ * Run with "-prof gc" to also report the allocation rate.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgs = {"-Xms8g", "-Xmx8g"})
+public class cGenerationBenchmark
+{
+    /**
+     * Seed used by every generation so that all runs build the same universes.
+     */
+    public static final long SEED = 42;
+
+    /**
+     * Size of the generated universes.
+     */
+    @Param({"kThousands", "kHundredThousands", "kMillions", "kTensOfMillions"})
+    public eScale mScale;
+
+    /**
+     * Logger that discards every message.
+     */
+    private cLoggingBase mLogger;
+
+    /**
+     * Creates the silent logger shared by all invocations.
+     */
+    @Setup
+    public void Setup()
+    {
+        mLogger = new cLoggingDecorator(null, eLogLevel.kOff);
+    }
+
+    /**
+     * Sequential generation building the whole tree.
+     * 
+     * @return the generated universe
+     */
+    @Benchmark
+    public cUniverse RandomUniverse()
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        universe.RandomUniverse(SEED, mScale.mMinGalaxies, mScale.mMaxGalaxies, mScale.mMinStars, mScale.mMaxStars,
+                                eScale.MIN_PLANETS, eScale.MAX_PLANETS, eScale.MIN_MOONS, eScale.MAX_MOONS);
+        return universe;
+    }
+
+    /**
+     * Fork-join generation building the whole tree on the common pool.
+     * 
+     * @return the generated universe
+     */
+    @Benchmark
+    public cUniverse RandomUniverseParallel()
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        universe.RandomUniverseParallel(SEED, mScale.mMinGalaxies, mScale.mMaxGalaxies, mScale.mMinStars, mScale.mMaxStars,
+                                        eScale.MIN_PLANETS, eScale.MAX_PLANETS, eScale.MIN_MOONS, eScale.MAX_MOONS);
+        return universe;
+    }
+
+    /**
+     * Sequential generation streamed to a sink that only counts bodies.
+     * 
+     * @return the number of generated bodies
+     */
+    @Benchmark
+    public long StreamRandomUniverse()
+    {
+        cCountingSink sink = new cCountingSink();
+        new cUniverse(mLogger).StreamRandomUniverse(SEED, mScale.mMinGalaxies, mScale.mMaxGalaxies, mScale.mMinStars, mScale.mMaxStars,
+                                                    eScale.MIN_PLANETS, eScale.MAX_PLANETS, eScale.MIN_MOONS, eScale.MAX_MOONS, sink);
+        return sink.mBodies;
+    }
+}
@@ -0,0 +1,138 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Data.cUniverse;
+import Logging.cLoggingBase;
+import Logging.cLoggingBase.eLogLevel;
+import Logging.cLoggingConsole;
+import Logging.cLoggingFile;
+
+/**
+ * Cost of logging during generation, for every logger and log level.
+ * Uses TestUniverse and the smallest RandomUniverse scale, since console and file logging
+ * at trace level write several lines per generated body.
+ * Run with "-prof gc" to also report the allocation rate.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class cLoggingBenchmark
+{
+    /**
+     * Logger the universe logs to: the shared standby logger, a console logger or a file logger.
+     */
+    @Param({"standby", "console", "file"})
+    public String mLoggerKind;
+
+    /**
+     * Log level of the logger.
+     */
+    @Param({"kOff", "kWarning", "kInfo", "kTrace"})
+    public eLogLevel mLevel;
+
+    private cLoggingBase mLogger;
+    private Path mLogDirectory;
+
+    /**
+     * Creates the logger, using a fresh temporary directory for file logging.
+     * 
+     * @throws IOException if the temporary directory cannot be created
+     */
+    @Setup
+    public void Setup() throws IOException
+    {
+        switch(mLoggerKind)
+        {
+            case "console":
+                mLogger = new cLoggingConsole(mLevel);
+                break;
+            case "file":
+                mLogDirectory = Files.createTempDirectory("starviewer-bench");
+                mLogger = new cLoggingFile(mLogDirectory.resolve("bench.log").toString(), mLevel);
+                break;
+            case "standby":
+            default:
+                mLogger = cLoggingBase.GetStandbyLogger();
+                mLogger.SetLogLevel(mLevel);
+                break;
+        }
+    }
+
+    /**
+     * Closes the file logger and deletes its directory, and restores the standby logger's default level.
+     * 
+     * @throws IOException if the temporary directory cannot be deleted
+     */
+    @TearDown
+    public void TearDown() throws IOException
+    {
+        if(mLogger instanceof cLoggingFile)
+        {
+            ((cLoggingFile)mLogger).Close();
+        }
+        if(mLogDirectory != null)
+        {
+            try(Stream<Path> paths = Files.walk(mLogDirectory))
+            {
+                for(Path p : paths.sorted(Comparator.reverseOrder()).toList())
+                {
+                    Files.delete(p);
+                }
+            }
+        }
+        cLoggingBase.GetStandbyLogger().SetLogLevel(eLogLevel.kDebug);
+    }
+
+    /**
+     * Generates the default test universe.
+     * 
+     * @return the generated universe
+     */
+    @Benchmark
+    public cUniverse TestUniverse()
+    {
+        cUniverse universe = new cUniverse(mLogger);
+        universe.TestUniverse();
+        return universe;
+    }
+
+    /**
+     * Generates a universe of about a thousand bodies.
+     * 
+     * @return the generated universe
+     */
+    @Benchmark
+    public cUniverse RandomUniverse()
+    {
+        eScale scale = eScale.kThousands;
+        cUniverse universe = new cUniverse(mLogger);
+        universe.RandomUniverse(cGenerationBenchmark.SEED, scale.mMinGalaxies, scale.mMaxGalaxies, scale.mMinStars, scale.mMaxStars,
+                                eScale.MIN_PLANETS, eScale.MAX_PLANETS, eScale.MIN_MOONS, eScale.MAX_MOONS);
+        return universe;
+    }
+}
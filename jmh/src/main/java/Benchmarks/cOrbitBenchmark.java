@@ -0,0 +1,88 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Data.cOrbitPropagator;
+import Data.cUniverse;
+import Logging.cLoggingBase.eLogLevel;
+import Logging.cLoggingDecorator;
+
+/**
+ * Throughput of orbit propagation with the Vector API solver and the scalar one. Each invocation moves
+ * every planet and moon of the universe one day forward, so the score times the number of planets and
+ * moons at the scale gives the orbits solved per second.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g", "--add-modules=jdk.incubator.vector"})
+public class cOrbitBenchmark
+{
+    /**
+     * Size of the generated universes.
+     */
+    @Param({"kThousands", "kHundredThousands", "kMillions"})
+    public eScale mScale;
+
+    /**
+     * Whether the Vector API solver is used.
+     */
+    @Param({"true", "false"})
+    public boolean mVectorized;
+
+    private cOrbitPropagator mPropagator;
+
+    private double[] mX;
+
+    private double[] mY;
+
+    private double[] mZ;
+
+    private double mTime;
+
+    /**
+     * Generates the universe and packs its orbits.
+     */
+    @Setup
+    public void Setup()
+    {
+        cUniverse universe = new cUniverse(new cLoggingDecorator(null, eLogLevel.kOff));
+        universe.RandomUniverse(cGenerationBenchmark.SEED, mScale.mMinGalaxies, mScale.mMaxGalaxies, mScale.mMinStars, mScale.mMaxStars,
+                                eScale.MIN_PLANETS, eScale.MAX_PLANETS, eScale.MIN_MOONS, eScale.MAX_MOONS);
+        mPropagator = new cOrbitPropagator(universe);
+        mPropagator.SetVectorized(mVectorized);
+        mX = new double[mPropagator.GetBodyCount()];
+        mY = new double[mPropagator.GetBodyCount()];
+        mZ = new double[mPropagator.GetBodyCount()];
+    }
+
+    /**
+     * Propagates every orbit to the next day.
+     * 
+     * @return the x coordinate of the first body, so the work is not eliminated
+     */
+    @Benchmark
+    public double Propagate()
+    {
+        mTime += 1;
+        mPropagator.Propagate(mTime, mX, mY, mZ);
+        return mX[0];
+    }
+}
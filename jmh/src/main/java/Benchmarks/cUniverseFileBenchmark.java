@@ -0,0 +1,138 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Data.cFileUniverse;
+import Data.cPlanet;
+import Data.cUniverse;
+import Logging.cLoggingBase;
+import Logging.cLoggingBase.eLogLevel;
+import Logging.cLoggingDecorator;
+
+/**
+ * Time to save a generated universe to a universe file and to load it back, at every scale, with and
+ * without compression. Loading goes into the same universe each time, so its arena supplies the bodies
+ * as it would when a viewer reopens files. Opening maps the file instead and only decodes the first star,
+ * after decompressing the first galaxy of compressed files.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xms8g", "-Xmx8g"})
+public class cUniverseFileBenchmark
+{
+    /**
+     * Size of the saved universes.
+     */
+    @Param({"kThousands", "kHundredThousands", "kMillions"})
+    public eScale mScale;
+
+    /**
+     * Whether each galaxy block is compressed.
+     */
+    @Param({"false", "true"})
+    public boolean mCompressed;
+
+    private cLoggingBase mLogger;
+
+    private cUniverse mUniverse;
+
+    private cUniverse mLoaded;
+
+    private Path mFile;
+
+    /**
+     * Generates the universe and saves it once, so that loading has a file to read.
+     * 
+     * @throws IOException if the temporary file cannot be written
+     */
+    @Setup
+    public void Setup() throws IOException
+    {
+        mLogger = new cLoggingDecorator(null, eLogLevel.kOff);
+        mUniverse = new cUniverse(mLogger);
+        mUniverse.RandomUniverse(cGenerationBenchmark.SEED, mScale.mMinGalaxies, mScale.mMaxGalaxies, mScale.mMinStars, mScale.mMaxStars,
+                                 eScale.MIN_PLANETS, eScale.MAX_PLANETS, eScale.MIN_MOONS, eScale.MAX_MOONS);
+        mLoaded = new cUniverse(mLogger);
+        mFile = Files.createTempFile("starviewer", ".svuf");
+        mUniverse.Save(mFile, mCompressed);
+    }
+
+    /**
+     * Deletes the temporary file.
+     * 
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown
+    public void TearDown() throws IOException
+    {
+        Files.deleteIfExists(mFile);
+    }
+
+    /**
+     * Saves the universe to the file.
+     * 
+     * @return the size of the file
+     * @throws IOException if the file cannot be written
+     */
+    @Benchmark
+    public long Save() throws IOException
+    {
+        mUniverse.Save(mFile, mCompressed);
+        return Files.size(mFile);
+    }
+
+    /**
+     * Loads the universe from the file.
+     * 
+     * @return the loaded universe
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    public cUniverse Load() throws IOException
+    {
+        mLoaded.Load(mFile);
+        return mLoaded;
+    }
+
+    /**
+     * Maps the file and reads the first planet of the first star, decoding only that star.
+     * 
+     * @return the first planet
+     * @throws IOException if the file cannot be opened
+     */
+    @Benchmark
+    public cPlanet Open() throws IOException
+    {
+        cFileUniverse universe = cFileUniverse.Open(mFile, mLogger);
+        try
+        {
+            return universe.GetGalaxy(0).GetStar(0).GetPlanet(0);
+        }
+        finally
+        {
+            universe.Close();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import Data.cUniverse;
+import Logging.cLoggingBase;
+import Logging.cLoggingBase.eLogLevel;
+import Logging.cLoggingDecorator;
+
+/**
+ * Time to export a generated universe as newline delimited JSON and to import it back, at every scale.
+ * Importing goes into the same universe each time, so its arena supplies the bodies. Dividing the size
+ * of the file returned by Export by either time gives the throughput in bytes per second.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xms8g", "-Xmx8g"})
+public class cUniverseJsonBenchmark
+{
+    /**
+     * Size of the exported universes.
+     */
+    @Param({"kThousands", "kHundredThousands", "kMillions"})
+    public eScale mScale;
+
+    private cUniverse mUniverse;
+
+    private cUniverse mImported;
+
+    private Path mFile;
+
+    /**
+     * Generates the universe and exports it once, so that importing has a file to read.
+     * 
+     * @throws IOException if the temporary file cannot be written
+     */
+    @Setup
+    public void Setup() throws IOException
+    {
+        cLoggingBase logger = new cLoggingDecorator(null, eLogLevel.kOff);
+        mUniverse = new cUniverse(logger);
+        mUniverse.RandomUniverse(cGenerationBenchmark.SEED, mScale.mMinGalaxies, mScale.mMaxGalaxies, mScale.mMinStars, mScale.mMaxStars,
+                                 eScale.MIN_PLANETS, eScale.MAX_PLANETS, eScale.MIN_MOONS, eScale.MAX_MOONS);
+        mImported = new cUniverse(logger);
+        mFile = Files.createTempFile("starviewer", ".ndjson");
+        mUniverse.ExportJson(mFile);
+    }
+
+    /**
+     * Deletes the temporary file.
+     * 
+     * @throws IOException if the file cannot be deleted
+     */
+    @TearDown
+    public void TearDown() throws IOException
+    {
+        Files.deleteIfExists(mFile);
+    }
+
+    /**
+     * Exports the universe to the file.
+     * 
+     * @return the size of the file
+     * @throws IOException if the file cannot be written
+     */
+    @Benchmark
+    public long Export() throws IOException
+    {
+        mUniverse.ExportJson(mFile);
+        return Files.size(mFile);
+    }
+
+    /**
+     * Imports the universe from the file.
+     * 
+     * @return the imported universe
+     * @throws IOException if the file cannot be read
+     */
+    @Benchmark
+    public cUniverse Import() throws IOException
+    {
+        mImported.ImportJson(mFile);
+        return mImported;
+    }
+}
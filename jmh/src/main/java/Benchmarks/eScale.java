@@ -0,0 +1,49 @@
+package Benchmarks;
+
+/**
+ * Universe sizes used by the benchmarks, from thousands to tens of millions of bodies.
+ * Each scale holds the ranges for which RandomUniverse, with the benchmark seed, generates
+ * roughly the named number of galaxies, stars, planets and moons. RandomUniverse draws the
+ * number of children again on every loop iteration, which keeps counts close to the minimums;
+ * the parallel and lazy generators draw each count once and produce larger universes.
+ * 
+ * @author Stephen Hyberger
+ * @version 1.0
+ */
+public enum eScale
+{
+    /** About one thousand bodies */
+    kThousands(2, 3, 30, 40),
+    /** About one hundred thousand bodies */
+    kHundredThousands(3, 4, 3000, 3200),
+    /** About one million bodies */
+    kMillions(4, 5, 20000, 22000),
+    /** About ten million bodies */
+    kTensOfMillions(8, 9, 100000, 110000);
+
+    /** Planets per star used at every scale */
+    public static final int MIN_PLANETS = 1;
+    /** Planets per star used at every scale */
+    public static final int MAX_PLANETS = 12;
+    /** Moons per planet used at every scale */
+    public static final int MIN_MOONS = 0;
+    /** Moons per planet used at every scale */
+    public static final int MAX_MOONS = 6;
+
+    /** Minimum number of galaxies */
+    public final int mMinGalaxies;
+    /** Maximum number of galaxies */
+    public final int mMaxGalaxies;
+    /** Minimum number of stars per galaxy */
+    public final int mMinStars;
+    /** Maximum number of stars per galaxy */
+    public final int mMaxStars;
+
+    eScale(int minGalaxies, int maxGalaxies, int minStars, int maxStars)
+    {
+        mMinGalaxies = minGalaxies;
+        mMaxGalaxies = maxGalaxies;
+        mMinStars = minStars;
+        mMaxStars = maxStars;
+    }
+}